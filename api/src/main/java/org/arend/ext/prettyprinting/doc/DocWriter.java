@@ -0,0 +1,223 @@
+package org.arend.ext.prettyprinting.doc;
+
+import org.arend.ext.module.LongName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a document to an {@link Appendable} line by line.
+ * The output is the same as the output of {@link DocStringBuilder},
+ * but the document is not linearized as a whole.
+ * Leaves of the document are still rendered as a whole: the text of a {@link CachingDoc} such as {@link TermDoc}
+ * is produced by the pretty printer, which measures rendered subterms to choose its layout.
+ * Thus, the memory used by the writer is bounded by the largest term in the document rather than by the document itself.
+ */
+public class DocWriter extends LineDocVisitor {
+  private final Appendable out;
+  private final Map<Doc, Height> heights = new IdentityHashMap<>();
+  private boolean separate;
+
+  private record Height(int indent, boolean indentFirst, int lines) {}
+
+  public DocWriter(Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes {@code doc} to {@code out} without a trailing line separator.
+   *
+   * @throws UncheckedIOException if {@code out} throws an {@link IOException}.
+   */
+  public static void write(Appendable out, Doc doc) {
+    new DocWriter(out).writeDoc(doc, 0, false);
+  }
+
+  private void append(CharSequence text) {
+    try {
+      out.append(text);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void startLine() {
+    if (separate) {
+      append("\n");
+    }
+    separate = true;
+  }
+
+  private void writeLine(LineDoc doc) {
+    startLine();
+    doc.accept(this, false);
+  }
+
+  /**
+   * @return the number of lines in {@code doc.linearize(indent, indentFirst)}.
+   */
+  private int getHeight(Doc doc, int indent, boolean indentFirst) {
+    if (doc instanceof LineDoc) {
+      return 1;
+    }
+    Height height = heights.get(doc);
+    if (height != null && height.indent == indent && height.indentFirst == indentFirst) {
+      return height.lines;
+    }
+
+    int result;
+    if (doc instanceof VListDoc) {
+      result = 0;
+      for (Doc subDoc : ((VListDoc) doc).getDocs()) {
+        int lines = getHeight(subDoc, indent, indentFirst);
+        if (lines > 0) {
+          indentFirst = true;
+        }
+        result += lines;
+      }
+    } else if (doc instanceof HangDoc) {
+      Doc top = ((HangDoc) doc).getTop();
+      Doc bottom = ((HangDoc) doc).getBottom();
+      int topHeight = getHeight(top, indent, indentFirst);
+      if (topHeight == 0) {
+        result = getHeight(bottom, indent + HangDoc.INDENT, indentFirst);
+      } else if (bottom.isNull()) {
+        result = topHeight;
+      } else if (topHeight == 1) {
+        int width = top.linearize(indent, indentFirst).get(0).getWidth();
+        result = fits(width, bottom) ? Math.max(getHeight(bottom, width + 1, false), 1) : 1 + getHeight(bottom, indent + HangDoc.INDENT, true);
+      } else {
+        result = topHeight + getHeight(bottom, indent + HangDoc.INDENT, true);
+      }
+    } else if (doc instanceof CachingDoc) {
+      result = writeCaching((CachingDoc) doc, indent, indentFirst, false);
+    } else {
+      result = doc.linearize(indent, indentFirst).size();
+    }
+    heights.put(doc, new Height(indent, indentFirst, result));
+    return result;
+  }
+
+  private static boolean fits(int topWidth, Doc bottom) {
+    return bottom.isSingleLine() || topWidth + (bottom.isEmpty() ? 0 : 1) <= HangDoc.MAX_INDENT;
+  }
+
+  /**
+   * Writes lines of {@code doc.linearize(indent, indentFirst)}.
+   * The first line continues the current one unless the current one is already finished.
+   *
+   * @return the number of written lines.
+   */
+  private int writeDoc(Doc doc, int indent, boolean indentFirst) {
+    if (doc instanceof LineDoc) {
+      startLine();
+      if (indentFirst && indent > 0) {
+        append(HangDoc.getIndent(indent));
+      }
+      doc.accept(this, false);
+      return 1;
+    }
+
+    if (doc instanceof VListDoc) {
+      int lines = 0;
+      for (Doc subDoc : ((VListDoc) doc).getDocs()) {
+        int subLines = writeDoc(subDoc, indent, indentFirst);
+        if (subLines > 0) {
+          indentFirst = true;
+        }
+        lines += subLines;
+      }
+      return lines;
+    }
+
+    if (doc instanceof HangDoc) {
+      Doc top = ((HangDoc) doc).getTop();
+      Doc bottom = ((HangDoc) doc).getBottom();
+      int topHeight = getHeight(top, indent, indentFirst);
+      if (topHeight == 0) {
+        return writeDoc(bottom, indent + HangDoc.INDENT, indentFirst);
+      }
+      if (bottom.isNull()) {
+        return writeDoc(top, indent, indentFirst);
+      }
+      if (topHeight == 1) {
+        LineDoc lineDoc = top.linearize(indent, indentFirst).get(0);
+        writeLine(lineDoc);
+        if (fits(lineDoc.getWidth(), bottom)) {
+          append(" ");
+          separate = false;
+          int lines = writeDoc(bottom, lineDoc.getWidth() + 1, false);
+          separate = true;
+          return Math.max(lines, 1);
+        }
+        return 1 + writeDoc(bottom, indent + HangDoc.INDENT, true);
+      }
+      return writeDoc(top, indent, indentFirst) + writeDoc(bottom, indent + HangDoc.INDENT, true);
+    }
+
+    if (doc instanceof CachingDoc) {
+      return writeCaching((CachingDoc) doc, indent, indentFirst, true);
+    }
+
+    List<LineDoc> lines = doc.linearize(indent, indentFirst);
+    for (LineDoc line : lines) {
+      writeLine(line);
+    }
+    return lines.size();
+  }
+
+  /**
+   * Writes or counts lines of {@link CachingDoc#linearize} without collecting them into a list.
+   *
+   * @return the number of lines.
+   */
+  private int writeCaching(CachingDoc doc, int indent, boolean indentFirst, boolean write) {
+    int lines = 0;
+    for (String text : doc.getText()) {
+      LineDoc line = doc.getLineDoc(indent == 0 || !indentFirst && lines == 0 ? null : HangDoc.getIndent(indent), text, lines == 0);
+      if (line != null) {
+        if (write) {
+          writeLine(line);
+        }
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  @Override
+  public Void visitHList(HListDoc listDoc, Boolean newLine) {
+    for (LineDoc doc : listDoc.getDocs()) {
+      doc.accept(this, false);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitText(TextDoc doc, Boolean newLine) {
+    append(doc.getText());
+    return null;
+  }
+
+  @Override
+  public Void visitTermLine(TermLineDoc doc, Boolean newLine) {
+    append(doc.getText());
+    return null;
+  }
+
+  @Override
+  public Void visitPattern(PatternDoc doc, Boolean newLine) {
+    append(doc.getText());
+    return null;
+  }
+
+  @Override
+  public Void visitReference(ReferenceDoc doc, Boolean newLine) {
+    LongName longName = doc.getReference().isClassField() ? null : doc.getReference().getRefLongName();
+    append(longName == null || longName.toList().isEmpty() ? doc.getReference().getRefName() : longName.toString());
+    return null;
+  }
+}
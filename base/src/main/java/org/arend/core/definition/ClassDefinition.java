@@ -43,6 +43,7 @@ public class ClassDefinition extends TopLevelDefinition implements CoreClassDefi
   private Map<ClassDefinition, Levels> mySuperLevels = Collections.emptyMap();
   private final Set<ClassField> myOmegaFields = new HashSet<>();
   private UniverseKind myBaseUniverseKind = UniverseKind.NO_UNIVERSES;
+  private volatile Map<ClassField, Integer> myFieldIndices; // null until the class is finished
 
   public ClassDefinition(TCDefReferable referable) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -306,6 +307,33 @@ public class ClassDefinition extends TopLevelDefinition implements CoreClassDefi
     return myNotImplementedFields.size();
   }
 
+  /**
+   * Assigns positions to fields of this class in the order of {@link #forFields}.
+   * It should be invoked once the fields of the class are known, that is, when the class is typechecked or deserialized.
+   */
+  public void updateFieldIndices() {
+    Map<ClassField, Integer> indices = new HashMap<>();
+    forFields(field -> indices.putIfAbsent(field, indices.size()));
+    myFieldIndices = indices;
+  }
+
+  /**
+   * @return the position of {@code field} in this class, or -1 if the class is not finished yet or does not contain the field.
+   */
+  public int getFieldIndex(ClassField field) {
+    Map<ClassField, Integer> indices = myFieldIndices;
+    Integer index = indices == null ? null : indices.get(field);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * @return the number of fields that have positions in this class.
+   */
+  public int getNumberOfFieldIndices() {
+    Map<ClassField, Integer> indices = myFieldIndices;
+    return indices == null ? 0 : indices.size();
+  }
+
   public void addField(ClassField field) {
     myNotImplementedFields.add(field);
   }
@@ -506,5 +534,6 @@ public class ClassDefinition extends TopLevelDefinition implements CoreClassDefi
     myImplemented.clear();
     myOverridden.clear();
     myCoercingField = null;
+    myFieldIndices = null;
   }
 }
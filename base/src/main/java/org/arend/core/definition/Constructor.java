@@ -35,6 +35,7 @@ public class Constructor extends CallableDefinition implements Function, BranchK
   private List<TypeClassParameterKind> myTypeClassParameters = Collections.emptyList();
   private int mySingleRecursiveParameter = -1;
   private List<Boolean> myStrictParameters = Collections.emptyList();
+  private int myIndex = -1;
 
   public Constructor(TCDefReferable referable, DataDefinition dataType) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -99,6 +100,17 @@ public class Constructor extends CallableDefinition implements Function, BranchK
     return myDataType;
   }
 
+  /**
+   * @return the position of this constructor in {@link DataDefinition#getConstructors()} or -1 if it was not added yet.
+   */
+  public int getIndex() {
+    return myIndex;
+  }
+
+  void setIndex(int index) {
+    myIndex = index;
+  }
+
   @NotNull
   @Override
   public DependentLink getDataTypeParameters() {
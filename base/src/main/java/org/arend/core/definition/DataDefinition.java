@@ -171,6 +171,7 @@ public class DataDefinition extends TopLevelDefinition implements CoreDataDefini
   }
 
   public void addConstructor(Constructor constructor) {
+    constructor.setIndex(myConstructors.size());
     myConstructors.add(constructor);
   }
 
@@ -22,7 +22,7 @@ import org.jetbrains.annotations.NotNull;
 import java.util.*;
 
 public abstract class Definition extends UserDataHolderImpl implements CoreDefinition {
-  private final TCDefReferable myReferable;
+  private TCDefReferable myReferable;
   private TypeCheckingStatus myStatus;
 
   public Definition(TCDefReferable referable, TypeCheckingStatus status) {
@@ -46,6 +46,14 @@ public abstract class Definition extends UserDataHolderImpl implements CoreDefin
     return myReferable;
   }
 
+  /**
+   * Binds this definition to another referable.
+   * This is used when a module is reloaded and an unchanged definition is kept for the new referable.
+   */
+  public void setReferable(TCDefReferable referable) {
+    myReferable = referable;
+  }
+
   @Override
   public @NotNull Set<? extends TopLevelDefinition> getRecursiveDefinitions() {
     return Collections.emptySet();
@@ -14,12 +14,14 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends TopLevelDefinition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private HiddenStatus myBodyIsHidden = HiddenStatus.NOT_HIDDEN;
@@ -41,18 +43,45 @@ public class FunctionDefinition extends TopLevelDefinition implements Function,
 
   @Override
   public Body getBody() {
-    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : myBody;
+    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : loadBody();
   }
 
   @Override
   public Body getActualBody() {
-    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : myBody;
+    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : loadBody();
   }
 
   public Body getReallyActualBody() {
+    return loadBody();
+  }
+
+  private Body loadBody() {
+    if (myBodyLoader != null) {
+      synchronized (this) {
+        Supplier<Body> loader = myBodyLoader;
+        if (loader != null) {
+          myBody = loader.get();
+          myBodyLoader = null;
+        }
+      }
+    }
     return myBody;
   }
 
+  /**
+   * Sets a loader that computes the body when it is requested for the first time.
+   */
+  public void setBodyLoader(Supplier<Body> loader) {
+    myBodyLoader = loader;
+  }
+
+  /**
+   * @return true if the body is not loaded yet.
+   */
+  public boolean isBodyDeferred() {
+    return myBodyLoader != null;
+  }
+
   public HiddenStatus getBodyHiddenStatus() {
     return myBodyIsHidden;
   }
@@ -67,6 +96,7 @@ public class FunctionDefinition extends TopLevelDefinition implements Function,
 
   public void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
   }
 
   @Override
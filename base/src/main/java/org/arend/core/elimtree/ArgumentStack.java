@@ -0,0 +1,55 @@
+package org.arend.core.elimtree;
+
+import org.arend.core.expr.Expression;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An array-based stack of arguments used to evaluate elim trees.
+ * A single instance can be shared by nested evaluations: each of them works above its own base (see {@link #size()})
+ * and truncates the stack back to it when it is done.
+ */
+public class ArgumentStack {
+  private Expression[] myElements = new Expression[16];
+  private int mySize;
+
+  public int size() {
+    return mySize;
+  }
+
+  public void push(Expression expression) {
+    if (mySize == myElements.length) {
+      myElements = Arrays.copyOf(myElements, mySize * 2);
+    }
+    myElements[mySize++] = expression;
+  }
+
+  /**
+   * Pushes arguments so that the first one is on the top of the stack.
+   */
+  public void pushAll(List<? extends Expression> arguments) {
+    int newSize = mySize + arguments.size();
+    if (newSize > myElements.length) {
+      myElements = Arrays.copyOf(myElements, Math.max(newSize, mySize * 2));
+    }
+    for (int i = arguments.size() - 1; i >= 0; i--) {
+      myElements[mySize++] = arguments.get(i);
+    }
+  }
+
+  public Expression pop() {
+    Expression result = myElements[--mySize];
+    myElements[mySize] = null;
+    return result;
+  }
+
+  public Expression peek() {
+    return myElements[mySize - 1];
+  }
+
+  public void truncate(int size) {
+    Arrays.fill(myElements, size, mySize, null);
+    mySize = size;
+  }
+}
@@ -2,6 +2,7 @@ package org.arend.core.elimtree;
 
 import org.arend.core.constructor.*;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Constructor;
 import org.arend.core.expr.*;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
@@ -14,6 +15,14 @@ import static org.arend.core.expr.ExpressionFactory.Suc;
 public class BranchElimTree extends ElimTree {
   private final Map<BranchKey, ElimTree> myChildren = new HashMap<>();
   private final boolean myKeepConCall;
+  private ConstructorChildren myConstructorChildren;
+
+  /**
+   * Children indexed by {@link Constructor#getIndex()}.
+   * It is built lazily from {@link #myChildren} and is not serialized.
+   * If {@code keys} is null, constructors cannot be indexed and {@link #myChildren} is used instead.
+   */
+  private record ConstructorChildren(Constructor[] keys, ElimTree[] children) {}
 
   public BranchElimTree(int skip, boolean keepConCall) {
     super(skip);
@@ -51,11 +60,52 @@ public class BranchElimTree extends ElimTree {
   }
 
   public ElimTree getChild(BranchKey key) {
-    return myChildren.get(key);
+    return key instanceof Constructor ? getConstructorChild((Constructor) key) : myChildren.get(key);
+  }
+
+  public ElimTree getConstructorChild(Constructor constructor) {
+    ConstructorChildren children = myConstructorChildren;
+    if (children == null) {
+      children = makeConstructorChildren();
+      myConstructorChildren = children;
+    }
+    if (children.keys == null) {
+      return myChildren.get(constructor);
+    }
+    int index = constructor.getIndex();
+    return index >= 0 && index < children.keys.length && children.keys[index] == constructor ? children.children[index] : null;
+  }
+
+  private ConstructorChildren makeConstructorChildren() {
+    int size = 0;
+    for (BranchKey key : myChildren.keySet()) {
+      if (key instanceof Constructor) {
+        int index = ((Constructor) key).getIndex();
+        if (index < 0) {
+          return new ConstructorChildren(null, null);
+        }
+        size = Math.max(size, index + 1);
+      }
+    }
+
+    Constructor[] keys = new Constructor[size];
+    ElimTree[] children = new ElimTree[size];
+    for (Map.Entry<BranchKey, ElimTree> entry : myChildren.entrySet()) {
+      if (entry.getKey() instanceof Constructor constructor) {
+        int index = constructor.getIndex();
+        if (keys[index] != null) {
+          return new ConstructorChildren(null, null);
+        }
+        keys[index] = constructor;
+        children[index] = entry.getValue();
+      }
+    }
+    return new ConstructorChildren(keys, children);
   }
 
   public void addChild(BranchKey key, ElimTree elimTree) {
     myChildren.put(key, elimTree);
+    myConstructorChildren = null;
   }
 
   private boolean isSingleConstructorTree() {
@@ -97,7 +147,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       argument = argument.getUnderlyingExpression();
       if (argument instanceof ConCallExpression conCall) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getConstructorChild(conCall.getDefinition());
         if (elimTree != null) {
           newArguments = new ArrayList<>(conCall.getDefCallArguments().size() + arguments.size() - index - 1);
           newArguments.addAll(conCall.getDefCallArguments());
@@ -107,7 +157,7 @@ public class BranchElimTree extends ElimTree {
         }
       } else if (argument instanceof IntegerExpression intExpr) {
         boolean isZero = intExpr.isZero();
-        ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+        ElimTree elimTree = getConstructorChild(isZero ? Prelude.ZERO : Prelude.SUC);
         if (elimTree != null) {
           newArguments = new ArrayList<>();
           if (!isZero) {
@@ -170,7 +220,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       BranchKey key = getBranchKey(argument);
       if (key != null) {
-        ElimTree elimTree = myChildren.get(key);
+        ElimTree elimTree = getChild(key);
         if (elimTree != null) {
           return elimTree.isWHNF(newArguments).min(decision);
         } else {
@@ -201,7 +251,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       BranchKey key = getBranchKey(argument);
       if (key != null) {
-        ElimTree elimTree = myChildren.get(key);
+        ElimTree elimTree = getChild(key);
         if (elimTree != null) {
           return elimTree.getStuckExpression(newArguments, expression);
         } else {
@@ -268,7 +318,7 @@ public class BranchElimTree extends ElimTree {
         return result;
       }
     } else if (argument instanceof ConCallExpression conCall) {
-      ElimTree elimTree = myChildren.get(conCall.getDefinition());
+      ElimTree elimTree = getConstructorChild(conCall.getDefinition());
       if (elimTree != null) {
         List<Expression> args = new ArrayList<>();
         args.addAll(conCall.getDefCallArguments());
@@ -280,7 +330,7 @@ public class BranchElimTree extends ElimTree {
       }
     } else if (argument instanceof IntegerExpression intExpr) {
       boolean isZero = intExpr.isZero();
-      ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+      ElimTree elimTree = getConstructorChild(isZero ? Prelude.ZERO : Prelude.SUC);
       if (elimTree != null) {
         List<Expression> args = new ArrayList<>();
         if (!isZero) args.add(intExpr.pred());
@@ -28,6 +28,11 @@ public class BigIntegerExpression extends IntegerExpression {
     return myInteger.intValueExact();
   }
 
+  @Override
+  public long toLong() {
+    return myInteger.bitLength() < Long.SIZE ? myInteger.longValue() : -1;
+  }
+
   @Override
   public BigIntegerExpression suc() {
     return new BigIntegerExpression(myInteger.add(BigInteger.ONE));
@@ -35,7 +40,7 @@ public class BigIntegerExpression extends IntegerExpression {
 
   @Override
   public IntegerExpression pred() {
-    return myInteger.compareTo(BigInteger.ZERO) > 0 ? new BigIntegerExpression(myInteger.subtract(BigInteger.ONE)) : null;
+    return myInteger.compareTo(BigInteger.ZERO) > 0 ? valueOf(myInteger.subtract(BigInteger.ONE)) : null;
   }
 
   @Override
@@ -74,29 +79,29 @@ public class BigIntegerExpression extends IntegerExpression {
   }
 
   @Override
-  public BigIntegerExpression mul(IntegerExpression expr) {
-    return new BigIntegerExpression(myInteger.multiply(expr.getBigInteger()));
+  public IntegerExpression mul(IntegerExpression expr) {
+    return valueOf(myInteger.multiply(expr.getBigInteger()));
   }
 
   @Override
   public ConCallExpression minus(IntegerExpression expr) {
     BigInteger result = myInteger.subtract(expr.getBigInteger());
-    return result.signum() >= 0 ? Pos(new BigIntegerExpression(result)) : Neg(new BigIntegerExpression(result.negate()));
+    return result.signum() >= 0 ? Pos(valueOf(result)) : Neg(valueOf(result.negate()));
   }
 
   @Override
-  public BigIntegerExpression minus(int x) {
-    return new BigIntegerExpression(myInteger.subtract(BigInteger.valueOf(x)));
+  public IntegerExpression minus(int x) {
+    return valueOf(myInteger.subtract(BigInteger.valueOf(x)));
   }
 
   @Override
-  public BigIntegerExpression div(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.divide(expr.getBigInteger()));
+  public IntegerExpression div(IntegerExpression expr) {
+    return expr.isZero() ? this : valueOf(myInteger.divide(expr.getBigInteger()));
   }
 
   @Override
-  public BigIntegerExpression mod(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.remainder(expr.getBigInteger()));
+  public IntegerExpression mod(IntegerExpression expr) {
+    return expr.isZero() ? this : valueOf(myInteger.remainder(expr.getBigInteger()));
   }
 
   @Override
@@ -108,8 +113,8 @@ public class BigIntegerExpression extends IntegerExpression {
       return new TupleExpression(fields, Prelude.DIV_MOD_TYPE);
     } else {
       BigInteger[] divMod = myInteger.divideAndRemainder(expr.getBigInteger());
-      fields.add(new BigIntegerExpression(divMod[0]));
-      fields.add(new BigIntegerExpression(divMod[1]));
+      fields.add(valueOf(divMod[0]));
+      fields.add(valueOf(divMod[1]));
       return new TupleExpression(fields, ExpressionFactory.finDivModType(new BigIntegerExpression(divMod[1].add(BigInteger.ONE))));
     }
   }
@@ -80,12 +80,18 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
   public ClassCallExpression(ClassDefinition definition, Levels levels, Map<ClassField, Expression> implementations, Sort sort, UniverseKind universeKind) {
     super(definition, levels);
-    assert implementations instanceof LinkedHashMap || implementations.size() <= 1;
+    assert implementations instanceof LinkedHashMap || implementations instanceof ImplementationMap || implementations.size() <= 1;
     myImplementations = implementations;
     mySort = sort;
     myUniverseKind = universeKind.max(definition.getBaseUniverseKind());
   }
 
+  @Override
+  protected boolean isSummaryCacheable() {
+    // Implementations are often added after the expression is created
+    return false;
+  }
+
   @NotNull
   @Override
   public ClassCallBinding getThisBinding() {
@@ -99,7 +105,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
   public void fixOrderOfImplementations() {
     if (myImplementations.size() <= 1) return;
-    Map<ClassField, Expression> newImpls = new LinkedHashMap<>();
+    Map<ClassField, Expression> newImpls = new ImplementationMap(getDefinition());
     for (ClassField field : getDefinition().getNotImplementedFields()) {
       Expression impl = myImplementations.get(field);
       if (impl != null) {
@@ -163,7 +169,8 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
   @NotNull
   @Override
   public Collection<? extends Map.Entry<? extends CoreClassField, ? extends CoreExpression>> getImplementations() {
-    return myImplementations.entrySet();
+    // Entries of an implementation map are reused by its iterator, so extensions get independent copies
+    return myImplementations instanceof ImplementationMap ? new ArrayList<>(myImplementations.entrySet()) : myImplementations.entrySet();
   }
 
   @Override
@@ -305,7 +312,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
   @Override
   public @NotNull DependentLink getClassFieldParameters() {
-    Map<ClassField, Expression> implementations = new LinkedHashMap<>();
+    Map<ClassField, Expression> implementations = new ImplementationMap(getDefinition());
     NewExpression newExpr = new NewExpression(null, new ClassCallExpression(getDefinition(), getLevels(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES));
     newExpr.getClassCall().copyImplementationsFrom(this);
 
@@ -335,7 +342,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
           if (ok) {
             type = type.normalize(NormalizationMode.WHNF);
             if (type instanceof ClassCallExpression classCall && getDefinition().isSubClassOf(classCall.getDefinition())) {
-              Map<ClassField, Expression> subImplementations = new LinkedHashMap<>(classCall.getImplementedHere());
+              Map<ClassField, Expression> subImplementations = ImplementationMap.copyOf(classCall.getDefinition(), classCall.getImplementedHere());
               ClassCallExpression resultClassCall = new ClassCallExpression(classCall.getDefinition(), getLevels(((ClassCallExpression) type).getDefinition()), subImplementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
               Expression resultRef = new ReferenceExpression(resultClassCall.myThisBinding);
               for (ClassField field : classCall.getDefinition().getNotImplementedFields()) {
@@ -430,7 +437,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
 
         @Override
         public Expression visitClassCall(ClassCallExpression expr, Void params) {
-          Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+          Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
           ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(getLevelSubstitution()), fieldSet, expr.getSort(), expr.getUniverseKind());
           getExprSubstitution().add(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding()));
           for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
@@ -526,7 +533,7 @@ public class ClassCallExpression extends LeveledDefCallExpression implements Typ
     private final Expression myLength;
     private final Binding myThisBinding;
     private final Expression myElementsType;
-    private DependentLink myParameters;
+    private volatile DependentLink myParameters; // computed lazily, possibly by several threads
 
     private ConstructorWithDataArgumentsImpl(DConstructor constructor, LevelPair levels, Expression length, Binding thisBinding, Expression elementsType) {
       myConstructor = constructor;
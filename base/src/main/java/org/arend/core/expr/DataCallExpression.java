@@ -218,7 +218,7 @@ public class DataCallExpression extends LeveledDefCallExpression implements Type
 
   private static class ConstructorWithDataArgumentsImpl implements ConstructorWithDataArguments {
     private final ConCallExpression myConCall;
-    private DependentLink myParameters;
+    private volatile DependentLink myParameters; // computed lazily, possibly by several threads
 
     private ConstructorWithDataArgumentsImpl(ConCallExpression conCall) {
       myConCall = conCall;
@@ -55,10 +55,44 @@ import java.util.*;
 import java.util.function.Function;
 
 public abstract class Expression implements Body, CoreExpression {
+  private int mySummary;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
 
+  /**
+   * The summary may be computed concurrently by several threads that share the expression.
+   * The cache is a single int field which is written only with a complete summary, so a thread sees either 0 and computes the summary itself,
+   * or a summary computed by another thread, which is also a valid approximation.
+   *
+   * @return a cached conservative summary of this expression; see {@link ExpressionSummary}.
+   */
+  public final int getSummary() {
+    int summary = mySummary;
+    if (summary == 0) {
+      summary = accept(ExpressionSummary.INSTANCE, null) | ExpressionSummary.COMPUTED;
+      if (!isSummaryCacheable()) {
+        summary |= ExpressionSummary.UNCACHEABLE;
+      } else if ((summary & ExpressionSummary.UNCACHEABLE) == 0) {
+        mySummary = summary;
+      }
+    }
+    return summary;
+  }
+
+  final boolean isSummaryComputed() {
+    return mySummary != 0;
+  }
+
+  /**
+   * Expressions that can get new subexpressions after they were constructed must not cache their summaries.
+   * Neither do expressions that contain them.
+   */
+  protected boolean isSummaryCacheable() {
+    return true;
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -127,7 +161,7 @@ public abstract class Expression implements Body, CoreExpression {
   }
 
   public Expression getType(boolean minimal) {
-    return accept(minimal ? GetTypeVisitor.MIN_INSTANCE : GetTypeVisitor.INSTANCE, null);
+    return minimal ? accept(GetTypeVisitor.MIN_INSTANCE, null) : TypeCache.getType(this);
   }
 
   public Expression getType() {
@@ -0,0 +1,346 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.TypedDependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.type.TypeExpression;
+import org.arend.core.expr.visitor.ExpressionVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.Levels;
+import org.arend.prelude.Prelude;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A summary of an expression is a conservative approximation of what occurs in it.
+ * It is used by traversals to return subtrees that they cannot affect without descending into them.
+ * <ul>
+ *   <li>The lower {@link #BLOOM_BITS} bits form a bloom filter of bindings referenced in the expression.
+ *       It includes bindings bound in the expression itself, so it never has false negatives for free bindings.</li>
+ *   <li>{@link #INFERENCE} is set if the expression may contain inference variables.</li>
+ *   <li>{@link #LEVELS} is set if the expression may contain level variables.</li>
+ *   <li>{@link #STRIP} is set if {@link org.arend.core.expr.visitor.StripVisitor} may change the expression,
+ *       even after the level substitution that is applied before stripping.</li>
+ *   <li>{@link #UNCACHEABLE} is set if the expression contains a subexpression that can get new subexpressions after it was constructed,
+ *       so the summary of the expression must not be cached either.</li>
+ * </ul>
+ * Other mutations of core expressions only remove bindings, inference variables, and level variables,
+ * so a cached summary remains a valid approximation.
+ */
+public final class ExpressionSummary implements ExpressionVisitor<Void, Integer> {
+  public static final int BLOOM_BITS = 27;
+  public static final int BLOOM_MASK = (1 << BLOOM_BITS) - 1;
+  static final int UNCACHEABLE = 1 << 27;
+  public static final int STRIP = 1 << 28;
+  public static final int LEVELS = 1 << 29;
+  public static final int INFERENCE = 1 << 30;
+  static final int COMPUTED = 1 << 31;
+  private static final int UNKNOWN = BLOOM_MASK | STRIP | LEVELS | INFERENCE;
+
+  static final ExpressionSummary INSTANCE = new ExpressionSummary();
+
+  private ExpressionSummary() {}
+
+  public static int getBloomBit(Binding binding) {
+    return 1 << Integer.remainderUnsigned(System.identityHashCode(binding) * 0x9E3779B9, BLOOM_BITS);
+  }
+
+  public static boolean isClosed(int summary) {
+    return (summary & (BLOOM_MASK | INFERENCE)) == 0;
+  }
+
+  public static boolean needsStrip(int summary) {
+    return (summary & STRIP) != 0;
+  }
+
+  /**
+   * @return true if the expression with the given summary does not contain inference variables, does not refer to bindings from {@code bloom},
+   *         and does not contain level variables if {@code checkLevels} is true.
+   */
+  public static boolean isUnaffected(int summary, int bloom, boolean checkLevels) {
+    return (summary & INFERENCE) == 0 && (summary & bloom & BLOOM_MASK) == 0 && (!checkLevels || (summary & LEVELS) == 0);
+  }
+
+  /**
+   * A subtree that is returned by a substitution without copying becomes shared by the original expression and the result.
+   * Such a subtree must not be changed by in-place traversals, that is, {@link org.arend.core.expr.visitor.StripVisitor}
+   * and {@link org.arend.core.subst.InPlaceLevelSubstVisitor}, which skip subtrees without {@link #STRIP}, {@link #LEVELS}, and inference variables.
+   *
+   * @return true if the expression with the given summary is not affected by a substitution of bindings from {@code bloom},
+   *         and it can be shared since in-place traversals do not change it.
+   */
+  public static boolean isShareable(int summary, int bloom) {
+    return (summary & (INFERENCE | LEVELS | STRIP)) == 0 && (summary & bloom & BLOOM_MASK) == 0;
+  }
+
+  /**
+   * @return true if the expression with the given summary does not contain inference variables,
+   *         and does not contain level variables and references to evaluating bindings if {@code checkLevels} is true.
+   */
+  public static boolean isSolved(int summary, boolean checkLevels) {
+    return (summary & INFERENCE) == 0 && (!checkLevels || (summary & LEVELS) == 0 && (summary & BLOOM_MASK) != BLOOM_MASK);
+  }
+
+  public enum Traversal { SUBST, FIND_BINDING, FREE_VARIABLES, STRIP, FINALIZE }
+
+  private static volatile boolean ourCountersEnabled;
+  private static final LongAdder[] ourChecked = new LongAdder[Traversal.values().length];
+  private static final LongAdder[] ourSkipped = new LongAdder[Traversal.values().length];
+
+  static {
+    for (int i = 0; i < ourChecked.length; i++) {
+      ourChecked[i] = new LongAdder();
+      ourSkipped[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Enables counters of {@link #count}; they are disabled by default since they are updated on every node of a traversal.
+   */
+  public static void setCountersEnabled(boolean enabled) {
+    ourCountersEnabled = enabled;
+  }
+
+  /**
+   * Records whether a traversal skipped a subtree if counters are enabled.
+   *
+   * @return {@code skip}
+   */
+  public static boolean count(Traversal traversal, boolean skip) {
+    if (ourCountersEnabled) {
+      ourChecked[traversal.ordinal()].increment();
+      if (skip) {
+        ourSkipped[traversal.ordinal()].increment();
+      }
+    }
+    return skip;
+  }
+
+  public static long getChecked(Traversal traversal) {
+    return ourChecked[traversal.ordinal()].sum();
+  }
+
+  public static long getSkipped(Traversal traversal) {
+    return ourSkipped[traversal.ordinal()].sum();
+  }
+
+  public static void resetCounters() {
+    for (int i = 0; i < ourChecked.length; i++) {
+      ourChecked[i].reset();
+      ourSkipped[i].reset();
+    }
+  }
+
+  private static int levels(Levels levels) {
+    return levels.isClosed() ? 0 : LEVELS;
+  }
+
+  private static int sort(Sort sort) {
+    return sort.getPLevel().isClosed() && sort.getHLevel().isClosed() ? 0 : LEVELS;
+  }
+
+  private static int stripSort(Sort sort) {
+    // A sort with a level variable may become \Prop after the level substitution
+    return sort != Sort.PROP && (sort.getHLevel().isProp() || !sort.getHLevel().isClosed()) ? STRIP : 0;
+  }
+
+  private static int list(List<? extends Expression> expressions) {
+    int result = 0;
+    for (Expression expression : expressions) {
+      result |= expression.getSummary();
+    }
+    return result;
+  }
+
+  private static int parameters(DependentLink link) {
+    int result = 0;
+    for (; link.hasNext(); link = link.getNext()) {
+      if (link instanceof TypedDependentLink) {
+        result |= link.getTypeExpr().getSummary();
+        if (link.getType() instanceof TypeExpression type) {
+          result |= sort(type.getSortOfType());
+        }
+      }
+    }
+    return result;
+  }
+
+  private static int defCall(DefCallExpression expr) {
+    return list(expr.getDefCallArguments()) | (expr instanceof LeveledDefCallExpression ? levels(((LeveledDefCallExpression) expr).getLevels()) : 0);
+  }
+
+  @Override
+  public Integer visitApp(AppExpression expr, Void params) {
+    return expr.getFunction().getSummary() | expr.getArgument().getSummary() | (expr.getFunction() instanceof LamExpression ? STRIP : 0);
+  }
+
+  @Override
+  public Integer visitFunCall(FunCallExpression expr, Void params) {
+    FunctionDefinition definition = expr.getDefinition();
+    boolean strip = definition == Prelude.PLUS || definition == Prelude.MUL || definition == Prelude.MINUS || definition == Prelude.DIV || definition == Prelude.MOD || definition == Prelude.DIV_MOD || definition == Prelude.EMPTY_ARRAY || definition == Prelude.ARRAY_CONS;
+    for (DependentLink param = definition.getParameters(); !strip && param.hasNext(); param = param.getNext()) {
+      strip = param.isProperty();
+    }
+    return defCall(expr) | (strip ? STRIP : 0);
+  }
+
+  @Override
+  public Integer visitConCall(ConCallExpression expr, Void params) {
+    // Long chains of constructors are summarized from the bottom so that we do not run out of stack
+    List<ConCallExpression> chain = new ArrayList<>();
+    for (ConCallExpression conCall = expr; ; ) {
+      int recursiveParam = conCall.getDefinition().getRecursiveParameter();
+      if (recursiveParam < 0 || recursiveParam >= conCall.getDefCallArguments().size() || !(conCall.getDefCallArguments().get(recursiveParam) instanceof ConCallExpression next) || next.isSummaryComputed()) {
+        break;
+      }
+      chain.add(next);
+      conCall = next;
+    }
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      chain.get(i).getSummary();
+    }
+
+    return defCall(expr) | list(expr.getDataTypeArguments()) | (expr.getDefinition() == Prelude.SUC ? STRIP : 0);
+  }
+
+  @Override
+  public Integer visitDataCall(DataCallExpression expr, Void params) {
+    return defCall(expr);
+  }
+
+  @Override
+  public Integer visitFieldCall(FieldCallExpression expr, Void params) {
+    return expr.getArgument().getSummary();
+  }
+
+  @Override
+  public Integer visitClassCall(ClassCallExpression expr, Void params) {
+    int result = defCall(expr);
+    for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+      result |= entry.getValue().getSummary();
+    }
+    return result;
+  }
+
+  @Override
+  public Integer visitReference(ReferenceExpression expr, Void params) {
+    // The expression of an evaluating binding is not a part of the summary, so it can refer to anything
+    return expr.getBinding() instanceof EvaluatingBinding ? BLOOM_MASK | STRIP : getBloomBit(expr.getBinding());
+  }
+
+  @Override
+  public Integer visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitSubst(SubstExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitLam(LamExpression expr, Void params) {
+    return parameters(expr.getParameters()) | expr.getBody().getSummary() | sort(expr.getResultSort()) | stripSort(expr.getResultSort());
+  }
+
+  @Override
+  public Integer visitPi(PiExpression expr, Void params) {
+    return parameters(expr.getParameters()) | expr.getCodomain().getSummary() | sort(expr.getResultSort()) | stripSort(expr.getResultSort());
+  }
+
+  @Override
+  public Integer visitSigma(SigmaExpression expr, Void params) {
+    return parameters(expr.getParameters()) | sort(expr.getSort());
+  }
+
+  @Override
+  public Integer visitUniverse(UniverseExpression expr, Void params) {
+    return sort(expr.getSort()) | stripSort(expr.getSort());
+  }
+
+  @Override
+  public Integer visitError(ErrorExpression expr, Void params) {
+    return (expr.getExpression() == null ? 0 : expr.getExpression().getSummary()) | STRIP;
+  }
+
+  @Override
+  public Integer visitTuple(TupleExpression expr, Void params) {
+    return list(expr.getFields()) | expr.getSigmaType().getSummary();
+  }
+
+  @Override
+  public Integer visitProj(ProjExpression expr, Void params) {
+    return expr.getExpression().getSummary() | (expr.getExpression() instanceof TupleExpression ? STRIP : 0);
+  }
+
+  @Override
+  public Integer visitNew(NewExpression expr, Void params) {
+    return (expr.getRenewExpression() == null ? 0 : expr.getRenewExpression().getSummary()) | expr.getClassCall().getSummary() | STRIP;
+  }
+
+  @Override
+  public Integer visitPEval(PEvalExpression expr, Void params) {
+    return expr.getExpression().getSummary();
+  }
+
+  @Override
+  public Integer visitBox(BoxExpression expr, Void params) {
+    return expr.getExpression().getSummary() | expr.getType().getSummary() | STRIP;
+  }
+
+  @Override
+  public Integer visitLet(LetExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitCase(CaseExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().getSummary() | expr.getTypeOf().getSummary() | STRIP;
+  }
+
+  @Override
+  public Integer visitInteger(IntegerExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitString(StringExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitTypeConstructor(TypeConstructorExpression expr, Void params) {
+    return list(expr.getClauseArguments()) | expr.getArgument().getSummary() | levels(expr.getLevels());
+  }
+
+  @Override
+  public Integer visitTypeDestructor(TypeDestructorExpression expr, Void params) {
+    return expr.getArgument().getSummary();
+  }
+
+  @Override
+  public Integer visitArray(ArrayExpression expr, Void params) {
+    return list(expr.getElements()) | expr.getElementsType().getSummary() | (expr.getTail() == null ? 0 : expr.getTail().getSummary()) | levels(expr.getLevels()) | STRIP;
+  }
+
+  @Override
+  public Integer visitPath(PathExpression expr, Void params) {
+    return expr.getArgumentType().getSummary() | expr.getArgument().getSummary() | levels(expr.getLevels());
+  }
+
+  @Override
+  public Integer visitAt(AtExpression expr, Void params) {
+    return expr.getPathArgument().getSummary() | expr.getIntervalArgument().getSummary() | STRIP;
+  }
+}
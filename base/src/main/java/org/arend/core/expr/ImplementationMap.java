@@ -0,0 +1,339 @@
+package org.arend.core.expr;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A map of implementations of a {@link ClassCallExpression}.
+ * Implementations are stored in arrays in the insertion order as in {@link LinkedHashMap}, so the arrays are as long as the number of implemented fields.
+ * Small maps are searched linearly; larger maps also keep positions of implementations indexed by {@link ClassDefinition#getFieldIndex}.
+ * Maps created before their class is finished do not have field indices, so they are always searched linearly.
+ * A copy shares the storage with the original map until one of them is modified, even if the copy belongs to a subclass.
+ * Maps of definitions are copied concurrently by typecheckers running in different threads, so copying writes only the volatile shared flag of the original map.
+ * <p>
+ * The entry set iterator returns the same mutable entry at every step, so an entry is valid only until the next call to {@link Iterator#next}.
+ * Use {@link Set#toArray} of the entry set to get independent entries.
+ */
+public final class ImplementationMap extends AbstractMap<ClassField, Expression> {
+  private static final ClassField[] EMPTY_KEYS = new ClassField[0];
+  private static final Expression[] EMPTY_VALUES = new Expression[0];
+  private static final int LINEAR_SEARCH_LIMIT = 8;
+
+  private final ClassDefinition myDefinition;
+  private ClassField[] myKeys = EMPTY_KEYS;
+  private Expression[] myValues = EMPTY_VALUES;
+  private int[] myPositions; // field index -> position + 1; null if mySize <= LINEAR_SEARCH_LIMIT
+  private int mySize;
+  private volatile boolean myShared;
+  private int myModCount;
+  private Set<Entry<ClassField, Expression>> myEntrySet;
+
+  public ImplementationMap(ClassDefinition definition) {
+    myDefinition = definition;
+  }
+
+  private ImplementationMap(ClassDefinition definition, ImplementationMap map) {
+    myDefinition = definition;
+    myKeys = map.myKeys;
+    myValues = map.myValues;
+    mySize = map.mySize;
+    if (definition == map.myDefinition) {
+      myPositions = map.myPositions;
+    } else if (mySize > LINEAR_SEARCH_LIMIT) {
+      buildPositions();
+    }
+    myShared = true;
+    map.myShared = true;
+  }
+
+  /**
+   * Copies {@code implementations} to a new map.
+   * If {@code implementations} is an implementation map of the same class or of a superclass, the copy shares its storage.
+   */
+  public static ImplementationMap copyOf(ClassDefinition definition, Map<? extends ClassField, ? extends Expression> implementations) {
+    if (implementations instanceof ImplementationMap map && (map.myDefinition == definition || definition.isSubClassOf(map.myDefinition))) {
+      return new ImplementationMap(definition, map);
+    }
+    ImplementationMap result = new ImplementationMap(definition);
+    result.putAll(implementations);
+    return result;
+  }
+
+  private void buildPositions() {
+    int[] indices = new int[mySize];
+    for (int i = 0; i < mySize; i++) {
+      indices[i] = myDefinition.getFieldIndex(myKeys[i]);
+      if (indices[i] < 0) {
+        myPositions = null;
+        return;
+      }
+    }
+    myPositions = new int[myDefinition.getNumberOfFieldIndices()];
+    for (int i = 0; i < mySize; i++) {
+      myPositions[indices[i]] = i + 1;
+    }
+  }
+
+  private void setPosition(ClassField key, int position) {
+    int index = myDefinition.getFieldIndex(key);
+    if (index < 0 || index >= myPositions.length) {
+      myPositions = null;
+      return;
+    }
+    myPositions[index] = position + 1;
+  }
+
+  private int findPosition(Object key) {
+    if (!(key instanceof ClassField)) {
+      return -1;
+    }
+    if (myPositions == null) {
+      for (int i = 0; i < mySize; i++) {
+        if (myKeys[i] == key) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int index = myDefinition.getFieldIndex((ClassField) key);
+    return index >= 0 && index < myPositions.length ? myPositions[index] - 1 : -1;
+  }
+
+  private void prepareWrite() {
+    if (myShared) {
+      myKeys = myKeys.clone();
+      myValues = myValues.clone();
+      if (myPositions != null) {
+        myPositions = myPositions.clone();
+      }
+      myShared = false;
+    }
+  }
+
+  @Override
+  public int size() {
+    return mySize;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return mySize == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findPosition(key) >= 0;
+  }
+
+  @Override
+  public Expression get(Object key) {
+    int position = findPosition(key);
+    return position >= 0 ? myValues[position] : null;
+  }
+
+  @Override
+  public Expression put(ClassField key, Expression value) {
+    int position = findPosition(key);
+    prepareWrite();
+    if (position >= 0) {
+      Expression old = myValues[position];
+      myValues[position] = value;
+      return old;
+    }
+
+    if (mySize == myKeys.length) {
+      int length = Math.max(4, mySize * 2);
+      myKeys = Arrays.copyOf(myKeys, length);
+      myValues = Arrays.copyOf(myValues, length);
+    }
+    myKeys[mySize] = key;
+    myValues[mySize] = value;
+    mySize++;
+    if (myPositions != null) {
+      setPosition(key, mySize - 1);
+    } else if (mySize == LINEAR_SEARCH_LIMIT + 1) {
+      buildPositions();
+    }
+    myModCount++;
+    return null;
+  }
+
+  @Override
+  public Expression remove(Object key) {
+    int position = findPosition(key);
+    return position >= 0 ? removeAt(position) : null;
+  }
+
+  private Expression removeAt(int position) {
+    prepareWrite();
+    Expression old = myValues[position];
+    ClassField key = myKeys[position];
+    System.arraycopy(myKeys, position + 1, myKeys, position, mySize - position - 1);
+    System.arraycopy(myValues, position + 1, myValues, position, mySize - position - 1);
+    mySize--;
+    myKeys[mySize] = null;
+    myValues[mySize] = null;
+    if (myPositions != null) {
+      if (mySize <= LINEAR_SEARCH_LIMIT) {
+        myPositions = null;
+      } else {
+        myPositions[myDefinition.getFieldIndex(key)] = 0;
+        for (int i = position; i < mySize; i++) {
+          myPositions[myDefinition.getFieldIndex(myKeys[i])] = i + 1;
+        }
+      }
+    }
+    myModCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    if (mySize == 0) {
+      return;
+    }
+    if (myShared) {
+      myKeys = EMPTY_KEYS;
+      myValues = EMPTY_VALUES;
+      myShared = false;
+    } else {
+      Arrays.fill(myKeys, 0, mySize, null);
+      Arrays.fill(myValues, 0, mySize, null);
+    }
+    myPositions = null;
+    mySize = 0;
+    myModCount++;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super ClassField, ? super Expression> action) {
+    int modCount = myModCount;
+    for (int i = 0; i < mySize; i++) {
+      action.accept(myKeys[i], myValues[i]);
+      if (modCount != myModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<ClassField, Expression>> entrySet() {
+    if (myEntrySet == null) {
+      myEntrySet = new AbstractSet<>() {
+        @NotNull
+        @Override
+        public Iterator<Entry<ClassField, Expression>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+          return mySize;
+        }
+
+        @Override
+        public void clear() {
+          ImplementationMap.this.clear();
+        }
+
+        @Override
+        public Object[] toArray() {
+          return toArray(new Object[0]);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T[] toArray(T[] array) {
+          T[] result = array.length >= mySize ? array : Arrays.copyOf(array, mySize);
+          for (int i = 0; i < mySize; i++) {
+            result[i] = (T) new SimpleImmutableEntry<>(myKeys[i], myValues[i]);
+          }
+          if (result.length > mySize) {
+            result[mySize] = null;
+          }
+          return result;
+        }
+      };
+    }
+    return myEntrySet;
+  }
+
+  private final class EntryIterator implements Iterator<Entry<ClassField, Expression>>, Entry<ClassField, Expression> {
+    private int myNext;
+    private int myLast = -1;
+    private int myExpectedModCount = myModCount;
+
+    @Override
+    public boolean hasNext() {
+      return myNext < mySize;
+    }
+
+    @Override
+    public Entry<ClassField, Expression> next() {
+      if (myExpectedModCount != myModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (myNext >= mySize) {
+        throw new NoSuchElementException();
+      }
+      myLast = myNext++;
+      return this;
+    }
+
+    @Override
+    public void remove() {
+      if (myLast < 0) {
+        throw new IllegalStateException();
+      }
+      if (myExpectedModCount != myModCount) {
+        throw new ConcurrentModificationException();
+      }
+      removeAt(myLast);
+      myNext = myLast;
+      myLast = -1;
+      myExpectedModCount = myModCount;
+    }
+
+    @Override
+    public ClassField getKey() {
+      if (myLast < 0) {
+        throw new IllegalStateException();
+      }
+      return myKeys[myLast];
+    }
+
+    @Override
+    public Expression getValue() {
+      if (myLast < 0) {
+        throw new IllegalStateException();
+      }
+      return myValues[myLast];
+    }
+
+    @Override
+    public Expression setValue(Expression value) {
+      if (myLast < 0) {
+        throw new IllegalStateException();
+      }
+      prepareWrite();
+      Expression old = myValues[myLast];
+      myValues[myLast] = value;
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Entry<?, ?> entry && Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+  }
+}
@@ -9,9 +9,30 @@ import org.arend.prelude.Prelude;
 import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
+
 public abstract class IntegerExpression extends Expression implements CoreIntegerExpression {
+  /**
+   * @return a {@link SmallIntegerExpression} if {@code value} fits in it, and a {@link BigIntegerExpression} otherwise.
+   */
+  public static IntegerExpression valueOf(long value) {
+    return value >= 0 && value <= Integer.MAX_VALUE ? new SmallIntegerExpression((int) value) : new BigIntegerExpression(BigInteger.valueOf(value));
+  }
+
+  /**
+   * @return a {@link SmallIntegerExpression} if {@code value} fits in it, and a {@link BigIntegerExpression} otherwise.
+   */
+  public static IntegerExpression valueOf(BigInteger value) {
+    return value.signum() >= 0 && value.bitLength() < Integer.SIZE ? new SmallIntegerExpression(value.intValue()) : new BigIntegerExpression(value);
+  }
+
   public abstract int getSmallInteger();
 
+  /**
+   * @return the value of this integer if it fits in a {@code long}, and -1 otherwise.
+   */
+  public abstract long toLong();
+
   public abstract IntegerExpression suc();
 
   @Override
@@ -54,6 +54,11 @@ public class NewExpression extends Expression implements CoreNewExpression {
     this(renewExpression, classCall, true);
   }
 
+  @Override
+  protected boolean isSummaryCacheable() {
+    return false;
+  }
+
   @Nullable
   public Expression getRenewExpression() {
     return myRenewExpression;
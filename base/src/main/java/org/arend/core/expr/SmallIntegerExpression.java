@@ -11,8 +11,6 @@ import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
 
 public class SmallIntegerExpression extends IntegerExpression {
-  private final static int MAX_VALUE_TO_MULTIPLY = 45000;
-
   private final int myInteger;
 
   public SmallIntegerExpression(int integer) {
@@ -34,6 +32,11 @@ public class SmallIntegerExpression extends IntegerExpression {
     return myInteger;
   }
 
+  @Override
+  public long toLong() {
+    return myInteger;
+  }
+
   @Override
   public IntegerExpression suc() {
     if (myInteger < 0) {
@@ -76,10 +79,7 @@ public class SmallIntegerExpression extends IntegerExpression {
   @Override
   public IntegerExpression plus(IntegerExpression expr) {
     if (expr instanceof SmallIntegerExpression) {
-      int sum = myInteger + ((SmallIntegerExpression) expr).myInteger;
-      if (sum >= 0) {
-        return new SmallIntegerExpression(sum);
-      }
+      return valueOf((long) myInteger + ((SmallIntegerExpression) expr).myInteger);
     }
 
     return new BigIntegerExpression(BigInteger.valueOf(myInteger).add(expr.getBigInteger()));
@@ -87,20 +87,17 @@ public class SmallIntegerExpression extends IntegerExpression {
 
   @Override
   public IntegerExpression plus(int num) {
-    int sum = myInteger + num;
-    return sum >= 0 ? new SmallIntegerExpression(sum) : new BigIntegerExpression(BigInteger.valueOf(myInteger).add(BigInteger.valueOf(num)));
+    return valueOf((long) myInteger + num);
   }
 
   @Override
   public IntegerExpression mul(IntegerExpression expr) {
     if (expr instanceof SmallIntegerExpression) {
-      int other = ((SmallIntegerExpression) expr).getInteger();
-      if (myInteger <= MAX_VALUE_TO_MULTIPLY && other <= MAX_VALUE_TO_MULTIPLY) {
-        return new SmallIntegerExpression(myInteger * other);
-      }
+      // The product of two integers always fits in a long
+      return valueOf((long) myInteger * ((SmallIntegerExpression) expr).myInteger);
     }
 
-    return new BigIntegerExpression(BigInteger.valueOf(myInteger).multiply(expr.getBigInteger()));
+    return valueOf(BigInteger.valueOf(myInteger).multiply(expr.getBigInteger()));
   }
 
   @Override
@@ -1995,16 +1995,20 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
             isGE = type2 instanceof DataCallExpression && ((DataCallExpression) type2).getDefinition() == Prelude.FIN || type1 instanceof DataCallExpression && ((DataCallExpression) type1).getDefinition() == Prelude.NAT;
           }
           myCMP = isGE ? CMP.GE : CMP.LE;
-          TypecheckerState state = new TypecheckerState(null, 0, 0, null, null, null, true);
+          TypecheckerState state = new TypecheckerState(null, 0, 0, 0, null, null, true);
           myEquations.saveState(state);
-          ok = normalizedCompare(type1, type2, Type.OMEGA, false);
-          myCMP = origCMP;
-          if (ok) {
-            ok = compare(list1.get(i), list2.get(i), isGE ? type1 : type2, true);
-          }
-          if (!ok) {
-            state.numberOfLevelVariables = Integer.MAX_VALUE;
-            myEquations.loadState(state);
+          try {
+            ok = normalizedCompare(type1, type2, Type.OMEGA, false);
+            myCMP = origCMP;
+            if (ok) {
+              ok = compare(list1.get(i), list2.get(i), isGE ? type1 : type2, true);
+            }
+            if (!ok) {
+              state.numberOfLevelVariables = Integer.MAX_VALUE;
+              myEquations.loadState(state);
+            }
+          } finally {
+            myEquations.releaseState(state);
           }
         } else {
           ok = compare(list1.get(i), list2.get(i), substitution != null && link.hasNext() ? link.getTypeExpr().subst(substitution) : null, true);
@@ -68,6 +68,10 @@ public class ElimBindingVisitor extends ExpressionTransformer<Void> {
   }
 
   private boolean findVars(Expression expression) {
+    if (myKeepVisitor != null && ExpressionSummary.count(ExpressionSummary.Traversal.FIND_BINDING, ExpressionSummary.isClosed(expression.getSummary()))) {
+      myFoundVariable = null;
+      return false;
+    }
     myFoundVariable = expression.accept(myKeepVisitor != null ? myKeepVisitor : myElimVisitor, null) ? (myKeepVisitor != null ? myKeepVisitor.getResult() : myElimVisitor.getResult()) : null;
     return myFoundVariable != null;
   }
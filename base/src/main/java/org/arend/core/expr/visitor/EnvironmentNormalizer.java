@@ -0,0 +1,202 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.HaveClause;
+import org.arend.core.expr.let.LetClause;
+import org.arend.core.pattern.Pattern;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.ext.core.level.LevelSubstitution;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.ext.util.Pair;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.computation.ComputationRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An environment-based evaluator to weak head normal form.
+ * Instead of substituting arguments into bodies of functions and lambdas, it keeps them in an environment
+ * and substitutes only the parts of the result that are actually read back.
+ * It handles beta reduction, unfolding of functions defined by expressions and by pattern matching, and non-strict let expressions.
+ * Arguments of functions defined by pattern matching are read back only when the elim tree inspects them.
+ * Everything else is delegated to {@link NormalizeVisitor}, so the results agree with it.
+ * This evaluator is used by {@link NormalizeVisitor#ENVIRONMENT_INSTANCE}.
+ */
+public final class EnvironmentNormalizer {
+  private EnvironmentNormalizer() {}
+
+  private static final class Environment {
+    private final Binding myBinding;
+    private final Closure myClosure;
+    private final Environment myNext;
+    private ExprSubstitution mySubstitution;
+
+    private Environment(Binding binding, Closure closure, Environment next) {
+      myBinding = binding;
+      myClosure = closure;
+      myNext = next;
+    }
+
+    private static Closure lookup(Environment env, Binding binding) {
+      for (; env != null; env = env.myNext) {
+        if (env.myBinding == binding) {
+          return env.myClosure;
+        }
+      }
+      return null;
+    }
+
+    private static ExprSubstitution getSubstitution(Environment env) {
+      if (env == null) {
+        return new ExprSubstitution();
+      }
+      if (env.mySubstitution == null) {
+        ExprSubstitution substitution = new ExprSubstitution(getSubstitution(env.myNext));
+        substitution.add(env.myBinding, env.myClosure.readBack());
+        env.mySubstitution = substitution;
+      }
+      return env.mySubstitution;
+    }
+  }
+
+  private static final class Closure {
+    private final Expression myTerm;
+    private final Environment myEnvironment;
+    private final LevelSubstitution myLevels;
+    private final HaveClause myLetClause;
+    private Expression myValue;
+
+    private Closure(Expression term, Environment env, LevelSubstitution levels, HaveClause letClause) {
+      myTerm = term;
+      myEnvironment = env;
+      myLevels = levels;
+      myLetClause = letClause;
+    }
+
+    private Closure(Expression term, Environment env, LevelSubstitution levels) {
+      this(term, env, levels, null);
+    }
+
+    private Expression readBack() {
+      if (myValue == null) {
+        Expression value = myEnvironment == null && myLevels.isEmpty() ? myTerm : myTerm.subst(Environment.getSubstitution(myEnvironment), myLevels);
+        // References to a let clause are shared, so it is read back as a single new clause
+        myValue = myLetClause == null ? value : new ReferenceExpression(LetClause.make(true, myLetClause.getName(), myLetClause.getPattern(), value));
+      }
+      return myValue;
+    }
+  }
+
+  private record Argument(Closure closure, boolean isExplicit) {}
+
+  private static boolean isUnfoldable(FunctionDefinition definition) {
+    return !definition.hasStrictParameters() && !NormalizeVisitor.isBlocked(definition) && definition != Prelude.ARRAY_INDEX && definition != Prelude.FIN_FROM_NAT;
+  }
+
+  private static Expression applySpine(Expression result, List<Argument> spine) {
+    for (int i = spine.size() - 1; i >= 0; i--) {
+      Argument argument = spine.get(i);
+      result = AppExpression.make(result, argument.closure.readBack(), argument.isExplicit);
+    }
+    return result;
+  }
+
+  public static Expression normalize(Expression expression) {
+    if (!(expression instanceof AppExpression || expression instanceof ReferenceExpression || expression instanceof FunCallExpression || expression instanceof LetExpression)) {
+      return expression.accept(NormalizeVisitor.INSTANCE, NormalizationMode.WHNF);
+    }
+
+    Expression term = expression;
+    Environment env = null;
+    LevelSubstitution levels = LevelSubstitution.EMPTY;
+    List<Argument> spine = new ArrayList<>();
+
+    while (true) {
+      if (term instanceof AppExpression app) {
+        spine.add(new Argument(new Closure(app.getArgument(), env, levels), app.isExplicit()));
+        term = app.getFunction();
+      } else if (term instanceof LamExpression lam && !spine.isEmpty()) {
+        SingleDependentLink param = lam.getParameters();
+        env = new Environment(param, spine.remove(spine.size() - 1).closure, env);
+        term = param.getNext().hasNext() ? new LamExpression(lam.getResultSort(), param.getNext(), lam.getBody()) : lam.getBody();
+      } else if (term instanceof ReferenceExpression ref) {
+        Closure closure = Environment.lookup(env, ref.getBinding());
+        if (closure != null) {
+          term = closure.myTerm;
+          env = closure.myEnvironment;
+          levels = closure.myLevels;
+        } else if (ref.getBinding() instanceof EvaluatingBinding binding) {
+          term = binding.getExpression();
+          env = null;
+          levels = LevelSubstitution.EMPTY;
+        } else {
+          break;
+        }
+      } else if (term instanceof LetExpression let && !let.isStrict()) {
+        for (HaveClause clause : let.getClauses()) {
+          if (clause instanceof LetClause) {
+            if (env != null || !levels.isEmpty()) {
+              env = new Environment(clause, new Closure(clause.getExpression(), env, levels, clause), env);
+            }
+          } else {
+            Expression value = LetExpression.normalizeClauseExpression(clause.getPattern(), new Closure(clause.getExpression(), env, levels).readBack());
+            env = new Environment(clause, new Closure(value, null, LevelSubstitution.EMPTY), env);
+          }
+        }
+        term = let.getExpression();
+      } else if (term instanceof FunCallExpression funCall && isUnfoldable(funCall.getDefinition())) {
+        Body body = funCall.getDefinition().getBody();
+        if (body instanceof Expression && !(body instanceof CaseExpression)) {
+          ComputationRunner.checkCanceled();
+          Environment newEnv = null;
+          DependentLink link = funCall.getDefinition().getParameters();
+          for (Expression arg : funCall.getDefCallArguments()) {
+            newEnv = new Environment(link, new Closure(arg, env, levels), newEnv);
+            link = link.getNext();
+          }
+          levels = funCall.getLevelSubstitution().subst(levels);
+          env = newEnv;
+          term = (Expression) body;
+        } else if (body instanceof ElimBody elimBody) {
+          List<Closure> args = new ArrayList<>(funCall.getDefCallArguments().size());
+          for (Expression arg : funCall.getDefCallArguments()) {
+            args.add(new Closure(arg, env, levels));
+          }
+          Pair<ElimClause<Pattern>, List<Closure>> match = NormalizeVisitor.INSTANCE.match(elimBody, args, Closure::readBack, arg -> new Closure(arg, null, LevelSubstitution.EMPTY));
+          if (match == null) {
+            // A stuck function call is already in weak head normal form, so it is not passed to NormalizeVisitor again
+            List<Expression> stuckArgs = new ArrayList<>(args.size());
+            for (Closure arg : args) {
+              stuckArgs.add(arg.readBack());
+            }
+            return applySpine(FunCallExpression.make(funCall.getDefinition(), funCall.getLevels().subst(levels), elimBody.getElimTree().normalizeArguments(stuckArgs)), spine);
+          }
+          ComputationRunner.checkCanceled();
+          Environment newEnv = null;
+          int i = 0;
+          for (DependentLink param = match.proj1.getParameters(); param.hasNext(); param = param.getNext(), i++) {
+            newEnv = new Environment(param, match.proj2.get(i), newEnv);
+          }
+          levels = funCall.getLevelSubstitution().subst(levels);
+          env = newEnv;
+          term = match.proj1.getExpression();
+        } else {
+          break;
+        }
+      } else {
+        break;
+      }
+    }
+
+    return applySpine(new Closure(term, env, levels).readBack(), spine).accept(NormalizeVisitor.INSTANCE, NormalizationMode.WHNF);
+  }
+}
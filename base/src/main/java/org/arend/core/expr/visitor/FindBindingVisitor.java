@@ -17,16 +17,60 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
   private final Set<? extends Variable> myBindings;
   private final Set<Binding> myAllowedBindings = new HashSet<>();
   private final boolean myNormalizeClassCallBindings;
+  private final int myBloom;
   private Variable myResult = null;
 
   public FindBindingVisitor(Set<? extends Variable> binding, boolean normalizeClassCallBindings) {
     myBindings = binding;
     myNormalizeClassCallBindings = normalizeClassCallBindings;
+    myBloom = computeBloom(binding);
   }
 
   public FindBindingVisitor(Set<? extends Variable> binding) {
-    myBindings = binding;
-    myNormalizeClassCallBindings = false;
+    this(binding, false);
+  }
+
+  /**
+   * @return a bloom filter of {@code variables} or -1 if some of them are not bindings.
+   */
+  private static int computeBloom(Set<? extends Variable> variables) {
+    int bloom = 0;
+    for (Variable variable : variables) {
+      if (!(variable instanceof Binding)) {
+        return -1;
+      }
+      bloom |= ExpressionSummary.getBloomBit((Binding) variable);
+    }
+    return bloom;
+  }
+
+  private boolean isUnaffected(Expression expr) {
+    return myBloom != -1 && ExpressionSummary.count(ExpressionSummary.Traversal.FIND_BINDING, ExpressionSummary.isUnaffected(expr.getSummary(), myBloom, false));
+  }
+
+  @Override
+  public Boolean visitApp(AppExpression expression, Void param) {
+    return !isUnaffected(expression) && super.visitApp(expression, param);
+  }
+
+  @Override
+  public Boolean visitDefCall(DefCallExpression expression, Void param) {
+    return !isUnaffected(expression) && super.visitDefCall(expression, param);
+  }
+
+  @Override
+  public Boolean visitConCall(ConCallExpression expression, Void param) {
+    return !isUnaffected(expression) && super.visitConCall(expression, param);
+  }
+
+  @Override
+  public Boolean visitProj(ProjExpression expression, Void param) {
+    return !isUnaffected(expression) && super.visitProj(expression, param);
+  }
+
+  @Override
+  public Boolean visitTuple(TupleExpression expression, Void param) {
+    return !isUnaffected(expression) && super.visitTuple(expression, param);
   }
 
   Set<? extends Variable> getBindings() {
@@ -49,6 +93,9 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitFieldCall(FieldCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return false;
+    }
     if (myBindings.contains(expr.getDefinition())) {
       myResult = expr.getDefinition();
       return true;
@@ -122,6 +169,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitLam(LamExpression expr, Void param) {
+    if (isUnaffected(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     Boolean result = expr.getBody().accept(this, param);
     freeDependentLink(expr.getParameters());
@@ -130,6 +178,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitPi(PiExpression expr, Void param) {
+    if (isUnaffected(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     Boolean result = expr.getCodomain().accept(this, param);
     freeDependentLink(expr.getParameters());
@@ -138,6 +187,7 @@ public class FindBindingVisitor extends SearchVisitor<Void> {
 
   @Override
   public Boolean visitSigma(SigmaExpression expr, Void param) {
+    if (isUnaffected(expr)) return false;
     if (visitDependentLink(expr.getParameters(), null)) return true;
     freeDependentLink(expr.getParameters());
     return false;
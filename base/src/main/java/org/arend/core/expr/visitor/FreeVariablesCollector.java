@@ -26,6 +26,25 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
     return collector.myResult;
   }
 
+  private static boolean isClosed(Expression expr) {
+    return ExpressionSummary.count(ExpressionSummary.Traversal.FREE_VARIABLES, ExpressionSummary.isClosed(expr.getSummary()));
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    return isClosed(expr) ? null : super.visitApp(expr, params);
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    return isClosed(expr) ? null : super.visitDefCall(expr, params);
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    return isClosed(expr) ? null : super.visitConCall(expr, params);
+  }
+
   @Override
   public Void visitReference(ReferenceExpression expr, Void params) {
     myResult.add(expr.getBinding());
@@ -34,7 +53,7 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitClassCall(ClassCallExpression expr, Void params) {
-    visitDefCall(expr, params);
+    super.visitDefCall(expr, params);
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       entry.getValue().accept(this, params);
     }
@@ -61,6 +80,9 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitLam(LamExpression expr, Void params) {
+    if (isClosed(expr)) {
+      return null;
+    }
     super.visitLam(expr, null);
     freeParams(expr.getParameters());
     return null;
@@ -68,6 +90,9 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitPi(PiExpression expr, Void params) {
+    if (isClosed(expr)) {
+      return null;
+    }
     super.visitPi(expr, null);
     freeParams(expr.getParameters());
     return null;
@@ -75,6 +100,9 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitSigma(SigmaExpression expr, Void params) {
+    if (isClosed(expr)) {
+      return null;
+    }
     super.visitSigma(expr, null);
     freeParams(expr.getParameters());
     return null;
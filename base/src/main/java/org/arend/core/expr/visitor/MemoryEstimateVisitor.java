@@ -0,0 +1,313 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.PersistentEvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.TypedDependentLink;
+import org.arend.core.definition.*;
+import org.arend.core.elimtree.*;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.HaveClause;
+import org.arend.core.pattern.Pattern;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the number of bytes retained by core definitions and expressions.
+ * Sizes are computed for a 64-bit JVM with compressed references.
+ * Every object is counted once even if it is shared, so a single visitor can be used for several definitions.
+ * Then an object shared between them is attributed to the first one.
+ */
+public class MemoryEstimateVisitor extends VoidExpressionVisitor<Void> {
+  private static final int HEADER = 12;
+  private static final int REFERENCE = 4;
+
+  private final Set<Object> myVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+  private long myBytes;
+
+  public long getBytes() {
+    return myBytes;
+  }
+
+  public static long getBytes(Definition definition) {
+    MemoryEstimateVisitor visitor = new MemoryEstimateVisitor();
+    definition.accept(visitor, null);
+    return visitor.myBytes;
+  }
+
+  public static long getBytes(Expression expression) {
+    MemoryEstimateVisitor visitor = new MemoryEstimateVisitor();
+    expression.accept(visitor, null);
+    return visitor.myBytes;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  private static long objectSize(int references, int primitiveBytes) {
+    return align(HEADER + (long) REFERENCE * references + primitiveBytes);
+  }
+
+  private static long listSize(int size) {
+    return size == 0 ? 0 : objectSize(2, 8) + align(16 + (long) REFERENCE * size);
+  }
+
+  private static long mapSize(int size) {
+    if (size == 0) {
+      return 0;
+    }
+    int capacity = Integer.highestOneBit(Math.max(1, size * 4 / 3)) * 2;
+    return objectSize(6, 16) + align(16 + (long) REFERENCE * capacity) + size * objectSize(5, 4);
+  }
+
+  private boolean enter(Object object, long bytes) {
+    if (!myVisited.add(object)) {
+      return false;
+    }
+    myBytes += bytes;
+    return true;
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    return enter(expr, objectSize(2, 1)) ? super.visitApp(expr, params) : null;
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    return enter(expr, objectSize(3, 0) + listSize(expr.getDefCallArguments().size())) ? super.visitDefCall(expr, params) : null;
+  }
+
+  @Override
+  protected void processConCall(ConCallExpression expr, Void params) {
+    enter(expr, objectSize(4, 0) + listSize(expr.getDataTypeArguments().size()) + listSize(expr.getDefCallArguments().size()));
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    return myVisited.contains(expr) ? null : super.visitConCall(expr, params);
+  }
+
+  @Override
+  public Void visitClassCall(ClassCallExpression expr, Void params) {
+    if (!enter(expr, objectSize(6, 0) + objectSize(1, 0) + mapSize(expr.getImplementedHere().size()))) {
+      return null;
+    }
+    for (Expression arg : expr.getDefCallArguments()) {
+      arg.accept(this, params);
+    }
+    for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+      entry.getValue().accept(this, params);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitReference(ReferenceExpression expr, Void params) {
+    if (enter(expr, objectSize(1, 0)) && expr.getBinding() instanceof PersistentEvaluatingBinding binding && enter(binding, objectSize(3, 0))) {
+      binding.getExpression().accept(this, null);
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitInferenceReference(expr, params) : null;
+  }
+
+  @Override
+  public Void visitSubst(SubstExpression expr, Void params) {
+    return enter(expr, objectSize(3, 0) + mapSize(expr.getSubstitution().getEntries().size())) ? super.visitSubst(expr, params) : null;
+  }
+
+  @Override
+  public void visitParameters(DependentLink link, Void params) {
+    for (; link.hasNext(); link = link.getNext()) {
+      if (!enter(link, link instanceof TypedDependentLink ? objectSize(3, 2) : objectSize(2, 0))) {
+        // The rest of the chain is shared with something that was already counted
+        return;
+      }
+      if (link instanceof TypedDependentLink) {
+        link.getTypeExpr().accept(this, params);
+      }
+    }
+  }
+
+  @Override
+  public Void visitLam(LamExpression expr, Void params) {
+    return enter(expr, objectSize(3, 0)) ? super.visitLam(expr, params) : null;
+  }
+
+  @Override
+  public Void visitPi(PiExpression expr, Void params) {
+    return enter(expr, objectSize(3, 0)) ? super.visitPi(expr, params) : null;
+  }
+
+  @Override
+  public Void visitSigma(SigmaExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitSigma(expr, params) : null;
+  }
+
+  @Override
+  public Void visitUniverse(UniverseExpression expr, Void params) {
+    enter(expr, objectSize(1, 0));
+    return null;
+  }
+
+  @Override
+  public Void visitError(ErrorExpression expr, Void params) {
+    return enter(expr, objectSize(2, 2)) ? super.visitError(expr, params) : null;
+  }
+
+  @Override
+  public Void visitTuple(TupleExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0) + listSize(expr.getFields().size())) ? super.visitTuple(expr, params) : null;
+  }
+
+  @Override
+  public Void visitProj(ProjExpression expr, Void params) {
+    return enter(expr, objectSize(1, 5)) ? super.visitProj(expr, params) : null;
+  }
+
+  @Override
+  public Void visitNew(NewExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitNew(expr, params) : null;
+  }
+
+  @Override
+  public Void visitPEval(PEvalExpression expr, Void params) {
+    return enter(expr, objectSize(1, 0)) ? super.visitPEval(expr, params) : null;
+  }
+
+  @Override
+  public Void visitBox(BoxExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitBox(expr, params) : null;
+  }
+
+  @Override
+  public Void visitLet(LetExpression expr, Void params) {
+    if (!enter(expr, objectSize(2, 1) + listSize(expr.getClauses().size()))) {
+      return null;
+    }
+    for (HaveClause clause : expr.getClauses()) {
+      enter(clause, objectSize(3, 0));
+    }
+    return super.visitLet(expr, params);
+  }
+
+  @Override
+  public Void visitCase(CaseExpression expr, Void params) {
+    return enter(expr, objectSize(6, 1) + listSize(expr.getArguments().size())) ? super.visitCase(expr, params) : null;
+  }
+
+  @Override
+  public Void visitOfType(OfTypeExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitOfType(expr, params) : null;
+  }
+
+  @Override
+  public Void visitInteger(IntegerExpression expr, Void params) {
+    enter(expr, expr instanceof SmallIntegerExpression ? objectSize(0, 4) : objectSize(1, 0) + objectSize(1, 16) + align(16 + 4L * (expr.getBigInteger().bitLength() / 32 + 1)));
+    return null;
+  }
+
+  @Override
+  public Void visitString(StringExpression expr, Void params) {
+    enter(expr, objectSize(1, 0) + objectSize(1, 5) + align(16 + expr.getString().length()));
+    return null;
+  }
+
+  @Override
+  public Void visitTypeConstructor(TypeConstructorExpression expr, Void params) {
+    return enter(expr, objectSize(3, 4) + listSize(expr.getClauseArguments().size())) ? super.visitTypeConstructor(expr, params) : null;
+  }
+
+  @Override
+  public Void visitTypeDestructor(TypeDestructorExpression expr, Void params) {
+    return enter(expr, objectSize(2, 4)) ? super.visitTypeDestructor(expr, params) : null;
+  }
+
+  @Override
+  public Void visitArray(ArrayExpression expr, Void params) {
+    return enter(expr, objectSize(4, 0) + listSize(expr.getElements().size())) ? super.visitArray(expr, params) : null;
+  }
+
+  @Override
+  public Void visitPath(PathExpression expr, Void params) {
+    return enter(expr, objectSize(3, 0)) ? super.visitPath(expr, params) : null;
+  }
+
+  @Override
+  public Void visitAt(AtExpression expr, Void params) {
+    return enter(expr, objectSize(2, 0)) ? super.visitAt(expr, params) : null;
+  }
+
+  @Override
+  protected void visitElimTree(ElimTree elimTree, Void params) {
+    if (elimTree instanceof BranchElimTree branchElimTree) {
+      if (enter(elimTree, objectSize(3, 5) + mapSize(branchElimTree.getChildren().size()))) {
+        for (Map.Entry<BranchKey, ElimTree> entry : branchElimTree.getChildren()) {
+          visitElimTree(entry.getValue(), params);
+        }
+      }
+    } else if (elimTree instanceof LeafElimTree leafElimTree) {
+      var indices = leafElimTree.getArgumentIndices();
+      enter(elimTree, objectSize(1, 8) + (indices == null ? 0 : listSize(indices.size())));
+    }
+  }
+
+  @Override
+  protected void visitElimBody(ElimBody elimBody, Void params) {
+    if (!enter(elimBody, objectSize(2, 0) + listSize(elimBody.getClauses().size()))) {
+      return;
+    }
+    for (var clause : elimBody.getClauses()) {
+      enter(clause, objectSize(2, 0) + listSize(clause.getPatterns().size()));
+      for (Pattern pattern : clause.getPatterns()) {
+        visitPattern(pattern);
+      }
+    }
+    super.visitElimBody(elimBody, params);
+  }
+
+  private void visitPattern(Pattern pattern) {
+    if (enter(pattern, objectSize(3, 0) + listSize(pattern.getSubPatterns().size()))) {
+      for (Pattern subPattern : pattern.getSubPatterns()) {
+        visitPattern(subPattern);
+      }
+    }
+  }
+
+  @Override
+  public Void visitFunction(FunctionDefinition def, Void params) {
+    return enter(def, objectSize(24, 16)) ? super.visitFunction(def, params) : null;
+  }
+
+  @Override
+  public Void visitData(DataDefinition def, Void params) {
+    return enter(def, objectSize(24, 16) + listSize(def.getConstructors().size())) ? super.visitData(def, params) : null;
+  }
+
+  @Override
+  public Void visitClass(ClassDefinition def, Void params) {
+    return enter(def, objectSize(32, 16) + listSize(def.getPersonalFields().size()) + mapSize(def.getImplemented().size()) + mapSize(def.getDefaults().size()) + mapSize(def.getOverriddenFields().size())) ? super.visitClass(def, params) : null;
+  }
+
+  @Override
+  public Void visitConstructor(Constructor constructor, Void params) {
+    return enter(constructor, objectSize(16, 12)) ? super.visitConstructor(constructor, params) : null;
+  }
+
+  @Override
+  public Void visitField(ClassField field, Void params) {
+    return enter(field, objectSize(12, 12)) ? super.visitField(field, params) : null;
+  }
+
+  @Override
+  public Void visitMeta(MetaTopDefinition def, Void params) {
+    return enter(def, objectSize(12, 8)) ? super.visitMeta(def, params) : null;
+  }
+}
@@ -34,13 +34,31 @@ import java.util.*;
 import static org.arend.core.expr.ExpressionFactory.*;
 
 public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>  {
-  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor();
+  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor(false);
 
-  private NormalizeVisitor() {
+  /**
+   * Same as {@link #INSTANCE}, but weak head normal forms of applications, function calls, references, and let expressions
+   * are computed by {@link EnvironmentNormalizer}. Other normal forms of such expressions are computed by {@link #INSTANCE} from their weak head normal forms.
+   */
+  public static final NormalizeVisitor ENVIRONMENT_INSTANCE = new NormalizeVisitor(true);
+
+  private final ThreadLocal<ArgumentStack> myStack = ThreadLocal.withInitial(ArgumentStack::new);
+  private final boolean myEnvironment;
+
+  private NormalizeVisitor(boolean environment) {
+    myEnvironment = environment;
+  }
+
+  private Expression normalizeInEnvironment(Expression expr, NormalizationMode mode) {
+    Expression result = EnvironmentNormalizer.normalize(expr);
+    return mode == NormalizationMode.WHNF ? result : result.accept(INSTANCE, mode);
   }
 
   @Override
   public Expression visitApp(AppExpression expr, NormalizationMode mode) {
+    if (myEnvironment && mode != NormalizationMode.RNF) {
+      return normalizeInEnvironment(expr, mode);
+    }
     Expression function = expr.getFunction().accept(this, mode);
     LamExpression lamExpr = function.cast(LamExpression.class);
     if (lamExpr != null) {
@@ -86,6 +104,141 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     throw new IllegalStateException();
   }
 
+  /**
+   * Arithmetic calls whose evaluation by {@link #evalNat} failed.
+   * They are normalized as usual without trying to evaluate them again.
+   * The set is cleared when the outermost normalization of an arithmetic call finishes.
+   */
+  private static class StuckArithmetic {
+    private final Set<Expression> calls = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int depth;
+  }
+
+  private final ThreadLocal<StuckArithmetic> myStuckArithmetic = ThreadLocal.withInitial(StuckArithmetic::new);
+
+  /**
+   * Evaluates a closed tree of natural numbers built from literals, {@code suc}, {@code +}, {@code *}, {@code div}, {@code mod}, and {@code Fin.fromNat}
+   * in a single pass over {@code long} values without allocating intermediate expressions.
+   * Other subexpressions are normalized and must evaluate to literals.
+   * If the evaluation fails, {@code residual[0]} is set to {@code expr} in which evaluated subtrees are replaced with their values
+   * and normalized subexpressions are replaced with their weak head normal forms, so that the usual normalization does not repeat this work.
+   * Arithmetic calls in the residual expression are added to {@code stuck}.
+   *
+   * @return the value of {@code expr}, or -1 if it is not a literal or does not fit in a {@code long}.
+   */
+  private long evalNat(Expression expr, Expression[] residual, Set<Expression> stuck) {
+    int sucs = 0;
+    while (expr instanceof ConCallExpression conCall && conCall.getDefinition() == Prelude.SUC) {
+      sucs++;
+      expr = conCall.getDefCallArguments().get(0);
+    }
+
+    long result;
+    if (expr instanceof IntegerExpression intExpr) {
+      result = intExpr.toLong();
+      if (result < 0) {
+        residual[0] = withSucs(expr, sucs);
+        return -1;
+      }
+    } else if (expr instanceof FunCallExpression funCall && isNatArithmetic(funCall.getDefinition())) {
+      FunctionDefinition definition = funCall.getDefinition();
+      int index1 = definition == Prelude.FIN_FROM_NAT ? 1 : 0;
+      List<? extends Expression> args = funCall.getDefCallArguments();
+      long n = evalNat(args.get(index1), residual, stuck);
+      Expression arg1 = n < 0 ? residual[0] : null;
+      long m = n < 0 ? -1 : evalNat(args.get(1 - index1), residual, stuck);
+      if (m >= 0) {
+        if (definition == Prelude.PLUS) {
+          result = n > Long.MAX_VALUE - m ? -1 : n + m;
+        } else if (definition == Prelude.MUL) {
+          result = m != 0 && n > Long.MAX_VALUE / m ? -1 : n * m;
+        } else if (definition == Prelude.DIV) {
+          result = m == 0 ? n : n / m;
+        } else if (definition == Prelude.MOD) {
+          result = m == 0 ? n : n % m;
+        } else {
+          result = m == Long.MAX_VALUE ? n : n % (m + 1);
+        }
+      } else {
+        result = -1;
+      }
+      if (result < 0) {
+        List<Expression> newArgs = new ArrayList<>(Collections.nCopies(2, null));
+        newArgs.set(index1, n < 0 ? arg1 : IntegerExpression.valueOf(n));
+        newArgs.set(1 - index1, n < 0 ? args.get(1 - index1) : m < 0 ? residual[0] : IntegerExpression.valueOf(m));
+        Expression call = FunCallExpression.make(definition, funCall.getLevels(), newArgs);
+        if (call instanceof FunCallExpression) {
+          stuck.add(call);
+        }
+        residual[0] = withSucs(call, sucs);
+        return -1;
+      }
+    } else {
+      Expression norm = expr.accept(this, NormalizationMode.WHNF);
+      if (!(norm instanceof IntegerExpression || norm instanceof ConCallExpression conCall && conCall.getDefinition() == Prelude.SUC)) {
+        residual[0] = withSucs(norm, sucs);
+        return -1;
+      }
+      result = evalNat(norm, residual, stuck);
+      if (result < 0) {
+        residual[0] = withSucs(residual[0], sucs);
+        return -1;
+      }
+    }
+
+    if (result > Long.MAX_VALUE - sucs) {
+      residual[0] = withSucs(IntegerExpression.valueOf(result), sucs);
+      return -1;
+    }
+    return result + sucs;
+  }
+
+  private static Expression withSucs(Expression expr, int sucs) {
+    for (int i = 0; i < sucs; i++) {
+      expr = Suc(expr);
+    }
+    return expr;
+  }
+
+  private static boolean isNatArithmetic(Definition definition) {
+    return definition == Prelude.PLUS || definition == Prelude.MUL || definition == Prelude.DIV || definition == Prelude.MOD || definition == Prelude.FIN_FROM_NAT;
+  }
+
+  /**
+   * Evaluates arithmetic on closed natural numbers that fit in a {@code long}.
+   *
+   * @return the normal form of {@code expr}, or an expression from {@code stuck} that should be normalized as usual instead of {@code expr},
+   *         or null if {@code expr} should be normalized as usual.
+   */
+  private Expression evalArithmetic(FunCallExpression expr, Set<Expression> stuck) {
+    if (!ExpressionSummary.isClosed(expr.getSummary())) {
+      return null;
+    }
+
+    Expression[] residual = new Expression[1];
+    FunctionDefinition definition = expr.getDefinition();
+    if (isNatArithmetic(definition)) {
+      long result = evalNat(expr, residual, stuck);
+      return result < 0 ? residual[0] : IntegerExpression.valueOf(result);
+    }
+
+    List<? extends Expression> args = expr.getDefCallArguments();
+    long n = evalNat(args.get(0), residual, stuck);
+    Expression arg1 = n < 0 ? residual[0] : IntegerExpression.valueOf(n);
+    long m = n < 0 ? -1 : evalNat(args.get(1), residual, stuck);
+    if (m < 0) {
+      List<Expression> newArgs = new ArrayList<>(2);
+      newArgs.add(arg1);
+      newArgs.add(n < 0 ? args.get(1) : residual[0]);
+      Expression call = FunCallExpression.make(definition, expr.getLevels(), newArgs);
+      if (call instanceof FunCallExpression) {
+        stuck.add(call);
+      }
+      return call;
+    }
+    return definition == Prelude.MINUS ? IntegerExpression.valueOf(n).minus(IntegerExpression.valueOf(m)) : IntegerExpression.valueOf(n).divMod(IntegerExpression.valueOf(m));
+  }
+
   private Expression normalizePlus(FunCallExpression expr, NormalizationMode mode) {
     List<? extends Expression> defCallArgs = expr.getDefCallArguments();
     Expression arg1 = defCallArgs.get(0).accept(this, mode);
@@ -481,14 +634,6 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     return substitution;
   }
 
-  public Deque<Expression> makeStack(List<? extends Expression> arguments) {
-    Deque<Expression> stack = new ArrayDeque<>();
-    for (int i = arguments.size() - 1; i >= 0; i--) {
-      stack.push(arguments.get(i));
-    }
-    return stack;
-  }
-
   public Expression eval(Expression expr) {
     if (expr instanceof LeveledDefCallExpression defCall) {
       Body body = defCall instanceof FunCallExpression ? ((FunCallExpression) defCall).getDefinition().getActualBody() : defCall instanceof ConCallExpression ? ((ConCallExpression) defCall).getDefinition().getBody() : null;
@@ -506,12 +651,22 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     }
   }
 
-  private static boolean isBlocked(FunctionDefinition def) {
+  static boolean isBlocked(FunctionDefinition def) {
     return def.isSFunc() || def == Prelude.PLUS || def == Prelude.MUL || def == Prelude.MINUS || def == Prelude.DIV || def == Prelude.MOD || def == Prelude.DIV_MOD || def == Prelude.COERCE || def == Prelude.COERCE2;
   }
 
   public Expression eval(ElimBody elimBody, List<? extends Expression> arguments, ExprSubstitution substitution, LevelSubstitution levelSubstitution, Expression resultExpr, NormalizationMode mode) {
-    Deque<Expression> stack = makeStack(arguments);
+    ArgumentStack stack = myStack.get();
+    int base = stack.size();
+    try {
+      stack.pushAll(arguments);
+      return eval(elimBody, stack, base, substitution, levelSubstitution, resultExpr, mode);
+    } finally {
+      stack.truncate(base);
+    }
+  }
+
+  private Expression eval(ElimBody elimBody, ArgumentStack stack, int base, ExprSubstitution substitution, LevelSubstitution levelSubstitution, Expression resultExpr, NormalizationMode mode) {
     List<Expression> argList = new ArrayList<>();
     Expression result = null;
 
@@ -621,7 +776,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
           assert elimBody != null;
           elimTree = elimBody.getElimTree();
           argList.clear();
-          stack.clear();
+          stack.truncate(base);
 
           ComputationRunner.checkCanceled();
 
@@ -679,32 +834,108 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
   }
 
   public boolean doesEvaluate(ElimTree elimTree, List<? extends Expression> arguments, boolean might) {
-    Deque<Expression> stack = makeStack(arguments);
-
-    while (true) {
-      for (int i = 0; i < elimTree.getSkip(); i++) {
-        if (stack.isEmpty()) {
+    ArgumentStack stack = myStack.get();
+    int base = stack.size();
+    try {
+      stack.pushAll(arguments);
+      while (true) {
+        for (int i = 0; i < elimTree.getSkip(); i++) {
+          if (stack.size() == base) {
+            return true;
+          }
+          stack.pop();
+        }
+        if (elimTree instanceof LeafElimTree || stack.size() == base) {
           return true;
         }
-        stack.pop();
-      }
-      if (elimTree instanceof LeafElimTree || stack.isEmpty()) {
-        return true;
+
+        elimTree = updateStack(stack, null, (BranchElimTree) elimTree);
+        if (elimTree == null) {
+          if (!might) {
+            return false;
+          }
+          Expression top = stack.size() == base ? null : TypeConstructorExpression.unfoldExpression(stack.peek());
+          return !(top instanceof ConCallExpression || top instanceof IntegerExpression || top instanceof ArrayExpression);
+        }
       }
+    } finally {
+      stack.truncate(base);
+    }
+  }
 
-      elimTree = updateStack(stack, null, (BranchElimTree) elimTree);
-      if (elimTree == null) {
-        if (!might) {
-          return false;
+  /**
+   * Finds the clause of {@code elimBody} that matches given arguments.
+   *
+   * @return the clause together with the arguments that correspond to its parameters, or null if the evaluation is stuck.
+   */
+  public Pair<ElimClause<Pattern>, List<Expression>> match(ElimBody elimBody, List<? extends Expression> arguments) {
+    return match(elimBody, arguments, arg -> arg, arg -> arg);
+  }
+
+  /**
+   * Finds the clause of {@code elimBody} that matches given arguments.
+   * An argument is converted to an expression by {@code evaluate} only if the elim tree inspects it.
+   * Arguments that are not inspected are returned as they are, and subexpressions of inspected arguments are wrapped with {@code wrap}.
+   *
+   * @return the clause together with the arguments that correspond to its parameters, or null if the evaluation is stuck.
+   */
+  public <T> Pair<ElimClause<Pattern>, List<T>> match(ElimBody elimBody, List<? extends T> arguments, java.util.function.Function<? super T, ? extends Expression> evaluate, java.util.function.Function<? super Expression, ? extends T> wrap) {
+    ArgumentStack stack = myStack.get();
+    int base = stack.size();
+    try {
+      int next = 0;
+      List<T> argList = new ArrayList<>();
+      List<Expression> kept = new ArrayList<>(1);
+      ElimTree elimTree = elimBody.getElimTree();
+      while (true) {
+        for (int i = 0; i < elimTree.getSkip(); i++) {
+          argList.add(stack.size() == base ? arguments.get(next++) : wrap.apply(stack.pop()));
         }
-        Expression top = stack.isEmpty() ? null : TypeConstructorExpression.unfoldExpression(stack.peek());
-        return !(top instanceof ConCallExpression || top instanceof IntegerExpression || top instanceof ArrayExpression);
+
+        if (elimTree instanceof LeafElimTree leafElimTree) {
+          ElimClause<Pattern> clause = elimBody.getClauses().get(leafElimTree.getClauseIndex());
+          List<T> result = new ArrayList<>();
+          int i = 0;
+          for (DependentLink link = clause.getParameters(); link.hasNext(); link = link.getNext(), i++) {
+            result.add(argList.get(leafElimTree.getArgumentIndex(i)));
+          }
+          return new Pair<>(clause, result);
+        }
+
+        if (stack.size() == base) {
+          stack.push(evaluate.apply(arguments.get(next++)));
+        }
+        elimTree = updateStack(stack, kept, (BranchElimTree) elimTree);
+        if (elimTree == null) {
+          return null;
+        }
+        for (Expression arg : kept) {
+          argList.add(wrap.apply(arg));
+        }
+        kept.clear();
       }
+    } finally {
+      stack.truncate(base);
     }
   }
 
-  private ElimTree updateStack(Deque<Expression> stack, List<Expression> argList, BranchElimTree branchElimTree) {
-    Expression argument = TypeConstructorExpression.unfoldExpression(stack.pop());
+  private ElimTree updateStack(ArgumentStack stack, List<Expression> argList, BranchElimTree branchElimTree) {
+    Expression argument = stack.pop();
+    if (argument instanceof IntegerExpression intExpr) {
+      boolean isZero = intExpr.isZero();
+      ElimTree elimTree = branchElimTree.getConstructorChild(isZero ? Prelude.ZERO : Prelude.SUC);
+      if (elimTree != null) {
+        if (argList != null && branchElimTree.keepConCall()) {
+          argList.add(argument);
+        }
+        if (!isZero) {
+          stack.push(intExpr.pred());
+        }
+        return elimTree;
+      }
+    }
+
+    argument = TypeConstructorExpression.unfoldExpression(argument);
     ArrayExpression array = argument instanceof ArrayExpression ? (ArrayExpression) argument : null;
     BranchKey key = argument instanceof ConCallExpression ? ((ConCallExpression) argument).getDefinition() : argument instanceof IntegerExpression ? (((IntegerExpression) argument).isZero() ? Prelude.ZERO : Prelude.SUC) : array != null ? new ArrayConstructor(array.getElements().isEmpty(), true, true) : argument instanceof PathExpression ? Prelude.PATH_CON : null;
 
@@ -764,9 +995,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
         }
       }
 
-      for (int i = args.size() - 1; i >= 0; i--) {
-        stack.push(args.get(i));
-      }
+      stack.pushAll(args);
     } else {
       stack.push(argument);
     }
@@ -788,6 +1017,34 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, NormalizationMode mode) {
+    if (myEnvironment && mode != NormalizationMode.RNF && expr instanceof FunCallExpression) {
+      return normalizeInEnvironment(expr, mode);
+    }
+    if (expr instanceof FunCallExpression funCall && (isNatArithmetic(funCall.getDefinition()) || funCall.getDefinition() == Prelude.MINUS || funCall.getDefinition() == Prelude.DIV_MOD)) {
+      StuckArithmetic stuck = myStuckArithmetic.get();
+      stuck.depth++;
+      try {
+        if (!stuck.calls.contains(funCall)) {
+          Expression result = evalArithmetic(funCall, stuck.calls);
+          if (result != null) {
+            if (!stuck.calls.contains(result)) {
+              return result;
+            }
+            expr = (FunCallExpression) result;
+          }
+        }
+        return visitDefCallImpl(expr, mode);
+      } finally {
+        if (--stuck.depth == 0) {
+          stuck.calls.clear();
+        }
+      }
+    }
+
+    return visitDefCallImpl(expr, mode);
+  }
+
+  private Expression visitDefCallImpl(DefCallExpression expr, NormalizationMode mode) {
     if (expr.getDefinition() instanceof FunctionDefinition && ((FunctionDefinition) expr.getDefinition()).isSFunc() || !(expr.getDefinition() instanceof Function) || ((Function) expr.getDefinition()).getBody() == null && expr.getDefinition() != Prelude.DIV_MOD && expr.getDefinition() != Prelude.ARRAY_INDEX) {
       return applyDefCall(expr, mode);
     } else {
@@ -874,7 +1131,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
   public ClassCallExpression visitClassCall(ClassCallExpression expr, NormalizationMode mode) {
     if (mode == NormalizationMode.WHNF) return expr;
 
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels(), fieldSet, expr.getSort(), expr.getUniverseKind());
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       fieldSet.put(entry.getKey(), entry.getValue().accept(this, mode).subst(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding())));
@@ -892,6 +1149,9 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
     if (mode == NormalizationMode.RNF) {
       return expr;
     }
+    if (myEnvironment && mode != NormalizationMode.RNF) {
+      return normalizeInEnvironment(expr, mode);
+    }
     if (expr.getBinding() instanceof EvaluatingBinding) {
       return ((EvaluatingBinding) expr.getBinding()).getExpression().accept(this, mode);
     }
@@ -994,6 +1254,9 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
 
   @Override
   public Expression visitLet(LetExpression let, NormalizationMode mode) {
+    if (myEnvironment && mode != NormalizationMode.RNF) {
+      return normalizeInEnvironment(let, mode);
+    }
     if ((mode == NormalizationMode.RNF) && !let.isStrict()) {
       ExprSubstitution substitution = new ExprSubstitution();
       List<HaveClause> newClauses = new ArrayList<>(let.getClauses().size());
@@ -56,13 +56,23 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
     myEvaluateBindings = evaluateBindings;
   }
 
+  private static boolean isStripped(Expression expr) {
+    return ExpressionSummary.count(ExpressionSummary.Traversal.STRIP, !ExpressionSummary.needsStrip(expr.getSummary()));
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
   }
 
   @Override
   public Expression visitFunCall(FunCallExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
@@ -72,6 +82,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     Expression it = expr;
     if (expr.getDefinition() == Prelude.SUC) {
       int n = 0;
@@ -118,6 +131,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public DataCallExpression visitDataCall(DataCallExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     List<Expression> args = expr.getDefCallArguments();
     args.replaceAll(expression -> expression.accept(this, null));
     return expr;
@@ -125,6 +141,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     if (!expr.getDefinition().isProperty()) {
       NewExpression newExpr = expr.getArgument().cast(NewExpression.class);
       if (newExpr != null) {
@@ -137,7 +156,10 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
   @Override
   public ClassCallExpression visitClassCall(ClassCallExpression expr, Void params) {
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
-      entry.setValue(entry.getValue().accept(this, null));
+      Expression value = entry.getValue().accept(this, null);
+      if (value != entry.getValue()) {
+        entry.setValue(value);
+      }
     }
     return expr;
   }
@@ -194,6 +216,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public LamExpression visitLam(LamExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     expr.setResultSort(visitSort(expr.getResultSort()));
     visitParameters(expr.getParameters());
     return new LamExpression(expr.getResultSort(), expr.getParameters(), expr.getBody().accept(this, null));
@@ -201,6 +226,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public PiExpression visitPi(PiExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     expr.setResultSort(visitSort(expr.getResultSort()));
     visitParameters(expr.getParameters());
     return new PiExpression(expr.getResultSort(), expr.getParameters(), expr.getCodomain().accept(this, null));
@@ -208,6 +236,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public SigmaExpression visitSigma(SigmaExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     visitParameters(expr.getParameters());
     return expr;
   }
@@ -235,6 +266,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public TupleExpression visitTuple(TupleExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     List<Expression> fields = new ArrayList<>(expr.getFields().size());
     for (Expression field : expr.getFields()) {
       fields.add(field.accept(this, null));
@@ -244,6 +278,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField(), expr.isBoxed());
   }
 
@@ -330,6 +367,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitTypeConstructor(TypeConstructorExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     List<Expression> args = expr.getClauseArguments();
     args.replaceAll(expression -> expression.accept(this, null));
     expr.setArgument(expr.getArgument().accept(this, null));
@@ -350,6 +390,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitPath(PathExpression expr, Void params) {
+    if (isStripped(expr)) {
+      return expr;
+    }
     Expression arg = expr.getArgument().accept(this, null);
     return new PathExpression(expr.getLevels(), expr.getArgumentType().accept(this, null), arg);
   }
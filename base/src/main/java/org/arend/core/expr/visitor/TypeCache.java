@@ -0,0 +1,121 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.ExpressionSummary;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An optional cache of results of {@link GetTypeVisitor#INSTANCE} keyed by the identity of expressions.
+ * The cache is local to a thread and exists only between {@link #start} and {@link #finish},
+ * which are called around typechecking of every definition.
+ * Nested calls share the cache of the outermost one.
+ * Only types of expressions without inference variables, level variables, and evaluating bindings are cached.
+ * The type of such an expression may still depend on types of bindings that are changed by the finalization of a definition,
+ * so the cache is cleared by {@link #invalidate} whenever expressions are changed in place.
+ */
+public final class TypeCache {
+  private static volatile boolean ourEnabled;
+  private static final ThreadLocal<Cache> ourCache = new ThreadLocal<>();
+  private static final LongAdder ourHits = new LongAdder();
+  private static final LongAdder ourMisses = new LongAdder();
+  private static final LongAdder ourMissTime = new LongAdder();
+
+  private TypeCache() {}
+
+  private static final class Cache {
+    private final Map<Expression, Expression> myTypes = new IdentityHashMap<>();
+    private int myDepth;
+  }
+
+  public static boolean isEnabled() {
+    return ourEnabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ourEnabled = enabled;
+  }
+
+  /**
+   * Starts a new cache in the current thread if caching is enabled and there is no cache yet.
+   */
+  public static void start() {
+    Cache cache = ourCache.get();
+    if (cache == null) {
+      if (!ourEnabled) {
+        return;
+      }
+      cache = new Cache();
+      ourCache.set(cache);
+    }
+    cache.myDepth++;
+  }
+
+  /**
+   * Discards the cache of the current thread if this call corresponds to the outermost {@link #start}.
+   */
+  public static void finish() {
+    Cache cache = ourCache.get();
+    if (cache != null && --cache.myDepth == 0) {
+      ourCache.remove();
+    }
+  }
+
+  /**
+   * Clears the cache of the current thread.
+   * It must be called before core expressions are changed in place.
+   */
+  public static void invalidate() {
+    Cache cache = ourCache.get();
+    if (cache != null) {
+      cache.myTypes.clear();
+    }
+  }
+
+  public static Expression getType(Expression expression) {
+    Cache cache = ourCache.get();
+    if (cache == null || !ExpressionSummary.isSolved(expression.getSummary(), true)) {
+      return expression.accept(GetTypeVisitor.INSTANCE, null);
+    }
+
+    Expression type = cache.myTypes.get(expression);
+    if (type != null) {
+      ourHits.increment();
+      return type;
+    }
+
+    long time = System.nanoTime();
+    type = expression.accept(GetTypeVisitor.INSTANCE, null);
+    ourMissTime.add(System.nanoTime() - time);
+    ourMisses.increment();
+    if (type != null) {
+      cache.myTypes.put(expression, type);
+    }
+    return type;
+  }
+
+  public static long getHits() {
+    return ourHits.sum();
+  }
+
+  public static long getMisses() {
+    return ourMisses.sum();
+  }
+
+  /**
+   * @return the estimated time in milliseconds saved by the cache,
+   *         that is, the number of hits multiplied by the average time of computing a type that was not cached.
+   */
+  public static long getSavedTime() {
+    long misses = ourMisses.sum();
+    return misses == 0 ? 0 : (long) ((double) ourHits.sum() * ourMissTime.sum() / misses / 1_000_000);
+  }
+
+  public static void resetCounters() {
+    ourHits.reset();
+    ourMisses.reset();
+    ourMissTime.reset();
+  }
+}
@@ -3,12 +3,14 @@ package org.arend.core.subst;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.ExpressionSummary;
 import org.arend.ext.core.level.LevelSubstitution;
 
 import java.util.*;
 
 public class ExprSubstitution {
   private Map<Binding, Expression> mySubstExprs;
+  private int myBloom;
 
   public ExprSubstitution() {
     mySubstExprs = Collections.emptyMap();
@@ -16,6 +18,7 @@ public class ExprSubstitution {
 
   public ExprSubstitution(ExprSubstitution substitution) {
     mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    myBloom = substitution.myBloom;
   }
 
   public ExprSubstitution(Binding from, Expression to) {
@@ -31,6 +34,14 @@ public class ExprSubstitution {
     return mySubstExprs.entrySet();
   }
 
+  /**
+   * @return a bloom filter of the keys of this substitution which is compatible with {@link ExpressionSummary}.
+   *         It may contain bits of removed keys.
+   */
+  public int getBloom() {
+    return myBloom;
+  }
+
   public boolean isEmpty() {
     return mySubstExprs.isEmpty();
   }
@@ -47,6 +58,7 @@ public class ExprSubstitution {
     if (!mySubstExprs.isEmpty()) {
       mySubstExprs.clear();
     }
+    myBloom = 0;
   }
 
   public void remove(Binding variable) {
@@ -60,6 +72,7 @@ public class ExprSubstitution {
       mySubstExprs = new HashMap<>();
     }
     mySubstExprs.put(binding, expression);
+    myBloom |= ExpressionSummary.getBloomBit(binding);
   }
 
   public void addIfAbsent(Binding binding, Expression expression) {
@@ -67,6 +80,7 @@ public class ExprSubstitution {
       mySubstExprs = new HashMap<>();
     }
     mySubstExprs.putIfAbsent(binding, expression);
+    myBloom |= ExpressionSummary.getBloomBit(binding);
   }
 
   public void addSubst(Binding binding, Expression expression) {
@@ -78,6 +92,7 @@ public class ExprSubstitution {
       }
     }
     mySubstExprs.put(binding, expression);
+    myBloom |= ExpressionSummary.getBloomBit(binding);
   }
 
   public void addAll(ExprSubstitution substitution) {
@@ -86,6 +101,7 @@ public class ExprSubstitution {
         mySubstExprs = new HashMap<>();
       }
       mySubstExprs.putAll(substitution.mySubstExprs);
+      myBloom |= substitution.myBloom;
     }
   }
 
@@ -98,6 +114,7 @@ public class ExprSubstitution {
         break;
       }
       mySubstExprs.put(link, arg);
+      myBloom |= ExpressionSummary.getBloomBit(link);
       link = link.getNext();
     }
     return this;
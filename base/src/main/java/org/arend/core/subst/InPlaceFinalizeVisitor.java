@@ -0,0 +1,36 @@
+package org.arend.core.subst;
+
+import org.arend.core.expr.*;
+import org.arend.ext.core.level.LevelSubstitution;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+
+/**
+ * Applies a level substitution in place and solves inference variables whose types have a unique element in a single traversal.
+ * It is equivalent to {@link InPlaceLevelSubstVisitor} followed by {@link InferenceVariableSolveVisitor},
+ * but it also skips subtrees with level variables if the substitution is empty.
+ */
+public class InPlaceFinalizeVisitor extends InPlaceLevelSubstVisitor {
+  private final CheckTypeVisitor myTypechecker;
+
+  public InPlaceFinalizeVisitor(LevelSubstitution levelSubstitution, CheckTypeVisitor typechecker) {
+    super(levelSubstitution);
+    myTypechecker = typechecker;
+  }
+
+  @Override
+  protected boolean isUnaffected(Expression expr) {
+    return ExpressionSummary.count(ExpressionSummary.Traversal.FINALIZE, ExpressionSummary.isSolved(expr.getSummary(), !isEmpty()));
+  }
+
+  @Override
+  public Void visitReference(ReferenceExpression expr, Void params) {
+    // Inference variables in expressions of evaluating bindings are solved when the corresponding let expression is visited
+    return isEmpty() ? null : super.visitReference(expr, params);
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    InferenceVariableSolveVisitor.solve(expr, myTypechecker);
+    return super.visitInferenceReference(expr, params);
+  }
+}
@@ -8,6 +8,7 @@ import org.arend.core.elimtree.BranchElimTree;
 import org.arend.core.elimtree.BranchKey;
 import org.arend.core.elimtree.ElimTree;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.ext.core.level.LevelSubstitution;
 
@@ -18,6 +19,8 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   public InPlaceLevelSubstVisitor(LevelSubstitution levelSubstitution) {
     mySubstitution = levelSubstitution;
+    // Cached types may contain copies of the expressions that are going to be changed
+    TypeCache.invalidate();
   }
 
   public LevelSubstitution getLevelSubstitution() {
@@ -28,6 +31,34 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
     return mySubstitution.isEmpty();
   }
 
+  /**
+   * Subtrees without level variables, inference variables, and evaluating bindings are not changed, so they are not visited.
+   * In particular, subtrees shared by {@link SubstVisitor} are never changed in place.
+   */
+  protected boolean isUnaffected(Expression expr) {
+    return ExpressionSummary.isSolved(expr.getSummary(), true);
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    return isUnaffected(expr) ? null : super.visitApp(expr, params);
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    return isUnaffected(expr) ? null : super.visitConCall(expr, params);
+  }
+
+  @Override
+  public Void visitTuple(TupleExpression expr, Void params) {
+    return isUnaffected(expr) ? null : super.visitTuple(expr, params);
+  }
+
+  @Override
+  public Void visitProj(ProjExpression expr, Void params) {
+    return isUnaffected(expr) ? null : super.visitProj(expr, params);
+  }
+
   @Override
   public void visitParameters(DependentLink link, Void params) {
     for (; link.hasNext(); link = link.getNext()) {
@@ -46,6 +77,10 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitDefCall(DefCallExpression expr, Void params) {
+    // The summary of a class call is not cached, so computing it is not cheaper than visiting it
+    if (!(expr instanceof ClassCallExpression) && isUnaffected(expr)) {
+      return null;
+    }
     if (expr instanceof LeveledDefCallExpression) {
       ((LeveledDefCallExpression) expr).substSort(mySubstitution);
     }
@@ -60,6 +95,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitPath(PathExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return null;
+    }
     expr.substLevels(mySubstitution);
     return super.visitPath(expr, params);
   }
@@ -74,6 +112,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitLam(LamExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return null;
+    }
     expr.substSort(mySubstitution);
     super.visitLam(expr, null);
     return null;
@@ -81,6 +122,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitPi(PiExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return null;
+    }
     expr.substSort(mySubstitution);
     super.visitPi(expr, null);
     return null;
@@ -88,6 +132,9 @@ public class InPlaceLevelSubstVisitor extends VoidExpressionVisitor<Void> {
 
   @Override
   public Void visitSigma(SigmaExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return null;
+    }
     expr.substSort(mySubstitution);
     super.visitSigma(expr, null);
     return null;
@@ -13,14 +13,21 @@ public class InferenceVariableSolveVisitor extends VoidExpressionVisitor<Void> {
     myTypechecker = typechecker;
   }
 
-  @Override
-  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+  /**
+   * Solves the variable of {@code expr} if its type has a unique element.
+   */
+  public static void solve(InferenceReferenceExpression expr, CheckTypeVisitor typechecker) {
     if (expr.getVariable() != null) {
       Expression solution = InferenceReferenceExpression.makeUnique(expr.getVariable().getType().normalize(NormalizationMode.WHNF));
       if (solution != null) {
-        expr.getVariable().solve(myTypechecker, solution);
+        expr.getVariable().solve(typechecker, solution);
       }
     }
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    solve(expr, myTypechecker);
     return super.visitInferenceReference(expr, params);
   }
 }
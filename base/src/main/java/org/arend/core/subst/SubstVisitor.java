@@ -23,6 +23,7 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
   private final ExprSubstitution myExprSubstitution;
   private final LevelSubstitution myLevelSubstitution;
   private final boolean myClearInferenceVariables;
+  private final boolean mySkipUnaffected;
 
   public static class SubstException extends RuntimeException {}
 
@@ -34,6 +35,8 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
     myExprSubstitution = exprSubstitution;
     myLevelSubstitution = levelSubstitution;
     myClearInferenceVariables = clearInferenceVariables;
+    // An empty substitution is used to copy expressions, and subclasses may change arbitrary subexpressions
+    mySkipUnaffected = getClass() == SubstVisitor.class && !isEmpty();
   }
 
   public ExprSubstitution getExprSubstitution() {
@@ -48,14 +51,28 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  /**
+   * Unaffected subtrees are returned as is, so they are shared by the original expression and the result.
+   * Only subtrees that in-place traversals do not change are shared; see {@link ExpressionSummary#isShareable}.
+   */
+  private boolean isUnaffected(Expression expr) {
+    return mySkipUnaffected && ExpressionSummary.count(ExpressionSummary.Traversal.SUBST, ExpressionSummary.isShareable(expr.getSummary(), myExprSubstitution.getBloom()));
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
   }
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, Void params) {
     assert expr instanceof LeveledDefCallExpression;
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
       args.add(arg.accept(this, null));
@@ -70,6 +87,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     if (expr.getDefCallArguments().isEmpty()) {
       List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
       for (Expression parameter : expr.getDataTypeArguments()) {
@@ -83,7 +103,7 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitClassCall(ClassCallExpression expr, Void params) {
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(myLevelSubstitution), fieldSet, expr.getSort(), expr.getUniverseKind());
     if (expr.getImplementedHere().isEmpty()) {
       return result;
@@ -99,6 +119,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return FieldCallExpression.make(expr.getDefinition(), expr.getArgument().accept(this, null));
   }
 
@@ -172,6 +195,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitLam(LamExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     boolean isUnused = expr.getParameters() == UnusedIntervalDependentLink.INSTANCE;
     SingleDependentLink oldParameters = isUnused ? expr.getParameters().getNext() : expr.getParameters();
     Expression result;
@@ -187,6 +213,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitPi(PiExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
     PiExpression result = new PiExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getCodomain().accept(this, null));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
@@ -195,6 +224,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitSigma(SigmaExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     SigmaExpression result = new SigmaExpression(expr.getSort().subst(myLevelSubstitution), DependentLink.Helper.subst(expr.getParameters(), this));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return result;
@@ -225,6 +257,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField(), expr.isBoxed());
   }
 
@@ -341,6 +376,9 @@ public class SubstVisitor extends ExpressionTransformer<Void> {
 
   @Override
   public Expression visitPath(PathExpression expr, Void params) {
+    if (isUnaffected(expr)) {
+      return expr;
+    }
     return new PathExpression(expr.getLevels().subst(myLevelSubstitution), expr.getArgumentType().accept(this, null), expr.getArgument().accept(this, null));
   }
 
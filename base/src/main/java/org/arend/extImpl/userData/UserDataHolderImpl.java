@@ -5,12 +5,23 @@ import org.arend.ext.userData.UserDataHolder;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 public class UserDataHolderImpl implements UserDataHolder {
   private Map<Key<?>, Object> myUserDataMap;
+  private Trail myTrail;
+
+  private static final class Trail {
+    private final List<Change> changes = new ArrayList<>();
+    private final Map<Key<?>, Integer> savedKeys = new HashMap<>();
+    private final List<Integer> checkpoints = new ArrayList<>();
+  }
+
+  /**
+   * A value of {@code key} before it was changed or accessed for the first time after a checkpoint.
+   * {@code savedAt} is the previous position of the change of {@code key} in the trail.
+   */
+  private record Change(Key<?> key, Object value, Integer savedAt) {}
 
   private UserDataHolderImpl(Map<Key<?>, Object> map) {
     myUserDataMap = map;
@@ -35,14 +46,90 @@ public class UserDataHolderImpl implements UserDataHolder {
     return new UserDataHolderImpl(map);
   }
 
+  /**
+   * Starts recording changes of user data so that they can be undone by {@link #rollbackUserData}.
+   * Every checkpoint should be released by {@link #releaseUserData}.
+   *
+   * @return the height of the trail that identifies the checkpoint.
+   */
+  public int checkpointUserData() {
+    if (myTrail == null) {
+      myTrail = new Trail();
+    }
+    int height = myTrail.changes.size();
+    myTrail.checkpoints.add(height);
+    return height;
+  }
+
+  /**
+   * Undoes changes of user data made after the checkpoint with the given height.
+   * The checkpoint remains active.
+   */
+  public void rollbackUserData(int height) {
+    if (myTrail == null) {
+      return;
+    }
+    List<Change> changes = myTrail.changes;
+    while (changes.size() > height) {
+      Change change = changes.remove(changes.size() - 1);
+      if (change.value != null) {
+        if (myUserDataMap == null) {
+          myUserDataMap = new HashMap<>();
+        }
+        myUserDataMap.put(change.key, change.value);
+      } else if (myUserDataMap != null) {
+        myUserDataMap.remove(change.key);
+      }
+      if (change.savedAt != null) {
+        myTrail.savedKeys.put(change.key, change.savedAt);
+      } else {
+        myTrail.savedKeys.remove(change.key);
+      }
+    }
+  }
+
+  /**
+   * Releases the last checkpoint.
+   * Its changes are kept so that they can still be undone by enclosing checkpoints.
+   */
+  public void releaseUserData() {
+    myTrail.checkpoints.remove(myTrail.checkpoints.size() - 1);
+    if (myTrail.checkpoints.isEmpty()) {
+      myTrail = null;
+    }
+  }
+
+  /**
+   * @return true if the value of {@code key} should be recorded, that is, if it was not recorded since the last checkpoint.
+   */
+  private boolean needsSaving(Key<?> key) {
+    if (myTrail == null) {
+      return false;
+    }
+    Integer savedAt = myTrail.savedKeys.get(key);
+    return savedAt == null || savedAt < myTrail.checkpoints.get(myTrail.checkpoints.size() - 1);
+  }
+
+  private void saveValue(Key<?> key, Object value) {
+    myTrail.changes.add(new Change(key, value, myTrail.savedKeys.put(key, myTrail.changes.size())));
+  }
+
   @Override
   public <T> @Nullable T getUserData(@NotNull Key<T> key) {
     //noinspection unchecked
-    return myUserDataMap == null ? null : (T) myUserDataMap.get(key);
+    T value = myUserDataMap == null ? null : (T) myUserDataMap.get(key);
+    // A value may be modified in place, so its copy is recorded while the live value keeps its identity
+    if (value != null && needsSaving(key)) {
+      saveValue(key, key.copy(value));
+    }
+    return value;
   }
 
   @Override
   public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+    if (needsSaving(key)) {
+      saveValue(key, myUserDataMap == null ? null : myUserDataMap.get(key));
+    }
     if (value != null) {
       if (myUserDataMap == null) {
         myUserDataMap = new HashMap<>();
@@ -19,6 +19,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -31,13 +35,36 @@ public class LibraryManager {
   private final ErrorReporter myTypecheckingErrorReporter;
   private final ErrorReporter myLibraryErrorReporter;
   private final Map<Library, Set<Library>> myReverseDependencies = new LinkedHashMap<>();
-  private final Set<Library> myLoadingLibraries = new HashSet<>();
+  private final Map<Library, LoadingLibrary> myLoadingLibraries = new LinkedHashMap<>();
   private final Set<Library> myFailedLibraries = new HashSet<>();
-  private MultiClassLoader<Library> myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
-  private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
+  private final ReentrantLock mySequentialLoadingLock = new ReentrantLock();
+  private int myLoadingParallelism = 1;
+  private ForkJoinPool myLoadingPool;
+  private volatile MultiClassLoader<Library> myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
+  private volatile MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
   private final DefinitionListener myDefinitionListener;
 
+  /**
+   * A library that is being loaded.
+   * {@code awaited} contains libraries whose loading is awaited by this library.
+   */
+  private static final class LoadingLibrary {
+    private final Thread thread = Thread.currentThread();
+    private final Set<Library> awaited = new HashSet<>();
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+  }
+
+  /**
+   * Describes how a library should be loaded.
+   * If {@code loading} is null, the library should not be loaded and {@code result} is the result.
+   * Otherwise, the library should be loaded if {@code isOwner} is true and its loading should be awaited if it is false.
+   */
+  private record LoadingTicket(LoadingLibrary loading, boolean isOwner, boolean result) {
+    static final LoadingTicket LOADED = new LoadingTicket(null, false, true);
+    static final LoadingTicket FAILED = new LoadingTicket(null, false, false);
+  }
+
   /**
    * Constructs new {@code LibraryManager}.
    *
@@ -101,6 +128,37 @@ public class LibraryManager {
     return myLibraryErrorReporter;
   }
 
+  /**
+   * Sets the maximal number of libraries that are loaded in parallel.
+   * If {@code parallelism} is greater than 1, independent dependencies of a library are loaded on a thread pool,
+   * so definition listeners should be thread-safe.
+   */
+  public synchronized void setLoadingParallelism(int parallelism) {
+    if (parallelism != myLoadingParallelism && myLoadingPool != null) {
+      myLoadingPool.shutdown();
+      myLoadingPool = null;
+    }
+    myLoadingParallelism = parallelism;
+  }
+
+  private synchronized ForkJoinPool getLoadingPool() {
+    if (myLoadingParallelism <= 1) {
+      return null;
+    }
+    if (myLoadingPool == null) {
+      myLoadingPool = new ForkJoinPool(myLoadingParallelism);
+    }
+    return myLoadingPool;
+  }
+
+  /**
+   * Gets a lock that serializes the parts of library loading that are not thread-safe,
+   * such as loading of raw sources and extensions.
+   */
+  public ReentrantLock getSequentialLoadingLock() {
+    return mySequentialLoadingLock;
+  }
+
   public MultiClassLoader<Library> getClassLoader(boolean external) {
     return external ? myExternalClassLoader : myInternalClassLoader;
   }
@@ -120,7 +178,7 @@ public class LibraryManager {
    *
    * @return true if the library is registered in this library manager, false otherwise.
    */
-  public boolean isRegistered(Library library) {
+  public synchronized boolean isRegistered(Library library) {
     return myReverseDependencies.containsKey(library);
   }
 
@@ -140,7 +198,7 @@ public class LibraryManager {
    *
    * @return the library with the given name.
    */
-  public Library getRegisteredLibrary(String libraryName) {
+  public synchronized Library getRegisteredLibrary(String libraryName) {
     for (Library library : getRegisteredLibraries()) {
       if (library.getName().equals(libraryName)) {
         return library;
@@ -156,7 +214,7 @@ public class LibraryManager {
    *
    * @return the library with the given name.
    */
-  public Library getRegisteredLibrary(Predicate<Library> pred) {
+  public synchronized Library getRegisteredLibrary(Predicate<Library> pred) {
     for (Library library : getRegisteredLibraries()) {
       if (pred.test(library)) {
         return library;
@@ -183,16 +241,59 @@ public class LibraryManager {
    * @return the loaded library if loading succeeded, null otherwise.
    */
   public Library loadDependency(Library library, String dependencyName, TypecheckingOrderingListener typechecking) {
-    Library dependency = getRegisteredLibrary(dependencyName);
-    if (dependency == null) {
-      dependency = myLibraryResolver.resolve(library, dependencyName);
+    Library dependency;
+    LoadingTicket ticket;
+    synchronized (this) {
+      dependency = getRegisteredLibrary(dependencyName);
       if (dependency == null) {
-        showLibraryNotFoundError(dependencyName);
-        return null;
+        dependency = myLibraryResolver.resolve(library, dependencyName);
+        if (dependency == null) {
+          showLibraryNotFoundError(dependencyName);
+          return null;
+        }
       }
+      ticket = startLoading(library, dependency);
     }
 
-    return loadLibrary(dependency, typechecking) ? dependency : null;
+    return finishLoading(library, dependency, ticket, typechecking) ? dependency : null;
+  }
+
+  /**
+   * Loads dependencies of a given library together with their dependencies and registers them in this library manager.
+   * If the loading parallelism is greater than 1, the dependencies are loaded in parallel.
+   *
+   * @param library         a library.
+   * @param dependencyNames the names of the dependencies to load.
+   * @param typechecking    a typechecker that will be used for loading extensions.
+   * @param stopOnFailure   if true, sequential loading stops at the first dependency that cannot be loaded.
+   *
+   * @return the list of loaded dependencies in the same order as {@code dependencyNames};
+   *         it contains null for dependencies that were not loaded.
+   */
+  public List<Library> loadDependencies(Library library, List<String> dependencyNames, TypecheckingOrderingListener typechecking, boolean stopOnFailure) {
+    List<Library> result = new ArrayList<>(Collections.nCopies(dependencyNames.size(), null));
+    ForkJoinPool pool = dependencyNames.size() < 2 ? null : getLoadingPool();
+    if (pool == null) {
+      for (int i = 0; i < dependencyNames.size(); i++) {
+        Library dependency = loadDependency(library, dependencyNames.get(i), typechecking);
+        result.set(i, dependency);
+        if (dependency == null && stopOnFailure) {
+          break;
+        }
+      }
+      return result;
+    }
+
+    List<ForkJoinTask<Library>> tasks = new ArrayList<>(dependencyNames.size() - 1);
+    for (int i = 1; i < dependencyNames.size(); i++) {
+      String dependencyName = dependencyNames.get(i);
+      tasks.add(pool.submit(() -> loadDependency(library, dependencyName, typechecking)));
+    }
+    result.set(0, loadDependency(library, dependencyNames.get(0), typechecking));
+    for (int i = 0; i < tasks.size(); i++) {
+      result.set(i + 1, tasks.get(i).join());
+    }
+    return result;
   }
 
   /**
@@ -204,31 +305,128 @@ public class LibraryManager {
    * @return true if loading succeeded, false otherwise.
    */
   public boolean loadLibrary(Library library, TypecheckingOrderingListener typechecking) {
-    if (myLoadingLibraries.contains(library)) {
-      myLibraryErrorReporter.report(LibraryError.cyclic(myLoadingLibraries.stream().map(Library::getName)));
-      return false;
+    LoadingTicket ticket;
+    synchronized (this) {
+      ticket = startLoading(null, library);
+    }
+    return finishLoading(null, library, ticket, typechecking);
+  }
+
+  /**
+   * Decides whether {@code library} should be loaded, awaited, or neither.
+   * The loading of a library may be awaited only if this does not create a cycle of libraries awaiting each other.
+   */
+  private LoadingTicket startLoading(Library depender, Library library) {
+    LoadingLibrary loading = myLoadingLibraries.get(library);
+    LoadingLibrary dependerLoading = depender == null ? null : myLoadingLibraries.get(depender);
+    if (loading != null) {
+      List<Library> cycle = dependerLoading == null ? (loading.thread == Thread.currentThread() ? new ArrayList<>(myLoadingLibraries.keySet()) : null) : findAwaitingPath(library, depender);
+      if (cycle != null) {
+        myLibraryErrorReporter.report(LibraryError.cyclic(cycle.stream().map(Library::getName)));
+        return LoadingTicket.FAILED;
+      }
+      if (dependerLoading != null) {
+        dependerLoading.awaited.add(library);
+      }
+      return new LoadingTicket(loading, false, false);
     }
 
     if (myReverseDependencies.containsKey(library)) {
-      return true;
+      return LoadingTicket.LOADED;
     }
 
     if (myFailedLibraries.contains(library)) {
-      return false;
+      return LoadingTicket.FAILED;
     }
 
-    myLoadingLibraries.add(library);
+    loading = new LoadingLibrary();
+    myLoadingLibraries.put(library, loading);
+    myReverseDependencies.put(library, new HashSet<>());
+    if (dependerLoading != null) {
+      dependerLoading.awaited.add(library);
+    }
+    return new LoadingTicket(loading, true, false);
+  }
 
+  /**
+   * @return a path from {@code from} to {@code to} in the graph of awaited libraries or null if there is no such path.
+   */
+  private List<Library> findAwaitingPath(Library from, Library to) {
+    List<Library> path = new ArrayList<>();
+    return findAwaitingPath(from, to, path, new HashSet<>()) ? path : null;
+  }
+
+  private boolean findAwaitingPath(Library from, Library to, List<Library> path, Set<Library> visited) {
+    path.add(from);
+    if (from.equals(to)) {
+      return true;
+    }
+    LoadingLibrary loading = myLoadingLibraries.get(from);
+    if (loading != null && visited.add(from)) {
+      for (Library library : loading.awaited) {
+        if (findAwaitingPath(library, to, path, visited)) {
+          return true;
+        }
+      }
+    }
+    path.remove(path.size() - 1);
+    return false;
+  }
+
+  private boolean finishLoading(Library depender, Library library, LoadingTicket ticket, TypecheckingOrderingListener typechecking) {
+    if (ticket.loading == null) {
+      return ticket.result;
+    }
+
+    if (!ticket.isOwner) {
+      try {
+        return ticket.loading.result.join();
+      } finally {
+        stopAwaiting(depender, library);
+      }
+    }
+
+    boolean result = false;
     try {
-      myReverseDependencies.put(library, new HashSet<>());
-      boolean result = library.load(this, typechecking);
+      result = library.load(this, typechecking);
       if (!result) {
-        myReverseDependencies.remove(library);
-        myFailedLibraries.add(library);
+        synchronized (this) {
+          myReverseDependencies.remove(library);
+          myFailedLibraries.add(library);
+        }
       }
       return result;
     } finally {
-      myLoadingLibraries.remove(library);
+      synchronized (this) {
+        myLoadingLibraries.remove(library);
+      }
+      stopAwaiting(depender, library);
+      ticket.loading.result.complete(result);
+    }
+  }
+
+  private synchronized void stopAwaiting(Library depender, Library library) {
+    LoadingLibrary dependerLoading = depender == null ? null : myLoadingLibraries.get(depender);
+    if (dependerLoading != null) {
+      dependerLoading.awaited.remove(library);
+    }
+  }
+
+  void fireBeforeLibraryLoading(Library library) {
+    mySequentialLoadingLock.lock();
+    try {
+      beforeLibraryLoading(library);
+    } finally {
+      mySequentialLoadingLock.unlock();
+    }
+  }
+
+  void fireAfterLibraryLoading(Library library, int loadedModules, int totalModules) {
+    mySequentialLoadingLock.lock();
+    try {
+      afterLibraryLoading(library, loadedModules, totalModules);
+    } finally {
+      mySequentialLoadingLock.unlock();
     }
   }
 
@@ -259,7 +457,7 @@ public class LibraryManager {
    * @param dependee  the library on which the depender depends.
    *                  This library must be registered in this library manager.
    */
-  public void registerDependency(Library depender, Library dependee) {
+  public synchronized void registerDependency(Library depender, Library dependee) {
     myReverseDependencies.get(dependee).add(depender);
   }
 
@@ -282,14 +480,13 @@ public class LibraryManager {
    *
    * @param library the library to unload.
    */
-  public void unloadLibrary(Library library) {
-    getClassLoader(library.isExternal()).removeDelegate(library);
-    myFailedLibraries.remove(library);
-    if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+  public synchronized void unloadLibrary(Library library) {
+    if (reportLoadingLibraries()) {
       return;
     }
 
+    getClassLoader(library.isExternal()).removeDelegate(library);
+    myFailedLibraries.remove(library);
     Set<Library> dependencies = library.unload() ? myReverseDependencies.remove(library) : myReverseDependencies.get(library);
     if (dependencies != null) {
       for (Library dependency : dependencies) {
@@ -301,31 +498,45 @@ public class LibraryManager {
   /**
    * Unloads all libraries.
    */
-  public void unload() {
-    myFailedLibraries.clear();
-    if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+  public synchronized void unload() {
+    if (reportLoadingLibraries()) {
+      return;
     }
 
+    myFailedLibraries.clear();
     myReverseDependencies.keySet().removeIf(Library::unload);
   }
 
-  private void reloadLibraries(List<Library> libraries, Supplier<TypecheckingOrderingListener> supplier, boolean reloadExternal) {
-    if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+  /**
+   * Reports an error if some libraries are being loaded.
+   * It should be invoked while holding the lock of this library manager.
+   *
+   * @return true if some libraries are being loaded, false otherwise.
+   */
+  private boolean reportLoadingLibraries() {
+    if (myLoadingLibraries.isEmpty()) {
+      return false;
     }
+    myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(new ArrayList<>(myLoadingLibraries.keySet()).stream().map(Library::getName)));
+    return true;
+  }
+
+  private void reloadLibraries(List<Library> libraries, Supplier<TypecheckingOrderingListener> supplier, boolean reloadExternal) {
     if (libraries.isEmpty()) {
       return;
     }
 
-    for (Library library : libraries) {
-      library.unload();
-    }
+    // Libraries are loaded without holding the lock since dependencies may be loaded on other threads
+    synchronized (this) {
+      for (Library library : libraries) {
+        library.unload();
+      }
 
-    if (reloadExternal) {
-      myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
+      if (reloadExternal) {
+        myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
+      }
+      myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
     }
-    myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
 
     TypecheckingOrderingListener typechecking = supplier.get();
     for (Library library : libraries) {
@@ -340,13 +551,18 @@ public class LibraryManager {
    */
   public void reloadInternalLibraries(Supplier<TypecheckingOrderingListener> typechecking) {
     List<Library> libraries = new ArrayList<>();
-    Iterator<Library> it = myReverseDependencies.keySet().iterator();
-    while (it.hasNext()) {
-      Library library = it.next();
-      if (!library.isExternal()) {
-        libraries.add(library);
-        it.remove();
-        myFailedLibraries.remove(library);
+    synchronized (this) {
+      if (reportLoadingLibraries()) {
+        return;
+      }
+      Iterator<Library> it = myReverseDependencies.keySet().iterator();
+      while (it.hasNext()) {
+        Library library = it.next();
+        if (!library.isExternal()) {
+          libraries.add(library);
+          it.remove();
+          myFailedLibraries.remove(library);
+        }
       }
     }
 
@@ -359,9 +575,15 @@ public class LibraryManager {
    * @param typechecking  a typechecker for language extensions.
    */
   public void reload(Supplier<TypecheckingOrderingListener> typechecking) {
-    List<Library> libraries = new ArrayList<>(myReverseDependencies.keySet());
-    myFailedLibraries.clear();
-    myReverseDependencies.clear();
+    List<Library> libraries;
+    synchronized (this) {
+      if (reportLoadingLibraries()) {
+        return;
+      }
+      libraries = new ArrayList<>(myReverseDependencies.keySet());
+      myFailedLibraries.clear();
+      myReverseDependencies.clear();
+    }
     reloadLibraries(libraries, typechecking, true);
   }
 }
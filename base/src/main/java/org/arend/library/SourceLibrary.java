@@ -31,6 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
@@ -219,9 +220,14 @@ public abstract class SourceLibrary extends BaseLibrary {
       classLoader.addDelegate(this, header.classLoaderDelegate);
     }
 
-    Map<String, ArendExtension> dependenciesExtensions = new LinkedHashMap<>();
+    List<String> dependencyNames = new ArrayList<>(header.dependencies.size());
     for (LibraryDependency dependency : header.dependencies) {
-      Library loadedDependency = libraryManager.loadDependency(this, dependency.name, typechecking);
+      dependencyNames.add(dependency.name);
+    }
+    List<Library> loadedDependencies = libraryManager.loadDependencies(this, dependencyNames, typechecking, !mustBeLoaded());
+    Map<String, ArendExtension> dependenciesExtensions = new LinkedHashMap<>();
+    for (int i = 0; i < dependencyNames.size(); i++) {
+      Library loadedDependency = loadedDependencies.get(i);
       if (loadedDependency == null && !mustBeLoaded()) {
         classLoader.removeDelegate(this);
         return false;
@@ -229,12 +235,76 @@ public abstract class SourceLibrary extends BaseLibrary {
 
       if (loadedDependency != null) {
         libraryManager.registerDependency(this, loadedDependency);
-        dependenciesExtensions.put(dependency.name, loadedDependency.getArendExtension());
+        dependenciesExtensions.put(dependencyNames.get(i), loadedDependency.getArendExtension());
+      }
+    }
+
+    libraryManager.fireBeforeLibraryLoading(this);
+    Lock lock = libraryManager.getSequentialLoadingLock();
+    SerializableKeyRegistryImpl keyRegistry;
+    lock.lock();
+    try {
+      keyRegistry = loadExtension(libraryManager, classLoader, header, dependenciesExtensions);
+    } finally {
+      lock.unlock();
+    }
+
+    Set<ModulePath> loaded = Collections.emptySet();
+    try {
+      SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
+      if (hasRawSources()) {
+        lock.lock();
+        try {
+          Set<ModulePath> loadedRaw = sourceLoader.loadRawSources(header.modules, false);
+          if (loadedRaw.size() < header.modules.size()) {
+            for (ModulePath module : header.modules) {
+              if (!loadedRaw.contains(module)) {
+                libraryManager.getLibraryErrorReporter().report(new ModuleNotFoundError(module));
+              }
+            }
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+
+      if (!myFlags.contains(Flag.RECOMPILE) || isExternal()) {
+        DefinitionListener definitionListener = ListDefinitionListener.join(libraryManager.getDefinitionListener(), myExtension.getDefinitionListener());
+        loaded = sourceLoader.loadBinarySources(header.modules, keyRegistry, definitionListener);
+        if (loaded.size() < header.modules.size() && !mustBeLoaded()) {
+          libraryManager.fireAfterLibraryLoading(this, -1, header.modules.size());
+          return false;
+        }
+      }
+    } catch (Throwable e) {
+      libraryManager.fireAfterLibraryLoading(this, -1, header.modules.size());
+      throw e;
+    }
+
+    lock.lock();
+    try {
+      myExtension.setDefinitionProvider(DefinitionProviderImpl.INSTANCE);
+      ArendDependencyProviderImpl provider = new ArendDependencyProviderImpl(typechecking, libraryManager.getAvailableModuleScopeProvider(this), libraryManager.getDefinitionRequester(), this);
+      try {
+        myExtension.load(provider);
+      } finally {
+        provider.disable();
       }
+    } finally {
+      lock.unlock();
     }
 
-    libraryManager.beforeLibraryLoading(this);
+    libraryManager.fireAfterLibraryLoading(this, loaded.size(), header.modules.size());
 
+    return super.load(libraryManager, typechecking);
+  }
+
+  /**
+   * Instantiates the extension of this library, declares its definitions, and loads generated modules.
+   *
+   * @return the registry of keys declared by the extension.
+   */
+  private SerializableKeyRegistryImpl loadExtension(LibraryManager libraryManager, MultiClassLoader<Library> classLoader, LibraryHeader header, Map<String, ArendExtension> dependenciesExtensions) {
     try {
       Class<?> extMainClass = null;
       if (header.classLoaderDelegate != null && header.extMainClass != null) {
@@ -276,44 +346,7 @@ public abstract class SourceLibrary extends BaseLibrary {
     }
     loadGeneratedModules();
 
-    Set<ModulePath> loaded = Collections.emptySet();
-    try {
-      SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
-      if (hasRawSources()) {
-        Set<ModulePath> loadedRaw = sourceLoader.loadRawSources(header.modules, false);
-        if (loadedRaw.size() < header.modules.size()) {
-          for (ModulePath module : header.modules) {
-            if (!loadedRaw.contains(module)) {
-              libraryManager.getLibraryErrorReporter().report(new ModuleNotFoundError(module));
-            }
-          }
-        }
-      }
-
-      if (!myFlags.contains(Flag.RECOMPILE) || isExternal()) {
-        DefinitionListener definitionListener = ListDefinitionListener.join(libraryManager.getDefinitionListener(), myExtension.getDefinitionListener());
-        loaded = sourceLoader.loadBinarySources(header.modules, keyRegistry, definitionListener);
-        if (loaded.size() < header.modules.size() && !mustBeLoaded()) {
-          libraryManager.afterLibraryLoading(this, -1, header.modules.size());
-          return false;
-        }
-      }
-    } catch (Throwable e) {
-      libraryManager.afterLibraryLoading(this, -1, header.modules.size());
-      throw e;
-    }
-
-    myExtension.setDefinitionProvider(DefinitionProviderImpl.INSTANCE);
-    ArendDependencyProviderImpl provider = new ArendDependencyProviderImpl(typechecking, libraryManager.getAvailableModuleScopeProvider(this), libraryManager.getDefinitionRequester(), this);
-    try {
-      myExtension.load(provider);
-    } finally {
-      provider.disable();
-    }
-
-    libraryManager.afterLibraryLoading(this, loaded.size(), header.modules.size());
-
-    return super.load(libraryManager, typechecking);
+    return keyRegistry;
   }
 
   public boolean loadTests(LibraryManager libraryManager, Collection<? extends ModulePath> modules) {
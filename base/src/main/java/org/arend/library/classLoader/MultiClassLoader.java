@@ -11,16 +11,16 @@ public class MultiClassLoader<T> extends ClassLoader {
     super(parent);
   }
 
-  public void addDelegate(T name, ClassLoaderDelegate delegate) {
+  public synchronized void addDelegate(T name, ClassLoaderDelegate delegate) {
     myDelegates.put(name, delegate);
   }
 
-  public void removeDelegate(T name) {
+  public synchronized void removeDelegate(T name) {
     myDelegates.remove(name);
   }
 
   @Override
-  protected Class<?> findClass(String name) throws ClassNotFoundException {
+  protected synchronized Class<?> findClass(String name) throws ClassNotFoundException {
     for (ClassLoaderDelegate delegate : myDelegates.values()) {
       byte[] bytes = delegate.findClass(name);
       if (bytes != null) {
@@ -3,17 +3,17 @@ package org.arend.module.scopeprovider;
 import org.arend.ext.module.ModulePath;
 import org.arend.naming.scope.CachingScope;
 import org.arend.naming.scope.Scope;
+import org.arend.util.ComputingCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Caches scopes of modules.
+ * It can be shared by several threads; the scope of each module is computed at most once.
+ */
 public class CachingModuleScopeProvider implements ModuleScopeProvider {
   private final ModuleScopeProvider myModuleScopeProvider;
-  private final Map<ModulePath, Scope> myScopes = new HashMap<>();
-
-  private final static Scope NULL_SCOPE = new Scope() {};
+  private final ComputingCache<ModulePath, Scope> myScopes = new ComputingCache<>();
 
   public CachingModuleScopeProvider(ModuleScopeProvider moduleScopeProvider) {
     myModuleScopeProvider = moduleScopeProvider;
@@ -30,19 +30,9 @@ public class CachingModuleScopeProvider implements ModuleScopeProvider {
   @Nullable
   @Override
   public Scope forModule(@NotNull ModulePath module) {
-    Scope scope = myScopes.get(module);
-    if (scope == NULL_SCOPE) {
-      return null;
-    }
-    if (scope != null) {
-      return scope;
-    }
-
-    scope = myModuleScopeProvider.forModule(module);
-    if (scope != null) {
-      scope = CachingScope.make(scope);
-    }
-    myScopes.put(module, scope == null ? NULL_SCOPE : scope);
-    return scope;
+    return myScopes.computeIfAbsent(module, modulePath -> {
+      Scope scope = myModuleScopeProvider.forModule(modulePath);
+      return scope == null ? null : CachingScope.make(scope);
+    });
   }
 }
@@ -1,6 +1,7 @@
 package org.arend.module.serialization;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import org.arend.core.context.LinkList;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.param.DependentLink;
@@ -11,11 +12,14 @@ import org.arend.core.pattern.*;
 import org.arend.core.subst.Levels;
 import org.arend.ext.core.definition.CoreDefinition;
 import org.arend.ext.core.definition.CoreFunctionDefinition;
+import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.serialization.ArendDeserializer;
 import org.arend.ext.serialization.DeserializationException;
 import org.arend.ext.serialization.SerializableKey;
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.SerializableKeyRegistryImpl;
+import org.arend.module.ModuleLocation;
+import org.arend.module.error.DeserializationError;
 import org.arend.naming.reference.*;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
@@ -23,12 +27,15 @@ import org.arend.ext.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public class DefinitionDeserialization implements ArendDeserializer {
   private final CallTargetProvider myCallTargetProvider;
   private final DependencyListener myDependencyListener;
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
+  private boolean myLazyProofs;
+  private ErrorReporter myErrorReporter;
 
   public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
     myCallTargetProvider = callTargetProvider;
@@ -37,6 +44,15 @@ public class DefinitionDeserialization implements ArendDeserializer {
     myDefinitionListener = definitionListener;
   }
 
+  /**
+   * If {@code lazyProofs} is true, bodies of functions that do not affect normalization are read only when they are requested.
+   * Errors that occur while reading such bodies are reported to {@code errorReporter}.
+   */
+  public void setLazyProofs(boolean lazyProofs, ErrorReporter errorReporter) {
+    myLazyProofs = lazyProofs;
+    myErrorReporter = errorReporter;
+  }
+
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def) throws DeserializationException {
     final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def);
 
@@ -178,6 +194,7 @@ public class DefinitionDeserialization implements ArendDeserializer {
         classDef.implementField(entry.getKey(), entry.getValue());
       }
     }
+    classDef.updateFieldIndices();
 
     if (classDef.getReferable() instanceof ClassReferableImpl classRef) {
       for (ClassDefinition superClass : classDef.getSuperClasses()) {
@@ -390,7 +407,7 @@ public class DefinitionDeserialization implements ArendDeserializer {
     }
   }
 
-  private Body readBody(ExpressionDeserialization defDeserializer, DefinitionProtos.Body proto, int numberOfParameters) throws DeserializationException {
+  private static Body readBody(ExpressionDeserialization defDeserializer, DefinitionProtos.Body proto, int numberOfParameters) throws DeserializationException {
     switch (proto.getKindCase()) {
       case ELIM_BODY -> {
         return defDeserializer.readElimBody(proto.getElimBody());
@@ -467,7 +484,12 @@ public class DefinitionDeserialization implements ArendDeserializer {
     functionDef.setKind(kind);
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
     if (functionProto.hasBody()) {
-      functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+      int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+      if (myLazyProofs && !(functionDef instanceof DConstructor) && (kind == CoreFunctionDefinition.Kind.LEMMA || functionDef.getBodyHiddenStatus() == FunctionDefinition.HiddenStatus.REALLY_HIDDEN || functionProto.getPropResult())) {
+        functionDef.setBodyLoader(new BodyLoader(defDeserializer.detach(), functionProto.getBody().toByteString(), numberOfParameters, functionDef, myErrorReporter));
+      } else {
+        functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), numberOfParameters));
+      }
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
@@ -533,4 +555,37 @@ public class DefinitionDeserialization implements ArendDeserializer {
     }
     return clazz.cast(def);
   }
+
+  /**
+   * Reads a deferred body of a function.
+   * It retains only the serialized body and a detached deserializer, so the deserializer of the module can be collected.
+   */
+  private static class BodyLoader implements Supplier<Body> {
+    private final ExpressionDeserialization myDeserializer;
+    private final ByteString myBody;
+    private final int myNumberOfParameters;
+    private final FunctionDefinition myDefinition;
+    private final ErrorReporter myErrorReporter;
+
+    private BodyLoader(ExpressionDeserialization deserializer, ByteString body, int numberOfParameters, FunctionDefinition definition, ErrorReporter errorReporter) {
+      myDeserializer = deserializer;
+      myBody = body;
+      myNumberOfParameters = numberOfParameters;
+      myDefinition = definition;
+      myErrorReporter = errorReporter;
+    }
+
+    @Override
+    public Body get() {
+      try {
+        return readBody(myDeserializer, DefinitionProtos.Body.parseFrom(myBody), myNumberOfParameters);
+      } catch (InvalidProtocolBufferException | DeserializationException e) {
+        if (myErrorReporter != null) {
+          ModuleLocation location = LocatedReferable.Helper.getLocation(myDefinition.getRef(), new ArrayList<>());
+          myErrorReporter.report(new DeserializationError(location == null ? null : location.getModulePath(), e));
+        }
+        return null;
+      }
+    }
+  }
 }
@@ -15,6 +15,7 @@ import org.arend.core.pattern.BindingPattern;
 import org.arend.core.pattern.ConstructorExpressionPattern;
 import org.arend.core.pattern.EmptyPattern;
 import org.arend.core.pattern.ExpressionPattern;
+import org.arend.core.sort.Sort;
 import org.arend.core.subst.Levels;
 import org.arend.ext.core.definition.CoreDefinition;
 import org.arend.ext.reference.Precedence;
@@ -388,6 +389,8 @@ public class DefinitionSerialization implements ArendSerializer {
     }
     if (definition.getResultType() != null) {
       builder.setType(defSerializer.writeExpr(definition.getResultType()));
+      Sort sort = definition.getResultType().getSortOfType();
+      builder.setPropResult(sort != null && sort.isProp());
     }
     if (definition.getResultTypeLevel() != null) {
       builder.setTypeLevel(defSerializer.writeExpr(definition.getResultTypeLevel()));
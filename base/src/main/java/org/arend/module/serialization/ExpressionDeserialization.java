@@ -25,6 +25,7 @@ import org.arend.core.subst.ListLevels;
 import org.arend.ext.serialization.DeserializationException;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 
 import java.math.BigInteger;
 import java.util.*;
@@ -42,6 +43,16 @@ class ExpressionDeserialization {
     myDefinition = definition;
   }
 
+  /**
+   * Creates a deserializer with the current bindings that does not report dependencies.
+   * It is used to read deferred bodies, which should not retain the dependency listener.
+   */
+  ExpressionDeserialization detach() {
+    ExpressionDeserialization result = new ExpressionDeserialization(myCallTargetProvider, DummyDependencyListener.INSTANCE, myDefinition);
+    result.myBindings.addAll(myBindings);
+    return result;
+  }
+
   // Bindings
 
   private void registerBinding(Binding binding) {
@@ -412,7 +423,7 @@ class ExpressionDeserialization {
     ClassDefinition classDefinition = myCallTargetProvider.getCallTarget(proto.getClassRef(), ClassDefinition.class);
     myDependencyListener.dependsOn(myDefinition.getRef(), classDefinition.getReferable());
 
-    Map<ClassField, Expression> fieldSet = new LinkedHashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(classDefinition);
     LevelProtos.Sort sort = proto.getSort();
     ClassCallExpression classCall = new ClassCallExpression(classDefinition, readLevels(proto.getLevels()), fieldSet, new Sort(readLevel(sort.getPLevel(), LevelVariable.PVAR, classDefinition), readLevel(sort.getHLevel(), LevelVariable.HVAR, classDefinition)), readUniverseKind(proto.getUniverseKind()));
     registerBinding(classCall.getThisBinding());
@@ -3,6 +3,7 @@ package org.arend.module.serialization;
 import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.context.binding.ParamLevelVariable;
 import org.arend.core.definition.*;
+import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.ext.reference.Precedence;
 import org.arend.ext.serialization.DeserializationException;
@@ -16,11 +17,13 @@ import org.arend.naming.scope.EmptyScope;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
 import org.arend.term.group.*;
+import org.arend.typechecking.order.FingerprintOrdering;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.ext.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class ModuleDeserialization {
   private final ModuleProtos.Module myModuleProto;
@@ -30,6 +33,8 @@ public class ModuleDeserialization {
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
   private final boolean myPrelude;
+  private boolean myLazyProofs;
+  private ErrorReporter myErrorReporter;
 
   public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, boolean isPrelude) {
     myModuleProto = moduleProto;
@@ -39,6 +44,15 @@ public class ModuleDeserialization {
     myPrelude = isPrelude;
   }
 
+  /**
+   * If {@code lazyProofs} is true, bodies of lemmas, really hidden functions, and functions with Prop-valued result types are read only when they are requested.
+   * Errors that occur while reading such bodies are reported to {@code errorReporter}.
+   */
+  public void setLazyProofs(boolean lazyProofs, ErrorReporter errorReporter) {
+    myLazyProofs = lazyProofs;
+    myErrorReporter = errorReporter;
+  }
+
   public ModuleProtos.Module getModuleProto() {
     return myModuleProto;
   }
@@ -61,6 +75,10 @@ public class ModuleDeserialization {
     }
 
     DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener);
+    defDeserialization.setLazyProofs(myLazyProofs, myErrorReporter);
+    if (myLazyProofs) {
+      myCallTargetProvider.compact();
+    }
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
       defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
     }
@@ -119,11 +137,86 @@ public class ModuleDeserialization {
   }
 
   public void readDefinitions(Group group) throws DeserializationException {
-    readDefinitions(myModuleProto.getGroup(), group);
+    readDefinitions(myModuleProto.getGroup(), group, null);
+  }
+
+  /**
+   * Finds definitions that did not change since the module was persisted and registers them in {@code fingerprints}.
+   * Whether they can be restored depends on other modules, so they are read later by {@link #readUnchangedDefinitions}.
+   */
+  public void collectUnchangedDefinitions(Group group, FingerprintOrdering fingerprints) throws DeserializationException {
+    Map<TCDefReferable, Long> stored = new LinkedHashMap<>();
+    collectFingerprints(myModuleProto.getGroup(), group, stored);
+
+    List<TCDefReferable> unchanged = new ArrayList<>();
+    for (Map.Entry<TCDefReferable, Long> entry : stored.entrySet()) {
+      if (entry.getValue() != 0 && entry.getValue() == fingerprints.getFingerprint(entry.getKey())) {
+        unchanged.add(entry.getKey());
+      }
+    }
+    fingerprints.addUnchanged(unchanged);
+  }
+
+  /**
+   * Reads only definitions that did not change since the module was persisted and can be restored, see {@link FingerprintOrdering#isRestorable}.
+   * Other definitions are left untypechecked.
+   * Unchanged definitions of all modules must be collected with {@link #collectUnchangedDefinitions} before this method is invoked.
+   */
+  public void readUnchangedDefinitions(Group group, FingerprintOrdering fingerprints) throws DeserializationException {
+    readDefinitions(myModuleProto.getGroup(), group, fingerprints::isRestorable);
+  }
+
+  private void collectFingerprints(ModuleProtos.Group groupProto, Group group, Map<TCDefReferable, Long> result) throws DeserializationException {
+    TCReferable tcReferable = myReferableConverter.toDataLocatedReferable(group.getReferable());
+    if (tcReferable instanceof TCDefReferable) {
+      result.put((TCDefReferable) tcReferable, groupProto.hasDefinition() ? groupProto.getFingerprint() : 0);
+    }
+    forEachSubgroup(groupProto, group, (subgroupProto, subgroup) -> collectFingerprints(subgroupProto, subgroup, result));
+  }
+
+  private interface SubgroupConsumer {
+    void accept(ModuleProtos.Group groupProto, Group group) throws DeserializationException;
+  }
+
+  private static void forEachSubgroup(ModuleProtos.Group groupProto, Group group, SubgroupConsumer consumer) throws DeserializationException {
+    Collection<? extends Statement> statements = group.getStatements();
+    if (!groupProto.getSubgroupList().isEmpty() && !statements.isEmpty()) {
+      Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
+      for (ModuleProtos.Group subgroup : groupProto.getSubgroupList()) {
+        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+      }
+      for (Statement statement : statements) {
+        Group subgroup = statement.getGroup();
+        if (subgroup != null) {
+          ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
+          if (subgroupProto != null) {
+            consumer.accept(subgroupProto, subgroup);
+          }
+        }
+      }
+    }
+
+    Collection<? extends Group> dynSubgroups = group.getDynamicSubgroups();
+    if (!groupProto.getDynamicSubgroupList().isEmpty() && !dynSubgroups.isEmpty()) {
+      Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
+      for (ModuleProtos.Group subgroup : groupProto.getDynamicSubgroupList()) {
+        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+      }
+      for (Group subgroup : dynSubgroups) {
+        ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
+        if (subgroupProto != null) {
+          consumer.accept(subgroupProto, subgroup);
+        }
+      }
+    }
   }
 
   public void readDefinitions(ModuleProtos.Group groupProto, Group group) throws DeserializationException {
-    if (groupProto.hasDefinition()) {
+    readDefinitions(groupProto, group, null);
+  }
+
+  private void readDefinitions(ModuleProtos.Group groupProto, Group group, Predicate<TCReferable> restricted) throws DeserializationException {
+    if (groupProto.hasDefinition() && (restricted == null || restricted.test(myReferableConverter.toDataLocatedReferable(group.getReferable())))) {
       LocatedReferable referable = group.getReferable();
       TCReferable tcReferable = myReferableConverter.toDataLocatedReferable(referable);
       if (tcReferable == null) {
@@ -191,36 +284,7 @@ public class ModuleDeserialization {
       }
     }
 
-    Collection<? extends Statement> statements = group.getStatements();
-    if (!groupProto.getSubgroupList().isEmpty() && !statements.isEmpty()) {
-      Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
-      for (ModuleProtos.Group subgroup : groupProto.getSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
-      }
-      for (Statement statement : statements) {
-        Group subgroup = statement.getGroup();
-        if (subgroup != null) {
-          ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
-          if (subgroupProto != null) {
-            readDefinitions(subgroupProto, subgroup);
-          }
-        }
-      }
-    }
-
-    Collection<? extends Group> dynSubgroups = group.getDynamicSubgroups();
-    if (!groupProto.getDynamicSubgroupList().isEmpty() && !dynSubgroups.isEmpty()) {
-      Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
-      for (ModuleProtos.Group subgroup : groupProto.getDynamicSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
-      }
-      for (Group subgroup : dynSubgroups) {
-        ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
-        if (subgroupProto != null) {
-          readDefinitions(subgroupProto, subgroup);
-        }
-      }
-    }
+    forEachSubgroup(groupProto, group, (subgroupProto, subgroup) -> readDefinitions(subgroupProto, subgroup, restricted));
   }
 
   @NotNull
@@ -9,8 +9,10 @@ import org.arend.module.ModuleLocation;
 import org.arend.naming.reference.*;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.error.LocationError;
+import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
 import org.arend.term.group.Statement;
+import org.arend.typechecking.order.FingerprintOrdering;
 import org.arend.typechecking.order.dependency.DependencyListener;
 
 import java.util.*;
@@ -88,6 +90,10 @@ public class ModuleSerialization {
     Definition typechecked = tcReferable instanceof TCDefReferable ? ((TCDefReferable) tcReferable).getTypechecked() : null;
     if (typechecked != null && !(typechecked instanceof Constructor || typechecked instanceof ClassField)) {
       builder.setDefinition(myDefinitionSerialization.writeDefinition(typechecked));
+      Concrete.ResolvableDefinition concrete = FingerprintOrdering.getConcrete(tcReferable);
+      if (concrete != null && concrete.getFingerprint() != 0) {
+        builder.setFingerprint(concrete.getFingerprint());
+      }
       int index = myCallTargetIndexProvider.getDefIndex(typechecked);
       refBuilder.setIndex(index);
       myCurrentDefinitions.add(index);
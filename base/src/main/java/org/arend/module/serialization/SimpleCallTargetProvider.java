@@ -12,15 +12,35 @@ import java.util.List;
 import java.util.Map;
 
 public class SimpleCallTargetProvider implements CallTargetProvider {
-  private final Map<Integer, TCReferable> myMap = new HashMap<>();
+  private Map<Integer, TCReferable> myMap = new HashMap<>();
+  private TCReferable[] myArray;
 
   public boolean contains(int index) {
-    return myMap.containsKey(index);
+    return myMap != null ? myMap.containsKey(index) : index >= 0 && index < myArray.length && myArray[index] != null;
+  }
+
+  /**
+   * Replaces the map of call targets with an array.
+   * This provider is retained by deferred bodies, so it should be compacted once all call targets are added.
+   */
+  public void compact() {
+    if (myMap == null) {
+      return;
+    }
+    int size = 0;
+    for (Integer index : myMap.keySet()) {
+      size = Math.max(size, index + 1);
+    }
+    myArray = new TCReferable[size];
+    for (Map.Entry<Integer, TCReferable> entry : myMap.entrySet()) {
+      myArray[entry.getKey()] = entry.getValue();
+    }
+    myMap = null;
   }
 
   @Override
   public TCReferable getRef(int index) throws DeserializationException {
-    TCReferable ref = myMap.get(index);
+    TCReferable ref = myMap != null ? myMap.get(index) : index >= 0 && index < myArray.length ? myArray[index] : null;
     if (ref == null) {
       throw new DeserializationException("Wrong index");
     }
@@ -55,10 +75,18 @@ public class SimpleCallTargetProvider implements CallTargetProvider {
     if (!(callTarget instanceof LevelReferable || callTarget instanceof TCDefReferable)) {
       throw new DeserializationException("Unknown definition type");
     }
+    checkNotCompacted();
     myMap.putIfAbsent(index, callTarget);
   }
 
   public void putCallTarget(int index, Definition callTarget) {
+    checkNotCompacted();
     myMap.putIfAbsent(index, callTarget.getRef());
   }
+
+  private void checkNotCompacted() {
+    if (myMap == null) {
+      throw new IllegalStateException("Call targets are already compacted");
+    }
+  }
 }
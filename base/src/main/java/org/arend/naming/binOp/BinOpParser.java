@@ -15,29 +15,47 @@ import org.arend.term.concrete.Concrete;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 // package-local on purpose, this class should be accessed via its users like ExpressionBinOpEngine
+/**
+ * An operator-precedence parser for binary operator sequences.
+ * The stack is stored in two parallel arrays: components and their precedences
+ * (null for operands and non-null for operators that are waiting for the right operand).
+ */
 class BinOpParser<T extends Concrete.SourceNode> {
   private final ErrorReporter myErrorReporter;
-  private final List<StackElem<T>> myStack;
   private final BinOpEngine<T> myEngine;
+  private Object[] myComponents = new Object[8];
+  private Precedence[] myPrecedences = new Precedence[8];
+  private int mySize;
 
   BinOpParser(ErrorReporter errorReporter, BinOpEngine<T> engine) {
     myErrorReporter = errorReporter;
     myEngine = engine;
-    myStack = new ArrayList<>();
   }
 
-  private static class StackElem<T> {
-    public @NotNull T component;
-    public @Nullable Precedence precedence;
+  @SuppressWarnings("unchecked")
+  private T getComponent(int index) {
+    return (T) myComponents[index];
+  }
 
-    StackElem(@NotNull T component, @Nullable Precedence precedence) {
-      this.component = component;
-      this.precedence = precedence;
+  private void add(T component, Precedence precedence) {
+    if (mySize == myComponents.length) {
+      myComponents = Arrays.copyOf(myComponents, mySize * 2);
+      myPrecedences = Arrays.copyOf(myPrecedences, mySize * 2);
     }
+    myComponents[mySize] = component;
+    myPrecedences[mySize++] = precedence;
+  }
+
+  private T removeLast() {
+    T component = getComponent(--mySize);
+    myComponents[mySize] = null;
+    myPrecedences[mySize] = null;
+    return component;
   }
 
   @NotNull T parse(@NotNull List<Concrete.BinOpSequenceElem<T>> sequence) {
@@ -59,48 +77,49 @@ class BinOpParser<T extends Concrete.SourceNode> {
   }
 
   public void push(T component, boolean isExplicit) {
-    if (myStack.isEmpty()) {
+    if (mySize == 0) {
       if (!isExplicit) {
         // This should never happen if the binOp expression is correct
         myErrorReporter.report(new ParsingError("Expected an explicit " + myEngine.getPresentableComponentName(), component));
       }
-      myStack.add(new StackElem<>(component, null));
+      add(component, null);
       return;
     }
 
-    StackElem<T> topElem = myStack.get(myStack.size() - 1);
-    if (topElem.precedence == null || !isExplicit) {
-      topElem.component = myEngine.wrapSequence(topElem.component.getData(), topElem.component, List.of(Pair.create(component, isExplicit)));
+    int top = mySize - 1;
+    if (myPrecedences[top] == null || !isExplicit) {
+      T topComponent = getComponent(top);
+      myComponents[top] = myEngine.wrapSequence(topComponent.getData(), topComponent, Collections.singletonList(Pair.create(component, isExplicit)));
     } else {
-      myStack.add(new StackElem<>(component, null));
+      add(component, null);
     }
   }
 
   public void push(T component, @NotNull Precedence precedence, boolean isPostfix) {
-    if (myStack.isEmpty()) {
-      myStack.add(new StackElem<>(component, precedence));
+    if (mySize == 0) {
+      add(component, precedence);
       return;
     }
 
     while (true) {
-      StackElem<T> topElem = myStack.get(myStack.size() - 1);
-      if (topElem.precedence != null) {
-        myErrorReporter.report(new NameResolverError("Expected " + myEngine.getPresentableComponentName() + " after an infix operator", topElem.component));
+      int top = mySize - 1;
+      if (myPrecedences[top] != null) {
+        myErrorReporter.report(new NameResolverError("Expected " + myEngine.getPresentableComponentName() + " after an infix operator", getComponent(top)));
         return;
       }
 
-      StackElem<T> nextElem = myStack.size() == 1 ? null : myStack.get(myStack.size() - 2);
-      if (nextElem == null || nextElem.precedence == null || nextElem.precedence.priority < precedence.priority || nextElem.precedence.priority == precedence.priority && nextElem.precedence.associativity == Precedence.Associativity.RIGHT_ASSOC && (isPostfix || precedence.associativity == Precedence.Associativity.RIGHT_ASSOC)) {
+      Precedence nextPrecedence = mySize == 1 ? null : myPrecedences[mySize - 2];
+      if (nextPrecedence == null || nextPrecedence.priority < precedence.priority || nextPrecedence.priority == precedence.priority && nextPrecedence.associativity == Precedence.Associativity.RIGHT_ASSOC && (isPostfix || precedence.associativity == Precedence.Associativity.RIGHT_ASSOC)) {
         if (isPostfix) {
-          myStack.set(myStack.size() - 1, new StackElem<>(myEngine.wrapSequence(component.getData(), component, List.of(Pair.create(topElem.component, true))), null));
+          myComponents[top] = myEngine.wrapSequence(component.getData(), component, Collections.singletonList(Pair.create(getComponent(top), true)));
         } else {
-          myStack.add(new StackElem<>(component, precedence));
+          add(component, precedence);
         }
         return;
       }
 
-      if (!(nextElem.precedence.priority > precedence.priority || nextElem.precedence.associativity == Precedence.Associativity.LEFT_ASSOC && (isPostfix || precedence.associativity == Precedence.Associativity.LEFT_ASSOC))) {
-        myErrorReporter.report(new PrecedenceError(myEngine.getReferable(nextElem.component), nextElem.precedence, myEngine.getReferable(component), precedence, component));
+      if (!(nextPrecedence.priority > precedence.priority || nextPrecedence.associativity == Precedence.Associativity.LEFT_ASSOC && (isPostfix || precedence.associativity == Precedence.Associativity.LEFT_ASSOC))) {
+        myErrorReporter.report(new PrecedenceError(myEngine.getReferable(getComponent(mySize - 2)), nextPrecedence, myEngine.getReferable(component), precedence, component));
       }
 
       foldTop();
@@ -108,39 +127,39 @@ class BinOpParser<T extends Concrete.SourceNode> {
   }
 
   private void foldTop() {
-    StackElem<T> topElem = myStack.remove(myStack.size() - 1);
-    if (topElem.precedence != null && myStack.size() > 1) {
-      StackElem<T> nextElem = myStack.get(myStack.size() - 2);
-      myErrorReporter.report(new NameResolverError("The operator " + myEngine.getReferable(topElem.component) + " [" + topElem.precedence + "] of a section must have lower precedence than that of the operand, namely " + myEngine.getReferable(nextElem.component) + " [" + nextElem.precedence + "]", topElem.component));
-      topElem = myStack.remove(myStack.size() - 1);
+    Precedence topPrecedence = myPrecedences[mySize - 1];
+    T top = removeLast();
+    if (topPrecedence != null && mySize > 1) {
+      T next = getComponent(mySize - 2);
+      myErrorReporter.report(new NameResolverError("The operator " + myEngine.getReferable(top) + " [" + topPrecedence + "] of a section must have lower precedence than that of the operand, namely " + myEngine.getReferable(next) + " [" + myPrecedences[mySize - 2] + "]", top));
+      topPrecedence = myPrecedences[mySize - 1];
+      top = removeLast();
     }
-    StackElem<T> midElem = myStack.remove(myStack.size() - 1);
-    StackElem<T> botElem = myStack.isEmpty() ? null : myStack.remove(myStack.size() - 1);
+    T mid = removeLast();
+    T bot = mySize == 0 ? null : removeLast();
 
-    if (botElem == null) {
-      if (topElem.precedence != null) {
-        myStack.add(new StackElem<>(myEngine.wrapSequence(midElem.component.getData(), topElem.component, List.of(Pair.create(midElem.component, true))), null));
+    if (bot == null) {
+      if (topPrecedence != null) {
+        add(myEngine.wrapSequence(mid.getData(), top, Collections.singletonList(Pair.create(mid, true))), null);
       } else {
         Referable leftRef = new LocalReferable(Renamer.UNNAMED);
-        myStack.add(new StackElem<>(myEngine.augmentWithLeftReferable(midElem.component.getData(), leftRef, midElem.component, topElem.component), null));
+        add(myEngine.augmentWithLeftReferable(mid.getData(), leftRef, mid, top), null);
       }
     } else {
-      myStack.add(new StackElem<>(makeBinOp(botElem.component, midElem.component, topElem.component, myEngine), null));
+      add(makeBinOp(bot, mid, top, myEngine), null);
     }
   }
 
   static <T extends Concrete.SourceNode> T makeBinOp(T left, T var, T right, BinOpEngine<T> engine) {
-    T expr = engine.wrapSequence(var.getData(), var, List.of(Pair.create(left, true)));
-    return right == null ? expr : engine.wrapSequence(var.getData(), expr, List.of(Pair.create(right, true)));
+    T expr = engine.wrapSequence(var.getData(), var, Collections.singletonList(Pair.create(left, true)));
+    return right == null ? expr : engine.wrapSequence(var.getData(), expr, Collections.singletonList(Pair.create(right, true)));
   }
 
   public T rollUp() {
-    while (myStack.size() > 1) {
+    while (mySize > 1) {
       foldTop();
     }
 
-    T result = myStack.get(0).component;
-    myStack.clear();
-    return result;
+    return removeLast();
   }
 }
@@ -13,7 +13,6 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class ExpressionBinOpEngine implements BinOpEngine<Concrete.Expression> {
 
@@ -31,7 +30,15 @@ public class ExpressionBinOpEngine implements BinOpEngine<Concrete.Expression> {
 
   @Override
   public @NotNull Concrete.Expression wrapSequence(Object data, Concrete.@NotNull Expression base, List<@NotNull Pair<? extends Concrete.Expression, Boolean>> explicitComponents) {
-    return Concrete.AppExpression.make(data, base, explicitComponents.stream().map((pair) -> new Concrete.Argument(pair.proj1, pair.proj2)).collect(Collectors.toList()));
+    if (explicitComponents.size() == 1) {
+      Pair<? extends Concrete.Expression, Boolean> component = explicitComponents.get(0);
+      return Concrete.AppExpression.make(data, base, component.proj1, component.proj2);
+    }
+    List<Concrete.Argument> arguments = new ArrayList<>(explicitComponents.size());
+    for (Pair<? extends Concrete.Expression, Boolean> component : explicitComponents) {
+      arguments.add(new Concrete.Argument(component.proj1, component.proj2));
+    }
+    return Concrete.AppExpression.make(data, base, arguments);
   }
 
 
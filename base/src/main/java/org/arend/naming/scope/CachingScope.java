@@ -2,18 +2,23 @@ package org.arend.naming.scope;
 
 import org.arend.naming.reference.ModuleReferable;
 import org.arend.naming.reference.Referable;
+import org.arend.util.ComputingCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Predicate;
 
+/**
+ * Caches elements and namespaces of a scope.
+ * Elements are collected when the scope is created, and namespaces are computed lazily.
+ * It can be shared by several threads; each namespace is computed at most once.
+ */
 public class CachingScope implements Scope {
   private final EnumMap<Referable.RefKind, Map<String, Referable>> myElements = new EnumMap<>(Referable.RefKind.class);
-  private final Map<String, Scope> myNamespaces = new HashMap<>();
-  private final Map<String, Scope> myOnlyInternalNamespaces = new HashMap<>();
+  private final ComputingCache<String, Scope> myNamespaces = new ComputingCache<>();
+  private final ComputingCache<String, Scope> myOnlyInternalNamespaces = new ComputingCache<>();
   private final Scope myScope;
-  private final static Scope EMPTY_SCOPE = new Scope() {};
 
   private CachingScope(Scope scope) {
     myScope = scope;
@@ -73,15 +78,10 @@ public class CachingScope implements Scope {
   @Nullable
   @Override
   public Scope resolveNamespace(@NotNull String name, boolean onlyInternal) {
-    Map<String, Scope> namespaces = onlyInternal ? myOnlyInternalNamespaces : myNamespaces;
-    Scope namespace = namespaces.get(name);
-    if (namespace == null) {
-      namespace = myScope.resolveNamespace(name, onlyInternal);
-      namespace = namespace == null ? EMPTY_SCOPE : CachingScope.make(namespace);
-      namespaces.put(name, namespace);
-    }
-
-    return namespace == EMPTY_SCOPE ? null : namespace;
+    return (onlyInternal ? myOnlyInternalNamespaces : myNamespaces).computeIfAbsent(name, namespaceName -> {
+      Scope namespace = myScope.resolveNamespace(namespaceName, onlyInternal);
+      return namespace == null ? null : CachingScope.make(namespace);
+    });
   }
 
   @NotNull
@@ -2,6 +2,8 @@ package org.arend.source;
 
 import org.arend.ext.typechecking.DefinitionListener;
 import org.arend.extImpl.SerializableKeyRegistryImpl;
+import org.arend.typechecking.order.FingerprintOrdering;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents a module persisted in a binary format.
@@ -10,4 +12,10 @@ public interface BinarySource extends Source {
   void setKeyRegistry(SerializableKeyRegistryImpl keyRegistry);
 
   void setDefinitionListener(DefinitionListener definitionListener);
+
+  /**
+   * Sets fingerprints of the current raw source of the module.
+   * If they are not null, the binary is outdated and only definitions with matching fingerprints are loaded.
+   */
+  void setFingerprints(@Nullable FingerprintOrdering fingerprints);
 }
@@ -13,6 +13,7 @@ import org.arend.naming.scope.Scope;
 import org.arend.term.group.Group;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.dfs.MapDFS;
+import org.arend.typechecking.order.FingerprintOrdering;
 
 import java.util.*;
 import java.util.function.Function;
@@ -26,6 +27,7 @@ public final class SourceLoader {
   private final LibraryManager myLibraryManager;
   private ModuleScopeProvider myModuleScopeProvider;
   private ModuleScopeProvider myTestsModuleScopeProvider;
+  private FingerprintOrdering myFingerprints;
 
   public SourceLoader(SourceLibrary library, LibraryManager libraryManager) {
     myLibrary = library;
@@ -137,6 +139,7 @@ public final class SourceLoader {
 
   /**
    * Loads binary modules.
+   * If fingerprints are enabled, outdated binaries are loaded partially, see {@link BinarySource#setFingerprints}.
    *
    * @param modules  modules to load.
    * @return the set of loaded modules.
@@ -147,11 +150,18 @@ public final class SourceLoader {
       if (binarySource != null) {
         binarySource.setKeyRegistry(keyRegistry);
         binarySource.setDefinitionListener(definitionListener);
+        binarySource.setFingerprints(null);
 
         if (!myLibrary.isExternal() && myLibrary.hasRawSources()) {
           Source rawSource = myLibrary.getRawSource(module);
           if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
-            return null;
+            if (!FingerprintOrdering.isEnabled()) {
+              return null;
+            }
+            if (myFingerprints == null) {
+              myFingerprints = new FingerprintOrdering(getInstanceProviderSet());
+            }
+            binarySource.setFingerprints(myFingerprints);
           }
         }
       }
@@ -21,6 +21,9 @@ import org.arend.source.error.LocationError;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.FingerprintOrdering;
+import org.arend.util.jfr.ModuleLoadEvent;
+import org.arend.util.jfr.ModulePersistEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -34,12 +37,22 @@ import java.util.List;
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
  */
 public abstract class StreamBinarySource implements PersistableBinarySource {
+  private static boolean ourLazyExternalProofs = false;
+
   private ModuleDeserialization myModuleDeserialization;
   private SerializableKeyRegistryImpl myKeyRegistry;
   private DefinitionListener myDefinitionListener;
+  private FingerprintOrdering myFingerprints;
   private int myPass = 0;
   private final List<ModulePath> myDependencies = new ArrayList<>();
 
+  /**
+   * If {@code lazyProofs} is true, bodies of lemmas and really hidden functions from external libraries are loaded on demand.
+   */
+  public static void setLazyExternalProofs(boolean lazyProofs) {
+    ourLazyExternalProofs = lazyProofs;
+  }
+
   @Override
   public void setKeyRegistry(SerializableKeyRegistryImpl keyRegistry) {
     myKeyRegistry = keyRegistry;
@@ -50,6 +63,11 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     myDefinitionListener = definitionListener;
   }
 
+  @Override
+  public void setFingerprints(@Nullable FingerprintOrdering fingerprints) {
+    myFingerprints = fingerprints;
+  }
+
   @NotNull
   @Override
   public abstract ModulePath getModulePath();
@@ -77,6 +95,15 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
 
   @Override
   public @NotNull LoadResult load(SourceLoader sourceLoader) {
+    ModuleLoadEvent event = new ModuleLoadEvent();
+    event.begin();
+    int pass = myPass;
+    LoadResult result = loadPass(sourceLoader);
+    event.commit(sourceLoader.getLibrary().getName(), getModulePath(), pass);
+    return result;
+  }
+
+  private @NotNull LoadResult loadPass(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
 
@@ -103,6 +130,7 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
 
         ReferableConverter referableConverter = sourceLoader.getReferableConverter();
         myModuleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener, library instanceof PreludeLibrary);
+        myModuleDeserialization.setLazyProofs(ourLazyExternalProofs && library.isExternal() && !(library instanceof PreludeLibrary), sourceLoader.getLibraryErrorReporter());
 
         if (referableConverter == null) {
           ChildGroup group = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
@@ -114,7 +142,11 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
             library.groupLoaded(modulePath, null, false, false);
             return LoadResult.FAIL;
           }
-          myModuleDeserialization.readDefinitions(group);
+          if (myFingerprints != null) {
+            myModuleDeserialization.collectUnchangedDefinitions(group, myFingerprints);
+          } else {
+            myModuleDeserialization.readDefinitions(group);
+          }
         }
 
         myPass = 1;
@@ -125,9 +157,24 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
       }
     }
 
+    // Unchanged definitions are read after all modules have collected them since they may depend on each other
+    if (myPass == 1) {
+      if (myFingerprints != null && sourceLoader.getReferableConverter() != null) {
+        ChildGroup group = library.getModuleGroup(modulePath, false);
+        try {
+          myModuleDeserialization.readUnchangedDefinitions(group, myFingerprints);
+        } catch (DeserializationException e) {
+          loadingFailed(sourceLoader, modulePath, e);
+          return LoadResult.FAIL;
+        }
+      }
+      myPass = 2;
+      return LoadResult.CONTINUE;
+    }
+
     try {
       myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener());
-      library.binaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
+      library.binaryLoaded(modulePath, myFingerprints == null && myModuleDeserialization.getModuleProto().getComplete());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
     } catch (DeserializationException e) {
@@ -145,6 +192,14 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
 
   @Override
   public boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
+    ModulePersistEvent event = new ModulePersistEvent();
+    event.begin();
+    boolean result = persistModule(library, referableConverter, errorReporter);
+    event.commit(library.getName(), getModulePath());
+    return result;
+  }
+
+  private boolean persistModule(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
     ModulePath currentModulePath = getModulePath();
     Group group = library.getModuleGroup(currentModulePath, false);
     if (group == null) {
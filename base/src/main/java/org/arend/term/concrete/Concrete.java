@@ -1772,6 +1772,7 @@ public final class Concrete {
   public static abstract class ResolvableDefinition implements GeneralDefinition {
     Stage stage = Stage.TYPE_CLASS_REFERENCES_RESOLVED;
     private Status myStatus = Status.NO_ERRORS;
+    private long myFingerprint;
     protected LevelParameters pLevelParameters;
     protected LevelParameters hLevelParameters;
 
@@ -1820,6 +1821,17 @@ public final class Concrete {
       return Collections.emptyList();
     }
 
+    /**
+     * @return the fingerprint computed by {@link org.arend.typechecking.order.FingerprintOrdering} or 0 if it was not computed.
+     */
+    public long getFingerprint() {
+      return myFingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+      myFingerprint = fingerprint;
+    }
+
     public TCDefReferable getEnclosingClass() {
       return null;
     }
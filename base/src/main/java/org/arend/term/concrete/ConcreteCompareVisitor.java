@@ -2,6 +2,7 @@ package org.arend.term.concrete;
 
 import org.arend.naming.reference.Referable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,26 @@ import java.util.function.Supplier;
 
 public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concrete.Expression, Boolean>, ConcreteDefinitionVisitor<Concrete.Definition, Boolean> {
   private final Map<Referable, Referable> mySubstitution = new HashMap<>();
+  private final Map<? extends Referable, ? extends Referable> myGlobalSubstitution;
+
+  public ConcreteCompareVisitor() {
+    myGlobalSubstitution = Collections.emptyMap();
+  }
+
+  /**
+   * @param globalSubstitution  maps global referables of the first definition to the corresponding referables of the second one.
+   */
+  public ConcreteCompareVisitor(Map<? extends Referable, ? extends Referable> globalSubstitution) {
+    myGlobalSubstitution = globalSubstitution;
+  }
+
+  private boolean compareReferables(Referable ref1, Referable ref2) {
+    Referable ref = mySubstitution.get(ref1);
+    if (ref == null) {
+      ref = myGlobalSubstitution.get(ref1);
+    }
+    return Objects.equals(ref == null ? ref1 : ref, ref2);
+  }
 
   public boolean compare(Concrete.Expression expr1, Concrete.Expression expr2) {
     if (expr1 == expr2) {
@@ -48,11 +69,7 @@ public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concret
   @Override
   public Boolean visitReference(Concrete.ReferenceExpression expr1, Concrete.Expression expr2) {
     if (!(expr2 instanceof Concrete.ReferenceExpression refExpr2)) return false;
-    Referable ref1 = mySubstitution.get(expr1.getReferent());
-    if (ref1 == null) {
-      ref1 = expr1.getReferent();
-    }
-    return ref1.equals(refExpr2.getReferent()) && compareLevels(expr1.getPLevels(), refExpr2.getPLevels()) && compareLevels(expr1.getHLevels(), refExpr2.getHLevels());
+    return compareReferables(expr1.getReferent(), refExpr2.getReferent()) && compareLevels(expr1.getPLevels(), refExpr2.getPLevels()) && compareLevels(expr1.getHLevels(), refExpr2.getHLevels());
   }
 
   private boolean compareLevels(List<Concrete.LevelExpression> levels1, List<Concrete.LevelExpression> levels2) {
@@ -284,7 +301,7 @@ public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concret
         return false;
       }
 
-      return Objects.equals(conPattern1.getConstructor(), conPattern2.getConstructor()) && comparePatterns(conPattern1.getPatterns(), conPattern2.getPatterns());
+      return compareReferables(conPattern1.getConstructor(), conPattern2.getConstructor()) && comparePatterns(conPattern1.getPatterns(), conPattern2.getPatterns());
     }
 
     if (pattern1 instanceof Concrete.TuplePattern) {
@@ -399,7 +416,7 @@ public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concret
   }
 
   private boolean compareImplementStatement(Concrete.ClassFieldImpl implStat1, Concrete.ClassFieldImpl implStat2) {
-    return compareImplementStatements(implStat1.getSubCoclauseList(), implStat2.getSubCoclauseList()) && (implStat1.implementation == implStat2.implementation || implStat1.implementation != null && implStat2.implementation != null && compare(implStat1.implementation, implStat2.implementation)) && Objects.equals(implStat1.getImplementedField(), implStat2.getImplementedField());
+    return compareImplementStatements(implStat1.getSubCoclauseList(), implStat2.getSubCoclauseList()) && (implStat1.implementation == implStat2.implementation || implStat1.implementation != null && implStat2.implementation != null && compare(implStat1.implementation, implStat2.implementation)) && compareReferables(implStat1.getImplementedField(), implStat2.getImplementedField());
   }
 
   private boolean compareImplementStatements(List<Concrete.ClassFieldImpl> implStats1, List<Concrete.ClassFieldImpl> implStats2) {
@@ -496,9 +513,17 @@ public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concret
   }
 
   public static boolean compare(Concrete.ReferableDefinition def1, Concrete.ReferableDefinition def2) {
-    ConcreteCompareVisitor visitor = new ConcreteCompareVisitor();
+    return compare(def1, def2, Collections.emptyMap());
+  }
+
+  /**
+   * Compares definitions which may refer to different global referables.
+   * A referable of {@code def1} that is a key of {@code globalSubstitution} is considered equal to the corresponding value.
+   */
+  public static boolean compare(Concrete.ReferableDefinition def1, Concrete.ReferableDefinition def2, Map<? extends Referable, ? extends Referable> globalSubstitution) {
+    ConcreteCompareVisitor visitor = new ConcreteCompareVisitor(globalSubstitution);
     if (def1 instanceof Concrete.Definition) {
-      return def2 instanceof Concrete.Definition && Objects.equals(((Concrete.Definition) def1).enclosingClass, ((Concrete.Definition) def2).enclosingClass) && ((Concrete.Definition) def1).accept(visitor, (Concrete.Definition) def2);
+      return def2 instanceof Concrete.Definition && visitor.compareReferables(((Concrete.Definition) def1).enclosingClass, ((Concrete.Definition) def2).enclosingClass) && ((Concrete.Definition) def1).accept(visitor, (Concrete.Definition) def2);
     }
     if (def1 instanceof Concrete.Constructor) {
       boolean result = def2 instanceof Concrete.Constructor && visitor.compareConstructor((Concrete.Constructor) def1, (Concrete.Constructor) def2);
@@ -667,11 +692,11 @@ public class ConcreteCompareVisitor implements ConcreteExpressionVisitor<Concret
       }
     }
     mySubstitution.remove(def.getData());
-    return Objects.equals(def.getClassifyingField(), class2.getClassifyingField());
+    return compareReferables(def.getClassifyingField(), class2.getClassifyingField());
   }
 
   private boolean compareOverriddenField(Concrete.OverriddenField field1, Concrete.OverriddenField field2) {
-    boolean result = Objects.equals(field1.getOverriddenField(), field2.getOverriddenField()) && compareParameters(field1.getParameters(), field2.getParameters()) && compare(field1.getResultType(), field2.getResultType()) && compare(field1.getResultTypeLevel(), field2.getResultTypeLevel());
+    boolean result = compareReferables(field1.getOverriddenField(), field2.getOverriddenField()) && compareParameters(field1.getParameters(), field2.getParameters()) && compare(field1.getResultType(), field2.getResultType()) && compare(field1.getResultTypeLevel(), field2.getResultTypeLevel());
     freeParameters(field1.getParameters());
     return result;
   }
@@ -8,6 +8,7 @@ import org.arend.core.expr.*;
 import org.arend.core.expr.visitor.FreeVariablesCollector;
 import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.ext.concrete.ConcreteFactory;
+import org.arend.ext.concrete.ConcreteSourceNode;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.error.GeneralError;
 import org.arend.ext.prettyprinting.DefinitionRenamer;
@@ -35,7 +36,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 final public class MinimizedRepresentation {
     private MinimizedRepresentation() {
@@ -50,6 +50,19 @@ final public class MinimizedRepresentation {
             @Nullable InstanceProvider instanceProvider,
             @Nullable DefinitionRenamer definitionRenamer,
             @Nullable Supplier<@NotNull ReferableRenamer> referableRenamer) {
+        return generateMinimizedRepresentation(expressionToPrint, instanceProvider, definitionRenamer, referableRenamer, 50);
+    }
+
+    /**
+     * Same as {@link #generateMinimizedRepresentation(Expression, InstanceProvider, DefinitionRenamer, Supplier)},
+     * but fails if more than {@code limit - 1} rounds of error fixing are required.
+     */
+    public static @NotNull Concrete.Expression generateMinimizedRepresentation(
+            @NotNull Expression expressionToPrint,
+            @Nullable InstanceProvider instanceProvider,
+            @Nullable DefinitionRenamer definitionRenamer,
+            @Nullable Supplier<@NotNull ReferableRenamer> referableRenamer,
+            int limit) {
         Expression actualExpression = expressionToPrint.normalize(NormalizationMode.RNF);
         var pair = generateRepresentations(actualExpression, definitionRenamer, referableRenamer);
         Concrete.Expression verboseRepresentation = pair.proj1;
@@ -58,8 +71,9 @@ final public class MinimizedRepresentation {
         var typechecker = generateTypechecker(instanceProvider, errorsCollector);
         induceContext(typechecker, verboseRepresentation, incompleteRepresentation, actualExpression);
 
-        int limit = 50;
         while (true) {
+            // Errors of the last round are kept until the next one so that they can be reported if minimization diverges
+            errorsCollector.clear();
             var fixedExpression = tryFixError(typechecker, verboseRepresentation, incompleteRepresentation, errorsCollector);
             if (fixedExpression == null) {
                 return incompleteRepresentation;
@@ -252,7 +266,7 @@ final public class MinimizedRepresentation {
         var factory = new ConcreteFactoryImpl(null);
         checkTypeVisitor.finalCheckExpr(minimizedConcrete, null);
         if (!errorsCollector.isEmpty()) {
-            return minimizedConcrete.accept(new ErrorFixingConcreteExpressionVisitor(errorsCollector, factory), completeConcrete);
+            return minimizedConcrete.accept(new ErrorFixingConcreteExpressionVisitor(errorsCollector, factory, minimizedConcrete, completeConcrete), completeConcrete);
         } else {
             return null;
         }
@@ -261,30 +275,90 @@ final public class MinimizedRepresentation {
 
 /**
  * Simultaneously traverses both incomplete and complete concrete expressions, attempting to fix errors encountered during the traverse.
- * This visitor is meant to fix only one error. I consider errors not to be independent,
+ * Errors are not independent even if they occur in disjoint subexpressions
+ * since their inference variables may be connected through a common ancestor,
  * therefore, after fixing one error, the rest may become irrelevant for the newly built expression.
+ * <p>
+ * The only exception are components of the expression itself: if it is a tuple or a non-dependent \Sigma-type,
+ * its components are typechecked without expected types and cannot share inference variables.
+ * Thus, this visitor fixes one error in each such component (recursively), so errors in different components are fixed in the same round.
  */
 class ErrorFixingConcreteExpressionVisitor extends BiConcreteVisitor {
 
-    private final List<GeneralError> myErrors;
+    private final Map<ConcreteSourceNode, List<GeneralError>> myErrors = new IdentityHashMap<>();
     private final ConcreteFactory myFactory;
+    private final Set<Concrete.Expression> myComponentContainers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean myFixed; // true if an error is fixed in the current component
 
-    public ErrorFixingConcreteExpressionVisitor(List<GeneralError> myErrors, ConcreteFactory myFactory) {
-        this.myErrors = myErrors;
+    public ErrorFixingConcreteExpressionVisitor(List<GeneralError> myErrors, ConcreteFactory myFactory, Concrete.Expression incomplete, Concrete.Expression complete) {
+        for (GeneralError error : myErrors) {
+            this.myErrors.computeIfAbsent(error.getCauseSourceNode(), __ -> new ArrayList<>()).add(error);
+        }
         this.myFactory = myFactory;
+        collectComponentContainers(incomplete, complete);
+    }
+
+    private void collectComponentContainers(Concrete.Expression incomplete, Concrete.Expression complete) {
+        if (incomplete instanceof Concrete.TupleExpression tuple && complete instanceof Concrete.TupleExpression wideTuple && tuple.getFields().size() == wideTuple.getFields().size()) {
+            myComponentContainers.add(tuple);
+            for (int i = 0; i < tuple.getFields().size(); ++i) {
+                collectComponentContainers(tuple.getFields().get(i), wideTuple.getFields().get(i));
+            }
+        } else if (incomplete instanceof Concrete.SigmaExpression sigma && complete instanceof Concrete.SigmaExpression wideSigma && sigma.getParameters().size() == wideSigma.getParameters().size() && isNonDependent(sigma.getParameters()) && isNonDependent(wideSigma.getParameters())) {
+            myComponentContainers.add(sigma);
+            for (int i = 0; i < sigma.getParameters().size(); ++i) {
+                collectComponentContainers(sigma.getParameters().get(i).getType(), wideSigma.getParameters().get(i).getType());
+            }
+        }
+    }
+
+    private static boolean isNonDependent(List<? extends Concrete.Parameter> parameters) {
+        for (Concrete.Parameter parameter : parameters) {
+            if (parameter.getType() == null || parameter.getRefList().stream().anyMatch(Objects::nonNull)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private List<GeneralError> getErrorsForNode(Concrete.SourceNode node) {
-        return myErrors.stream().filter(err -> err.getCauseSourceNode() == node).collect(Collectors.toList());
+        return myFixed ? Collections.emptyList() : myErrors.getOrDefault(node, Collections.emptyList());
+    }
+
+    @Override
+    public Concrete.Expression visitTuple(Concrete.TupleExpression expr, Concrete.SourceNode params) {
+        if (!myComponentContainers.contains(expr)) {
+            return super.visitTuple(expr, params);
+        }
+        var wideExpr = (Concrete.TupleExpression) params;
+        var newFields = new ArrayList<Concrete.Expression>();
+        for (int i = 0; i < expr.getFields().size(); ++i) {
+            myFixed = false;
+            newFields.add(expr.getFields().get(i).accept(this, wideExpr.getFields().get(i)));
+        }
+        return (Concrete.Expression) myFactory.tuple(newFields.toArray(new Concrete.Expression[0]));
+    }
+
+    @Override
+    public Concrete.Expression visitSigma(Concrete.SigmaExpression expr, Concrete.SourceNode params) {
+        if (!myComponentContainers.contains(expr)) {
+            return super.visitSigma(expr, params);
+        }
+        var wideExpr = (Concrete.SigmaExpression) params;
+        var newParams = new ArrayList<Concrete.Parameter>();
+        for (int i = 0; i < expr.getParameters().size(); ++i) {
+            myFixed = false;
+            newParams.add(visitParameter(expr.getParameters().get(i), wideExpr.getParameters().get(i)));
+        }
+        return (Concrete.Expression) myFactory.sigma(newParams);
     }
 
     @Override
     public Concrete.Expression visitLam(Concrete.LamExpression expr, Concrete.SourceNode verbose) {
         var errorList = getErrorsForNode(expr);
         if (!errorList.isEmpty()) {
-            var error = errorList.get(0);
-            myErrors.clear();
-            return fixError(expr, (Concrete.LamExpression) verbose, error);
+            myFixed = true;
+            return fixError(expr, (Concrete.LamExpression) verbose, errorList.get(0));
         }
         return super.visitLam(expr, verbose);
     }
@@ -295,9 +369,8 @@ class ErrorFixingConcreteExpressionVisitor extends BiConcreteVisitor {
         if (expr.getFunction() instanceof Concrete.ReferenceExpression) {
             var errorList = getErrorsForNode(expr.getFunction());
             if (!errorList.isEmpty()) {
-                GeneralError mostImportantError = findMostImportantError(errorList);
-                myErrors.clear(); // no errors should be fixed afterwards
-                return fixError(expr, verboseExpr, mostImportantError);
+                myFixed = true; // no errors should be fixed afterwards in this component
+                return fixError(expr, verboseExpr, findMostImportantError(errorList));
             }
         }
 
@@ -306,13 +379,11 @@ class ErrorFixingConcreteExpressionVisitor extends BiConcreteVisitor {
 
     @Override
     public Concrete.Expression visitReference(Concrete.ReferenceExpression expr, Concrete.SourceNode params) {
-        var errorList = myErrors.stream().filter(err -> err.getCauseSourceNode() == expr).collect(Collectors.toList());
-        if (!errorList.isEmpty()) {
-            var verboseExpr = (Concrete.Expression) params;
-            myErrors.clear();
-            return verboseExpr;
+        if (getErrorsForNode(expr).isEmpty()) {
+            return expr;
         }
-        return expr;
+        myFixed = true;
+        return (Concrete.Expression) params;
     }
 
     private static GeneralError findMostImportantError(List<GeneralError> errors) {
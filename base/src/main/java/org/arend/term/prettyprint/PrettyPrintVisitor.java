@@ -18,6 +18,8 @@ import org.arend.term.concrete.Concrete.Expression;
 import org.arend.term.concrete.Concrete.ReferenceExpression;
 import org.arend.util.StringEscapeUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence, Void>, ConcreteLevelExpressionVisitor<Precedence, Void>, ConcreteResolvableDefinitionVisitor<Void, Void> {
@@ -26,27 +28,63 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
   public static final float SMALL_RATIO = (float) 0.1;
 
   protected final StringBuilder myBuilder;
+  private final Appendable myOutput;
   private final VariableTracker<Referable> myPVariables = new VariableTracker<>();
   private final VariableTracker<Referable> myHVariables = new VariableTracker<>();
   protected int myIndent;
   private final boolean noIndent;
+  private final int myMaxLength;
 
-  public PrettyPrintVisitor(StringBuilder builder, int indent, boolean doIndent) {
+  private PrettyPrintVisitor(StringBuilder builder, Appendable output, int indent, boolean doIndent, int maxLength) {
     myBuilder = builder;
+    myOutput = output;
     myIndent = indent;
     noIndent = !doIndent;
+    myMaxLength = maxLength;
+  }
+
+  public PrettyPrintVisitor(StringBuilder builder, int indent, boolean doIndent) {
+    this(builder, null, indent, doIndent, MAX_LEN);
   }
 
   public PrettyPrintVisitor(StringBuilder builder, int indent) {
     this(builder, indent, true);
   }
 
+  /**
+   * Creates a visitor that writes every finished line to {@code output} instead of keeping the whole text.
+   * Subexpressions that are measured to choose the layout are still rendered as a whole before they are written.
+   * Call {@link #flush} to write the last line.
+   *
+   * @param maxLength the width of lines at which the visitor starts to break long expressions.
+   */
+  public PrettyPrintVisitor(Appendable output, int indent, int maxLength) {
+    this(new StringBuilder(), output, indent, true, maxLength);
+  }
+
+  /**
+   * Writes the text that is not written yet to the output of this visitor.
+   *
+   * @throws UncheckedIOException if the output throws an {@link IOException}.
+   */
+  public void flush() {
+    if (myOutput == null || myBuilder.isEmpty()) {
+      return;
+    }
+    try {
+      myOutput.append(myBuilder);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    myBuilder.setLength(0);
+  }
+
   void printExpr(Concrete.Expression expr, Precedence prec) {
     expr.accept(this, prec);
   }
 
   protected PrettyPrintVisitor copy(StringBuilder builder, int indent, boolean doIndent) {
-    return new PrettyPrintVisitor(builder, indent, doIndent);
+    return new PrettyPrintVisitor(builder, null, indent, doIndent, myMaxLength);
   }
 
   @Override
@@ -1016,6 +1054,10 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
   }
 
   public void printIndent() {
+    // Only the last character is looked at after a line is finished, so the line can be written out
+    if (myOutput != null && !myBuilder.isEmpty() && myBuilder.charAt(myBuilder.length() - 1) == '\n') {
+      flush();
+    }
     myBuilder.append(" ".repeat(Math.max(0, myIndent)));
   }
 
@@ -1595,7 +1637,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
           String separator = getSeparator();
 
           pp.myBuilder.append(separator.trim());
-          if (rem + strs[0].length() + separator.length() > MAX_LEN || splitMultiLineArgs) {
+          if (rem + strs[0].length() + separator.length() > pp.myMaxLength || splitMultiLineArgs) {
             if (indent == 0) pp.myIndent += INDENT;
             indent = INDENT;
             pp.myBuilder.append('\n');
@@ -1627,13 +1669,13 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
     boolean printSpaceBefore() {return true;}
     boolean printSpaceAfter() {return true;}
 
-    boolean doHyphenation(int leftLen, int rightLen) {
-      if (leftLen == 0) leftLen = 1; if (leftLen > MAX_LEN) leftLen = MAX_LEN;
-      if (rightLen == 0) rightLen = 1; if (rightLen > MAX_LEN) rightLen = MAX_LEN;
+    boolean doHyphenation(int leftLen, int rightLen, int maxLength) {
+      if (leftLen == 0) leftLen = 1; if (leftLen > maxLength) leftLen = maxLength;
+      if (rightLen == 0) rightLen = 1; if (rightLen > maxLength) rightLen = maxLength;
       double ratio = ((double) rightLen) / leftLen;
       if (ratio > 1.0) ratio = 1/ratio;
 
-      int myMaxLen = (ratio > SMALL_RATIO) ? MAX_LEN : Math.round(MAX_LEN * (1 + SMALL_RATIO));
+      int myMaxLen = (ratio > SMALL_RATIO) ? maxLength : Math.round(maxLength * (1 + SMALL_RATIO));
 
       return (leftLen + rightLen + getOpText().trim().length() + 1 > myMaxLen);
     }
@@ -1677,7 +1719,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
       int leftLen = lhs_sz == 0 ? 0 : lhs_strings.get(lhs_sz-1).trim().length();
       int rightLen = rhs_sz == 0 ? 0 : rhs_strings.get(0).trim().length();
 
-      boolean hyph = doHyphenation(leftLen, rightLen) && !(rhs_sz > 0 && rhs_strings.get(0).isEmpty());
+      boolean hyph = doHyphenation(leftLen, rightLen, ppv_default.myMaxLength) && !(rhs_sz > 0 && rhs_strings.get(0).isEmpty());
 
       for (int i=0; i<lhs_sz; i++) {
         String s = lhs_strings.get(i);
@@ -0,0 +1,253 @@
+package org.arend.typechecking;
+
+import org.arend.ext.ArendExtension;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.resolving.visitor.ExpressionResolveNameVisitor;
+import org.arend.naming.scope.Scope;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.instance.pool.GlobalInstancePool;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.result.TypecheckingResult;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.arend.typechecking.visitor.CollectDefCallsVisitor;
+import org.arend.typechecking.visitor.DesugarVisitor;
+import org.arend.typechecking.visitor.SyntacticDesugarVisitor;
+import org.arend.util.ComputationInterruptedException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Typechecks many independent closed expressions in a fixed scope.
+ * Expressions are resolved and typechecked concurrently, definitions that they refer to are typechecked once for the whole batch,
+ * and results are returned in the order of expressions.
+ * Each worker thread reuses one typechecker and one instance pool for all expressions that it processes.
+ * <p>
+ * The pool of worker threads is kept between batches; {@link #close} shuts it down.
+ */
+public class BatchTypechecking implements AutoCloseable {
+  private final TypecheckingOrderingListener myTypechecking;
+  private final Scope myScope;
+  private final InstanceProvider myInstanceProvider;
+  private final ArendExtension myExtension;
+  private int myParallelism = Runtime.getRuntime().availableProcessors();
+  private ForkJoinPool myPool;
+
+  /**
+   * @param typechecking      typechecks definitions that expressions refer to.
+   * @param scope             the scope in which expressions are resolved.
+   * @param instanceContext   a definition which determines instances available in expressions, or null if instances are not used.
+   * @param extension         the extension used by the typechecker.
+   */
+  public BatchTypechecking(TypecheckingOrderingListener typechecking, Scope scope, @Nullable TCReferable instanceContext, @Nullable ArendExtension extension) {
+    myTypechecking = typechecking;
+    myScope = scope;
+    myInstanceProvider = instanceContext == null ? null : typechecking.getInstanceProviderSet().get(instanceContext);
+    myExtension = extension;
+  }
+
+  public record Result(@Nullable TypecheckingResult result, @NotNull List<GeneralError> errors) {}
+
+  /**
+   * Sets the maximal number of expressions that are processed in parallel.
+   * If {@code parallelism} is at most 1, expressions are processed sequentially.
+   */
+  public synchronized void setParallelism(int parallelism) {
+    if (parallelism != myParallelism && myPool != null) {
+      myPool.shutdown();
+      myPool = null;
+    }
+    myParallelism = parallelism;
+  }
+
+  /**
+   * Shuts down the worker threads.
+   * The object can still be used afterwards; the threads are recreated on demand.
+   */
+  @Override
+  public synchronized void close() {
+    if (myPool != null) {
+      myPool.shutdown();
+      myPool = null;
+    }
+  }
+
+  private synchronized ForkJoinPool getPool() {
+    if (myParallelism <= 1) {
+      return null;
+    }
+    if (myPool == null) {
+      myPool = new ForkJoinPool(myParallelism);
+    }
+    return myPool;
+  }
+
+  /**
+   * Resolves and typechecks expressions.
+   *
+   * @param expressions           unresolved expressions.
+   * @param cancellationIndicator an indicator that interrupts the batch.
+   * @return the list of results in the order of {@code expressions} or null if the computation was interrupted.
+   *         The result of an expression is null if it has errors.
+   */
+  public @Nullable List<Result> typecheck(@NotNull Stream<? extends Concrete.Expression> expressions, @Nullable CancellationIndicator cancellationIndicator) {
+    List<? extends Concrete.Expression> exprs = expressions.toList();
+    List<List<GeneralError>> errors = new ArrayList<>(exprs.size());
+    for (int i = 0; i < exprs.size(); i++) {
+      errors.add(new ArrayList<>());
+    }
+
+    List<Concrete.Expression> resolved = new ArrayList<>(Collections.nCopies(exprs.size(), null));
+    runAll(exprs.size(), () -> null, (worker, i) -> {
+      ListErrorReporter errorReporter = new ListErrorReporter(errors.get(i));
+      Concrete.Expression expr = exprs.get(i).accept(new ExpressionResolveNameVisitor(myTypechecking.getReferableConverter(), myScope, new ArrayList<>(), errorReporter, null), null);
+      expr = SyntacticDesugarVisitor.desugar(expr, errorReporter);
+      if (!hasErrors(errors.get(i))) {
+        resolved.set(i, expr);
+      }
+    });
+
+    Set<TCReferable> dependencies = new LinkedHashSet<>();
+    CollectDefCallsVisitor visitor = new CollectDefCallsVisitor(dependencies, true);
+    for (Concrete.Expression expr : resolved) {
+      if (expr != null) {
+        expr.accept(visitor, null);
+      }
+    }
+    List<Concrete.ResolvableDefinition> definitions = new ArrayList<>();
+    for (TCReferable dependency : dependencies) {
+      TCReferable typecheckable = dependency.getTypecheckable();
+      if (!typecheckable.isTypechecked() && myTypechecking.getConcreteProvider().getConcrete(typecheckable) instanceof Concrete.ResolvableDefinition definition && definition.getStage() != Concrete.Stage.TYPECHECKED) {
+        definitions.add(definition);
+      }
+    }
+    if (!definitions.isEmpty()) {
+      myTypechecking.typecheckDefinitions(definitions, cancellationIndicator);
+    }
+
+    return new ComputationRunner<List<Result>>().run(cancellationIndicator, () -> {
+      List<Result> results = new ArrayList<>(Collections.nCopies(exprs.size(), null));
+      runAll(exprs.size(), Worker::new, (worker, i) -> {
+        ComputationRunner.checkCanceled();
+        Concrete.Expression expr = resolved.get(i);
+        TypecheckingResult result = null;
+        if (expr != null) {
+          expr = DesugarVisitor.desugar(expr, new ListErrorReporter(errors.get(i)));
+          if (!hasErrors(errors.get(i))) {
+            result = worker.typecheck(expr, errors.get(i));
+          }
+        }
+        results.set(i, new Result(result, errors.get(i)));
+      });
+      return results;
+    });
+  }
+
+  private static boolean hasErrors(List<GeneralError> errors) {
+    for (GeneralError error : errors) {
+      if (error.level == GeneralError.Level.ERROR) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Typechecks expressions in a single thread.
+   * The typechecker is reused while expressions are typechecked successfully.
+   * If typechecking fails, the typechecker may keep unsolved equations and deferred metas, so it is replaced.
+   */
+  private class Worker {
+    private List<GeneralError> myErrors;
+    private CheckTypeVisitor myTypechecker;
+
+    TypecheckingResult typecheck(Concrete.Expression expr, List<GeneralError> errors) {
+      myErrors = errors;
+      if (myTypechecker == null) {
+        myTypechecker = new CheckTypeVisitor(error -> myErrors.add(error), null, myExtension);
+        myTypechecker.setInstancePool(new GlobalInstancePool(myInstanceProvider, myTypechecker));
+      }
+
+      // User data put by metas must not be visible to other expressions
+      int checkpoint = myTypechecker.checkpointUserData();
+      TypecheckingResult result;
+      try {
+        result = myTypechecker.finalCheckExpr(expr, null);
+      } finally {
+        myTypechecker.rollbackUserData(checkpoint);
+        myTypechecker.releaseUserData();
+      }
+
+      if (result == null || hasErrors(errors)) {
+        myTypechecker = null;
+        return null;
+      }
+      return result;
+    }
+  }
+
+  private interface Task<W> {
+    void run(W worker, int index);
+  }
+
+  /**
+   * Runs {@code task} for every index.
+   * Each thread creates one worker with {@code workerFactory} and takes indices one by one until all of them are processed.
+   */
+  private <W> void runAll(int size, Supplier<W> workerFactory, Task<W> task) {
+    ForkJoinPool pool = size < 2 ? null : getPool();
+    if (pool == null) {
+      W worker = workerFactory.get();
+      for (int i = 0; i < size; i++) {
+        task.run(worker, i);
+      }
+      return;
+    }
+
+    AtomicInteger next = new AtomicInteger();
+    int numberOfWorkers = Math.min(size, pool.getParallelism());
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(numberOfWorkers);
+    for (int i = 0; i < numberOfWorkers; i++) {
+      tasks.add(pool.submit(() -> {
+        W worker = workerFactory.get();
+        try {
+          for (int index = next.getAndIncrement(); index < size; index = next.getAndIncrement()) {
+            task.run(worker, index);
+          }
+        } catch (Throwable e) {
+          // Other workers stop after their current indices
+          next.set(size);
+          throw e;
+        }
+      }));
+    }
+
+    try {
+      for (ForkJoinTask<?> forkJoinTask : tasks) {
+        forkJoinTask.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ComputationInterruptedException();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } finally {
+      for (ForkJoinTask<?> forkJoinTask : tasks) {
+        forkJoinTask.cancel(false);
+      }
+      for (ForkJoinTask<?> forkJoinTask : tasks) {
+        forkJoinTask.quietlyJoin();
+      }
+    }
+  }
+}
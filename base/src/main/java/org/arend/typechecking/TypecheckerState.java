@@ -2,35 +2,35 @@ package org.arend.typechecking;
 
 import org.arend.core.context.binding.inference.InferenceVariable;
 import org.arend.ext.error.ListErrorReporter;
-import org.arend.extImpl.userData.UserDataHolderImpl;
-import org.arend.typechecking.implicitargs.equations.Equation;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
+/**
+ * A checkpoint of a typechecker.
+ * It does not copy the state; it only records sizes of lists and heights of trails of changes made after it.
+ */
 public class TypecheckerState {
   public final CheckTypeVisitor.MyErrorReporter errorReporter;
   public final int numberOfDeferredMetasBeforeSolver;
   public final int numberOfDeferredMetasAfterLevels;
   public final TypecheckerState previousState;
   public final List<InferenceVariable> solvedVariables = new ArrayList<>();
-  public List<Equation> equations;
+  public int equationsTrailHeight;
   public int numberOfLevelVariables;
   public int numberOfLevelEquations;
   public int numberOfProps;
   public int numberOfBoundVars;
   public final ListErrorReporter listErrorReporter;
-  public Set<InferenceVariable> notSolvableFromEquationsVars;
-  public UserDataHolderImpl userDataHolder;
+  public final int userDataTrailHeight;
   public final boolean allowDeferredMetas;
 
-  public TypecheckerState(CheckTypeVisitor.MyErrorReporter errorReporter, int numberOfDeferredMetasBeforeSolver, int numberOfDeferredMetasAfterLevels, UserDataHolderImpl userDataHolder, TypecheckerState previousState, ListErrorReporter listErrorReporter, boolean allowDeferredMetas) {
+  public TypecheckerState(CheckTypeVisitor.MyErrorReporter errorReporter, int numberOfDeferredMetasBeforeSolver, int numberOfDeferredMetasAfterLevels, int userDataTrailHeight, TypecheckerState previousState, ListErrorReporter listErrorReporter, boolean allowDeferredMetas) {
     this.errorReporter = errorReporter;
     this.numberOfDeferredMetasBeforeSolver = numberOfDeferredMetasBeforeSolver;
     this.numberOfDeferredMetasAfterLevels = numberOfDeferredMetasAfterLevels;
-    this.userDataHolder = userDataHolder;
+    this.userDataTrailHeight = userDataTrailHeight;
     this.previousState = previousState;
     this.listErrorReporter = listErrorReporter;
     this.allowDeferredMetas = allowDeferredMetas;
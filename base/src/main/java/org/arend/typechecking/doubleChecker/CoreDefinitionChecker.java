@@ -9,6 +9,7 @@ import org.arend.core.elimtree.ElimBody;
 import org.arend.core.elimtree.IntervalElim;
 import org.arend.core.expr.*;
 import org.arend.core.expr.type.Type;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.Levels;
@@ -46,6 +47,7 @@ public class CoreDefinitionChecker extends BaseDefinitionTypechecker {
   public boolean check(Definition definition) {
     myChecker.clear();
     myChecker.setDefinition(definition);
+    TypeCache.start();
     try {
       myChecker.checkDependentLink(definition.getParameters(), Type.OMEGA, null);
 
@@ -67,6 +69,8 @@ public class CoreDefinitionChecker extends BaseDefinitionTypechecker {
     } catch (CoreException e) {
       errorReporter.report(e.error);
       return false;
+    } finally {
+      TypeCache.finish();
     }
   }
 
@@ -214,7 +214,7 @@ public class CoreExpressionChecker implements ExpressionVisitor<Expression, Expr
 
   @Override
   public Expression visitClassCall(ClassCallExpression expr, Expression expectedType) {
-    if (!(expr.getImplementedHere().size() <= 1 || expr.getImplementedHere() instanceof LinkedHashMap)) {
+    if (!(expr.getImplementedHere().size() <= 1 || expr.getImplementedHere() instanceof ImplementationMap || expr.getImplementedHere() instanceof LinkedHashMap)) {
       throw new CoreException(CoreErrorWrapper.make(new TypecheckingError("Implementations in a classCall have wrong type: " + expr.getImplementedHere().getClass(), mySourceNode), expr));
     }
     checkLevels(expr.getLevels(), expr.getDefinition(), expr);
@@ -99,4 +99,9 @@ public class DummyEquations implements Equations {
   public void loadState(TypecheckerState state) {
 
   }
+
+  @Override
+  public void releaseState(TypecheckerState state) {
+
+  }
 }
@@ -12,6 +12,7 @@ public class Equation implements InferenceVariableListener {
   public Expression type;
   public final CMP cmp;
   public final Concrete.SourceNode sourceNode;
+  int slot = -1; // the position of this equation in TwoStageEquations
 
   public Equation(Expression expr1, Expression expr2, Expression type, CMP cmp, Concrete.SourceNode sourceNode) {
     this.expr1 = expr1;
@@ -31,4 +31,10 @@ public interface Equations {
   boolean supportsExpressions();
   void saveState(TypecheckerState state);
   void loadState(TypecheckerState state);
+
+  /**
+   * Called when {@code state} is no longer needed.
+   * Checkpoints are released in the reverse order of {@link #saveState}.
+   */
+  void releaseState(TypecheckerState state);
 }
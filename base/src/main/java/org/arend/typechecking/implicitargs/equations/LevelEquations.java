@@ -1,17 +1,31 @@
 package org.arend.typechecking.implicitargs.equations;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Predicate;
 
+/**
+ * A difference-constraint solver for level equations.
+ * Equations are edges of a graph and the solution is maintained incrementally:
+ * every new equation relaxes only the variables reachable from it, and a cycle is detected as soon as it appears.
+ * If there is a cycle, {@link #solve} falls back to the batch Bellman-Ford pass, so the reported cycle does not depend on
+ * the order in which equations were added.
+ */
 public class LevelEquations<Var> {
   private final List<Var> myVariables = new ArrayList<>();
   private final List<LevelEquation<Var>> myEquations = new ArrayList<>();
+  private final Map<Var, Integer> mySolution = new HashMap<>();
+  private final Map<Var, List<LevelEquation<Var>>> myOutgoing = new HashMap<>();
+  private final Map<Var, Integer> myDepths = new HashMap<>();
+  private final Deque<Var> myQueue = new LinkedList<>(); // may contain null, the constant vertex
+  private boolean myHasCycle;
   static final int INFINITY = Integer.MAX_VALUE;
 
+  public LevelEquations() {
+    mySolution.put(null, 0);
+  }
+
   public List<LevelEquation<Var>> getEquations() {
-    return myEquations;
+    return Collections.unmodifiableList(myEquations);
   }
 
   public List<Var> getVariables() {
@@ -20,27 +34,122 @@ public class LevelEquations<Var> {
 
   void addVariable(Var var) {
     myVariables.add(var);
+    mySolution.putIfAbsent(var, 0);
   }
 
   public void add(LevelEquations<Var> equations) {
-    myVariables.addAll(equations.myVariables);
-    myEquations.addAll(equations.myEquations);
+    for (Var var : equations.myVariables) {
+      addVariable(var);
+    }
+    for (LevelEquation<Var> equation : equations.myEquations) {
+      addEquation(equation);
+    }
   }
 
   void addEquation(LevelEquation<Var> equation) {
     myEquations.add(equation);
+    if (!equation.isInfinity()) {
+      myOutgoing.computeIfAbsent(equation.getVariable1(), k -> new ArrayList<>()).add(equation);
+    }
+    if (!myHasCycle) {
+      relax(equation);
+      propagate();
+    }
+  }
+
+  void removeEquations(Predicate<LevelEquation<Var>> predicate) {
+    if (!myEquations.removeIf(predicate)) {
+      return;
+    }
+
+    List<LevelEquation<Var>> equations = new ArrayList<>(myEquations);
+    resetSolution();
+    for (LevelEquation<Var> equation : equations) {
+      addEquation(equation);
+    }
+  }
+
+  private void resetSolution() {
+    myEquations.clear();
+    myOutgoing.clear();
+    myDepths.clear();
+    myQueue.clear();
+    myHasCycle = false;
+    mySolution.clear();
+    mySolution.put(null, 0);
+    for (Var var : myVariables) {
+      mySolution.put(var, 0);
+    }
   }
 
   public void clear() {
     myVariables.clear();
-    myEquations.clear();
+    resetSolution();
   }
 
   public boolean isEmpty() {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  private int getSolution(Var var) {
+    Integer sol = mySolution.get(var);
+    return sol == null ? 0 : sol;
+  }
+
+  private void relax(LevelEquation<Var> equation) {
+    if (equation.isInfinity()) {
+      Integer prev = mySolution.put(equation.getVariable(), INFINITY);
+      if (prev == null || prev != INFINITY) {
+        myQueue.add(equation.getVariable());
+      }
+      return;
+    }
+
+    int a = getSolution(equation.getVariable1());
+    int b = getSolution(equation.getVariable2());
+    Integer m = equation.getMaxConstant();
+    if (b != INFINITY && (a == INFINITY || (m == null || a + m < 0) && b > a + equation.getConstant())) {
+      if (a != INFINITY) {
+        int depth = myDepths.getOrDefault(equation.getVariable1(), 0) + 1;
+        myDepths.put(equation.getVariable2(), depth);
+        // A path with more edges than there are vertices (including the constant one) goes through a cycle
+        if (equation.getVariable2() == null || depth > myVariables.size()) {
+          myHasCycle = true;
+          myQueue.clear();
+          return;
+        }
+      }
+
+      mySolution.put(equation.getVariable2(), a == INFINITY ? INFINITY : a + equation.getConstant());
+      myQueue.add(equation.getVariable2());
+    }
+  }
+
+  private void propagate() {
+    while (!myQueue.isEmpty()) {
+      List<LevelEquation<Var>> equations = myOutgoing.get(myQueue.poll());
+      if (equations != null) {
+        for (LevelEquation<Var> equation : equations) {
+          relax(equation);
+          if (myHasCycle) {
+            return;
+          }
+        }
+      }
+    }
+  }
+
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
+    if (myHasCycle) {
+      return solveWithPaths(solution);
+    }
+    for (Var var : myVariables) {
+      solution.put(var, getSolution(var));
+    }
+    return null;
+  }
+
+  private List<LevelEquation<Var>> solveWithPaths(Map<Var, Integer> solution) {
     Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
 
     solution.put(null, 0);
@@ -237,16 +237,20 @@ public class LevelEquationsSolver {
     }
 
     if (!myHBased || !unBased.isEmpty()) {
+      Set<InferenceLevelVariable> removed = new HashSet<>();
       for (Pair<InferenceLevelVariable, InferenceLevelVariable> vars : myBoundVariables) {
         if (!myHBased || unBased.contains(vars.proj2)) {
           Integer sol = solution.get(vars.proj2);
           if (sol == 0 || sol == 1) {
-            myPLevelEquations.getEquations().removeIf(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
-            myBasedPLevelEquations.getEquations().removeIf(equation -> !equation.isInfinity() && (equation.getVariable1() == vars.proj1 || equation.getVariable2() == vars.proj1));
+            removed.add(vars.proj1);
             myConstantUpperBounds.remove(vars.proj1);
           }
         }
       }
+      if (!removed.isEmpty()) {
+        myPLevelEquations.removeEquations(equation -> !equation.isInfinity() && (removed.contains(equation.getVariable1()) || removed.contains(equation.getVariable2())));
+        myBasedPLevelEquations.removeEquations(equation -> !equation.isInfinity() && (removed.contains(equation.getVariable1()) || removed.contains(equation.getVariable2())));
+      }
     }
 
     Set<InferenceLevelVariable> pUnBased = new HashSet<>();
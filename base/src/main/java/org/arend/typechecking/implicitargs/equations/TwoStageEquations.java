@@ -34,24 +34,152 @@ import org.arend.typechecking.error.local.SolveEquationsError;
 import org.arend.typechecking.error.local.SolveLevelEquationsError;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.ext.util.Pair;
+import org.arend.util.jfr.EquationsSolvingEvent;
 
 import java.util.*;
 
 import static org.arend.core.expr.ExpressionFactory.Nat;
 
 public class TwoStageEquations implements Equations {
-  private List<Equation> myEquations = new ArrayList<>();
+  // Removed equations leave null slots, so that removal is O(1) and the order of the remaining equations is preserved
+  private final List<Equation> myEquations = new ArrayList<>();
+  private int myNumberOfEquations;
+  // Equations indexed by inference variables that occur as their sides; it may contain equations that were removed or changed since the last compaction
+  private final Map<InferenceVariable, List<Equation>> myWatchLists = new HashMap<>();
   private final List<LevelEquation<LevelVariable>> myLevelEquations = new ArrayList<>();
   private final List<InferenceLevelVariable> myLevelVariables = new ArrayList<>();
   private final CheckTypeVisitor myVisitor;
   private final List<InferenceVariable> myProps = new ArrayList<>();
   private final List<Pair<InferenceLevelVariable, InferenceLevelVariable>> myBoundVariables = new ArrayList<>();
   private final Map<InferenceVariable, Expression> myNotSolvableFromEquationsVars = new HashMap<>();
+  private final List<Runnable> myTrail = new ArrayList<>();
+  private int myCheckpoints;
 
   public TwoStageEquations(CheckTypeVisitor visitor) {
     myVisitor = visitor;
   }
 
+  private void addToList(Equation equation) {
+    equation.slot = myEquations.size();
+    myEquations.add(equation);
+    myNumberOfEquations++;
+    watch(equation);
+    if (myCheckpoints > 0) {
+      myTrail.add(() -> {
+        myEquations.remove(myEquations.size() - 1).slot = -1;
+        myNumberOfEquations--;
+      });
+    }
+  }
+
+  private boolean removeFromList(Equation equation) {
+    int slot = equation.slot;
+    if (slot < 0 || slot >= myEquations.size() || myEquations.get(slot) != equation) {
+      return false;
+    }
+    myEquations.set(slot, null);
+    equation.slot = -1;
+    myNumberOfEquations--;
+    if (myCheckpoints > 0) {
+      myTrail.add(() -> {
+        myEquations.set(slot, equation);
+        equation.slot = slot;
+        myNumberOfEquations++;
+        // Watch lists contain only equations in the list, so a restored equation is watched again
+        watch(equation);
+      });
+    }
+    return true;
+  }
+
+  private void clearList() {
+    if (myCheckpoints > 0) {
+      for (int i = myEquations.size() - 1; i >= 0; i--) {
+        Equation equation = myEquations.get(i);
+        if (equation != null) {
+          removeFromList(equation);
+        }
+      }
+    } else {
+      for (Equation equation : myEquations) {
+        if (equation != null) {
+          equation.slot = -1;
+        }
+      }
+      myEquations.clear();
+      myNumberOfEquations = 0;
+      myWatchLists.clear();
+    }
+  }
+
+  /**
+   * Removes empty slots and rebuilds watch lists.
+   * While there are checkpoints, the trail refers to slots, so the previous layout is recorded in the trail and restored on rollback.
+   * In this case, the list is compacted only if at least half of its slots are empty so that recorded layouts take amortized constant space per removal.
+   */
+  private void compactList() {
+    int empty = myEquations.size() - myNumberOfEquations;
+    if (empty == 0 || myCheckpoints > 0 && empty < myNumberOfEquations) {
+      return;
+    }
+    if (myCheckpoints > 0) {
+      Equation[] layout = myEquations.toArray(new Equation[0]);
+      myTrail.add(() -> {
+        myEquations.clear();
+        for (int i = 0; i < layout.length; i++) {
+          myEquations.add(layout[i]);
+          if (layout[i] != null) {
+            layout[i].slot = i;
+          }
+        }
+        rebuildWatchLists();
+      });
+    }
+    int j = 0;
+    for (int i = 0; i < myEquations.size(); i++) {
+      Equation equation = myEquations.get(i);
+      if (equation != null) {
+        equation.slot = j;
+        myEquations.set(j++, equation);
+      }
+    }
+    myEquations.subList(j, myEquations.size()).clear();
+    rebuildWatchLists();
+  }
+
+  private void rebuildWatchLists() {
+    myWatchLists.clear();
+    for (Equation equation : myEquations) {
+      if (equation != null) {
+        watch(equation);
+      }
+    }
+  }
+
+  private List<Equation> getEquationList() {
+    List<Equation> result = new ArrayList<>(myNumberOfEquations);
+    for (Equation equation : myEquations) {
+      if (equation != null) {
+        result.add(equation);
+      }
+    }
+    return result;
+  }
+
+  private void watch(Equation equation) {
+    watch(equation.expr1, equation);
+    watch(equation.expr2, equation);
+  }
+
+  private void watch(Expression expr, Equation equation) {
+    if (expr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) expr).getVariable() != null) {
+      List<Equation> list = myWatchLists.computeIfAbsent(((InferenceReferenceExpression) expr).getVariable(), k -> new ArrayList<>(2));
+      if (list.isEmpty() || list.get(list.size() - 1) != equation) {
+        list.add(equation);
+      }
+    }
+  }
+
   @Override
   public Boolean solveInstance(TypeClassInferenceVariable variable, FieldCallExpression fieldCall, Expression expr) {
     ClassDefinition classDef = variable.getClassDefinition();
@@ -240,14 +368,18 @@ public class TwoStageEquations implements Equations {
     }
 
     if (cmp == CMP.EQ && (inf1 != null && inf2 == null || inf2 != null && inf1 == null)) {
-      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(inf1 != null ? inf1 : inf2, inf1 != null ? expr2 : expr1);
+      InferenceVariable inf = inf1 != null ? inf1 : inf2;
+      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(inf, inf1 != null ? expr2 : expr1);
+      if (prev == null && myCheckpoints > 0) {
+        myTrail.add(() -> myNotSolvableFromEquationsVars.remove(inf));
+      }
       if (prev != null) {
         return CompareVisitor.compare(this, CMP.EQ, prev, inf1 != null ? expr2 : expr1, type, sourceNode);
       }
     }
 
     Equation equation = new Equation(expr1, expr2, type, origCmp, sourceNode);
-    myEquations.add(equation);
+    addToList(equation);
     if (inf1 != null && inf2 != null) {
       inf1.addListener(equation);
       inf2.addListener(equation);
@@ -348,6 +480,9 @@ public class TwoStageEquations implements Equations {
   @Override
   public void finalizeEquations(LevelSubstitution levelSubstitution, Concrete.SourceNode sourceNode) {
     for (Equation equation : myEquations) {
+      if (equation == null) {
+        continue;
+      }
       equation.expr1 = equation.expr1.subst(levelSubstitution);
       equation.expr2 = equation.expr2.subst(levelSubstitution);
       if (equation.type != null) {
@@ -355,24 +490,31 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (int i = 0; i < myEquations.size(); i++) {
+      Equation equation = myEquations.get(i);
+      if (equation == null) {
+        continue;
+      }
       Expression stuckExpr = equation.expr2.getStuckExpression();
       if (stuckExpr != null && (stuckExpr.isInstance(InferenceReferenceExpression.class) || stuckExpr.isError())) {
-        iterator.remove();
+        removeFromList(equation);
       } else {
         stuckExpr = equation.expr1.getStuckExpression();
         if (stuckExpr != null && (stuckExpr.isInstance(InferenceReferenceExpression.class) || stuckExpr.isError())) {
-          iterator.remove();
+          removeFromList(equation);
         }
       }
     }
-    if (!myEquations.isEmpty()) {
-      myVisitor.getErrorReporter().report(new SolveEquationsError(new ArrayList<>(myEquations), sourceNode));
+    if (myNumberOfEquations > 0) {
+      myVisitor.getErrorReporter().report(new SolveEquationsError(getEquationList(), sourceNode));
     }
 
-    myEquations.clear();
+    clearList();
     myProps.clear();
+    if (myCheckpoints > 0) {
+      Map<InferenceVariable, Expression> vars = new HashMap<>(myNotSolvableFromEquationsVars);
+      myTrail.add(() -> myNotSolvableFromEquationsVars.putAll(vars));
+    }
     myNotSolvableFromEquationsVars.clear();
     myBoundVariables.clear();
   }
@@ -385,11 +527,20 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public boolean remove(Equation equation) {
-    return myEquations.remove(equation);
+    return removeFromList(equation);
   }
 
   @Override
   public void solveEquations() {
+    EquationsSolvingEvent event = new EquationsSolvingEvent();
+    event.begin();
+    compactList();
+    int equations = myNumberOfEquations;
+    solveAllEquations();
+    event.commit(myVisitor.getDefinition(), equations);
+  }
+
+  private void solveAllEquations() {
     while (!myProps.isEmpty()) {
       InferenceVariable var = myProps.remove(myProps.size() - 1);
       if (!var.isSolved()) {
@@ -398,14 +549,27 @@ public class TwoStageEquations implements Equations {
     }
 
     for (Equation equation : myEquations) {
-      equation.expr1 = equation.expr1.normalize(NormalizationMode.WHNF);
-      equation.expr2 = equation.expr2.normalize(NormalizationMode.WHNF);
+      if (equation != null) {
+        Expression expr1 = equation.expr1.normalize(NormalizationMode.WHNF);
+        Expression expr2 = equation.expr2.normalize(NormalizationMode.WHNF);
+        if (expr1 != equation.expr1) {
+          watch(expr1, equation);
+        }
+        if (expr2 != equation.expr2) {
+          watch(expr2, equation);
+        }
+        equation.expr1 = expr1;
+        equation.expr2 = expr2;
+      }
     }
 
     for (int i = 0; i < myEquations.size(); i++) {
       Equation equation = myEquations.get(i);
+      if (equation == null) {
+        continue;
+      }
       if (equation.expr1 instanceof DataCallExpression && equation.expr2 instanceof DataCallExpression && ((DataCallExpression) equation.expr1).getDefinition() == Prelude.FIN && ((DataCallExpression) equation.expr2).getDefinition() == Prelude.FIN) {
-        myEquations.remove(i--);
+        removeFromList(equation);
         Expression arg1 = ((DataCallExpression) equation.expr1).getDefCallArguments().get(0);
         Expression arg2 = ((DataCallExpression) equation.expr2).getDefCallArguments().get(0);
         if (!CompareVisitor.compare(this, CMP.EQ, arg1, arg2, Nat(), equation.sourceNode)) {
@@ -414,13 +578,13 @@ public class TwoStageEquations implements Equations {
       }
     }
 
-    while (!myEquations.isEmpty()) {
+    while (myNumberOfEquations > 0) {
       if (!solveClassCallsEq()) {
         break;
       }
     }
 
-    while (!myEquations.isEmpty()) {
+    while (myNumberOfEquations > 0) {
       if (!solveClassCalls(CMP.LE) && !solveClassCalls(CMP.GE)) {
         break;
       }
@@ -439,17 +603,19 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void saveState(TypecheckerState state) {
-    state.equations = new ArrayList<>(myEquations);
+    myCheckpoints++;
+    state.equationsTrailHeight = myTrail.size();
     state.numberOfLevelVariables = myLevelVariables.size();
     state.numberOfLevelEquations = myLevelEquations.size();
     state.numberOfProps = myProps.size();
     state.numberOfBoundVars = myBoundVariables.size();
-    state.notSolvableFromEquationsVars = new HashSet<>(myNotSolvableFromEquationsVars.keySet());
   }
 
   @Override
   public void loadState(TypecheckerState state) {
-    myEquations = new ArrayList<>(state.equations);
+    while (myTrail.size() > state.equationsTrailHeight) {
+      myTrail.remove(myTrail.size() - 1).run();
+    }
     if (myLevelVariables.size() > state.numberOfLevelVariables) {
       myLevelVariables.subList(state.numberOfLevelVariables, myLevelVariables.size()).clear();
     }
@@ -462,18 +628,24 @@ public class TwoStageEquations implements Equations {
     if (myBoundVariables.size() > state.numberOfBoundVars) {
       myBoundVariables.subList(state.numberOfBoundVars, myBoundVariables.size()).clear();
     }
-    myNotSolvableFromEquationsVars.keySet().retainAll(state.notSolvableFromEquationsVars);
+  }
+
+  @Override
+  public void releaseState(TypecheckerState state) {
+    if (--myCheckpoints == 0) {
+      myTrail.clear();
+    }
   }
 
   private boolean solveClassCallsEq() {
     List<Pair<InferenceVariable, Expression>> solved = null;
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
-      if (equation.cmp == CMP.EQ) {
+    for (int i = 0; i < myEquations.size(); i++) {
+      Equation equation = myEquations.get(i);
+      if (equation != null && equation.cmp == CMP.EQ) {
         InferenceVariable var1 = equation.expr1.getInferenceVariable();
         InferenceVariable var2 = equation.expr2.getInferenceVariable();
         if (var1 == null && var2 != null && var2.isSolvableFromEquations() || var2 == null && var1 != null && var1.isSolvableFromEquations()) {
-          iterator.remove();
+          removeFromList(equation);
           if (solved == null) {
             solved = new ArrayList<>();
           }
@@ -500,15 +672,18 @@ public class TwoStageEquations implements Equations {
     boolean hasBound = false;
     Map<InferenceVariable,Set<Wrapper>> bounds = new HashMap<>();
     List<Equation> classCallEquations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (int i = 0; i < myEquations.size(); i++) {
+      Equation equation = myEquations.get(i);
+      if (equation == null) {
+        continue;
+      }
       Expression lower = equation.getLowerBound();
       Expression upper = equation.getUpperBound();
       ClassCallExpression lowerClassCall = lower.cast(ClassCallExpression.class);
       ClassCallExpression upperClassCall = upper.cast(ClassCallExpression.class);
       if (lowerClassCall != null && upperClassCall != null) {
         classCallEquations.add(new Equation(lowerClassCall, upperClassCall, Type.OMEGA, equation.cmp == CMP.EQ ? CMP.EQ : CMP.LE, equation.sourceNode));
-        iterator.remove();
+        removeFromList(equation);
         solved = true;
         continue;
       }
@@ -531,7 +706,7 @@ public class TwoStageEquations implements Equations {
           bounds.computeIfAbsent(var, k -> new LinkedHashSet<>()).add(new Wrapper(cmp == CMP.LE ? lower : upper));
           if (isClassCall) {
             hasBound = true;
-            iterator.remove();
+            removeFromList(equation);
           }
         }
       }
@@ -640,9 +815,20 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void solveLowerBounds(InferenceVariable var) {
+    List<Equation> candidates = myWatchLists.get(var);
+    if (candidates == null) {
+      return;
+    }
+    candidates.removeIf(equation -> equation.slot < 0);
+    if (candidates.isEmpty()) {
+      myWatchLists.remove(var);
+      return;
+    }
+    candidates = new ArrayList<>(new LinkedHashSet<>(candidates));
+    candidates.sort(Comparator.comparingInt(equation -> equation.slot));
+
     List<Equation> equations = new ArrayList<>();
-    for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
-      Equation equation = iterator.next();
+    for (Equation equation : candidates) {
       Expression varExpr = equation.cmp == CMP.LE ? equation.expr2 : equation.expr1;
       if (varExpr instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) varExpr).getVariable() == var) {
         Expression other = (equation.cmp == CMP.LE ? equation.expr1 : equation.expr2).normalize(NormalizationMode.WHNF);
@@ -653,11 +839,13 @@ public class TwoStageEquations implements Equations {
             equation.expr2 = other;
           }
         } else {
-          myEquations.addAll(equations);
+          for (Equation removed : equations) {
+            addToList(removed);
+          }
           return;
         }
         equations.add(equation);
-        iterator.remove();
+        removeFromList(equation);
       }
     }
 
@@ -19,6 +19,7 @@ import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.ext.util.Pair;
+import org.arend.util.jfr.InstanceSearchEvent;
 
 import java.util.*;
 import java.util.function.Predicate;
@@ -69,6 +70,14 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public TypecheckingResult findInstance(Expression classifyingExpression, Expression expectedType, InstanceSearchParameters parameters, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression, Definition currentDef) {
+    InstanceSearchEvent event = new InstanceSearchEvent();
+    event.begin();
+    TypecheckingResult result = findInstanceResult(classifyingExpression, expectedType, parameters, sourceNode, recursiveHoleExpression, currentDef);
+    event.commit(currentDef, result != null);
+    return result;
+  }
+
+  private TypecheckingResult findInstanceResult(Expression classifyingExpression, Expression expectedType, InstanceSearchParameters parameters, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression, Definition currentDef) {
     if (myInstancePool != null) {
       TypecheckingResult result = myInstancePool.findInstance(classifyingExpression, expectedType, parameters, sourceNode, currentDef, currentDef instanceof ClassDefinition ? LocalInstancePool.FieldSearchParameters.ALL : LocalInstancePool.FieldSearchParameters.NOT_FIELDS);
       if (result != null) {
@@ -100,6 +109,14 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public Concrete.Expression findInstance(Expression classifyingExpression, InstanceSearchParameters parameters, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression, Definition currentDef) {
+    InstanceSearchEvent event = new InstanceSearchEvent();
+    event.begin();
+    Concrete.Expression result = findInstanceExpression(classifyingExpression, parameters, sourceNode, recursiveHoleExpression, currentDef);
+    event.commit(currentDef, result != null);
+    return result;
+  }
+
+  private Concrete.Expression findInstanceExpression(Expression classifyingExpression, InstanceSearchParameters parameters, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression, Definition currentDef) {
     if (myInstancePool != null) {
       Concrete.Expression result = myInstancePool.findInstance(classifyingExpression, parameters, sourceNode, currentDef, currentDef instanceof ClassDefinition ? LocalInstancePool.FieldSearchParameters.ALL : LocalInstancePool.FieldSearchParameters.NOT_FIELDS);
       if (result != null) {
@@ -9,14 +9,21 @@ import org.arend.naming.scope.Scope;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.Group;
 import org.arend.term.group.Statement;
+import org.arend.util.ComputingCache;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+/**
+ * Contains instance providers of definitions.
+ * It can be shared by several threads; instances of each group are collected at most once.
+ * A group is marked as collected only after its providers are recorded, so concurrent collections of the same group wait for them.
+ */
 public class InstanceProviderSet {
-  private final Map<TCDefReferable, InstanceProvider> myProviders = new HashMap<>();
-  private final Set<Group> myCollected = new HashSet<>();
+  private final Map<TCDefReferable, InstanceProvider> myProviders = new ConcurrentHashMap<>();
+  private final ComputingCache<Group, Object> myCollected = new ComputingCache<>();
 
   public void put(TCDefReferable referable, InstanceProvider provider) {
     myProviders.put(referable, provider);
@@ -75,16 +82,15 @@ public class InstanceProviderSet {
   }
 
   public boolean collectInstances(Group group, Scope parentScope, LocatedReferable referable, ReferableConverter referableConverter) {
-    if (!myCollected.add(group)) {
-      return false;
-    }
-
-    var predicate = new MyPredicate(referableConverter);
-    parentScope.find(predicate);
-    predicate.instanceProvider.reverseFrom(0);
-    processGroup(group, parentScope, predicate);
-    predicate.recordInstances(referable);
-    return true;
+    Object collection = new Object();
+    return myCollected.computeIfAbsent(group, g -> {
+      var predicate = new MyPredicate(referableConverter);
+      parentScope.find(predicate);
+      predicate.instanceProvider.reverseFrom(0);
+      processGroup(group, parentScope, predicate);
+      predicate.recordInstances(referable);
+      return collection;
+    }) == collection;
   }
 
   public boolean collectInstances(Group group, Scope parentScope, ReferableConverter referableConverter) {
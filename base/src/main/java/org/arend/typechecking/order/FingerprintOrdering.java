@@ -0,0 +1,296 @@
+package org.arend.typechecking.order;
+
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.*;
+import org.arend.core.expr.Expression;
+import org.arend.ext.prettyprinting.PrettyPrinterConfig;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.ConcreteLocatedReferable;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.visitor.CollectDefCallsVisitor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Computes fingerprints of resolved concrete definitions.
+ * The fingerprint of a definition is a hash of its text and fingerprints of its dependencies,
+ * so it changes whenever the definition or something it depends on changes.
+ * Mutually recursive definitions are hashed together, so the result does not depend on the order of traversal.
+ * The text of a definition is obtained from the pretty printer.
+ * Attributes that are not printed are hashed separately: the kind of a function ({@code \sfunc}, {@code \axiom}, and {@code \cons} are printed as nothing),
+ * {@code \truncated} for data types, and {@code \record} and {@code \noclassifying} for classes.
+ * A known change that is not detected is replacing a reference with a reference to another definition with the same name
+ * if both definitions are already dependencies in the same order.
+ * For example, {@code (A.f, B.f, A.f)} and {@code (A.f, B.f, B.f)} are both printed as {@code (f, f, f)}.
+ * Definitions without concrete counterparts come from binaries of other libraries and contribute a hash of their signatures,
+ * so they are taken into account if an external library changes the interface of a definition.
+ * <p>
+ * This class also collects unchanged definitions of outdated binaries of a library and decides which of them can be restored.
+ */
+public class FingerprintOrdering extends TarjanSCC<Concrete.ResolvableDefinition> {
+  private static volatile boolean ourEnabled = false;
+
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long PRIME = 0x100000001b3L;
+  private static final long EXTERNAL = 1;
+
+  private final InstanceProviderSet myInstanceProviderSet;
+  private final Map<Concrete.ResolvableDefinition, Set<TCReferable>> myDependencies = new HashMap<>();
+  private final Map<Definition, Long> myInterfaceHashes = new HashMap<>();
+  private final Set<TCReferable> myUnchanged = new HashSet<>();
+  private Set<TCReferable> myRestorable;
+
+  public FingerprintOrdering(@Nullable InstanceProviderSet instanceProviderSet) {
+    myInstanceProviderSet = instanceProviderSet;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    ourEnabled = enabled;
+  }
+
+  /**
+   * @return true if fingerprints are computed before typechecking and used to restore definitions from outdated binaries.
+   */
+  public static boolean isEnabled() {
+    return ourEnabled;
+  }
+
+  public static @Nullable Concrete.ResolvableDefinition getConcrete(TCReferable referable) {
+    Concrete.ResolvableDefinition def = referable.getDefaultConcrete();
+    if (def == null && referable instanceof ConcreteLocatedReferable) {
+      Concrete.ReferableDefinition refDef = ((ConcreteLocatedReferable) referable).getDefinition();
+      if (refDef instanceof Concrete.ResolvableDefinition) {
+        def = (Concrete.ResolvableDefinition) refDef;
+      }
+    }
+    return def;
+  }
+
+  /**
+   * Computes the fingerprint of a definition.
+   * Fingerprints are computed only for definitions that are resolved but not yet desugared
+   * since desugaring and typechecking modify concrete definitions.
+   *
+   * @return the fingerprint of {@code definition} or 0 if it cannot be computed.
+   */
+  public long getFingerprint(Concrete.ResolvableDefinition definition) {
+    if (definition.getFingerprint() == 0 && definition.getStage() == Concrete.Stage.RESOLVED) {
+      order(definition);
+    }
+    return definition.getFingerprint();
+  }
+
+  public long getFingerprint(TCReferable referable) {
+    Concrete.ResolvableDefinition def = getConcrete(referable);
+    return def == null ? 0 : getFingerprint(def);
+  }
+
+  /**
+   * @return typecheckable definitions that {@code definition} depends on, including instances available in it.
+   */
+  public Set<TCReferable> getDependencies(Concrete.ResolvableDefinition definition) {
+    Set<TCReferable> result = myDependencies.get(definition);
+    if (result != null) {
+      return result;
+    }
+
+    Set<TCReferable> dependencies = new LinkedHashSet<>();
+    Ordering.collectDependencies(definition, new CollectDefCallsVisitor(dependencies, true), myInstanceProviderSet, true);
+    result = new LinkedHashSet<>();
+    for (TCReferable dependency : dependencies) {
+      TCReferable typecheckable = dependency.getTypecheckable();
+      if (!typecheckable.equals(definition.getData())) {
+        result.add(typecheckable);
+      }
+    }
+    myDependencies.put(definition, result);
+    return result;
+  }
+
+  /**
+   * Registers definitions of an outdated binary whose fingerprints match their current sources.
+   */
+  public void addUnchanged(Collection<? extends TCReferable> definitions) {
+    myUnchanged.addAll(definitions);
+    myRestorable = null;
+  }
+
+  /**
+   * An unchanged definition can be restored only if every definition it depends on is either already loaded or restorable itself.
+   * Otherwise, the restored definition would refer to a definition that is typechecked later,
+   * which may happen if the dependency belongs to the same module or to another module of the same library.
+   * Unchanged definitions of all modules must be registered with {@link #addUnchanged} before this method is invoked.
+   *
+   * @return true if {@code definition} is an unchanged definition that can be restored.
+   */
+  public boolean isRestorable(TCReferable definition) {
+    if (myRestorable == null) {
+      Set<TCReferable> restorable = new HashSet<>(myUnchanged);
+      boolean updated = true;
+      while (updated) {
+        updated = false;
+        for (Iterator<TCReferable> it = restorable.iterator(); it.hasNext(); ) {
+          Concrete.ResolvableDefinition def = getConcrete(it.next());
+          if (def == null) {
+            continue;
+          }
+          for (TCReferable dependency : getDependencies(def)) {
+            if (!restorable.contains(dependency) && !(dependency instanceof TCDefReferable && ((TCDefReferable) dependency).getTypechecked() != null)) {
+              it.remove();
+              updated = true;
+              break;
+            }
+          }
+        }
+      }
+      myRestorable = restorable;
+    }
+    return myRestorable.contains(definition);
+  }
+
+  @Override
+  protected boolean forDependencies(Concrete.ResolvableDefinition unit, Consumer<Concrete.ResolvableDefinition> consumer) {
+    for (TCReferable dependency : getDependencies(unit)) {
+      Concrete.ResolvableDefinition def = getConcrete(dependency);
+      if (def != null && def.getFingerprint() == 0 && def.getStage() == Concrete.Stage.RESOLVED) {
+        consumer.accept(def);
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected void unitFound(Concrete.ResolvableDefinition unit, boolean withLoops) {
+    sccFound(Collections.singletonList(unit));
+  }
+
+  @Override
+  protected void sccFound(List<Concrete.ResolvableDefinition> scc) {
+    Map<Concrete.ResolvableDefinition, String> names = new HashMap<>();
+    Set<TCReferable> members = new HashSet<>();
+    for (Concrete.ResolvableDefinition definition : scc) {
+      names.put(definition, getName(definition.getData()));
+      members.add(definition.getData());
+    }
+    List<Concrete.ResolvableDefinition> sorted = new ArrayList<>(scc);
+    sorted.sort(Comparator.comparing(names::get));
+
+    long hash = OFFSET_BASIS;
+    for (Concrete.ResolvableDefinition definition : sorted) {
+      hash = hash(hash, names.get(definition));
+      StringBuilder builder = new StringBuilder();
+      definition.prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+      hash = hash(hash, builder);
+      hash = hashAttributes(hash, definition);
+
+      for (TCReferable dependency : getDependencies(definition)) {
+        if (members.contains(dependency)) {
+          continue;
+        }
+        Concrete.ResolvableDefinition def = getConcrete(dependency);
+        long fingerprint = def == null ? getInterfaceHash(dependency) : def.getFingerprint();
+        if (fingerprint == 0) {
+          return;
+        }
+        hash = hash(hash(hash, getName(dependency)), fingerprint);
+      }
+    }
+
+    for (Concrete.ResolvableDefinition definition : scc) {
+      long fingerprint = hash(hash, names.get(definition));
+      definition.setFingerprint(fingerprint == 0 ? EXTERNAL : fingerprint);
+    }
+  }
+
+  private static long hashAttributes(long hash, Concrete.ResolvableDefinition definition) {
+    if (definition instanceof Concrete.BaseFunctionDefinition function) {
+      return hash(hash, function.getKind().name());
+    }
+    if (definition instanceof Concrete.DataDefinition data) {
+      return hash(hash, data.isTruncated() ? 1 : 0);
+    }
+    if (definition instanceof Concrete.ClassDefinition classDef) {
+      return hash(hash, (classDef.isRecord() ? 1 : 0) | (classDef.withoutClassifying() ? 2 : 0));
+    }
+    return hash;
+  }
+
+  /**
+   * Computes a hash of the signature of a definition loaded from a binary.
+   * It includes the parameters and the result type of the definition, its constructors, and its fields.
+   */
+  private long getInterfaceHash(TCReferable referable) {
+    Definition definition = referable instanceof TCDefReferable ? ((TCDefReferable) referable).getTypechecked() : null;
+    if (definition == null) {
+      return EXTERNAL;
+    }
+
+    Long result = myInterfaceHashes.get(definition);
+    if (result != null) {
+      return result;
+    }
+
+    long hash = hashSignature(OFFSET_BASIS, definition);
+    if (definition instanceof DataDefinition) {
+      for (Constructor constructor : ((DataDefinition) definition).getConstructors()) {
+        hash = hashSignature(hash, constructor);
+      }
+    } else if (definition instanceof ClassDefinition) {
+      List<ClassField> fields = new ArrayList<>();
+      ((ClassDefinition) definition).forFields(fields::add);
+      for (ClassField field : fields) {
+        hash = hashSignature(hash, field);
+      }
+    }
+    if (hash == 0) {
+      hash = EXTERNAL;
+    }
+    myInterfaceHashes.put(definition, hash);
+    return hash;
+  }
+
+  private static long hashSignature(long hash, Definition definition) {
+    List<DependentLink> parameters = new ArrayList<>();
+    Expression type = definition.getTypeWithParams(parameters, definition.makeIdLevels());
+    hash = hash(hash, definition.getName());
+    for (DependentLink parameter : parameters) {
+      StringBuilder builder = new StringBuilder();
+      builder.append(parameter.isExplicit() ? '(' : '{').append(parameter.getName()).append(" : ");
+      parameter.getTypeExpr().prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+      hash = hash(hash, builder);
+    }
+    if (type != null) {
+      StringBuilder builder = new StringBuilder();
+      type.prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+      hash = hash(hash, builder);
+    }
+    return hash;
+  }
+
+  private static String getName(TCReferable referable) {
+    List<String> longName = new ArrayList<>();
+    ModuleLocation location = LocatedReferable.Helper.getLocation(referable, longName);
+    return (location == null ? "" : location.getModulePath() + ":") + String.join(".", longName);
+  }
+
+  private static long hash(long hash, CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      hash = (hash ^ text.charAt(i)) * PRIME;
+    }
+    return (hash ^ 0xff) * PRIME;
+  }
+
+  private static long hash(long hash, long value) {
+    for (int i = 0; i < 8; i++) {
+      hash = (hash ^ (value & 0xff)) * PRIME;
+      value >>>= 8;
+    }
+    return hash;
+  }
+}
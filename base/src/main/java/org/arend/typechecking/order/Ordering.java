@@ -117,6 +117,9 @@ public class Ordering extends TarjanSCC<Concrete.ResolvableDefinition> {
   public void order(Concrete.ResolvableDefinition definition) {
     if (definition.getStage() != Concrete.Stage.TYPECHECKED && getTypechecked(definition.getData()) == null) {
       ComputationRunner.checkCanceled();
+      if (FingerprintOrdering.isEnabled()) {
+        new FingerprintOrdering(myInstanceProviderSet).getFingerprint(definition);
+      }
       super.order(definition);
     }
   }
@@ -130,9 +133,42 @@ public class Ordering extends TarjanSCC<Concrete.ResolvableDefinition> {
   protected boolean forDependencies(Concrete.ResolvableDefinition definition, Consumer<Concrete.ResolvableDefinition> consumer) {
     Set<TCReferable> dependencies = new LinkedHashSet<>();
     CollectDefCallsVisitor visitor = new CollectDefCallsVisitor(dependencies, myStage.ordinal() < Stage.WITHOUT_BODIES.ordinal());
-    if (myStage.ordinal() < Stage.WITHOUT_USE.ordinal()) {
-      if (myStage.ordinal() < Stage.WITHOUT_INSTANCES.ordinal()) {
-        InstanceProvider instanceProvider = myInstanceProviderSet.get(definition.getData());
+    collectDependencies(definition, visitor, myStage.ordinal() < Stage.WITHOUT_INSTANCES.ordinal() ? myInstanceProviderSet : null, myStage.ordinal() < Stage.WITHOUT_USE.ordinal());
+
+    boolean withLoops = false;
+    for (TCReferable referable : dependencies) {
+      TCReferable tcReferable = referable.getTypecheckable();
+      if (myAllowedDependencies != null && !myAllowedDependencies.contains(tcReferable)) {
+        continue;
+      }
+
+      if (tcReferable.equals(definition.getData())) {
+        if (referable.equals(tcReferable)) {
+          withLoops = true;
+        }
+      } else {
+        myDependencyListener.dependsOn(definition.getData(), tcReferable);
+        if (!tcReferable.isTypechecked()) {
+          var dependency = myConcreteProvider.getConcrete(tcReferable);
+          if (dependency instanceof Concrete.ResolvableDefinition && dependency.getStage() != Concrete.Stage.TYPECHECKED && !dependency.getData().isTypechecked()) {
+            consumer.accept((Concrete.ResolvableDefinition) dependency);
+          }
+        }
+      }
+    }
+    return withLoops;
+  }
+
+  /**
+   * Collects dependencies of {@code definition} into {@code visitor}.
+   *
+   * @param instanceProviderSet if not null, instances available in {@code definition} are also collected.
+   * @param withUse             if true, definitions used by {@code definition} are also collected.
+   */
+  static void collectDependencies(Concrete.ResolvableDefinition definition, CollectDefCallsVisitor visitor, InstanceProviderSet instanceProviderSet, boolean withUse) {
+    if (withUse) {
+      if (instanceProviderSet != null) {
+        InstanceProvider instanceProvider = instanceProviderSet.get(definition.getData());
         if (instanceProvider != null) {
           instanceProvider.findInstance(instance -> {
             visitor.addDependency(instance);
@@ -158,29 +194,6 @@ public class Ordering extends TarjanSCC<Concrete.ResolvableDefinition> {
       visitor.addDependency(((Concrete.UseDefinition) definition).getUseParent());
     }
     definition.accept(visitor, null);
-
-    boolean withLoops = false;
-    for (TCReferable referable : dependencies) {
-      TCReferable tcReferable = referable.getTypecheckable();
-      if (myAllowedDependencies != null && !myAllowedDependencies.contains(tcReferable)) {
-        continue;
-      }
-
-      if (tcReferable.equals(definition.getData())) {
-        if (referable.equals(tcReferable)) {
-          withLoops = true;
-        }
-      } else {
-        myDependencyListener.dependsOn(definition.getData(), tcReferable);
-        if (!tcReferable.isTypechecked()) {
-          var dependency = myConcreteProvider.getConcrete(tcReferable);
-          if (dependency instanceof Concrete.ResolvableDefinition && dependency.getStage() != Concrete.Stage.TYPECHECKED && !dependency.getData().isTypechecked()) {
-            consumer.accept((Concrete.ResolvableDefinition) dependency);
-          }
-        }
-      }
-    }
-    return withLoops;
   }
 
   @Override
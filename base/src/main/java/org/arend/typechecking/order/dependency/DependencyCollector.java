@@ -11,10 +11,20 @@ import org.arend.typechecking.visitor.CollectDefCallsVisitor;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Collects dependencies between definitions.
+ * {@link #dependsOn} does not take a lock: an edge is added inside {@link ConcurrentHashMap#compute}, which is atomic with respect to removing the set of edges.
+ * {@link #update} removes the sets of invalidated definitions, so it owns them and sees every edge added before the removal,
+ * while an edge added after the removal starts a new set and is seen by the next update.
+ * Only {@link #update} and {@link #replace} are synchronized since they are rare and modify several sets at once.
+ */
 public class DependencyCollector implements DependencyListener {
   private final Map<TCReferable, Set<TCReferable>> myDependencies = new ConcurrentHashMap<>();
   private final Map<TCReferable, Set<TCReferable>> myReverseDependencies = new ConcurrentHashMap<>();
+  private final AtomicLong myUpdates = new AtomicLong();
+  private final AtomicLong myInvalidated = new AtomicLong();
 
   @Override
   public void dependsOn(TCReferable def1, TCReferable def2) {
@@ -27,26 +37,69 @@ public class DependencyCollector implements DependencyListener {
     }
 
     if (!(def1 instanceof MetaDefinition)) {
-      myDependencies.computeIfAbsent(def1, k -> ConcurrentHashMap.newKeySet()).add(def2);
+      add(myDependencies, def1, Collections.singleton(def2));
     }
-    myReverseDependencies.computeIfAbsent(def2, k -> ConcurrentHashMap.newKeySet()).add(def1);
+    add(myReverseDependencies, def2, Collections.singleton(def1));
+  }
+
+  private static void add(Map<TCReferable, Set<TCReferable>> graph, TCReferable definition, Collection<? extends TCReferable> neighbours) {
+    graph.compute(definition, (k, set) -> {
+      if (set == null) {
+        set = ConcurrentHashMap.newKeySet();
+      }
+      set.addAll(neighbours);
+      return set;
+    });
   }
 
   @Override
-  public Set<? extends TCReferable> update(TCReferable definition) {
-    if (definition instanceof TCDefReferable && ((TCDefReferable) definition).getTypechecked() == null) {
-      return Collections.emptySet();
+  public synchronized void replace(TCReferable oldDefinition, TCReferable newDefinition) {
+    Set<TCReferable> dependencies = myDependencies.remove(oldDefinition);
+    Set<TCReferable> dependents = myReverseDependencies.remove(oldDefinition);
+    if (dependencies != null) {
+      add(myDependencies, newDefinition, dependencies);
+      for (TCReferable dependency : dependencies) {
+        replace(myReverseDependencies.get(dependency == oldDefinition ? newDefinition : dependency), oldDefinition, newDefinition);
+      }
+    }
+    if (dependents != null) {
+      add(myReverseDependencies, newDefinition, dependents);
+      for (TCReferable dependent : dependents) {
+        replace(myDependencies.get(dependent == oldDefinition ? newDefinition : dependent), oldDefinition, newDefinition);
+      }
     }
+  }
 
-    Set<TCReferable> updated = new HashSet<>();
-    Stack<TCReferable> stack = new Stack<>();
-    stack.push(definition);
+  private static void replace(Set<TCReferable> definitions, TCReferable oldDefinition, TCReferable newDefinition) {
+    if (definitions != null && definitions.remove(oldDefinition)) {
+      definitions.add(newDefinition);
+    }
+  }
 
-    while (!stack.isEmpty()) {
-      TCReferable toUpdate = stack.pop();
-      if (!updated.add(toUpdate)) {
+  @Override
+  public Set<? extends TCReferable> update(TCReferable definition) {
+    return update(Collections.singletonList(definition));
+  }
+
+  /**
+   * Invalidates given definitions and all definitions that depend on them.
+   * The closure is computed once for the whole collection, so definitions with common dependents are cheaper to update together.
+   */
+  @Override
+  public synchronized Set<? extends TCReferable> update(Collection<? extends TCReferable> definitions) {
+    Set<TCReferable> visited = new HashSet<>();
+    Deque<TCReferable> stack = new ArrayDeque<>();
+    for (TCReferable definition : definitions) {
+      if (definition instanceof TCDefReferable && ((TCDefReferable) definition).getTypechecked() == null) {
         continue;
       }
+      if (visited.add(definition)) {
+        stack.push(definition);
+      }
+    }
+
+    while (!stack.isEmpty()) {
+      TCReferable toUpdate = stack.pop();
 
       Set<TCReferable> dependencies;
       if (toUpdate instanceof MetaReferable) {
@@ -63,21 +116,25 @@ public class DependencyCollector implements DependencyListener {
 
       if (dependencies != null) {
         for (TCReferable dependency : dependencies) {
-          Set<TCReferable> definitions = myReverseDependencies.get(dependency);
-          if (definitions != null) {
-            definitions.remove(definition);
+          Set<TCReferable> dependents = myReverseDependencies.get(dependency);
+          if (dependents != null) {
+            dependents.remove(toUpdate);
           }
         }
       }
 
       Set<TCReferable> reverseDependencies = myReverseDependencies.remove(toUpdate);
       if (reverseDependencies != null) {
-        stack.addAll(reverseDependencies);
+        for (TCReferable dependent : reverseDependencies) {
+          if (visited.add(dependent)) {
+            stack.push(dependent);
+          }
+        }
       }
     }
 
-    Set<TCReferable> additional = new HashSet<>();
-    for (TCReferable updatedDef : updated) {
+    Set<TCReferable> updated = new HashSet<>(visited);
+    for (TCReferable updatedDef : visited) {
       if (!(updatedDef instanceof TCDefReferable)) {
         continue;
       }
@@ -86,23 +143,41 @@ public class DependencyCollector implements DependencyListener {
       if (def instanceof ClassDefinition) {
         for (ClassField field : ((ClassDefinition) def).getPersonalFields()) {
           field.getReferable().dropAndCancelTypechecking();
-          additional.add(field.getReferable());
+          updated.add(field.getReferable());
         }
       } else if (def instanceof DataDefinition) {
         for (Constructor constructor : ((DataDefinition) def).getConstructors()) {
           constructor.getReferable().dropAndCancelTypechecking();
-          additional.add(constructor.getReferable());
+          updated.add(constructor.getReferable());
         }
       }
     }
 
-    updated.addAll(additional);
+    myUpdates.incrementAndGet();
+    myInvalidated.addAndGet(updated.size());
     return updated;
   }
 
+  /**
+   * @return the number of calls to {@link #update(Collection)}.
+   */
+  public long getUpdateCount() {
+    return myUpdates.get();
+  }
+
+  /**
+   * @return the total number of definitions invalidated by updates.
+   */
+  public long getInvalidatedCount() {
+    return myInvalidated.get();
+  }
+
+  /**
+   * @return a live view of dependencies of {@code definition}; it is a concurrent set, so it can be iterated while dependencies are added.
+   */
   @Override
   public Set<? extends TCReferable> getDependencies(TCReferable definition) {
     Set<TCReferable> dependencies = myDependencies.get(definition);
-    return dependencies == null ? Collections.emptySet() : dependencies;
+    return dependencies == null ? Collections.emptySet() : Collections.unmodifiableSet(dependencies);
   }
 }
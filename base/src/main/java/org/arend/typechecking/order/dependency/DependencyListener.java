@@ -2,10 +2,25 @@ package org.arend.typechecking.order.dependency;
 
 import org.arend.naming.reference.TCReferable;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public interface DependencyListener {
   void dependsOn(TCReferable def1, TCReferable def2);
   Set<? extends TCReferable> update(TCReferable definition);
   Set<? extends TCReferable> getDependencies(TCReferable definition);
+
+  /**
+   * Moves dependencies recorded for {@code oldDefinition} to {@code newDefinition}.
+   */
+  default void replace(TCReferable oldDefinition, TCReferable newDefinition) {}
+
+  default Set<? extends TCReferable> update(Collection<? extends TCReferable> definitions) {
+    Set<TCReferable> result = new LinkedHashSet<>();
+    for (TCReferable definition : definitions) {
+      result.addAll(update(definition));
+    }
+    return result;
+  }
 }
@@ -7,6 +7,7 @@ import org.arend.core.context.param.TypedSingleDependentLink;
 import org.arend.core.definition.*;
 import org.arend.core.elimtree.ElimClause;
 import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.core.pattern.ExpressionPattern;
 import org.arend.core.sort.Sort;
@@ -45,6 +46,8 @@ import org.arend.typechecking.termination.DefinitionCallGraph;
 import org.arend.typechecking.termination.RecursiveBehavior;
 import org.arend.typechecking.visitor.*;
 import org.arend.ext.util.Pair;
+import org.arend.util.jfr.DefinitionTypecheckingEvent;
+import org.arend.util.jfr.TerminationCheckingEvent;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
@@ -240,7 +243,15 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     myCurrentDefinitions = Collections.singletonList(definition.getData());
     typecheckingUnitStarted(definition.getData());
     DefinitionTypechecker typechecker = new DefinitionTypechecker(checkTypeVisitor, recursive ? Collections.singleton(definition.getData()) : Collections.emptySet());
-    clauses = definition.accept(typechecker, null);
+    DefinitionTypecheckingEvent event = new DefinitionTypecheckingEvent();
+    event.begin();
+    TypeCache.start();
+    try {
+      clauses = definition.accept(typechecker, null);
+    } finally {
+      TypeCache.finish();
+    }
+    event.commit(definition.getData(), DefinitionTypecheckingEvent.Stage.UNIT);
     Definition typechecked = definition.getData().getTypechecked();
     if (typechecked == null) {
       typechecked = newDefinition(definition);
@@ -340,7 +351,16 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
     DesugarVisitor.desugar(definition, visitor.getErrorReporter());
     Definition oldTypechecked = definition.getData().getTypechecked();
     DefinitionTypechecker typechecker = new DefinitionTypechecker(visitor, definition instanceof Concrete.Definition ? ((Concrete.Definition) definition).getRecursiveDefinitions() : Collections.emptySet());
-    Definition typechecked = typechecker.typecheckHeader(oldTypechecked, new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), visitor), definition);
+    DefinitionTypecheckingEvent event = new DefinitionTypecheckingEvent();
+    event.begin();
+    Definition typechecked;
+    TypeCache.start();
+    try {
+      typechecked = typechecker.typecheckHeader(oldTypechecked, new GlobalInstancePool(myInstanceProviderSet.get(definition.getData()), visitor), definition);
+    } finally {
+      TypeCache.finish();
+    }
+    event.commit(definition.getData(), DefinitionTypecheckingEvent.Stage.HEADER);
     UniverseKind universeKind = typechecked.getUniverseKind();
     if (typechecked instanceof TopLevelDefinition) {
       ((TopLevelDefinition) typechecked).setUniverseKind(UniverseKind.WITH_UNIVERSES);
@@ -407,7 +427,16 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       if (myHeadersAreOK && suspension != null) {
         typechecking.setTypechecker(suspension.typechecker);
         typechecking.updateState(suspension.isNew);
-        List<? extends ElimClause<ExpressionPattern>> clauses = typechecking.typecheckBody(def, definition, dataDefinitions);
+        DefinitionTypecheckingEvent event = new DefinitionTypecheckingEvent();
+        event.begin();
+        List<? extends ElimClause<ExpressionPattern>> clauses;
+        TypeCache.start();
+        try {
+          clauses = typechecking.typecheckBody(def, definition, dataDefinitions);
+        } finally {
+          TypeCache.finish();
+        }
+        event.commit(definition.getData(), DefinitionTypecheckingEvent.Stage.BODY);
         if (def instanceof FunctionDefinition && definition instanceof Concrete.Definition) {
           functionDefinitions.put((FunctionDefinition) def, (Concrete.Definition) definition);
           if (clauses != null) {
@@ -576,7 +605,11 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
       }
     }
 
-    if (!definitionCallGraph.checkTermination()) {
+    TerminationCheckingEvent event = new TerminationCheckingEvent();
+    event.begin();
+    boolean terminates = definitionCallGraph.checkTermination();
+    event.commit(definitions.keySet(), terminates);
+    if (!terminates) {
       for (Map.Entry<Definition, Set<RecursiveBehavior<Definition>>> entry : definitionCallGraph.myErrorInfo.entrySet()) {
         myErrorReporter.report(new TerminationCheckError(entry.getKey(), entry.getValue()));
       }
@@ -22,55 +22,190 @@ import org.arend.ext.core.definition.CoreFunctionDefinition;
 import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.core.ops.CMP;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
 import org.arend.typechecking.error.local.ConditionsError;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
+import org.arend.typechecking.visitor.SearchVisitor;
 import org.arend.ext.util.Pair;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
 
 public class ConditionsChecking {
+  /**
+   * Conditions are checked in parallel only if there are at least this many independent checks
+   * since a check of a small elimination is cheaper than scheduling it.
+   */
+  static final int MIN_PARALLEL_CHECKS = 16;
+
+  private static int ourParallelism = 1;
+  private static ForkJoinPool ourPool;
+
   private final Equations myEquations;
   private final ErrorReporter myErrorReporter;
   private final Concrete.SourceNode mySourceNode;
+  private final boolean myWorker;
+  private final boolean myRecheckFailures;
+  private boolean myDeferred;
 
   public ConditionsChecking(Equations equations, ErrorReporter errorReporter, Concrete.SourceNode sourceNode) {
+    this(equations, errorReporter, sourceNode, false, false);
+  }
+
+  private ConditionsChecking(Equations equations, ErrorReporter errorReporter, Concrete.SourceNode sourceNode, boolean worker, boolean recheckFailures) {
     myEquations = equations;
     myErrorReporter = errorReporter;
     mySourceNode = sourceNode;
+    myWorker = worker;
+    myRecheckFailures = recheckFailures;
+  }
+
+  /**
+   * Sets the number of threads that check conditions of a single definition.
+   * If {@code parallelism} is at most 1, which is the default, conditions are checked sequentially.
+   */
+  public static synchronized void setParallelism(int parallelism) {
+    if (parallelism != ourParallelism && ourPool != null) {
+      ourPool.shutdown();
+      ourPool = null;
+    }
+    ourParallelism = parallelism;
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if (ourParallelism <= 1) {
+      return null;
+    }
+    if (ourPool == null) {
+      ourPool = new ForkJoinPool(ourParallelism);
+    }
+    return ourPool;
   }
 
   public boolean check(Body body, List<ExtElimClause> clauses, List<? extends Concrete.FunctionClause> cClauses, CallableDefinition definition) {
     assert cClauses == null || clauses.size() <= cClauses.size();
 
-    boolean ok;
+    List<Predicate<ConditionsChecking>> checks = new ArrayList<>();
     ElimBody elimBody;
     if (body instanceof IntervalElim) {
-      ok = checkIntervals((IntervalElim) body, definition);
+      checks.add(checking -> checking.checkIntervals((IntervalElim) body, definition));
       for (int i = 0; i < clauses.size(); i++) {
-        if (clauses.get(i).getExpression() != null && !checkIntervalClause((IntervalElim) body, clauses.get(i), cClauses == null ? mySourceNode : cClauses.get(i), definition)) {
-          ok = false;
+        ExtElimClause clause = clauses.get(i);
+        Concrete.SourceNode sourceNode = cClauses == null ? mySourceNode : cClauses.get(i);
+        if (clause.getExpression() != null) {
+          checks.add(checking -> checking.checkIntervalClause((IntervalElim) body, clause, sourceNode, definition));
         }
       }
       elimBody = ((IntervalElim) body).getOtherwise();
     } else {
-      ok = true;
       elimBody = body instanceof ElimBody ? (ElimBody) body : null;
     }
 
     for (int i = 0; i < clauses.size(); i++) {
-      if (!checkClause(clauses.get(i), cClauses == null ? mySourceNode : cClauses.get(i), elimBody, definition)) {
-        ok = false;
+      ExtElimClause clause = clauses.get(i);
+      Concrete.SourceNode sourceNode = cClauses == null ? mySourceNode : cClauses.get(i);
+      checks.add(checking -> checking.checkClause(clause, sourceNode, elimBody, definition));
+    }
+
+    return runChecks(checks);
+  }
+
+  /**
+   * Runs independent checks and reports their errors in the order of {@code checks}.
+   * If there are at least {@link #MIN_PARALLEL_CHECKS} checks and parallel checking is enabled,
+   * the checks are first split between workers that run in parallel, each with its own error reporter and {@link DummyEquations}.
+   * A worker defers a check if it encounters an unsolved inference variable or a goal.
+   * It also defers a check if a comparison fails and {@link #myEquations} might have proved it.
+   * Deferred checks are run again sequentially with the original equations and error reporter.
+   */
+  private boolean runChecks(List<Predicate<ConditionsChecking>> checks) {
+    ForkJoinPool pool = checks.size() < MIN_PARALLEL_CHECKS ? null : getPool();
+    if (pool == null) {
+      boolean ok = true;
+      for (Predicate<ConditionsChecking> check : checks) {
+        ok = check.test(this) && ok;
       }
+      return ok;
     }
 
+    int numberOfWorkers = Math.min(pool.getParallelism(), checks.size());
+    List<ConditionsChecking> workers = new ArrayList<>(numberOfWorkers);
+    boolean[] results = new boolean[checks.size()];
+    boolean[] deferred = new boolean[checks.size()];
+    int[] errorsEnd = new int[checks.size()];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(numberOfWorkers);
+    for (int w = 0; w < numberOfWorkers; w++) {
+      ConditionsChecking worker = new ConditionsChecking(DummyEquations.getInstance(), new ListErrorReporter(), mySourceNode, true, !(myEquations instanceof DummyEquations));
+      workers.add(worker);
+      int first = w;
+      tasks.add(pool.submit(() -> {
+        List<GeneralError> errors = ((ListErrorReporter) worker.myErrorReporter).getErrorList();
+        for (int i = first; i < checks.size(); i += numberOfWorkers) {
+          int errorsStart = errors.size();
+          worker.myDeferred = false;
+          results[i] = checks.get(i).test(worker);
+          if (worker.myDeferred) {
+            deferred[i] = true;
+            errors.subList(errorsStart, errors.size()).clear();
+          }
+          errorsEnd[i] = errors.size();
+        }
+      }));
+    }
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+
+    boolean ok = true;
+    for (int i = 0; i < checks.size(); i++) {
+      if (deferred[i]) {
+        ok = checks.get(i).test(this) && ok;
+      } else {
+        List<GeneralError> errors = ((ListErrorReporter) workers.get(i % numberOfWorkers).myErrorReporter).getErrorList();
+        for (int j = i < numberOfWorkers ? 0 : errorsEnd[i - numberOfWorkers]; j < errorsEnd[i]; j++) {
+          myErrorReporter.report(errors.get(j));
+        }
+        ok = results[i] && ok;
+      }
+    }
     return ok;
   }
 
+  private boolean compare(Expression expr1, Expression expr2, Concrete.SourceNode sourceNode) {
+    if (myWorker && (hasUnsolvedVariables(expr1) || hasUnsolvedVariables(expr2))) {
+      myDeferred = true;
+      return true;
+    }
+    if (CompareVisitor.compare(myEquations, CMP.EQ, expr1, expr2, null, sourceNode)) {
+      return true;
+    }
+    if (myRecheckFailures) {
+      myDeferred = true;
+    }
+    return false;
+  }
+
+  private static boolean hasUnsolvedVariables(Expression expr) {
+    return !ExpressionSummary.isSolved(expr.getSummary(), false) && expr.accept(UnsolvedVariableFinder.INSTANCE, null);
+  }
+
+  private static class UnsolvedVariableFinder extends SearchVisitor<Void> {
+    private static final UnsolvedVariableFinder INSTANCE = new UnsolvedVariableFinder();
+
+    @Override
+    public Boolean visitInferenceReference(InferenceReferenceExpression expression, Void param) {
+      return expression.getSubstExpression() == null || expression.getSubstExpression().accept(this, param);
+    }
+  }
+
   private boolean checkIntervals(IntervalElim elim, CallableDefinition definition) {
     boolean ok = true;
     DependentLink link = DependentLink.Helper.get(definition.getParameters(), DependentLink.Helper.size(definition.getParameters()) - elim.getCases().size());
@@ -100,7 +235,7 @@ public class ConditionsChecking {
     Expression evaluatedExpr1 = case1.subst(substitution1);
     ExprSubstitution substitution2 = new ExprSubstitution(link1, isLeft1 ? ExpressionFactory.Left() : ExpressionFactory.Right());
     Expression evaluatedExpr2 = case2.subst(substitution2);
-    if (!CompareVisitor.compare(myEquations, CMP.EQ, evaluatedExpr1, evaluatedExpr2, null, mySourceNode)) {
+    if (!compare(evaluatedExpr1, evaluatedExpr2, mySourceNode)) {
       List<Expression> defCallArgs1 = new ArrayList<>();
       for (DependentLink link3 = definition.getParameters(); link3.hasNext(); link3 = link3.getNext()) {
         defCallArgs1.add(link3 == link1 ? (isLeft1 ? ExpressionFactory.Left() : ExpressionFactory.Right()) : new ReferenceExpression(link3));
@@ -151,7 +286,7 @@ public class ConditionsChecking {
 
     Expression evaluatedExpr1 = expr.subst(substitution1);
     Expression evaluatedExpr2 = clause.getExpression().subst(pathSubstitution);
-    if (!CompareVisitor.compare(myEquations, CMP.EQ, evaluatedExpr1, evaluatedExpr2, null, sourceNode)) {
+    if (!compare(evaluatedExpr1, evaluatedExpr2, sourceNode)) {
       if (!pathSubstitution.isEmpty()) {
         link = definition.getParameters();
         for (int i = 0; i < clause.getPatterns().size(); i++) {
@@ -208,13 +343,13 @@ public class ConditionsChecking {
   public boolean check(List<ExtElimClause> clauses, List<? extends Concrete.FunctionClause> cClauses, ElimBody elimBody) {
     assert cClauses == null || clauses.size() <= cClauses.size();
 
-    boolean ok = true;
+    List<Predicate<ConditionsChecking>> checks = new ArrayList<>(clauses.size());
     for (int i = 0; i < clauses.size(); i++) {
-      if (!checkClause(clauses.get(i), cClauses == null ? mySourceNode : cClauses.get(i), elimBody, null)) {
-        ok = false;
-      }
+      ExtElimClause clause = clauses.get(i);
+      Concrete.SourceNode sourceNode = cClauses == null ? mySourceNode : cClauses.get(i);
+      checks.add(checking -> checking.checkClause(clause, sourceNode, elimBody, null));
     }
-    return ok;
+    return runChecks(checks);
   }
 
   @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -245,6 +380,11 @@ public class ConditionsChecking {
     if (expr.isError()) {
       return true;
     }
+    if (myWorker && expr instanceof GoalErrorExpression) {
+      // Conditions are added to the goal error itself, so they are checked sequentially
+      myDeferred = true;
+      return true;
+    }
 
     if (elimBody == null && definition instanceof Function) {
       Body body = ((Function) definition).getBody();
@@ -287,7 +427,7 @@ public class ConditionsChecking {
 
   private boolean checkCondition(Expression expr, Pair<List<Expression>, ExprSubstitution> pair, Expression evaluatedExpr1, ExtElimClause clause, CallableDefinition definition, Concrete.SourceNode sourceNode, ErrorReporter errorReporter) {
     Expression evaluatedExpr2 = expr.subst(pair.proj2);
-    if (evaluatedExpr1 == null || !CompareVisitor.compare(myEquations, CMP.EQ, evaluatedExpr1, evaluatedExpr2, null, sourceNode)) {
+    if (evaluatedExpr1 == null || !compare(evaluatedExpr1, evaluatedExpr2, sourceNode)) {
       List<Expression> args = ExpressionPattern.toExpressions(clause.getPatterns());
       Expression expr1 = definition == null ? new CaseExpression(false, EmptyDependentLink.getInstance(), new ErrorExpression(), null, new ElimBody(Collections.emptyList(), new BranchElimTree(0, false)), args) : definition.getDefCall(definition.makeMinLevels(), args);
       errorReporter.report(new ConditionsError(new Condition(expr1, pair.proj2, evaluatedExpr1), new Condition(clause.getExpression(), pair.proj2, evaluatedExpr2), sourceNode));
@@ -989,7 +989,7 @@ public class ElimTypechecking {
               conParameters = someConPattern.getParameters();
               Expression someExpr = someConPattern.getDataExpression();
               if (someExpr instanceof ClassCallExpression classCall) {
-                Map<ClassField, Expression> implementations = new LinkedHashMap<>();
+                Map<ClassField, Expression> implementations = new ImplementationMap(classCall.getDefinition());
                 DependentLink link = conParameters;
                 for (ClassField field : classCall.getDefinition().getNotImplementedFields()) {
                   if (!classCall.isImplemented(field)) {
@@ -43,7 +43,8 @@ public class ExpressionMatcher {
     }
 
     int i = 0;
-    Map<ClassField, Expression> newImpls = new LinkedHashMap<>();
+    ClassCallExpression classCall = newExpr.getClassCall();
+    Map<ClassField, Expression> newImpls = new ImplementationMap(classCall.getDefinition());
     for (ClassField field : ((ClassCallExpression) data).getDefinition().getNotImplementedFields()) {
       if (((ClassCallExpression) data).isImplemented(field)) {
         newImpls.put(field, newExpr.getImplementation(field));
@@ -55,7 +56,6 @@ public class ExpressionMatcher {
       newImpls.put(field, newExpr.getImplementation(field));
     }
 
-    ClassCallExpression classCall = newExpr.getClassCall();
     return new NewExpression(null, new ClassCallExpression(classCall.getDefinition(), classCall.getLevels(), newImpls, classCall.getSort(), classCall.getUniverseKind()));
   }
 
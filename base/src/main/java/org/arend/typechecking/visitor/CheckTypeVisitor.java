@@ -1050,23 +1050,15 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
     LevelSubstitution levelSubstitution = levelSolver.solveLevels();
     myEquations.finalizeEquations(levelSubstitution, sourceNode);
-    InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
-    if (!substVisitor.isEmpty()) {
-      if (result.expression != null) {
-        result.expression.accept(substVisitor, null);
-      }
-      result.type.accept(substVisitor, null);
-    }
-
-    InferenceVariableSolveVisitor solveVisitor = new InferenceVariableSolveVisitor(this);
+    InPlaceFinalizeVisitor finalizeVisitor = new InPlaceFinalizeVisitor(levelSubstitution, this);
     if (result.expression != null) {
-      result.expression.accept(solveVisitor, null);
+      result.expression.accept(finalizeVisitor, null);
     }
-    result.type.accept(solveVisitor, null);
+    result.type.accept(finalizeVisitor, null);
 
     ErrorReporterCounter counter = new ErrorReporterCounter(GeneralError.Level.ERROR, errorReporter);
     StripVisitor stripVisitor = new StripVisitor(counter, false);
-    invokeDeferredMetas(substVisitor, stripVisitor, true);
+    invokeDeferredMetas(new InPlaceLevelSubstVisitor(levelSubstitution), stripVisitor, true);
     stripVisitor.setEvaluateBindings(true);
     if (result.expression != null) {
       result.expression = result.expression.accept(stripVisitor, null);
@@ -1139,13 +1131,9 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
     LevelSubstitution levelSubstitution = levelSolver.solveLevels();
     myEquations.finalizeEquations(levelSubstitution, expr);
-    InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
-    if (!substVisitor.isEmpty()) {
-      result.subst(substVisitor);
-    }
-    result.getExpr().accept(new InferenceVariableSolveVisitor(this), null);
+    result.subst(new InPlaceFinalizeVisitor(levelSubstitution, this));
     StripVisitor stripVisitor = new StripVisitor(errorReporter);
-    invokeDeferredMetas(substVisitor, stripVisitor, true);
+    invokeDeferredMetas(new InPlaceLevelSubstVisitor(levelSubstitution), stripVisitor, true);
     return result.strip(stripVisitor);
   }
 
@@ -2556,7 +2544,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
         return result;
       }
 
-      Map<ClassField, Expression> impls = new LinkedHashMap<>(classCall.getImplementedHere());
+      Map<ClassField, Expression> impls = ImplementationMap.copyOf(Prelude.DEP_ARRAY, classCall.getImplementedHere());
       impls.put(Prelude.ARRAY_AT, result.expression);
       return new TypecheckingResult(new NewExpression(null, new ClassCallExpression(Prelude.DEP_ARRAY, classCall.getLevels(), impls, Sort.PROP, UniverseKind.NO_UNIVERSES)), expectedType);
     }
@@ -3584,13 +3572,15 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
   private void saveState() {
     ListErrorReporter listErrorReporter = new ListErrorReporter();
-    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState, listErrorReporter, myAllowDeferredMetas);
+    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), checkpointUserData(), mySavedState, listErrorReporter, myAllowDeferredMetas);
     errorReporter = new MyErrorReporter(listErrorReporter);
     myEquations.saveState(state);
     mySavedState = state;
   }
 
   private void restoreState() {
+    myEquations.releaseState(mySavedState);
+    releaseUserData();
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     errorReporter = mySavedState.errorReporter;
     if (mySavedState.previousState != null) {
@@ -3620,7 +3610,9 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     if (mySavedState.previousState != null) {
       mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
     }
-    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter, mySavedState.allowDeferredMetas);
+    myEquations.releaseState(mySavedState);
+    releaseUserData();
+    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), checkpointUserData(), mySavedState.previousState, mySavedState.listErrorReporter, mySavedState.allowDeferredMetas);
     myEquations.saveState(state);
     mySavedState = state;
   }
@@ -3633,7 +3625,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     if (state.numberOfDeferredMetasAfterLevels < myDeferredMetasAfterLevels.size()) {
       myDeferredMetasAfterLevels.subList(state.numberOfDeferredMetasAfterLevels, myDeferredMetasAfterLevels.size()).clear();
     }
-    setUserData(state.userDataHolder);
+    rollbackUserData(state.userDataTrailHeight);
     myAllowDeferredMetas = state.allowDeferredMetas;
 
     for (InferenceVariable var : state.solvedVariables) {
@@ -3927,7 +3919,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
                 }
               }
               if (ok) {
-                Map<ClassField, Expression> newImpls = new LinkedHashMap<>(classCall.getImplementedHere());
+                Map<ClassField, Expression> newImpls = ImplementationMap.copyOf(Prelude.DEP_ARRAY, classCall.getImplementedHere());
                 newImpls.remove(Prelude.ARRAY_LENGTH);
                 ClassCallExpression newClassCall = new ClassCallExpression(Prelude.DEP_ARRAY, classCall.getLevels(), newImpls, classCall.getSort(), classCall.getUniverseKind());
                 if (type != null) newImpls.put(Prelude.ARRAY_ELEMENTS_TYPE, new LamExpression(lamSort, new TypedSingleDependentLink(true, null, ExpressionFactory.Fin(FieldCallExpression.make(Prelude.ARRAY_LENGTH, new ReferenceExpression(newClassCall.getThisBinding())))), type));
@@ -231,6 +231,7 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
     } else {
       typecheckClass(def, definition);
     }
+    definition.updateFieldIndices();
     return null;
   }
 
@@ -2198,15 +2199,14 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
       LevelSubstitution levelSubstitution = levelSolver.solveLevels();
       typechecker.getEquations().finalizeEquations(levelSubstitution, def);
       InPlaceLevelSubstVisitor substVisitor = new InPlaceLevelSubstVisitor(levelSubstitution);
-      InferenceVariableSolveVisitor solveVisitor = new InferenceVariableSolveVisitor(typechecker);
+      InPlaceFinalizeVisitor finalizeVisitor = new InPlaceFinalizeVisitor(levelSubstitution, typechecker);
       StripVisitor stripVisitor = new StripVisitor(errorReporter);
       typechecker.invokeDeferredMetas(substVisitor, stripVisitor, true);
       for (Constructor constructor : dataDefinition.getConstructors()) {
+        finalizeVisitor.visitParameters(constructor.getParameters(), null);
         if (!substVisitor.isEmpty()) {
-          substVisitor.visitParameters(constructor.getParameters(), null);
           substVisitor.visitBody(constructor.getBody(), null);
         }
-        solveVisitor.visitParameters(constructor.getParameters(), null);
         stripVisitor.visitParameters(constructor.getParameters());
         stripVisitor.visitBody(constructor.getBody());
       }
@@ -0,0 +1,121 @@
+package org.arend.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache that computes the value for each key at most once.
+ * Unlike {@link ConcurrentHashMap#computeIfAbsent}, values are computed outside of any locks,
+ * so a computation may query the same cache (or another cache) for other keys.
+ * A value is published only after its computation finishes; other threads requesting the same key wait for it.
+ * Null values are cached too.
+ * <p>
+ * A computation that requires its own result, directly or through computations running in other threads,
+ * would never finish, so it fails with {@link IllegalStateException}.
+ */
+public final class ComputingCache<K, V> {
+  private static final Map<Thread, Entry<?>> WAITING = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<K, Entry<V>> myEntries = new ConcurrentHashMap<>();
+
+  private static final class Entry<V> {
+    private volatile boolean myComputed;
+    private volatile Thread myOwner;
+    private V myValue;
+  }
+
+  /**
+   * Returns the cached value for {@code key} or computes it with {@code function}.
+   * Concurrent invocations for the same key wait until the value is computed.
+   * If {@code function} throws an exception, the value is not cached and one of the waiting invocations computes it again.
+   *
+   * @throws IllegalStateException if the computation of the value for {@code key} requires this value.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+    Entry<V> entry = myEntries.computeIfAbsent(key, k -> new Entry<>());
+    if (entry.myComputed) {
+      return entry.myValue;
+    }
+
+    Thread thread = Thread.currentThread();
+    synchronized (entry) {
+      while (!entry.myComputed) {
+        if (entry.myOwner == null) {
+          entry.myOwner = thread;
+          break;
+        }
+        awaitEntry(entry, key, thread);
+      }
+      if (entry.myComputed) {
+        return entry.myValue;
+      }
+    }
+
+    V value;
+    try {
+      value = function.apply(key);
+    } catch (Throwable e) {
+      synchronized (entry) {
+        entry.myOwner = null;
+        entry.notifyAll();
+      }
+      throw e;
+    }
+
+    synchronized (entry) {
+      entry.myValue = value;
+      entry.myComputed = true;
+      entry.myOwner = null;
+      entry.notifyAll();
+    }
+    return value;
+  }
+
+  /**
+   * Waits until the owner of {@code entry} releases it.
+   * The thread is registered as waiting before the check for cycles, so if several threads close a cycle simultaneously, at least one of them sees it.
+   */
+  private static void awaitEntry(Entry<?> entry, Object key, Thread thread) {
+    WAITING.put(thread, entry);
+    try {
+      if (isAwaitedBy(entry, thread)) {
+        throw new IllegalStateException("Recursive computation of " + key);
+      }
+      try {
+        entry.wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for " + key, e);
+      }
+    } finally {
+      WAITING.remove(thread);
+    }
+  }
+
+  private static boolean isAwaitedBy(Entry<?> entry, Thread thread) {
+    Set<Entry<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    while (entry != null && visited.add(entry)) {
+      Thread owner = entry.myOwner;
+      if (owner == null) {
+        return false;
+      }
+      if (owner == thread) {
+        return true;
+      }
+      entry = WAITING.get(owner);
+    }
+    return false;
+  }
+
+  public void remove(K key) {
+    myEntries.remove(key);
+  }
+
+  public void clear() {
+    myEntries.clear();
+  }
+}
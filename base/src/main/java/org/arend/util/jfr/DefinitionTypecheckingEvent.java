@@ -0,0 +1,30 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.util.FullName;
+
+@Name("org.arend.DefinitionTypechecking")
+@Label("Definition Typechecking")
+@Description("Typechecking of the header or the body of a definition")
+@Category({"Arend", "Typechecking"})
+@Enabled(false)
+@StackTrace(false)
+public class DefinitionTypecheckingEvent extends Event {
+  public enum Stage { HEADER, BODY, UNIT }
+
+  @Label("Definition")
+  public String definition;
+
+  @Label("Stage")
+  @Description("HEADER, BODY, or UNIT if the header and the body are typechecked together")
+  public String stage;
+
+  public void commit(LocatedReferable referable, Stage stage) {
+    if (shouldCommit()) {
+      definition = new FullName(referable).toString();
+      this.stage = stage.name();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.core.definition.Definition;
+import org.arend.util.FullName;
+
+@Name("org.arend.EquationsSolving")
+@Label("Equations Solving")
+@Description("Solving of deferred equations on inference variables")
+@Category({"Arend", "Typechecking"})
+@Enabled(false)
+@StackTrace(false)
+public class EquationsSolvingEvent extends Event {
+  @Label("Definition")
+  @Description("The definition being typechecked")
+  public String definition;
+
+  @Label("Equations")
+  @Description("The number of equations before solving")
+  public int equations;
+
+  public void commit(Definition definition, int equations) {
+    if (shouldCommit()) {
+      this.definition = definition == null ? null : new FullName(definition.getRef()).toString();
+      this.equations = equations;
+      commit();
+    }
+  }
+}
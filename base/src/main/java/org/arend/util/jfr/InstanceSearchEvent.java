@@ -0,0 +1,28 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.core.definition.Definition;
+import org.arend.util.FullName;
+
+@Name("org.arend.InstanceSearch")
+@Label("Instance Search")
+@Description("A search for an instance in the global instance pool")
+@Category({"Arend", "Typechecking"})
+@Enabled(false)
+@StackTrace(false)
+public class InstanceSearchEvent extends Event {
+  @Label("Definition")
+  @Description("The definition being typechecked")
+  public String definition;
+
+  @Label("Found")
+  public boolean found;
+
+  public void commit(Definition definition, boolean found) {
+    if (shouldCommit()) {
+      this.definition = definition == null ? null : new FullName(definition.getRef()).toString();
+      this.found = found;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.ext.module.ModulePath;
+
+@Name("org.arend.ModuleLoad")
+@Label("Module Load")
+@Description("A pass of loading a binary module")
+@Category({"Arend", "Libraries"})
+@Enabled(false)
+@StackTrace(false)
+public class ModuleLoadEvent extends Event {
+  @Label("Library")
+  public String library;
+
+  @Label("Module")
+  public String module;
+
+  @Label("Pass")
+  public int pass;
+
+  public void commit(String library, ModulePath module, int pass) {
+    if (shouldCommit()) {
+      this.library = library;
+      this.module = module.toString();
+      this.pass = pass;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.ext.module.ModulePath;
+
+@Name("org.arend.ModulePersist")
+@Label("Module Persist")
+@Description("Serialization of a module to a binary file")
+@Category({"Arend", "Libraries"})
+@Enabled(false)
+@StackTrace(false)
+public class ModulePersistEvent extends Event {
+  @Label("Library")
+  public String library;
+
+  @Label("Module")
+  public String module;
+
+  public void commit(String library, ModulePath module) {
+    if (shouldCommit()) {
+      this.library = library;
+      this.module = module.toString();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package org.arend.util.jfr;
+
+import jdk.jfr.*;
+import org.arend.core.definition.Definition;
+import org.arend.util.FullName;
+
+import java.util.Collection;
+import java.util.StringJoiner;
+
+@Name("org.arend.TerminationChecking")
+@Label("Termination Checking")
+@Description("Termination checking of a group of mutually recursive functions")
+@Category({"Arend", "Typechecking"})
+@Enabled(false)
+@StackTrace(false)
+public class TerminationCheckingEvent extends Event {
+  @Label("Definitions")
+  public String definitions;
+
+  @Label("Terminates")
+  public boolean terminates;
+
+  public void commit(Collection<? extends Definition> definitions, boolean terminates) {
+    if (shouldCommit()) {
+      StringJoiner joiner = new StringJoiner(", ");
+      for (Definition definition : definitions) {
+        joiner.add(new FullName(definition.getRef()).toString());
+      }
+      this.definitions = joiner.toString();
+      this.terminates = terminates;
+      commit();
+    }
+  }
+}
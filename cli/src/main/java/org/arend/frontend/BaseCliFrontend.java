@@ -5,7 +5,10 @@ import org.arend.core.definition.ClassDefinition;
 import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.ExpressionSummary;
+import org.arend.core.expr.visitor.MemoryEstimateVisitor;
 import org.arend.core.expr.visitor.SizeExpressionVisitor;
+import org.arend.core.expr.visitor.TypeCache;
 import org.arend.ext.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.error.GeneralError;
@@ -13,8 +16,14 @@ import org.arend.ext.module.LongName;
 import org.arend.ext.module.ModulePath;
 import org.arend.ext.prettyprinting.PrettyPrinterConfig;
 import org.arend.ext.prettyprinting.PrettyPrinterFlag;
+import org.arend.ext.prettyprinting.doc.DocWriter;
 import org.arend.extImpl.DefinitionRequester;
+import org.arend.frontend.daemon.CliDaemon;
+import org.arend.frontend.daemon.CliDaemonClient;
+import org.arend.frontend.daemon.LibrarySnapshot;
+import org.arend.frontend.library.FileLoadableHeaderLibrary;
 import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.frontend.library.LibraryWatcher;
 import org.arend.frontend.library.TimedLibraryManager;
 import org.arend.frontend.repl.PlainCliRepl;
 import org.arend.frontend.repl.jline.JLineCliRepl;
@@ -28,20 +37,24 @@ import org.arend.naming.scope.EmptyScope;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
 import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.source.StreamBinarySource;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
 import org.arend.term.group.Statement;
+import org.arend.term.prettyprint.PrettyPrintVisitor;
 import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
 import org.arend.term.prettyprint.ToAbstractVisitor;
 import org.arend.typechecking.LibraryArendExtensionProvider;
 import org.arend.typechecking.doubleChecker.CoreModuleChecker;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.FingerprintOrdering;
 import org.arend.typechecking.order.MapTarjanSCC;
-import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DependencyCollector;
 import org.arend.typechecking.order.dependency.MetaDependencyCollector;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.patternmatching.ConditionsChecking;
 import org.arend.util.FileUtils;
 import org.arend.ext.util.Pair;
 import org.arend.util.Range;
@@ -49,6 +62,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -59,21 +74,37 @@ import static org.arend.frontend.library.TimedLibraryManager.timeToString;
 public abstract class BaseCliFrontend {
   private final static String SHOW_TIMES = "show-times";
   private final static String SHOW_SIZES = "show-sizes";
+  private final static String SHOW_MEMORY = "show-memory";
   private final static String SHOW_MODULES = "show-modules";
   private final static String SHOW_MODULES_WITH_INSTANCES = "show-modules-with-instances";
+  private final static String DAEMON = "daemon";
+  private final static String CONNECT = "connect";
+  private final static String WATCH = "watch";
+  private final static String TYPE_CACHE = "type-cache";
+  private final static String LOADING_THREADS = "loading-threads";
+  private final static String PAGE_WIDTH = "page-width";
+  private final static String CONDITIONS_THREADS = "conditions-threads";
+  private final static String FINGERPRINTS = "fingerprints";
+  private final static String LAZY_PROOFS = "lazy-proofs";
 
   // Typechecking
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
   private final Map<ModulePath, GeneralError.Level> myModuleResults = new LinkedHashMap<>();
-  private final DependencyListener myDependencyCollector = new MetaDependencyCollector();
+  private final DependencyCollector myDependencyCollector = new MetaDependencyCollector();
   private Map<TCDefReferable, Pair<Long,Long>> myTimes = null;
   private Map<TCDefReferable, Integer> mySizes = null;
   private ModulePath myPrintModule;
   private LongName myPrintDefinition;
   private final List<Definition> myPrintDefinitions = new ArrayList<>();
+  private int myPageWidth;
 
   // Status information
   private boolean myExitWithError = false;
+  private Path myWorkingDirectory = FileUtils.getCurrentDirectory();
+  private boolean myDaemonRequest = false;
+  private final List<SourceLibrary> myRequestedLibraries = new ArrayList<>();
+  private final Map<FileLoadableHeaderLibrary, LibrarySnapshot> myDaemonLibraries = new LinkedHashMap<>();
+  private LibraryWatcher myDaemonWatcher;
   private final ErrorReporter mySystemErrErrorReporter = error -> {
     System.err.println(error);
     System.err.flush();
@@ -233,8 +264,18 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption("v", "version", false, "print language version");
       cmdOptions.addOption(Option.builder().longOpt(SHOW_TIMES).build());
       cmdOptions.addOption(Option.builder().longOpt(SHOW_SIZES).build());
+      cmdOptions.addOption(Option.builder().longOpt(SHOW_MEMORY).desc("print memory retained by core definitions of modules as estimated from the loaded definitions, and sizes of binary files").build());
       cmdOptions.addOption(Option.builder().longOpt(SHOW_MODULES).build());
       cmdOptions.addOption(Option.builder().longOpt(SHOW_MODULES_WITH_INSTANCES).build());
+      cmdOptions.addOption(Option.builder().longOpt(DAEMON).hasArg().argName("socket").desc("keep libraries loaded and serve commands sent to a local socket").build());
+      cmdOptions.addOption(Option.builder().longOpt(WATCH).desc("typecheck changed definitions whenever source files are modified").build());
+      cmdOptions.addOption(Option.builder().longOpt(TYPE_CACHE).desc("cache types of core expressions during typechecking of a definition").build());
+      cmdOptions.addOption(Option.builder().longOpt(LOADING_THREADS).hasArg().argName("n").desc("load independent libraries using n threads").build());
+      cmdOptions.addOption(Option.builder().longOpt(PAGE_WIDTH).hasArg().argName("n").desc("break lines of definitions printed with -p at n characters").build());
+      cmdOptions.addOption(Option.builder().longOpt(CONDITIONS_THREADS).hasArg().argName("n").desc("check conditions of large pattern matchings using n threads").build());
+      cmdOptions.addOption(Option.builder().longOpt(FINGERPRINTS).desc("restore unchanged definitions from outdated binary files instead of typechecking them again").build());
+      cmdOptions.addOption(Option.builder().longOpt(LAZY_PROOFS).desc("load bodies of lemmas from external libraries only when they are needed").build());
+      cmdOptions.addOption(Option.builder().longOpt(CONNECT).hasArg().argName("socket").desc("send the command to a daemon listening on a local socket").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -317,11 +358,40 @@ public abstract class BaseCliFrontend {
   }
 
   public CommandLine run(String[] args) {
+    myExitWithError = false;
+    myModuleResults.clear();
+    myPrintDefinitions.clear();
+    myPrintModule = null;
+    myPrintDefinition = null;
+
     CommandLine cmdLine = parseArgs(args);
     if (cmdLine == null) {
       return null;
     }
 
+    if (myDaemonRequest && (cmdLine.hasOption(CONNECT) || cmdLine.hasOption(DAEMON) || cmdLine.hasOption(WATCH))) {
+      myExitWithError = true;
+      System.err.println("[ERROR] Options --" + CONNECT + ", --" + DAEMON + ", and --" + WATCH + " cannot be sent to a daemon");
+      return null;
+    }
+
+    if (cmdLine.hasOption(CONNECT)) {
+      if (CliDaemonClient.send(Paths.get(cmdLine.getOptionValue(CONNECT)), myWorkingDirectory, withoutOption(args, CONNECT)) != 0) {
+        myExitWithError = true;
+      }
+      return cmdLine;
+    }
+
+    if (cmdLine.hasOption(DAEMON)) {
+      try {
+        new CliDaemon(this, resolvePath(cmdLine.getOptionValue(DAEMON))).run();
+      } catch (IOException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Daemon failed: " + e.getMessage());
+      }
+      return cmdLine;
+    }
+
     var replKind = cmdLine.getOptionValue("i", "jline");
     var defaultLibrariesRoot = FileUtils.defaultLibrariesRoot();
     var libDirStrings = cmdLine.hasOption("L")
@@ -331,7 +401,7 @@ public abstract class BaseCliFrontend {
     // Get library directories
     var libDirs = new ArrayList<Path>(libDirStrings.length);
     for (String libDirString : libDirStrings) {
-      var libDir = Paths.get(libDirString);
+      var libDir = resolvePath(libDirString);
       if (Files.isDirectory(libDir)) {
         libDirs.add(libDir);
       } else if (!Objects.equals(defaultLibrariesRoot, libDir)) {
@@ -340,12 +410,44 @@ public abstract class BaseCliFrontend {
       }
     }
 
-    if (cmdLine.hasOption(SHOW_TIMES)) {
-      myTimes = new HashMap<>();
+    myTimes = cmdLine.hasOption(SHOW_TIMES) ? new HashMap<>() : null;
+    ExpressionSummary.setCountersEnabled(myTimes != null);
+    if (myTimes != null) {
+      ExpressionSummary.resetCounters();
+      TypeCache.resetCounters();
     }
+    mySizes = cmdLine.hasOption(SHOW_SIZES) ? new HashMap<>() : null;
+    TypeCache.setEnabled(cmdLine.hasOption(TYPE_CACHE));
+    FingerprintOrdering.setEnabled(cmdLine.hasOption(FINGERPRINTS));
+    StreamBinarySource.setLazyExternalProofs(cmdLine.hasOption(LAZY_PROOFS));
 
-    if (cmdLine.hasOption(SHOW_SIZES)) {
-      mySizes = new HashMap<>();
+    String loadingThreadsString = cmdLine.getOptionValue(LOADING_THREADS);
+    if (loadingThreadsString != null) {
+      try {
+        myLibraryManager.setLoadingParallelism(Integer.parseInt(loadingThreadsString));
+      } catch (NumberFormatException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] " + loadingThreadsString + " is not a number");
+      }
+    }
+
+    String pageWidthString = cmdLine.getOptionValue(PAGE_WIDTH);
+    myPageWidth = PrettyPrintVisitor.MAX_LEN;
+    if (pageWidthString != null) {
+      try {
+        myPageWidth = Integer.parseInt(pageWidthString);
+      } catch (NumberFormatException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] " + pageWidthString + " is not a number");
+      }
+    }
+
+    String conditionsThreadsString = cmdLine.getOptionValue(CONDITIONS_THREADS);
+    try {
+      ConditionsChecking.setParallelism(conditionsThreadsString == null ? 1 : Integer.parseInt(conditionsThreadsString));
+    } catch (NumberFormatException e) {
+      myExitWithError = true;
+      System.err.println("[ERROR] " + conditionsThreadsString + " is not a number");
     }
 
     String printString = cmdLine.getOptionValue("p");
@@ -366,6 +468,11 @@ public abstract class BaseCliFrontend {
 
     boolean recompile = recompileString == null && cmdLine.hasOption("r");
     if (cmdLine.hasOption("i")) {
+      if (myDaemonRequest) {
+        myExitWithError = true;
+        System.err.println("[ERROR] The interactive mode is not available in a daemon");
+        return null;
+      }
       switch (replKind.toLowerCase()) {
         default:
           System.err.println("[ERROR] Unrecognized repl type: " + replKind);
@@ -380,7 +487,7 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
-    if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(), null)) {
+    if (myLibraryManager.getRegisteredLibrary(Prelude.LIBRARY_NAME) == null && !myLibraryManager.loadLibrary(new PreludeResourceLibrary(), null)) {
       return null;
     }
 
@@ -402,19 +509,20 @@ public abstract class BaseCliFrontend {
 
     // Get source and output directories
     String sourceDirStr = cmdLine.getOptionValue("s");
-    Path sourceDir = sourceDirStr == null ? FileUtils.getCurrentDirectory() : Paths.get(sourceDirStr);
+    Path sourceDir = sourceDirStr == null ? myWorkingDirectory : resolvePath(sourceDirStr);
 
     String binaryDirStr = cmdLine.getOptionValue("b");
-    Path outDir = binaryDirStr != null ? Paths.get(binaryDirStr) : sourceDir.resolve(FileUtils.DEFAULT_BINARIES_DIR);
+    Path outDir = binaryDirStr != null ? resolvePath(binaryDirStr) : sourceDir.resolve(FileUtils.DEFAULT_BINARIES_DIR);
 
     String extDirStr = cmdLine.getOptionValue("e");
-    Path extDir = extDirStr != null ? Paths.get(extDirStr) : null;
+    Path extDir = extDirStr != null ? resolvePath(extDirStr) : null;
     String extMainClass = cmdLine.getOptionValue("m");
 
     // Collect modules and libraries for which typechecking was requested
     Collection<String> argFiles = cmdLine.getArgList();
     Set<ModulePath> requestedModules;
-    List<SourceLibrary> requestedLibraries = new ArrayList<>();
+    List<SourceLibrary> requestedLibraries = myRequestedLibraries;
+    requestedLibraries.clear();
     if (argFiles.isEmpty()) {
       if (sourceDirStr != null) {
         requestedModules = new LinkedHashSet<>();
@@ -426,11 +534,12 @@ public abstract class BaseCliFrontend {
       requestedModules = new LinkedHashSet<>();
       for (String fileName : argFiles) {
         Path path = Paths.get(fileName);
+        Path resolvedPath = resolvePath(fileName);
         boolean isPath = path.isAbsolute() || path.getNameCount() > 1;
-        if (!Files.exists(path)) {
+        if (!Files.exists(resolvedPath)) {
           myLibraryManager.getLibraryErrorReporter().report(new GeneralError(GeneralError.Level.ERROR, "File " + path + " not found"));
-        } else if (fileName.endsWith(FileUtils.LIBRARY_CONFIG_FILE) || isPath && Files.isDirectory(path)) {
-          SourceLibrary library = myLibraryResolver.registerLibrary(path.toAbsolutePath().normalize());
+        } else if (fileName.endsWith(FileUtils.LIBRARY_CONFIG_FILE) || isPath && Files.isDirectory(resolvedPath)) {
+          SourceLibrary library = myLibraryResolver.registerLibrary(resolvedPath.toAbsolutePath().normalize());
           if (library != null) {
             requestedLibraries.add(library);
           }
@@ -460,7 +569,7 @@ public abstract class BaseCliFrontend {
     }
 
     if (requestedLibraries.isEmpty()) {
-      Path path = Paths.get(FileUtils.LIBRARY_CONFIG_FILE);
+      Path path = myWorkingDirectory.resolve(FileUtils.LIBRARY_CONFIG_FILE);
       if (Files.isRegularFile(path)) {
         SourceLibrary library = myLibraryResolver.registerLibrary(path.toAbsolutePath().normalize());
         if (library != null) {
@@ -472,12 +581,25 @@ public abstract class BaseCliFrontend {
       }
     }
 
+    LibraryWatcher watcher = null;
+    if (cmdLine.hasOption(WATCH)) {
+      try {
+        watcher = new LibraryWatcher(myLibraryManager, myDependencyCollector);
+      } catch (IOException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Cannot watch source directories: " + e.getMessage());
+      }
+    }
+
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
     boolean doubleCheck = cmdLine.hasOption("c");
     for (SourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
       if (recompile) {
+        if (library instanceof FileLoadableHeaderLibrary headerLibrary && myDaemonLibraries.remove(headerLibrary) != null) {
+          forgetDaemonLibrary(headerLibrary);
+        }
         library.addFlag(SourceLibrary.Flag.RECOMPILE);
       }
       try {
@@ -487,6 +609,10 @@ public abstract class BaseCliFrontend {
       } finally {
         flushErrors();
       }
+      // Definitions are remembered before typechecking since it desugars concrete definitions in place
+      if (!trackLibrary(library, watcher)) {
+        watcher = null;
+      }
 
       List<Concrete.Definition> forcedDefs;
       if (recompileModule != null) {
@@ -541,49 +667,7 @@ public abstract class BaseCliFrontend {
         forcedDefs = null;
       }
 
-      Collection<? extends ModulePath> modules = library.getUpdatedModules();
-      int numWithErrors = 0;
-      if (!modules.isEmpty() || forcedDefs != null) {
-        System.out.println();
-        System.out.println("--- Typechecking " + library.getName() + " ---");
-        long time = System.currentTimeMillis();
-        try {
-          if (forcedDefs == null) {
-            typechecking.typecheckLibrary(library);
-          } else {
-            typechecking.typecheckDefinitions(forcedDefs, null);
-          }
-        } finally {
-          time = System.currentTimeMillis() - time;
-          flushErrors();
-
-          // Output nice per-module typechecking results
-          int numWithGoals = 0;
-          for (ModulePath module : modules) {
-            GeneralError.Level result = myModuleResults.get(module);
-            if (result == null && library.getModuleGroup(module, false) == null && library.getModuleGroup(module, true) == null) {
-              result = GeneralError.Level.ERROR;
-            }
-            reportTypeCheckResult(module, result);
-            if (result == GeneralError.Level.ERROR) numWithErrors++;
-            if (result == GeneralError.Level.GOAL) numWithGoals++;
-          }
-
-          if (numWithErrors > 0) {
-            myExitWithError = true;
-            System.out.println("Number of modules with errors: " + numWithErrors);
-          }
-          if (numWithGoals > 0) {
-            System.out.println("Number of modules with goals: " + numWithGoals);
-          }
-          System.out.println("--- Done (" + timeToString(time) + ") ---");
-        }
-
-        // Persist updated modules
-        if (library.supportsPersisting()) {
-          library.persistUpdatedModules(mySystemErrErrorReporter);
-        }
-      }
+      int numWithErrors = typecheckUpdatedModules(library, typechecking, forcedDefs, false);
 
       if (myTimes != null && !myTimes.isEmpty()) {
         System.out.println();
@@ -595,6 +679,14 @@ public abstract class BaseCliFrontend {
         for (Pair<TCDefReferable, Long> pair : list) {
           System.out.println(pair.proj1.getRefLongName() + ": " + timeToString(pair.proj2));
         }
+
+        System.out.println();
+        for (ExpressionSummary.Traversal traversal : ExpressionSummary.Traversal.values()) {
+          System.out.println("Skipped subtrees (" + traversal.name().toLowerCase().replace('_', ' ') + "): " + ExpressionSummary.getSkipped(traversal) + " of " + ExpressionSummary.getChecked(traversal));
+        }
+        if (TypeCache.isEnabled()) {
+          System.out.println("Type cache: " + TypeCache.getHits() + " hits, " + TypeCache.getMisses() + " misses, about " + timeToString(TypeCache.getSavedTime()) + " saved");
+        }
       }
 
       if (mySizes != null && !mySizes.isEmpty()) {
@@ -609,11 +701,24 @@ public abstract class BaseCliFrontend {
         }
       }
 
+      if (cmdLine.hasOption(SHOW_MEMORY)) {
+        showMemory(library);
+      }
+
       for (Definition definition : myPrintDefinitions) {
         System.out.println();
-        StringBuilder builder = new StringBuilder();
-        ToAbstractVisitor.convert(definition, PrettyPrinterConfig.DEFAULT).prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
-        System.out.println(builder);
+        Concrete.GeneralDefinition concrete = ToAbstractVisitor.convert(definition, PrettyPrinterConfig.DEFAULT);
+        if (concrete instanceof Concrete.ResolvableDefinition resolvable) {
+          // Definitions can be large, so they are written line by line
+          PrettyPrintVisitor visitor = new PrettyPrintVisitor(System.out, 0, myPageWidth);
+          resolvable.accept(visitor, null);
+          visitor.flush();
+          System.out.println();
+        } else {
+          StringBuilder builder = new StringBuilder();
+          concrete.prettyPrint(builder, PrettyPrinterConfig.DEFAULT);
+          System.out.println(builder);
+        }
       }
 
       if (cmdLine.hasOption(SHOW_MODULES)) {
@@ -701,9 +806,311 @@ public abstract class BaseCliFrontend {
       }
     }
 
+    if (watcher != null) {
+      watch(watcher, typechecking);
+    }
+
     return cmdLine;
   }
 
+  /**
+   * Typechecks updated modules of a library, reports the results, and persists these modules.
+   *
+   * @return the number of modules with errors.
+   */
+  private int typecheckUpdatedModules(SourceLibrary library, MyTypechecking typechecking, List<Concrete.Definition> forcedDefs, boolean updatedOnly) {
+    Collection<? extends ModulePath> modules = library.getUpdatedModules();
+    int numWithErrors = 0;
+    if (!modules.isEmpty() || forcedDefs != null) {
+      System.out.println();
+      System.out.println("--- Typechecking " + library.getName() + " ---");
+      long time = System.currentTimeMillis();
+      try {
+        if (forcedDefs != null) {
+          typechecking.typecheckDefinitions(forcedDefs, null);
+        } else if (updatedOnly) {
+          List<Group> groups = new ArrayList<>();
+          for (ModulePath module : modules) {
+            Group group = library.getModuleGroup(module, false);
+            if (group != null) {
+              groups.add(group);
+            }
+          }
+          typechecking.typecheckModules(groups, null);
+        } else {
+          typechecking.typecheckLibrary(library);
+        }
+      } finally {
+        time = System.currentTimeMillis() - time;
+        flushErrors();
+
+        // Output nice per-module typechecking results
+        int numWithGoals = 0;
+        for (ModulePath module : modules) {
+          GeneralError.Level result = myModuleResults.get(module);
+          if (result == null && library.getModuleGroup(module, false) == null && library.getModuleGroup(module, true) == null) {
+            result = GeneralError.Level.ERROR;
+          }
+          reportTypeCheckResult(module, result);
+          if (result == GeneralError.Level.ERROR) numWithErrors++;
+          if (result == GeneralError.Level.GOAL) numWithGoals++;
+        }
+
+        if (numWithErrors > 0) {
+          myExitWithError = true;
+          System.out.println("Number of modules with errors: " + numWithErrors);
+        }
+        if (numWithGoals > 0) {
+          System.out.println("Number of modules with goals: " + numWithGoals);
+        }
+        System.out.println("--- Done (" + timeToString(time) + ") ---");
+      }
+
+      // Persist updated modules
+      if (library.supportsPersisting()) {
+        library.persistUpdatedModules(mySystemErrErrorReporter);
+      }
+    }
+
+    return numWithErrors;
+  }
+
+  /**
+   * Remembers definitions of a loaded library for watch mode or for the daemon.
+   *
+   * @return false if the library cannot be watched.
+   */
+  private boolean trackLibrary(SourceLibrary library, LibraryWatcher watcher) {
+    if (watcher != null && library instanceof FileSourceLibrary) {
+      try {
+        watcher.addLibrary((FileSourceLibrary) library);
+      } catch (IOException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Cannot watch source directories: " + e.getMessage());
+        return false;
+      }
+    }
+    if (myDaemonRequest && library instanceof FileLoadableHeaderLibrary headerLibrary && !myDaemonLibraries.containsKey(headerLibrary)) {
+      myDaemonLibraries.put(headerLibrary, LibrarySnapshot.take(headerLibrary));
+      getDaemonWatcher().trackDefinitions(headerLibrary);
+    }
+    return true;
+  }
+
+  private void watch(LibraryWatcher watcher, MyTypechecking typechecking) {
+    System.out.println();
+    System.out.println("Watching for changes...");
+    while (true) {
+      Map<FileSourceLibrary, Set<ModulePath>> changes;
+      try {
+        changes = watcher.waitForChanges();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException e) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Cannot watch source directories: " + e.getMessage());
+        return;
+      }
+
+      for (Map.Entry<FileSourceLibrary, Set<ModulePath>> entry : changes.entrySet()) {
+        myExitWithError = false;
+        myModuleResults.clear();
+        typechecking.clear();
+        long invalidated = myDependencyCollector.getInvalidatedCount();
+        try {
+          watcher.reload(entry.getKey(), entry.getValue());
+        } finally {
+          flushErrors();
+        }
+        System.out.println("Invalidated definitions: " + (myDependencyCollector.getInvalidatedCount() - invalidated));
+        typecheckUpdatedModules(entry.getKey(), typechecking, null, true);
+      }
+    }
+  }
+
+  private void showMemory(SourceLibrary library) {
+    List<Pair<ModulePath, Long>> modules = new ArrayList<>();
+    List<Pair<TCDefReferable, Long>> definitions = new ArrayList<>();
+    for (ModulePath module : library.getLoadedModules()) {
+      Group group = library.getModuleGroup(module, false);
+      if (group == null) continue;
+      // Objects shared between definitions of a module are counted once
+      MemoryEstimateVisitor visitor = new MemoryEstimateVisitor();
+      group.traverseGroup(subgroup -> {
+        if (subgroup.getReferable() instanceof TCDefReferable ref) {
+          Definition def = ref.getTypechecked();
+          if (def instanceof FunctionDefinition || def instanceof DataDefinition || def instanceof ClassDefinition) {
+            long before = visitor.getBytes();
+            def.accept(visitor, null);
+            definitions.add(new Pair<>(ref, visitor.getBytes() - before));
+          }
+        }
+      });
+      modules.add(new Pair<>(module, visitor.getBytes()));
+    }
+
+    Path binaryDir = library instanceof FileSourceLibrary ? ((FileSourceLibrary) library).getBinaryBasePath() : null;
+    System.out.println();
+    System.out.println("Estimated memory of loaded core definitions per module:");
+    modules.sort((o1, o2) -> Long.compare(o2.proj2, o1.proj2));
+    for (Pair<ModulePath, Long> pair : modules) {
+      String binarySize = "";
+      if (binaryDir != null) {
+        try {
+          binarySize = " (binary file size: " + memoryToString(Files.size(FileUtils.binaryFile(binaryDir, pair.proj1))) + ")";
+        } catch (IOException ignored) {}
+      }
+      System.out.println(pair.proj1 + ": " + memoryToString(pair.proj2) + binarySize);
+    }
+
+    System.out.println();
+    System.out.println("Estimated memory of loaded core definitions:");
+    definitions.sort((o1, o2) -> Long.compare(o2.proj2, o1.proj2));
+    for (Pair<TCDefReferable, Long> pair : definitions) {
+      System.out.println(pair.proj1.getRefLongName() + ": " + memoryToString(pair.proj2));
+    }
+  }
+
+  private static String memoryToString(long bytes) {
+    if (bytes < 10 * 1024) {
+      return bytes + "B";
+    }
+    if (bytes < 10 * 1024 * 1024) {
+      return bytes / 1024 + "KB";
+    }
+    return bytes / (1024 * 1024) + "MB";
+  }
+
+  private Path resolvePath(String path) {
+    return myWorkingDirectory.resolve(path);
+  }
+
+  private static String[] withoutOption(String[] args, String option) {
+    List<String> result = new ArrayList<>(args.length);
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--" + option)) {
+        i++;
+      } else if (!args[i].startsWith("--" + option + "=")) {
+        result.add(args[i]);
+      }
+    }
+    return result.toArray(new String[0]);
+  }
+
+  /**
+   * Runs a command sent to a daemon.
+   * Libraries requested by the command stay loaded until their sources are changed.
+   * Changed modules are reloaded before the next request and only changed definitions and their dependents are invalidated.
+   * If the header of a library is changed or its modules are added or removed, the library is unloaded and loaded again.
+   * Libraries that consist of modules listed on the command line are unloaded after every request.
+   *
+   * @return the exit code of the command.
+   */
+  public int runRequest(Path workingDirectory, String[] args) {
+    myDaemonRequest = true;
+    myWorkingDirectory = workingDirectory;
+    myLibraryResolver.setWorkingDirectory(workingDirectory);
+    try {
+      updateDaemonLibraries();
+      return run(args) == null || myExitWithError ? 1 : 0;
+    } finally {
+      flushErrors();
+      for (SourceLibrary library : myRequestedLibraries) {
+        if (library instanceof FileLoadableHeaderLibrary headerLibrary && myDaemonLibraries.containsKey(headerLibrary) && myLibraryManager.isRegistered(library)) {
+          headerLibrary.clearUpdateModules();
+        } else {
+          if (myLibraryManager.isRegistered(library)) {
+            myLibraryManager.unloadLibrary(library);
+          }
+          myLibraryResolver.unregisterLibrary(library);
+        }
+      }
+      myRequestedLibraries.clear();
+      myLibraryResolver.setWorkingDirectory(null);
+      myWorkingDirectory = FileUtils.getCurrentDirectory();
+      myDaemonRequest = false;
+    }
+  }
+
+  private LibraryWatcher getDaemonWatcher() {
+    if (myDaemonWatcher == null) {
+      try {
+        myDaemonWatcher = new LibraryWatcher(myLibraryManager, myDependencyCollector);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return myDaemonWatcher;
+  }
+
+  /**
+   * Reloads modules of libraries kept by the daemon that were changed since the previous request.
+   */
+  private void updateDaemonLibraries() {
+    try {
+      for (Iterator<Map.Entry<FileLoadableHeaderLibrary, LibrarySnapshot>> iterator = myDaemonLibraries.entrySet().iterator(); iterator.hasNext(); ) {
+        Map.Entry<FileLoadableHeaderLibrary, LibrarySnapshot> entry = iterator.next();
+        FileLoadableHeaderLibrary library = entry.getKey();
+        LibrarySnapshot snapshot = LibrarySnapshot.take(library);
+        if (!myLibraryManager.isRegistered(library) || entry.getValue().isStructureChanged(snapshot)) {
+          iterator.remove();
+          forgetDaemonLibrary(library);
+          myLibraryResolver.unregisterLibrary(library);
+          continue;
+        }
+
+        Set<ModulePath> changed = entry.getValue().getChangedModules(snapshot);
+        entry.setValue(snapshot);
+        if (!changed.isEmpty()) {
+          getDaemonWatcher().reload(library, changed);
+        }
+        invalidateDefinitionsWithErrors(library);
+      }
+    } finally {
+      flushErrors();
+    }
+  }
+
+  /**
+   * Invalidates definitions with errors, warnings, or goals, so that they are reported again.
+   */
+  private void invalidateDefinitionsWithErrors(FileLoadableHeaderLibrary library) {
+    List<TCReferable> definitions = new ArrayList<>();
+    for (ModulePath module : library.getLoadedModules()) {
+      Group group = library.getModuleGroup(module, false);
+      if (group != null) {
+        group.traverseGroup(subgroup -> {
+          if (subgroup.getReferable() instanceof TCDefReferable ref) {
+            Definition definition = ref.getTypechecked();
+            if (definition != null && !definition.status().noErrors()) {
+              definitions.add(ref);
+            }
+          }
+        });
+      }
+    }
+    if (definitions.isEmpty()) {
+      return;
+    }
+
+    for (TCReferable ref : myDependencyCollector.update(definitions)) {
+      ModuleLocation location = ref.getLocation();
+      if (location != null && location.getLocationKind() == ModuleLocation.LocationKind.SOURCE && library.getName().equals(location.getLibraryName())) {
+        library.updateModule(location.getModulePath());
+      }
+    }
+  }
+
+  private void forgetDaemonLibrary(FileLoadableHeaderLibrary library) {
+    if (myLibraryManager.isRegistered(library)) {
+      myLibraryManager.unloadLibrary(library);
+    }
+    if (myDaemonWatcher != null) {
+      myDaemonWatcher.removeLibrary(library);
+    }
+  }
+
   private void flushErrors() {
     for (GeneralError error : myErrorReporter.getErrorList()) {
       error.forAffectedDefinitions((referable, err) -> {
@@ -720,15 +1127,11 @@ public abstract class BaseCliFrontend {
       if (error.level == GeneralError.Level.ERROR) {
         myExitWithError = true;
       }
-      String errorText = error.getDoc(ppConfig).toString();
-
-      if (error.isSevere()) {
-        System.err.println(errorText);
-        System.err.flush();
-      } else {
-        System.out.println(errorText);
-        System.out.flush();
-      }
+      // Errors may contain large terms, so they are written line by line instead of being built as a single string
+      PrintStream out = error.isSevere() ? System.err : System.out;
+      DocWriter.write(out, error.getDoc(ppConfig));
+      out.println();
+      out.flush();
     }
     myErrorReporter.getErrorList().clear();
   }
@@ -22,6 +22,7 @@ public class FileLibraryResolver implements LibraryResolver {
   private final ErrorReporter myErrorReporter;
   private final Map<String, UnmodifiableSourceLibrary> myLibraries = new HashMap<>();
   private final DependencyListener myDependencyListener;
+  private Path myWorkingDirectory;
 
   public FileLibraryResolver(List<Path> libDirs, ErrorReporter errorReporter, DependencyListener dependencyListener) {
     myLibDirs = libDirs;
@@ -69,11 +70,30 @@ public class FileLibraryResolver implements LibraryResolver {
   }
 
   public void addLibraryDirectory(Path libDir) {
-    myLibDirs.add(libDir);
+    if (!myLibDirs.contains(libDir)) {
+      myLibDirs.add(libDir);
+    }
   }
 
   public void addLibraryDirectories(Collection<? extends Path> libDirs) {
-    myLibDirs.addAll(libDirs);
+    for (Path libDir : libDirs) {
+      addLibraryDirectory(libDir);
+    }
+  }
+
+  /**
+   * Sets the directory in which libraries are looked up before library directories.
+   * If it is null, the current directory is used.
+   */
+  public void setWorkingDirectory(@Nullable Path workingDirectory) {
+    myWorkingDirectory = workingDirectory;
+  }
+
+  /**
+   * Forgets a library registered by {@link #registerLibrary}, so that its header is read again the next time.
+   */
+  public void unregisterLibrary(Library library) {
+    myLibraries.remove(library.getName(), library);
   }
 
   /**
@@ -125,7 +145,7 @@ public class FileLibraryResolver implements LibraryResolver {
       return library;
     }
 
-    library = findLibrary(FileUtils.getCurrentDirectory(), dependencyName);
+    library = findLibrary(myWorkingDirectory != null ? myWorkingDirectory : FileUtils.getCurrentDirectory(), dependencyName);
     if (library == null) {
       for (Path libDir : myLibDirs) {
         library = findLibrary(libDir, dependencyName);
@@ -0,0 +1,170 @@
+package org.arend.frontend.daemon;
+
+import org.arend.frontend.BaseCliFrontend;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves commands of {@link CliDaemonClient} on a Unix domain socket.
+ * Libraries loaded by the frontend stay loaded between requests; see {@link BaseCliFrontend#runRequest} for how changes are picked up.
+ * <p>
+ * A request consists of the working directory of the client followed by command line arguments, one per line,
+ * and is terminated by an empty line.
+ * Every line of the response starts with a tag: {@link #STDOUT}, {@link #STDERR}, or {@link #EXIT} followed by the exit code.
+ */
+public class CliDaemon {
+  static final char STDOUT = '1';
+  static final char STDERR = '2';
+  static final char EXIT = 'x';
+
+  private final BaseCliFrontend myFrontend;
+  private final Path mySocketPath;
+  private ServerSocketChannel myServer;
+  private boolean myClosed;
+
+  public CliDaemon(BaseCliFrontend frontend, Path socketPath) {
+    myFrontend = frontend;
+    mySocketPath = socketPath.toAbsolutePath();
+  }
+
+  public void run() throws IOException {
+    Files.deleteIfExists(mySocketPath);
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(mySocketPath));
+      synchronized (this) {
+        if (myClosed) {
+          return;
+        }
+        myServer = server;
+      }
+      Thread hook = new Thread(this::deleteSocket);
+      Runtime.getRuntime().addShutdownHook(hook);
+      System.out.println("Listening on " + mySocketPath);
+      try {
+        while (true) {
+          SocketChannel channel;
+          try {
+            channel = server.accept();
+          } catch (ClosedChannelException e) {
+            return;
+          }
+          try (channel) {
+            serve(channel);
+          } catch (IOException e) {
+            System.err.println("[ERROR] Daemon request failed: " + e.getMessage());
+          }
+        }
+      } finally {
+        Runtime.getRuntime().removeShutdownHook(hook);
+        deleteSocket();
+      }
+    }
+  }
+
+  /**
+   * Stops the daemon after the current request.
+   */
+  public void close() throws IOException {
+    ServerSocketChannel server;
+    synchronized (this) {
+      myClosed = true;
+      server = myServer;
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private void deleteSocket() {
+    try {
+      Files.deleteIfExists(mySocketPath);
+    } catch (IOException ignored) {}
+  }
+
+  private void serve(SocketChannel channel) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+    String workingDirectory = reader.readLine();
+    if (workingDirectory == null) {
+      return;
+    }
+    List<String> args = new ArrayList<>();
+    for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+      args.add(line);
+    }
+
+    OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel));
+    PrintStream out = System.out;
+    PrintStream err = System.err;
+    int exitCode;
+    try (PrintStream requestOut = new PrintStream(new TaggedOutputStream(output, STDOUT), true, StandardCharsets.UTF_8);
+         PrintStream requestErr = new PrintStream(new TaggedOutputStream(output, STDERR), true, StandardCharsets.UTF_8)) {
+      System.setOut(requestOut);
+      System.setErr(requestErr);
+      try {
+        exitCode = myFrontend.runRequest(Paths.get(workingDirectory), args.toArray(new String[0]));
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+        exitCode = 1;
+      } finally {
+        System.setOut(out);
+        System.setErr(err);
+      }
+      synchronized (output) {
+        output.write((EXIT + Integer.toString(exitCode) + "\n").getBytes(StandardCharsets.UTF_8));
+        output.flush();
+      }
+    }
+  }
+
+  /**
+   * Sends every line written to it as a separate tagged line of the response.
+   */
+  private static class TaggedOutputStream extends OutputStream {
+    private final OutputStream myOutput;
+    private final char myTag;
+    private final ByteArrayOutputStream myLine = new ByteArrayOutputStream();
+
+    private TaggedOutputStream(OutputStream output, char tag) {
+      myOutput = output;
+      myTag = tag;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (b == '\n') {
+        flushLine();
+      } else {
+        myLine.write(b);
+      }
+    }
+
+    private void flushLine() throws IOException {
+      synchronized (myOutput) {
+        myOutput.write(myTag);
+        myLine.writeTo(myOutput);
+        myOutput.write('\n');
+        myOutput.flush();
+      }
+      myLine.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (myLine.size() > 0) {
+        flushLine();
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.arend.frontend.daemon;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Sends a command to {@link CliDaemon} and prints its output as it arrives.
+ */
+public class CliDaemonClient {
+  /**
+   * @return the exit code of the command.
+   */
+  public static int send(Path socketPath, Path workingDirectory, String[] args) {
+    try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(socketPath));
+
+      Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+      writer.write(workingDirectory.toAbsolutePath().toString());
+      writer.write('\n');
+      for (String arg : args) {
+        if (arg.isEmpty() || arg.indexOf('\n') >= 0) {
+          System.err.println("[ERROR] Cannot send argument '" + arg + "' to the daemon");
+          return 1;
+        }
+        writer.write(arg);
+        writer.write('\n');
+      }
+      writer.write('\n');
+      writer.flush();
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        switch (line.charAt(0)) {
+          case CliDaemon.STDOUT -> System.out.println(line.substring(1));
+          case CliDaemon.STDERR -> System.err.println(line.substring(1));
+          case CliDaemon.EXIT -> {
+            return Integer.parseInt(line.substring(1));
+          }
+        }
+      }
+      System.err.println("[ERROR] The daemon closed the connection");
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("[ERROR] Cannot connect to the daemon: " + e.getMessage());
+    }
+    return 1;
+  }
+}
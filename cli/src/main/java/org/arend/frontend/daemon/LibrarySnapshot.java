@@ -0,0 +1,68 @@
+package org.arend.frontend.daemon;
+
+import org.arend.error.DummyErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileLoadableHeaderLibrary;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Modification times of the header and the source files of a library.
+ * The daemon compares snapshots taken before consecutive requests to find out which modules were changed.
+ */
+public class LibrarySnapshot {
+  private final FileTime myHeaderTime;
+  private final Map<ModulePath, FileTime> myModuleTimes;
+
+  private LibrarySnapshot(FileTime headerTime, Map<ModulePath, FileTime> moduleTimes) {
+    myHeaderTime = headerTime;
+    myModuleTimes = moduleTimes;
+  }
+
+  public static LibrarySnapshot take(FileLoadableHeaderLibrary library) {
+    Map<ModulePath, FileTime> moduleTimes = new HashMap<>();
+    Path sourceDir = library.getSourceBasePath();
+    if (sourceDir != null && Files.isDirectory(sourceDir)) {
+      List<ModulePath> modules = new ArrayList<>();
+      FileUtils.getModules(sourceDir, FileUtils.EXTENSION, modules, DummyErrorReporter.INSTANCE);
+      for (ModulePath module : modules) {
+        moduleTimes.put(module, getTime(FileUtils.sourceFile(sourceDir, module)));
+      }
+    }
+    return new LibrarySnapshot(getTime(library.getHeaderFile()), moduleTimes);
+  }
+
+  private static FileTime getTime(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the header of the library was changed or modules were added or removed,
+   *         that is, if the library should be loaded again.
+   */
+  public boolean isStructureChanged(LibrarySnapshot newer) {
+    return !Objects.equals(myHeaderTime, newer.myHeaderTime) || !myModuleTimes.keySet().equals(newer.myModuleTimes.keySet());
+  }
+
+  /**
+   * @return modules that were changed since this snapshot was taken.
+   */
+  public Set<ModulePath> getChangedModules(LibrarySnapshot newer) {
+    Set<ModulePath> result = new LinkedHashSet<>();
+    for (Map.Entry<ModulePath, FileTime> entry : newer.myModuleTimes.entrySet()) {
+      if (!Objects.equals(myModuleTimes.get(entry.getKey()), entry.getValue())) {
+        result.add(entry.getKey());
+      }
+    }
+    return result;
+  }
+}
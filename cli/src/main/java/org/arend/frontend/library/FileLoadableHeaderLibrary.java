@@ -23,6 +23,10 @@ public class FileLoadableHeaderLibrary extends FileSourceLibrary {
     myHeaderFile = headerFile;
   }
 
+  public Path getHeaderFile() {
+    return myHeaderFile;
+  }
+
   @Override
   public String getFullName() {
     return myHeaderFile.toString();
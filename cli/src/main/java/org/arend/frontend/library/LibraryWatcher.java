@@ -0,0 +1,272 @@
+package org.arend.frontend.library;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.module.LongName;
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.util.Pair;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.library.LibraryManager;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.source.Source;
+import org.arend.source.SourceLoader;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.concrete.ConcreteCompareVisitor;
+import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches source directories of libraries and reloads modules that were changed.
+ * Concrete definitions of a reloaded module are compared with their previous versions by {@link ConcreteCompareVisitor},
+ * and only changed definitions and definitions that depend on them are invalidated.
+ * Other definitions keep their typechecked versions, which are rebound to the new referables.
+ */
+public class LibraryWatcher {
+  private static final long DEBOUNCE_MILLIS = 100;
+
+  private final LibraryManager myLibraryManager;
+  private final DependencyListener myDependencyListener;
+  private final WatchService myWatchService;
+  private final Map<WatchKey, Pair<FileSourceLibrary, Path>> myKeys = new HashMap<>();
+  private final Map<TCDefReferable, Concrete.GeneralDefinition> myDefinitions = new HashMap<>();
+
+  public LibraryWatcher(LibraryManager libraryManager, DependencyListener dependencyListener) throws IOException {
+    myLibraryManager = libraryManager;
+    myDependencyListener = dependencyListener;
+    myWatchService = FileSystems.getDefault().newWatchService();
+  }
+
+  public void addLibrary(FileSourceLibrary library) throws IOException {
+    Path sourceDir = library.getSourceBasePath();
+    if (sourceDir == null || !Files.isDirectory(sourceDir)) {
+      return;
+    }
+
+    addDirectory(library, sourceDir);
+    trackDefinitions(library);
+  }
+
+  /**
+   * Remembers the current versions of definitions of a library, so that {@link #reload} can compare them with new ones.
+   * The source directories of the library are not watched.
+   */
+  public void trackDefinitions(FileSourceLibrary library) {
+    for (ModulePath module : library.getLoadedModules()) {
+      Group group = library.getModuleGroup(module, false);
+      if (group != null) {
+        group.traverseGroup(subgroup -> {
+          if (subgroup.getReferable() instanceof TCDefReferable ref) {
+            myDefinitions.put(ref, ConcreteReferableProvider.INSTANCE.getConcrete(ref));
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Forgets a library added by {@link #addLibrary} or {@link #trackDefinitions}.
+   */
+  public void removeLibrary(FileSourceLibrary library) {
+    myKeys.entrySet().removeIf(entry -> {
+      if (entry.getValue().proj1 != library) {
+        return false;
+      }
+      entry.getKey().cancel();
+      return true;
+    });
+    myDefinitions.keySet().removeIf(ref -> {
+      ModuleLocation location = ref.getLocation();
+      return location != null && location.getLocationKind() == ModuleLocation.LocationKind.SOURCE && library.getName().equals(location.getLibraryName());
+    });
+  }
+
+  private void addDirectory(FileSourceLibrary library, Path directory) throws IOException {
+    Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        myKeys.put(dir.register(myWatchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), new Pair<>(library, dir));
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Waits until some modules are changed.
+   *
+   * @return changed modules of every library.
+   */
+  public Map<FileSourceLibrary, Set<ModulePath>> waitForChanges() throws InterruptedException, IOException {
+    Map<FileSourceLibrary, Set<ModulePath>> result = new LinkedHashMap<>();
+    while (result.isEmpty()) {
+      // Editors often save a file in several steps, so we collect all events that come close to each other
+      for (WatchKey key = myWatchService.take(); key != null; key = myWatchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) {
+        Pair<FileSourceLibrary, Path> pair = myKeys.get(key);
+        if (pair != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+              continue;
+            }
+            Path file = pair.proj2.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+              addDirectory(pair.proj1, file);
+              continue;
+            }
+            ModulePath module = FileUtils.modulePath(pair.proj1.getSourceBasePath().relativize(file), FileUtils.EXTENSION);
+            if (module != null && pair.proj1.containsModule(module)) {
+              result.computeIfAbsent(pair.proj1, k -> new LinkedHashSet<>()).add(module);
+            }
+          }
+        }
+        if (!key.reset()) {
+          myKeys.remove(key);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reloads given modules and invalidates definitions that were changed together with definitions that depend on them.
+   * Modules that contain invalidated definitions are reloaded as well since they refer to old versions of changed definitions.
+   *
+   * @return the set of reloaded modules.
+   */
+  public Set<ModulePath> reload(FileSourceLibrary library, Collection<? extends ModulePath> modules) {
+    Map<ModulePath, Map<LongName, TCDefReferable>> oldDefinitions = new HashMap<>();
+    Map<ModulePath, Map<LongName, TCDefReferable>> oldInternals = new HashMap<>();
+    Set<ModulePath> reloaded = new LinkedHashSet<>(modules);
+    load(library, modules, oldDefinitions, oldInternals);
+
+    // Old definitions of reloaded modules refer to old referables, so we map them to new ones
+    Map<Referable, Referable> substitution = new HashMap<>();
+    Map<ModulePath, Map<LongName, TCDefReferable>> newDefinitions = new HashMap<>();
+    for (ModulePath module : modules) {
+      Map<LongName, TCDefReferable> definitions = new HashMap<>();
+      Map<LongName, TCDefReferable> internals = new HashMap<>();
+      collectReferables(library.getModuleGroup(module, false), definitions, internals);
+      newDefinitions.put(module, definitions);
+      addSubstitution(oldDefinitions.get(module), definitions, substitution);
+      addSubstitution(oldInternals.get(module), internals, substitution);
+    }
+
+    List<TCReferable> changed = new ArrayList<>();
+    for (ModulePath module : modules) {
+      for (Map.Entry<LongName, TCDefReferable> entry : oldDefinitions.get(module).entrySet()) {
+        TCDefReferable newRef = newDefinitions.get(module).get(entry.getKey());
+        if (newRef == null || !compare(myDefinitions.get(entry.getValue()), ConcreteReferableProvider.INSTANCE.getConcrete(newRef), substitution)) {
+          changed.add(entry.getValue());
+        }
+      }
+    }
+
+    Set<TCReferable> invalidated = new HashSet<>(changed);
+    invalidated.addAll(myDependencyListener.update(changed));
+
+    Set<ModulePath> dependentModules = new LinkedHashSet<>();
+    for (TCReferable ref : invalidated) {
+      ModuleLocation location = ref.getLocation();
+      if (location != null && location.getLocationKind() == ModuleLocation.LocationKind.SOURCE && library.getName().equals(location.getLibraryName()) && !reloaded.contains(location.getModulePath())) {
+        dependentModules.add(location.getModulePath());
+      }
+    }
+    if (!dependentModules.isEmpty()) {
+      load(library, dependentModules, oldDefinitions, oldInternals);
+      reloaded.addAll(dependentModules);
+    }
+
+    for (ModulePath module : reloaded) {
+      Map<LongName, TCDefReferable> definitions = new HashMap<>();
+      Map<LongName, TCDefReferable> internals = new HashMap<>();
+      collectReferables(library.getModuleGroup(module, false), definitions, internals);
+      for (TCDefReferable oldRef : oldDefinitions.get(module).values()) {
+        myDefinitions.remove(oldRef);
+      }
+      for (TCDefReferable newRef : definitions.values()) {
+        myDefinitions.put(newRef, ConcreteReferableProvider.INSTANCE.getConcrete(newRef));
+      }
+      transferTypechecked(oldDefinitions.get(module), definitions, invalidated);
+      transferTypechecked(oldInternals.get(module), internals, invalidated);
+    }
+
+    return reloaded;
+  }
+
+  private void load(FileSourceLibrary library, Collection<? extends ModulePath> modules, Map<ModulePath, Map<LongName, TCDefReferable>> oldDefinitions, Map<ModulePath, Map<LongName, TCDefReferable>> oldInternals) {
+    List<ModulePath> available = new ArrayList<>();
+    for (ModulePath module : modules) {
+      Map<LongName, TCDefReferable> definitions = new HashMap<>();
+      Map<LongName, TCDefReferable> internals = new HashMap<>();
+      collectReferables(library.getModuleGroup(module, false), definitions, internals);
+      oldDefinitions.put(module, definitions);
+      oldInternals.put(module, internals);
+
+      Source source = library.getRawSource(module);
+      if (source != null && source.isAvailable()) {
+        available.add(module);
+      } else {
+        library.groupLoaded(module, null, true, false);
+      }
+    }
+    new SourceLoader(library, myLibraryManager).loadRawSources(available, false);
+  }
+
+  private static void addSubstitution(Map<LongName, TCDefReferable> oldRefs, Map<LongName, TCDefReferable> newRefs, Map<Referable, Referable> substitution) {
+    for (Map.Entry<LongName, TCDefReferable> entry : oldRefs.entrySet()) {
+      TCDefReferable newRef = newRefs.get(entry.getKey());
+      if (newRef != null) {
+        substitution.put(entry.getValue(), newRef);
+      }
+    }
+  }
+
+  private static boolean compare(Concrete.GeneralDefinition oldDefinition, Concrete.GeneralDefinition newDefinition, Map<Referable, Referable> substitution) {
+    if (oldDefinition == null || newDefinition == null) {
+      return oldDefinition == newDefinition;
+    }
+    return oldDefinition instanceof Concrete.ReferableDefinition && newDefinition instanceof Concrete.ReferableDefinition && ConcreteCompareVisitor.compare((Concrete.ReferableDefinition) oldDefinition, (Concrete.ReferableDefinition) newDefinition, substitution);
+  }
+
+  /**
+   * Binds typechecked definitions of unchanged old referables to the corresponding new referables.
+   */
+  private void transferTypechecked(Map<LongName, TCDefReferable> oldRefs, Map<LongName, TCDefReferable> newRefs, Set<TCReferable> invalidated) {
+    for (Map.Entry<LongName, TCDefReferable> entry : newRefs.entrySet()) {
+      TCDefReferable oldRef = oldRefs.get(entry.getKey());
+      if (oldRef != null && !invalidated.contains(oldRef)) {
+        Definition definition = oldRef.getTypechecked();
+        if (definition != null) {
+          definition.setReferable(entry.getValue());
+          entry.getValue().setTypechecked(definition);
+          myDependencyListener.replace(oldRef, entry.getValue());
+        }
+      }
+    }
+  }
+
+  private static void collectReferables(Group group, Map<LongName, TCDefReferable> definitions, Map<LongName, TCDefReferable> internals) {
+    if (group == null) {
+      return;
+    }
+    group.traverseGroup(subgroup -> {
+      if (subgroup.getReferable() instanceof TCDefReferable ref) {
+        definitions.put(ref.getRefLongName(), ref);
+      }
+      for (Group.InternalReferable internal : subgroup.getInternalReferables()) {
+        LocatedReferable ref = internal.getReferable();
+        if (ref instanceof TCDefReferable) {
+          internals.put(ref.getRefLongName(), (TCDefReferable) ref);
+        }
+      }
+    });
+  }
+}
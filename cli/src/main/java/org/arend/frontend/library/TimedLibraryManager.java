@@ -10,10 +10,11 @@ import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Stack;
+import java.util.HashMap;
+import java.util.Map;
 
 public class TimedLibraryManager extends LibraryManager {
-  private final Stack<Long> times = new Stack<>();
+  private final Map<Library, Long> times = new HashMap<>();
 
   public TimedLibraryManager(LibraryResolver libraryResolver, @Nullable InstanceProviderSet instanceProviderSet, ErrorReporter typecheckingErrorReporter, ErrorReporter libraryErrorReporter, DefinitionRequester definitionRequester) {
     super(libraryResolver, instanceProviderSet, typecheckingErrorReporter, libraryErrorReporter, definitionRequester, null);
@@ -34,12 +35,12 @@ public class TimedLibraryManager extends LibraryManager {
   @Override
   protected void beforeLibraryLoading(@NotNull Library library) {
     System.out.println("[INFO] Loading library " + library.getName());
-    times.push(System.currentTimeMillis());
+    times.put(library, System.currentTimeMillis());
   }
 
   @Override
   protected void afterLibraryLoading(@NotNull Library library, int loaded, int total) {
-    long time = System.currentTimeMillis() - times.pop();
+    long time = System.currentTimeMillis() - times.remove(library);
     System.err.flush();
     System.out.println("[INFO] " + (loaded >= 0 ? "Loaded " : "Failed loading ") + "library " + library.getName() + (loaded >= 0 ? " (" + timeToString(time) + ", " + StringUtils.number(loaded, "/" + total + " checked module") + ")" : ""));
   }
@@ -3,7 +3,7 @@ package org.arend.frontend.ui;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.prettyprinting.PrettyPrinterConfig;
 import org.arend.ext.prettyprinting.doc.Doc;
-import org.arend.ext.prettyprinting.doc.DocStringBuilder;
+import org.arend.ext.prettyprinting.doc.DocWriter;
 import org.arend.ext.ui.ArendConsole;
 import org.arend.ext.ui.ArendSession;
 import org.arend.ext.ui.ArendUI;
@@ -43,6 +43,7 @@ public class ArendCliUI implements ArendUI, ArendConsole {
 
   @Override
   public void println(@NotNull Doc doc) {
-    System.out.println(DocStringBuilder.build(doc));
+    DocWriter.write(System.out, doc);
+    System.out.println();
   }
 }
@@ -0,0 +1,162 @@
+package org.arend.classes;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.ImplementationMap;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ImplementationMapTest extends TypeCheckingTestCase {
+  private List<ClassField> fields(ClassDefinition classDef) {
+    return new ArrayList<>(classDef.getNotImplementedFields());
+  }
+
+  @Test
+  public void insertionOrder() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\record R (a b c : Nat)");
+    List<ClassField> fields = fields(classDef);
+    ImplementationMap map = new ImplementationMap(classDef);
+    map.put(fields.get(2), new SmallIntegerExpression(2));
+    map.put(fields.get(0), new SmallIntegerExpression(0));
+    map.put(fields.get(1), new SmallIntegerExpression(1));
+    map.put(fields.get(2), new SmallIntegerExpression(3));
+    assertEquals(Arrays.asList(fields.get(2), fields.get(0), fields.get(1)), new ArrayList<>(map.keySet()));
+    assertEquals(new SmallIntegerExpression(3), map.get(fields.get(2)));
+
+    map.remove(fields.get(0));
+    map.put(fields.get(0), new SmallIntegerExpression(0));
+    assertEquals(Arrays.asList(fields.get(2), fields.get(1), fields.get(0)), new ArrayList<>(map.keySet()));
+  }
+
+  @Test
+  public void copyOnWrite() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\record R (a b c : Nat)");
+    List<ClassField> fields = fields(classDef);
+    ImplementationMap map = new ImplementationMap(classDef);
+    map.put(fields.get(0), new SmallIntegerExpression(0));
+    map.put(fields.get(1), new SmallIntegerExpression(1));
+
+    ImplementationMap copy = ImplementationMap.copyOf(classDef, map);
+    copy.put(fields.get(2), new SmallIntegerExpression(2));
+    copy.remove(fields.get(0));
+    assertEquals(2, map.size());
+    assertTrue(map.containsKey(fields.get(0)));
+    assertFalse(map.containsKey(fields.get(2)));
+    assertEquals(Arrays.asList(fields.get(1), fields.get(2)), new ArrayList<>(copy.keySet()));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertEquals(2, copy.size());
+  }
+
+  @Test
+  public void iteratorRemove() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\record R (a b c : Nat)");
+    List<ClassField> fields = fields(classDef);
+    ImplementationMap map = new ImplementationMap(classDef);
+    for (int i = 0; i < fields.size(); i++) {
+      map.put(fields.get(i), new SmallIntegerExpression(i));
+    }
+    ImplementationMap copy = ImplementationMap.copyOf(classDef, map);
+    for (Iterator<Map.Entry<ClassField, Expression>> iterator = copy.entrySet().iterator(); iterator.hasNext(); ) {
+      if (iterator.next().getKey() == fields.get(1)) {
+        iterator.remove();
+      }
+    }
+    assertEquals(Arrays.asList(fields.get(0), fields.get(2)), new ArrayList<>(copy.keySet()));
+    assertEquals(3, map.size());
+  }
+
+  @Test
+  public void manyFields() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\record R (a0 a1 a2 a3 a4 a5 a6 a7 a8 a9 a10 a11 : Nat)");
+    List<ClassField> fields = fields(classDef);
+    ImplementationMap map = new ImplementationMap(classDef);
+    for (int i = fields.size() - 1; i >= 0; i--) {
+      map.put(fields.get(i), new SmallIntegerExpression(i));
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      assertEquals(new SmallIntegerExpression(i), map.get(fields.get(i)));
+    }
+
+    ImplementationMap copy = ImplementationMap.copyOf(classDef, map);
+    for (int i = 0; i < fields.size(); i += 2) {
+      copy.remove(fields.get(i));
+    }
+    assertEquals(fields.size() / 2, copy.size());
+    for (int i = 0; i < fields.size(); i++) {
+      assertEquals(i % 2 == 0 ? null : new SmallIntegerExpression(i), copy.get(fields.get(i)));
+      assertEquals(new SmallIntegerExpression(i), map.get(fields.get(i)));
+    }
+  }
+
+  @Test
+  public void subclassCopy() {
+    typeCheckModule(
+      "\\record R (a b : Nat)\n" +
+      "\\record S \\extends R | c : Nat");
+    ClassDefinition superClass = (ClassDefinition) getDefinition("R");
+    ClassDefinition subClass = (ClassDefinition) getDefinition("S");
+    List<ClassField> fields = fields(subClass);
+    ImplementationMap map = new ImplementationMap(superClass);
+    map.put(fields.get(1), new SmallIntegerExpression(1));
+    map.put(fields.get(0), new SmallIntegerExpression(0));
+
+    ImplementationMap copy = ImplementationMap.copyOf(subClass, map);
+    assertEquals(Arrays.asList(fields.get(1), fields.get(0)), new ArrayList<>(copy.keySet()));
+    copy.put(fields.get(2), new SmallIntegerExpression(2));
+    assertEquals(new SmallIntegerExpression(2), copy.get(fields.get(2)));
+    assertEquals(2, map.size());
+    assertFalse(map.containsKey(fields.get(2)));
+  }
+
+  @Test
+  public void entriesToArray() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\record R (a b c : Nat)");
+    List<ClassField> fields = fields(classDef);
+    ImplementationMap map = new ImplementationMap(classDef);
+    for (int i = 0; i < fields.size(); i++) {
+      map.put(fields.get(i), new SmallIntegerExpression(i));
+    }
+    List<Map.Entry<ClassField, Expression>> entries = new ArrayList<>(map.entrySet());
+    for (int i = 0; i < fields.size(); i++) {
+      assertSame(fields.get(i), entries.get(i).getKey());
+      assertEquals(new SmallIntegerExpression(i), entries.get(i).getValue());
+    }
+
+    for (Map.Entry<ClassField, Expression> entry : map.entrySet()) {
+      entry.setValue(new SmallIntegerExpression(7));
+    }
+    assertEquals(new SmallIntegerExpression(7), map.get(fields.get(1)));
+  }
+
+  @Test
+  public void fieldIndices() {
+    typeCheckModule(
+      "\\record R (a b : Nat)\n" +
+      "\\record S \\extends R | c : Nat");
+    ClassDefinition subClass = (ClassDefinition) getDefinition("S");
+    List<ClassField> fields = fields(subClass);
+    assertEquals(fields.size(), subClass.getNumberOfFieldIndices());
+    for (int i = 0; i < fields.size(); i++) {
+      assertEquals(i, subClass.getFieldIndex(fields.get(i)));
+    }
+  }
+
+  @Test
+  public void severalImplementations() {
+    typeCheckModule(
+      "\\record R (a b c : Nat)\n" +
+      "\\func f : R 1 2 => \\new R 1 2 3");
+  }
+}
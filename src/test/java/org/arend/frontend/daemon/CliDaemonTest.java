@@ -0,0 +1,233 @@
+package org.arend.frontend.daemon;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.ConsoleMain;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.PreludeFileLibrary;
+import org.arend.library.Library;
+import org.arend.library.SourceLibrary;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.prelude.Prelude;
+import org.arend.term.group.Group;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class CliDaemonTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ConsoleMain myFrontend = new ConsoleMain();
+  private Path myLibDir;
+  private Path mySocket;
+  private CliDaemon myDaemon;
+  private Thread myThread;
+
+  private record Response(int exitCode, String output) {}
+
+  @Before
+  public void startDaemon() throws Exception {
+    myLibDir = folder.newFolder("lib").toPath();
+    Files.createDirectories(myLibDir.resolve("src"));
+    writeFile("arend.yaml", "sourcesDir: src\n");
+    writeFile("src/A.ard", "\\func f => 0\n");
+    writeFile("src/B.ard", "\\import A\n\\func g => f\n");
+
+    // The frontend loads the prelude only if it is not loaded yet
+    Library prelude = new PreludeFileLibrary(null);
+    assertTrue(myFrontend.getLibraryManager().loadLibrary(prelude, null));
+    new Prelude.PreludeTypechecking(new InstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(prelude);
+
+    mySocket = folder.getRoot().toPath().resolve("daemon.sock");
+    myDaemon = new CliDaemon(myFrontend, mySocket);
+    myThread = new Thread(() -> {
+      try {
+        myDaemon.run();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    myThread.start();
+    for (int i = 0; i < 100 && !Files.exists(mySocket); i++) {
+      Thread.sleep(100);
+    }
+    assertTrue(Files.exists(mySocket));
+  }
+
+  @After
+  public void stopDaemon() throws Exception {
+    myDaemon.close();
+    myThread.join();
+  }
+
+  private void writeFile(String file, String text) throws IOException {
+    Path path = myLibDir.resolve(file);
+    FileTime prev = Files.exists(path) ? Files.getLastModifiedTime(path) : null;
+    Files.writeString(path, text);
+    // Make sure that the change is visible even if the file system has a coarse timestamp resolution
+    if (prev != null && Files.getLastModifiedTime(path).equals(prev)) {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(prev.toMillis() + 1000));
+    }
+  }
+
+  private Response request(String... args) throws IOException {
+    try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(mySocket));
+      Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+      writer.write(folder.getRoot().getAbsolutePath() + "\n");
+      for (String arg : args) {
+        writer.write(arg + "\n");
+      }
+      writer.write("\n");
+      writer.flush();
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      StringBuilder output = new StringBuilder();
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.charAt(0) == CliDaemon.EXIT) {
+          return new Response(Integer.parseInt(line.substring(1)), output.toString());
+        }
+        output.append(line, 1, line.length()).append('\n');
+      }
+      fail("The daemon closed the connection");
+      return null;
+    }
+  }
+
+  private Response requestLibrary() throws IOException {
+    return request(myLibDir.toString());
+  }
+
+  private Library getLibrary() {
+    return myFrontend.getLibraryManager().getRegisteredLibrary("lib");
+  }
+
+  private Definition getDefinition(String module, String name) {
+    Group group = ((SourceLibrary) getLibrary()).getModuleGroup(new ModulePath(module), false);
+    Definition[] result = new Definition[1];
+    group.traverseGroup(subgroup -> {
+      if (subgroup.getReferable() instanceof TCDefReferable ref && ref.getRefName().equals(name)) {
+        result[0] = ref.getTypechecked();
+      }
+    });
+    return result[0];
+  }
+
+  @Test
+  public void keepLoadedTest() throws IOException {
+    Response response = requestLibrary();
+    assertEquals(response.output, 0, response.exitCode);
+    assertTrue(response.output, response.output.contains("--- Typechecking lib ---"));
+    Library library = getLibrary();
+    Definition f = getDefinition("A", "f");
+    assertNotNull(f);
+
+    response = requestLibrary();
+    assertEquals(response.output, 0, response.exitCode);
+    assertFalse(response.output, response.output.contains("--- Typechecking"));
+    assertSame(library, getLibrary());
+    assertSame(f, getDefinition("A", "f"));
+  }
+
+  @Test
+  public void changedModuleTest() throws IOException {
+    assertEquals(0, requestLibrary().exitCode);
+    Library library = getLibrary();
+    Definition f = getDefinition("A", "f");
+    Definition g = getDefinition("B", "g");
+
+    writeFile("src/B.ard", "\\import A\n\\func g => suc f\n");
+    Response response = requestLibrary();
+    assertEquals(response.output, 0, response.exitCode);
+    assertTrue(response.output, response.output.contains("] B"));
+    assertFalse(response.output, response.output.contains("] A"));
+    assertSame(library, getLibrary());
+    assertSame(f, getDefinition("A", "f"));
+    assertNotSame(g, getDefinition("B", "g"));
+  }
+
+  @Test
+  public void errorsReportedAgainTest() throws IOException {
+    writeFile("src/B.ard", "\\import A\n\\func g : Nat => \\Type0\n");
+    Response response = requestLibrary();
+    assertEquals(response.output, 1, response.exitCode);
+    response = requestLibrary();
+    assertEquals(response.output, 1, response.exitCode);
+    assertTrue(response.output, response.output.contains("] B"));
+
+    writeFile("src/B.ard", "\\import A\n\\func g => f\n");
+    response = requestLibrary();
+    assertEquals(response.output, 0, response.exitCode);
+  }
+
+  @Test
+  public void addedModuleTest() throws IOException {
+    assertEquals(0, requestLibrary().exitCode);
+    Library library = getLibrary();
+
+    writeFile("src/C.ard", "\\import B\n\\func h => g\n");
+    Response response = requestLibrary();
+    assertEquals(response.output, 0, response.exitCode);
+    assertTrue(response.output, response.output.contains("] C"));
+    assertNotSame(library, getLibrary());
+    assertNotNull(getDefinition("C", "h"));
+  }
+
+  @Test
+  public void clientTest() throws Exception {
+    Path socket = folder.getRoot().toPath().resolve("client.sock");
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      String[] received = new String[2];
+      Thread thread = new Thread(() -> {
+        try (SocketChannel channel = server.accept()) {
+          BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+          received[0] = reader.readLine();
+          received[1] = reader.readLine();
+          reader.readLine();
+          OutputStream output = Channels.newOutputStream(channel);
+          output.write((CliDaemon.STDOUT + "out\n" + CliDaemon.EXIT + "3\n").getBytes(StandardCharsets.UTF_8));
+          output.flush();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      thread.start();
+
+      PrintStream out = System.out;
+      ByteArrayOutputStream captured = new ByteArrayOutputStream();
+      System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+      int exitCode;
+      try {
+        exitCode = CliDaemonClient.send(socket, myLibDir, new String[] { "A" });
+      } finally {
+        System.setOut(out);
+      }
+      thread.join();
+
+      assertEquals(3, exitCode);
+      assertEquals(myLibDir.toAbsolutePath().toString(), received[0]);
+      assertEquals("A", received[1]);
+      assertEquals("out" + System.lineSeparator(), captured.toString(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.arend.frontend.library;
+
+import org.arend.ArendTestCase;
+import org.arend.core.definition.Definition;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.library.LibraryHeader;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.FileUtils;
+import org.arend.util.Range;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LibraryWatcherTest extends ArendTestCase {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final DependencyCollector myDependencyCollector = new DependencyCollector();
+  private Path mySourceDir;
+  private FileSourceLibrary myLibrary;
+  private LibraryWatcher myWatcher;
+  private TypecheckingOrderingListener myTypechecking;
+
+  private void writeModule(String module, String text) throws IOException {
+    Files.writeString(mySourceDir.resolve(module + FileUtils.EXTENSION), text);
+  }
+
+  private void load(String... modules) throws IOException {
+    List<ModulePath> modulePaths = new ArrayList<>();
+    for (String module : modules) {
+      modulePaths.add(new ModulePath(module));
+    }
+    myLibrary = new FileSourceLibrary("test", mySourceDir, null, new LibraryHeader(modulePaths, Collections.emptyList(), null, Range.unbound(), null, null), myDependencyCollector);
+    myTypechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, myDependencyCollector, PositionComparator.INSTANCE, ref -> null);
+    assertTrue(libraryManager.loadLibrary(myLibrary, myTypechecking));
+    myWatcher = new LibraryWatcher(libraryManager, myDependencyCollector);
+    myWatcher.addLibrary(myLibrary);
+    assertTrue(myTypechecking.typecheckLibrary(myLibrary));
+    assertTrue(errorList.toString(), errorList.isEmpty());
+  }
+
+  private TCDefReferable getRef(String module, String name) {
+    return getDef(myLibrary.getModuleScopeProvider().forModule(new ModulePath(module)), name);
+  }
+
+  private Definition getTypechecked(String module, String name) {
+    return getRef(module, name).getTypechecked();
+  }
+
+  @Test
+  public void onlyDependentsInvalidatedTest() throws IOException {
+    mySourceDir = folder.newFolder("src").toPath();
+    writeModule("A", "\\func f => 0\n\\func f' => 1\n");
+    writeModule("B", "\\import A\n\\func g => f\n\\func h => f'\n");
+    writeModule("C", "\\import B\n\\func k => h\n");
+    load("A", "B", "C");
+
+    Definition f1 = getTypechecked("A", "f'");
+    Definition h = getTypechecked("B", "h");
+    Definition k = getTypechecked("C", "k");
+
+    writeModule("A", "\\func f => 2\n\\func f' => 1\n");
+    assertEquals(new HashSet<>(Arrays.asList(new ModulePath("A"), new ModulePath("B"))), myWatcher.reload(myLibrary, Collections.singletonList(new ModulePath("A"))));
+    assertTrue(errorList.toString(), errorList.isEmpty());
+
+    assertNull(getTypechecked("A", "f"));
+    assertNull(getTypechecked("B", "g"));
+    assertSame(f1, getTypechecked("A", "f'"));
+    assertSame(h, getTypechecked("B", "h"));
+    assertSame(k, getTypechecked("C", "k"));
+
+    myTypechecking.typecheckModules(Arrays.asList(myLibrary.getModuleGroup(new ModulePath("A"), false), myLibrary.getModuleGroup(new ModulePath("B"), false)), null);
+    assertTrue(errorList.toString(), errorList.isEmpty());
+    assertNotNull(getTypechecked("A", "f"));
+    assertNotNull(getTypechecked("B", "g"));
+  }
+
+  @Test
+  public void transferredDefinitionTest() throws IOException {
+    mySourceDir = folder.newFolder("src").toPath();
+    writeModule("A", "\\func f => 0\n\\func g => f\n\\func h => 1\n");
+    load("A");
+
+    Definition g = getTypechecked("A", "g");
+    writeModule("A", "\\func f => 0\n\\func g => f\n\\func h => 2\n");
+    myWatcher.reload(myLibrary, Collections.singletonList(new ModulePath("A")));
+    assertTrue(errorList.toString(), errorList.isEmpty());
+    assertSame(g, getTypechecked("A", "g"));
+    assertSame(getRef("A", "g"), g.getRef());
+    myTypechecking.typecheckModules(Collections.singletonList(myLibrary.getModuleGroup(new ModulePath("A"), false)), null);
+    assertTrue(errorList.toString(), errorList.isEmpty());
+
+    // Dependencies of transferred definitions are recorded for the new referables
+    writeModule("A", "\\func f => 3\n\\func g => f\n\\func h => 2\n");
+    myWatcher.reload(myLibrary, Collections.singletonList(new ModulePath("A")));
+    assertTrue(errorList.toString(), errorList.isEmpty());
+    assertNull(getTypechecked("A", "f"));
+    assertNull(getTypechecked("A", "g"));
+    assertNotNull(getTypechecked("A", "h"));
+  }
+
+  @Test
+  public void desugaredDefinitionTest() throws IOException {
+    mySourceDir = folder.newFolder("src").toPath();
+    // Pattern lambdas are desugared in place during typechecking
+    writeModule("A", "\\func fst (p : \\Sigma Nat Nat) : Nat => (\\lam (a, b) => a) p\n\\func f => 0\n");
+    load("A");
+
+    Definition fst = getTypechecked("A", "fst");
+    writeModule("A", "\\func fst (p : \\Sigma Nat Nat) : Nat => (\\lam (a, b) => a) p\n\\func f => 1\n");
+    myWatcher.reload(myLibrary, Collections.singletonList(new ModulePath("A")));
+    assertTrue(errorList.toString(), errorList.isEmpty());
+
+    assertSame(fst, getTypechecked("A", "fst"));
+    assertNull(getTypechecked("A", "f"));
+  }
+}
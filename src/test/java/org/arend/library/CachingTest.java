@@ -1,11 +1,15 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
 import org.arend.ext.module.ModulePath;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
+import org.arend.source.StreamBinarySource;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.FingerprintOrdering;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -168,6 +172,156 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void unchangedDefinitionsRestored() {
+    FingerprintOrdering.setEnabled(true);
+    try {
+      library.addModule(new ModulePath("A"), """
+        \\func f : Nat => 0
+        \\func g : Nat => 1
+        \\func h : Nat => g""");
+      libraryManager.loadLibrary(library, null);
+      typechecking.typecheckLibrary(library);
+      library.persistUpdatedModules(errorReporter);
+      libraryManager.unloadLibrary(library);
+
+      library.updateModule(new ModulePath("A"), """
+        \\func f : Nat => 2
+        \\func g : Nat => 1
+        \\func h : Nat => g""", true);
+      libraryManager.loadLibrary(library, null);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+      assertThat(getDef(scope, "f").getTypechecked(), is(nullValue()));
+      assertThat(getDef(scope, "g").getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+      assertThat(getDef(scope, "h").getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+      assertEquals(1, loadedBinaryModules);
+
+      typechecking.typecheckLibrary(library);
+      library.persistUpdatedModules(errorReporter);
+      assertThat(getDef(scope, "f").getTypechecked(), is(notNullValue()));
+      assertThat(errorList, is(empty()));
+    } finally {
+      FingerprintOrdering.setEnabled(false);
+    }
+  }
+
+  @Test
+  public void changedKindNotRestored() {
+    FingerprintOrdering.setEnabled(true);
+    try {
+      // \sfunc is not printed, so the fingerprint must take the kind of a function into account
+      library.addModule(new ModulePath("A"), "\\func f : Nat => 0 \\func g : Nat => 1");
+      libraryManager.loadLibrary(library, null);
+      typechecking.typecheckLibrary(library);
+      library.persistUpdatedModules(errorReporter);
+      libraryManager.unloadLibrary(library);
+
+      library.updateModule(new ModulePath("A"), "\\sfunc f : Nat => 0 \\func g : Nat => 1", true);
+      libraryManager.loadLibrary(library, null);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+      assertThat(getDef(scope, "f").getTypechecked(), is(nullValue()));
+      assertThat(getDef(scope, "g").getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+
+      typechecking.typecheckLibrary(library);
+      assertThat(getDef(scope, "f").getTypechecked(), is(notNullValue()));
+      assertThat(errorList, is(empty()));
+    } finally {
+      FingerprintOrdering.setEnabled(false);
+    }
+  }
+
+  @Test
+  public void changedDependencyNotRestored() {
+    FingerprintOrdering.setEnabled(true);
+    try {
+      library.addModule(new ModulePath("A"), "\\func g : Nat => 1");
+      library.addModule(new ModulePath("B"), "\\import A \\func h : Nat => g \\func k : Nat => 2");
+      libraryManager.loadLibrary(library, null);
+      typechecking.typecheckLibrary(library);
+      library.persistUpdatedModules(errorReporter);
+      libraryManager.unloadLibrary(library);
+
+      library.updateModule(new ModulePath("A"), "\\func g : Nat => 3", true);
+      library.updateModule(new ModulePath("B"), "\\import A \\func h : Nat => g \\func k : Nat => 2", true);
+      libraryManager.loadLibrary(library, null);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("B"));
+      assertThat(getDef(scope, "h").getTypechecked(), is(nullValue()));
+      assertThat(getDef(scope, "k").getTypechecked().status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+
+      typechecking.typecheckLibrary(library);
+      assertThat(getDef(scope, "h").getTypechecked(), is(notNullValue()));
+      assertThat(errorList, is(empty()));
+    } finally {
+      FingerprintOrdering.setEnabled(false);
+    }
+  }
+
+  @Test
+  public void dependencyFromOtherModuleNotLoaded() {
+    library.addModule(new ModulePath("A"), "\\func g : Nat => 1");
+    library.addModule(new ModulePath("B"), "\\import A \\func h : Nat => g \\func k : Nat => 2");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    FingerprintOrdering.setEnabled(true);
+    try {
+      // The binary of B is persisted with fingerprints, but the binary of A is not
+      library.updateModule(new ModulePath("B"), "\\import A \\func h : Nat => g \\func k : Nat => 2", true);
+      libraryManager.loadLibrary(library, null);
+      typechecking.typecheckLibrary(library);
+      library.persistUpdatedModules(errorReporter);
+      libraryManager.unloadLibrary(library);
+
+      // g cannot be restored, so h cannot be restored either even though its fingerprint matches
+      library.updateModule(new ModulePath("A"), "\\func g : Nat => 1", true);
+      library.updateModule(new ModulePath("B"), "\\import A \\func h : Nat => g \\func k : Nat => 2", true);
+      libraryManager.loadLibrary(library, null);
+      assertThat(errorList, is(empty()));
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("B"));
+      assertThat(getDef(scope, "h").getTypechecked(), is(nullValue()));
+
+      typechecking.typecheckLibrary(library);
+      assertThat(getDef(scope, "h").getTypechecked(), is(notNullValue()));
+      assertThat(errorList, is(empty()));
+    } finally {
+      FingerprintOrdering.setEnabled(false);
+    }
+  }
+
+  @Test
+  public void lazyExternalProofs() {
+    library.addModule(new ModulePath("A"), """
+      \\func f (n : Nat) : Nat => suc n
+      \\lemma p : f 0 = 1 => idp
+      \\func q : \\Sigma => ()""");
+    libraryManager.loadLibrary(library, null);
+    typechecking.typecheckLibrary(library);
+    library.persistUpdatedModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    StreamBinarySource.setLazyExternalProofs(true);
+    library.setExternal(true);
+    try {
+      libraryManager.loadLibrary(library, null);
+      Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+      FunctionDefinition f = (FunctionDefinition) getDef(scope, "f").getTypechecked();
+      FunctionDefinition p = (FunctionDefinition) getDef(scope, "p").getTypechecked();
+      FunctionDefinition q = (FunctionDefinition) getDef(scope, "q").getTypechecked();
+      assertFalse(f.isBodyDeferred());
+      assertTrue(p.isBodyDeferred());
+      assertTrue(q.isBodyDeferred());
+      assertThat(q.getActualBody(), is(notNullValue()));
+      assertThat(p.getActualBody(), is(notNullValue()));
+      assertFalse(p.isBodyDeferred());
+      assertThat(errorList, is(empty()));
+    } finally {
+      StreamBinarySource.setLazyExternalProofs(false);
+      library.setExternal(false);
+    }
+  }
+
   /* These tests do not make sense with the current implementation of libraries.
   @Test
   public void removeRawSource() {
@@ -0,0 +1,117 @@
+package org.arend.library;
+
+import org.arend.ext.error.GeneralError;
+import org.arend.library.error.LibraryError;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class LibraryManagerTest extends LibraryTestCase {
+  private final Map<String, MemoryLibrary> myLibraries = new HashMap<>();
+  private final Map<String, Integer> myLoadCounts = new ConcurrentHashMap<>();
+  private final Map<String, Runnable> myBeforeLoading = new HashMap<>();
+  private final LibraryManager myManager = new LibraryManager((lib, name) -> myLibraries.get(name), new InstanceProviderSet(), errorReporter, errorReporter, DefinitionRequester.INSTANCE, null) {
+    @Override
+    protected void beforeLibraryLoading(Library library) {
+      myLoadCounts.merge(library.getName(), 1, Integer::sum);
+      Runnable action = myBeforeLoading.get(library.getName());
+      if (action != null) {
+        action.run();
+      }
+    }
+  };
+
+  private MemoryLibrary addLibrary(String name, String... dependencies) {
+    MemoryLibrary library = new MemoryLibrary(name, dependencies);
+    myLibraries.put(name, library);
+    return library;
+  }
+
+  @After
+  public void resetParallelism() {
+    myManager.setLoadingParallelism(1);
+  }
+
+  private boolean hasLibraryError(String message) {
+    for (GeneralError error : errorList) {
+      if (error instanceof LibraryError && error.message.equals(message)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void checkDiamond(int parallelism) {
+    myManager.setLoadingParallelism(parallelism);
+    MemoryLibrary a = addLibrary("A", "B", "C");
+    addLibrary("B", "D");
+    addLibrary("C", "D");
+    addLibrary("D");
+
+    assertTrue(myManager.loadLibrary(a, null));
+    assertTrue(errorList.isEmpty());
+    for (String name : Arrays.asList("A", "B", "C", "D")) {
+      assertTrue(myManager.isRegistered(myLibraries.get(name)));
+      assertEquals(Integer.valueOf(1), myLoadCounts.get(name));
+    }
+  }
+
+  @Test
+  public void diamond() {
+    checkDiamond(1);
+  }
+
+  @Test
+  public void diamondParallel() {
+    checkDiamond(4);
+  }
+
+  @Test
+  public void cycle() {
+    MemoryLibrary a = addLibrary("A", "B");
+    addLibrary("B", "C");
+    addLibrary("C", "A");
+
+    myManager.loadLibrary(a, null);
+    assertTrue(hasLibraryError("Cyclic dependencies in libraries"));
+    for (Integer count : myLoadCounts.values()) {
+      assertEquals(Integer.valueOf(1), count);
+    }
+  }
+
+  @Test
+  public void cycleParallel() {
+    myManager.setLoadingParallelism(4);
+    MemoryLibrary a = addLibrary("A", "B", "C");
+    addLibrary("B", "A");
+    addLibrary("C", "A");
+
+    myManager.loadLibrary(a, null);
+    assertTrue(hasLibraryError("Cyclic dependencies in libraries"));
+  }
+
+  @Test
+  public void unloadDuringLoading() {
+    MemoryLibrary a = addLibrary("A", "B");
+    MemoryLibrary b = addLibrary("B");
+    myBeforeLoading.put("B", myManager::unload);
+    myBeforeLoading.put("A", () -> myManager.unloadLibrary(b));
+
+    assertTrue(myManager.loadLibrary(a, null));
+    assertTrue(hasLibraryError("Cannot unload a library while loading other libraries"));
+    assertTrue(myManager.isRegistered(a));
+    assertTrue(myManager.isRegistered(b));
+    assertTrue(b.isLoaded());
+
+    errorList.clear();
+    myManager.unload();
+    assertTrue(errorList.isEmpty());
+    assertFalse(myManager.isRegistered(a));
+    assertFalse(b.isLoaded());
+  }
+}
@@ -14,11 +14,19 @@ import java.util.*;
 public class MemoryLibrary extends PersistableSourceLibrary {
   private final Map<ModulePath, MemoryRawSource> myRawSources = new LinkedHashMap<>();
   private final Map<ModulePath, MemoryBinarySource> myBinarySources = new LinkedHashMap<>();
+  private final List<LibraryDependency> myDependencies = new ArrayList<>();
 
   protected MemoryLibrary() {
     super("test_library");
   }
 
+  protected MemoryLibrary(String name, String... dependencies) {
+    super(name);
+    for (String dependency : dependencies) {
+      myDependencies.add(new LibraryDependency(dependency));
+    }
+  }
+
   public ChildGroup getModuleGroup(ModulePath modulePath) {
     return getModuleGroup(modulePath, false);
   }
@@ -38,7 +46,7 @@ public class MemoryLibrary extends PersistableSourceLibrary {
   @Nullable
   @Override
   protected LibraryHeader loadHeader(ErrorReporter errorReporter) {
-    return new LibraryHeader(myRawSources.keySet(), Collections.emptyList(), null, Range.unbound(), null, null);
+    return new LibraryHeader(myRawSources.keySet(), myDependencies, null, Range.unbound(), null, null);
   }
 
   public void addModule(ModulePath module, String text) {
@@ -61,7 +69,7 @@ public class MemoryLibrary extends PersistableSourceLibrary {
   @NotNull
   @Override
   public List<? extends LibraryDependency> getDependencies() {
-    return Collections.emptyList();
+    return myDependencies;
   }
 
   @Override
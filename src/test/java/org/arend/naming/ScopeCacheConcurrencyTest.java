@@ -0,0 +1,191 @@
+package org.arend.naming;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.module.scopeprovider.CachingModuleScopeProvider;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.CachingScope;
+import org.arend.naming.scope.Scope;
+import org.arend.naming.scope.ScopeFactory;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.instance.provider.SimpleInstanceProvider;
+import org.arend.util.ComputingCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class ScopeCacheConcurrencyTest extends NameResolverTestCase {
+  private static final int THREADS = 8;
+  private static final int KEYS = 200;
+
+  private static class TestScope implements Scope {
+    @Override
+    public @Nullable Referable find(Predicate<Referable> pred) {
+      return null;
+    }
+  }
+
+  private static <T> List<Map<Integer, T>> runConcurrently(IntFunction<T> function) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Map<Integer, T>>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        long seed = t;
+        futures.add(executor.submit(() -> {
+          List<Integer> keys = new ArrayList<>();
+          for (int i = 0; i < KEYS; i++) {
+            keys.add(i);
+          }
+          Collections.shuffle(keys, new Random(seed));
+          start.await();
+          Map<Integer, T> results = new HashMap<>();
+          for (int key : keys) {
+            results.put(key, function.apply(key));
+          }
+          return results;
+        }));
+      }
+      start.countDown();
+      List<Map<Integer, T>> results = new ArrayList<>();
+      for (Future<Map<Integer, T>> future : futures) {
+        results.add(future.get(30, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static <T> void assertSameResults(List<Map<Integer, T>> results) {
+    for (int i = 0; i < KEYS; i++) {
+      for (Map<Integer, T> map : results) {
+        assertSame(results.get(0).get(i), map.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void moduleScopesAreComputedOnce() throws Exception {
+    Map<ModulePath, AtomicInteger> counters = new ConcurrentHashMap<>();
+    CachingModuleScopeProvider provider = new CachingModuleScopeProvider(module -> {
+      counters.computeIfAbsent(module, k -> new AtomicInteger()).incrementAndGet();
+      Thread.yield();
+      return module.getLastName().hashCode() % 3 == 0 ? null : new TestScope();
+    });
+
+    List<Map<Integer, Scope>> results = runConcurrently(i -> provider.forModule(new ModulePath("M" + i)));
+    assertSameResults(results);
+    assertEquals(KEYS, counters.size());
+    for (AtomicInteger counter : counters.values()) {
+      assertEquals(1, counter.get());
+    }
+  }
+
+  @Test
+  public void namespacesAreComputedOnce() throws Exception {
+    Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    Scope scope = CachingScope.make(new TestScope() {
+      @Override
+      public @Nullable Scope resolveNamespace(@NotNull String name, boolean onlyInternal) {
+        counters.computeIfAbsent(name + onlyInternal, k -> new AtomicInteger()).incrementAndGet();
+        Thread.yield();
+        return name.hashCode() % 3 == 0 ? null : new TestScope();
+      }
+    });
+
+    List<Map<Integer, Scope>> results = runConcurrently(i -> scope.resolveNamespace("N" + (i / 2), i % 2 == 0));
+    assertSameResults(results);
+    assertEquals(KEYS, counters.size());
+    for (AtomicInteger counter : counters.values()) {
+      assertEquals(1, counter.get());
+    }
+  }
+
+  @Test
+  public void instancesAreCollectedOnce() throws Exception {
+    resolveNamesModule(
+      "\\class C (X : \\Type)\n" +
+      "\\instance I1 : C Nat\n" +
+      "\\instance I2 : C Int\n" +
+      "\\func f => 0");
+    Scope parentScope = CachingScope.make(ScopeFactory.parentScopeForGroup(lastGroup, moduleScopeProvider, true));
+    TCReferable function = get("f");
+    List<InstanceProviderSet> sets = new ArrayList<>();
+    List<AtomicInteger> collected = new ArrayList<>();
+    for (int i = 0; i < KEYS; i++) {
+      sets.add(new InstanceProviderSet());
+      collected.add(new AtomicInteger());
+    }
+
+    // Providers must be visible as soon as collectInstances returns, even if another thread has collected them
+    List<Map<Integer, Integer>> results = runConcurrently(i -> {
+      if (sets.get(i).collectInstances(lastGroup, parentScope, IdReferableConverter.INSTANCE)) {
+        collected.get(i).incrementAndGet();
+      }
+      SimpleInstanceProvider provider = (SimpleInstanceProvider) sets.get(i).get(function);
+      return provider == null ? -1 : provider.getInstances().size();
+    });
+    for (int i = 0; i < KEYS; i++) {
+      assertEquals(1, collected.get(i).get());
+      for (Map<Integer, Integer> map : results) {
+        assertEquals(Integer.valueOf(2), map.get(i));
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void recursiveComputation() {
+    ComputingCache<Integer, Integer> cache = new ComputingCache<>();
+    cache.computeIfAbsent(0, new Function<>() {
+      @Override
+      public Integer apply(Integer key) {
+        return cache.computeIfAbsent(key, this);
+      }
+    });
+  }
+
+  @Test
+  public void crossThreadCycle() throws Exception {
+    ComputingCache<Integer, Integer> cache = new ComputingCache<>();
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < 2; t++) {
+        int key = t;
+        futures.add(executor.submit(() -> cache.computeIfAbsent(key, k -> {
+          try {
+            barrier.await();
+          } catch (InterruptedException | BrokenBarrierException e) {
+            throw new RuntimeException(e);
+          }
+          return cache.computeIfAbsent(1 - k, k2 -> 0);
+        })));
+      }
+      // The thread that closes the cycle fails; the other one may compute both values then
+      int failed = 0;
+      for (Future<Integer> future : futures) {
+        try {
+          assertEquals(Integer.valueOf(0), future.get(30, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof IllegalStateException);
+          failed++;
+        }
+      }
+      assertTrue(failed > 0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
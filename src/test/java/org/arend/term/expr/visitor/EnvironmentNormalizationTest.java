@@ -0,0 +1,11 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.junit.Before;
+
+public class EnvironmentNormalizationTest extends NormalizationTest {
+  @Before
+  public void useEnvironmentNormalizer() {
+    normalizer = NormalizeVisitor.ENVIRONMENT_INSTANCE;
+  }
+}
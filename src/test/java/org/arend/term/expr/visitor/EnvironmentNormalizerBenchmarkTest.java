@@ -0,0 +1,74 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link NormalizeVisitor#INSTANCE} with {@link NormalizeVisitor#ENVIRONMENT_INSTANCE} on deep unfoldings.
+ * Both normalizers must produce the same result; the best time of each is reported.
+ */
+public class EnvironmentNormalizerBenchmarkTest extends TypeCheckingTestCase {
+  private static final int ITERATIONS = 20;
+
+  @Before
+  public void initialize() {
+    typeCheckModule(
+      """
+      \\func nelim (z : Nat) (s : Nat -> Nat -> Nat) (x : Nat) : Nat \\elim x
+        | zero => z
+        | suc x => s x (nelim z s x)
+      \\func swap (n x y : Nat) : Nat \\elim n
+        | zero => x
+        | suc n => swap n y x
+      \\func compose (n : Nat) (f : Nat -> Nat) : Nat -> Nat \\elim n
+        | zero => f
+        | suc n => \\lam x => compose n f (f x)
+      \\func count => nelim 0 (\\lam _ r => suc r) 1000
+      \\func unused => swap 1001 (nelim 0 (\\lam _ r => suc r) 1000) 0
+      \\func deep => compose 500 suc 0
+      """);
+  }
+
+  private static long measure(NormalizeVisitor normalizer, Expression expr, NormalizationMode mode) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = System.nanoTime();
+      expr.accept(normalizer, mode);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private void compare(String name, NormalizationMode mode) {
+    Expression expr = (Expression) ((FunctionDefinition) getDefinition(name)).getBody();
+    assertEquals(expr.accept(NormalizeVisitor.INSTANCE, mode), expr.accept(NormalizeVisitor.ENVIRONMENT_INSTANCE, mode));
+    long substitution = measure(NormalizeVisitor.INSTANCE, expr, mode);
+    long environment = measure(NormalizeVisitor.ENVIRONMENT_INSTANCE, expr, mode);
+    System.out.println(name + " (" + mode + "): NormalizeVisitor " + substitution / 1000 + " us, EnvironmentNormalizer " + environment / 1000 + " us");
+  }
+
+  @Test
+  public void count() {
+    compare("count", NormalizationMode.WHNF);
+    compare("count", NormalizationMode.NF);
+  }
+
+  @Test
+  public void unusedArgument() {
+    compare("unused", NormalizationMode.WHNF);
+    compare("unused", NormalizationMode.NF);
+  }
+
+  @Test
+  public void deepComposition() {
+    compare("deep", NormalizationMode.WHNF);
+    compare("deep", NormalizationMode.NF);
+  }
+}
@@ -0,0 +1,73 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.ReferenceExpression;
+import org.arend.core.expr.visitor.MemoryEstimateVisitor;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryEstimateTest extends TypeCheckingTestCase {
+  @Test
+  public void referenceTest() {
+    assertEquals(16, MemoryEstimateVisitor.getBytes(Ref(new TypedBinding("x", Nat()))));
+  }
+
+  @Test
+  public void appTest() {
+    Binding f = new TypedBinding("f", Pi(Nat(), Nat()));
+    Binding x = new TypedBinding("x", Nat());
+    assertEquals(24 + 16 + 16, MemoryEstimateVisitor.getBytes(Apps(Ref(f), Ref(x))));
+  }
+
+  @Test
+  public void sharedSubtermTest() {
+    Binding f = new TypedBinding("f", Pi(Nat(), Pi(Nat(), Nat())));
+    ReferenceExpression x = Ref(new TypedBinding("x", Nat()));
+    Expression shared = Apps(Ref(f), x, x);
+    Expression copied = Apps(Ref(f), x, Ref(new TypedBinding("x", Nat())));
+    assertEquals(MemoryEstimateVisitor.getBytes(copied) - 16, MemoryEstimateVisitor.getBytes(shared));
+  }
+
+  @Test
+  public void attributedToFirstTest() {
+    Binding f = new TypedBinding("f", Pi(Nat(), Nat()));
+    Expression arg = Apps(Ref(f), Ref(new TypedBinding("x", Nat())));
+    Expression expr = Apps(Ref(f), arg);
+
+    MemoryEstimateVisitor visitor = new MemoryEstimateVisitor();
+    arg.accept(visitor, null);
+    long argBytes = visitor.getBytes();
+    assertEquals(MemoryEstimateVisitor.getBytes(arg), argBytes);
+    expr.accept(visitor, null);
+    assertEquals(MemoryEstimateVisitor.getBytes(expr), visitor.getBytes());
+    assertEquals(24 + 16, visitor.getBytes() - argBytes);
+    expr.accept(visitor, null);
+    assertEquals(MemoryEstimateVisitor.getBytes(expr), visitor.getBytes());
+  }
+
+  @Test
+  public void definitionTest() {
+    typeCheckModule(
+      "\\func f (x : Nat) => x\n" +
+      "\\func g (x : Nat) => x Nat.+ x Nat.+ x Nat.+ x");
+    long f = MemoryEstimateVisitor.getBytes(getDefinition("f"));
+    long g = MemoryEstimateVisitor.getBytes(getDefinition("g"));
+    assertTrue(f > 0);
+    assertTrue(g > f);
+  }
+
+  @Test
+  public void constructorsTest() {
+    typeCheckModule(
+      "\\data D | a\n" +
+      "\\data E | b | c (Nat -> Nat) | d Nat Nat");
+    assertTrue(MemoryEstimateVisitor.getBytes(getDefinition("E")) > MemoryEstimateVisitor.getBytes(getDefinition("D")));
+  }
+}
@@ -55,6 +55,28 @@ public class MinimizationTest extends TypeCheckingTestCase {
                 "\\func test : \\Sigma (D 1) (C {2} 1) => (d, c)", "\\Sigma (D 1) (C {2} 1)");
     }
 
+    @Test
+    public void testIndependentErrors() {
+        checkType("\\data C {y : Nat} (x : Nat) | c\n" +
+                "\\func test : \\Sigma (C {2} 1) (C {3} 1) => (c, c)", "\\Sigma (C {2} 1) (C {3} 1)");
+    }
+
+    @Test
+    public void testIndependentErrorsInOneRound() {
+        typeCheckModule("\\data C {y : Nat} (x : Nat) | c\n" +
+                "\\func test : \\Sigma (C {2} 1) (C {3} 1) (C {4} 1) => (c, c, c)");
+        var type = ((FunctionDefinition) getDefinition("test")).getTypeWithParams(new ArrayList<>(), LevelPair.STD);
+        // All errors are fixed in the first round and the second round finds none; fixing them one by one would require four rounds
+        var minimizedConcrete = MinimizedRepresentation.generateMinimizedRepresentation(type, null, null, null, 2);
+        assertEquals("\\Sigma (C {2} 1) (C {3} 1) (C {4} 1)", minimizedConcrete.toString());
+    }
+
+    @Test
+    public void testSameErrors() {
+        checkType("\\data C {y : Nat} (x : Nat) | c\n" +
+                "\\func test : \\Sigma (C {2} 1) (C {2} 1) (C {0} 1) => (c, c, c)", "\\Sigma (C {2} 1) (C {2} 1) (C {0} 1)");
+    }
+
     @Test
     public void testFunction() {
         checkType("\\func D {A : \\Type} (x : A) : \\Type => x = x\n" +
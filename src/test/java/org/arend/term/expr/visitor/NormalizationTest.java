@@ -8,6 +8,7 @@ import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.LetClause;
+import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelPair;
@@ -31,6 +32,7 @@ import static org.arend.term.concrete.ConcreteExpressionFactory.*;
 import static org.junit.Assert.assertEquals;
 
 public class NormalizationTest extends TypeCheckingTestCase {
+  protected NormalizeVisitor normalizer = NormalizeVisitor.INSTANCE;
   private FunctionDefinition plus;
   private FunctionDefinition mul;
   private FunctionDefinition fac;
@@ -64,7 +66,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     // normalize( (\x.x) (suc zero) ) = suc zero
     SingleDependentLink x = singleParam("x", Nat());
     Expression expr = Apps(Lam(x, Ref(x)), Suc(Zero()));
-    assertEquals(Suc(Zero()), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Zero()), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -74,7 +76,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     SingleDependentLink y = singleParam("y", Nat());
     SingleDependentLink z = singleParam("z", Nat());
     Expression expr = Apps(Lam(x, Lam(y, Ref(x))), Suc(Zero()));
-    assertEquals(Lam(z, Suc(Zero())), expr.normalize(NormalizationMode.NF));
+    assertEquals(Lam(z, Suc(Zero())), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -84,7 +86,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     SingleDependentLink y = singleParam("y", Nat());
     SingleDependentLink z = singleParam("z", Nat());
     Expression expr = Apps(Lam(x, Lam(y, Ref(y))), Suc(Zero()));
-    assertEquals(Lam(z, Ref(z)), expr.normalize(NormalizationMode.NF));
+    assertEquals(Lam(z, Ref(z)), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -94,7 +96,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     SingleDependentLink xy = singleParam(true, vars("x", "y"), Nat());
     SingleDependentLink z = singleParam("z", Nat());
     Expression expr = Apps(Lam(xy, Ref(xy)), Suc(Ref(var0)));
-    assertEquals(Lam(z, Suc(Ref(var0))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Lam(z, Suc(Ref(var0))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -102,7 +104,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     // normalize( N-elim (suc zero) (\x. suc x) 0 ) = suc zero
     SingleDependentLink x = singleParam("x", Nat());
     Expression expr = FunCall(nelim, Levels.EMPTY, Suc(Zero()), Lam(x, Suc(Ref(x))), Zero());
-    assertEquals(Suc(Zero()), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Zero()), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -112,7 +114,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     SingleDependentLink x = singleParam("x", Nat());
     SingleDependentLink y = singleParam("y", Nat());
     Expression expr = FunCall(nelim, Levels.EMPTY, Suc(Zero()), Lam(x, Lam(y, Apps(Ref(var0), Ref(y)))), Suc(Zero()));
-    assertEquals(Apps(Ref(var0), Suc(Zero())), expr.normalize(NormalizationMode.NF));
+    assertEquals(Apps(Ref(var0), Suc(Zero())), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -122,7 +124,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     SingleDependentLink x = singleParam("x", Nat());
     Expression arg = Apps(Lam(x, Ref(x)), Zero());
     Expression expr = FunCall(nelim, Levels.EMPTY, Suc(Zero()), Ref(var0), arg);
-    Expression result = expr.normalize(NormalizationMode.NF);
+    Expression result = expr.accept(normalizer, NormalizationMode.NF);
     assertEquals(Suc(Zero()), result);
   }
 
@@ -130,49 +132,49 @@ public class NormalizationTest extends TypeCheckingTestCase {
   public void normalizePlus0a3() {
     // normalize (plus 0 3) = 3
     Expression expr = FunCall(plus, Levels.EMPTY, Zero(), Suc(Suc(Suc(Zero()))));
-    assertEquals(Suc(Suc(Suc(Zero()))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Suc(Suc(Zero()))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizePlus3a0() {
     // normalize (plus 3 0) = 3
     Expression expr = FunCall(plus, Levels.EMPTY, Suc(Suc(Suc(Zero()))), Zero());
-    assertEquals(Suc(Suc(Suc(Zero()))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Suc(Suc(Zero()))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizePlus3a3() {
     // normalize (plus 3 3) = 6
     Expression expr = FunCall(plus, Levels.EMPTY, Suc(Suc(Suc(Zero()))), Suc(Suc(Suc(Zero()))));
-    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Zero())))))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Zero())))))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizeMul3a0() {
     // normalize (mul 3 0) = 0
     Expression expr = FunCall(mul, Levels.EMPTY, Suc(Suc(Suc(Zero()))), Zero());
-    assertEquals(Zero(), expr.normalize(NormalizationMode.NF));
+    assertEquals(Zero(), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizeMul0a3() {
     // normalize (mul 0 3) = 0
     Expression expr = FunCall(mul, Levels.EMPTY, Zero(), Suc(Suc(Suc(Zero()))));
-    assertEquals(Zero(), expr.normalize(NormalizationMode.NF));
+    assertEquals(Zero(), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizeMul3a3() {
     // normalize (mul 3 3) = 9
     Expression expr = FunCall(mul, Levels.EMPTY, Suc(Suc(Suc(Zero()))), Suc(Suc(Suc(Zero()))));
-    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Zero()))))))))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Suc(Zero()))))))))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void normalizeFac3() {
     // normalize (fac 3) = 6
     Expression expr = FunCall(fac, Levels.EMPTY, Suc(Suc(Suc(Zero()))));
-    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Zero())))))), expr.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Suc(Suc(Suc(Suc(Suc(Zero())))))), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -183,7 +185,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     Concrete.LetClause xClause = clet(x, cZero());
     Concrete.LetClause yClause = clet(y, cSuc());
     TypecheckingResult result = typeCheckExpr(cLet(clets(xClause), cLet(clets(yClause), cApps(cVar(y), cVar(x)))), null);
-    assertEquals(Suc(Zero()), result.expression.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Zero()), result.expression.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -194,7 +196,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     Concrete.LetClause xClause = clet(x, cSuc());
     Concrete.LetClause yClause = clet(y, cZero());
     TypecheckingResult result = typeCheckExpr(cLet(clets(xClause), cLet(clets(yClause), cApps(cVar(x), cVar(y)))), null);
-    assertEquals(Suc(Zero()), result.expression.normalize(NormalizationMode.NF));
+    assertEquals(Suc(Zero()), result.expression.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -202,7 +204,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     // normalize (\let | x (y z : N) => zero \in x zero) = \lam (z : N) => zero
     TypecheckingResult result = typeCheckExpr("\\let x (y z : Nat) => 0 \\in x 0", null);
     SingleDependentLink x = singleParam("x", Nat());
-    assertEquals(Lam(x, Zero()), result.expression.normalize(NormalizationMode.NF));
+    assertEquals(Lam(x, Zero()), result.expression.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -210,7 +212,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     List<Binding> context = new ArrayList<>();
     context.add(new TypedBinding("n", Nat()));
     TypecheckingResult result = typeCheckExpr(context, "\\case n \\with { zero => zero | suc _ => zero }", Nat());
-    assertEquals(result.expression, result.expression.normalize(NormalizationMode.NF));
+    assertEquals(result.expression, result.expression.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -220,7 +222,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
     LocalReferable x = ref("x");
     Concrete.LetClause xClause = clet(x, cargs(cTele(cvars(y), cNat())), cUniverseInf(2), cUniverseStd(0));
     TypecheckingResult result = typeCheckExpr(cLet(clets(xClause), cApps(cVar(x), cZero())), null);
-    assertEquals(Universe(new Level(0), new Level(LevelVariable.HVAR)), result.expression.normalize(NormalizationMode.NF));
+    assertEquals(Universe(new Level(0), new Level(LevelVariable.HVAR)), result.expression.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -230,13 +232,13 @@ public class NormalizationTest extends TypeCheckingTestCase {
         "\\data D | d Nat\n" +
         "\\func test (x : D) : Nat | _ => 0");
     FunctionDefinition test = (FunctionDefinition) getDefinition("test");
-    assertEquals(Zero(), FunCall(test, Levels.EMPTY, Ref(var0)).normalize(NormalizationMode.NF));
+    assertEquals(Zero(), FunCall(test, Levels.EMPTY, Ref(var0)).accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void letNormalizationContext() {
     LetClause let = let("x", Zero());
-    let(lets(let), Ref(let)).normalize(NormalizationMode.NF);
+    let(lets(let), Ref(let)).accept(normalizer, NormalizationMode.NF);
   }
 
   @Test
@@ -270,7 +272,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
         Ref(f), Ref(g),
         Ref(linv), Ref(rinv),
         Left());
-    assertEquals(Ref(A), iso_expr.normalize(NormalizationMode.NF));
+    assertEquals(Ref(A), iso_expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -296,7 +298,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
         Ref(f), Ref(g),
         Ref(linv), Ref(rinv),
         Right());
-    assertEquals(Ref(B), iso_expr.normalize(NormalizationMode.NF));
+    assertEquals(Ref(B), iso_expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -328,7 +330,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
         Lam(k, iso_expr),
         Ref(aleft),
         Right());
-    assertEquals(Apps(Ref(f), Ref(aleft)), expr.normalize(NormalizationMode.NF));
+    assertEquals(Apps(Ref(f), Ref(aleft)), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -367,14 +369,14 @@ public class NormalizationTest extends TypeCheckingTestCase {
             Ref(k))),
         Ref(aleft),
         Right());
-    assertEquals(expr, expr.normalize(NormalizationMode.NF));
+    assertEquals(expr, expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
   public void testAppProj() {
     SingleDependentLink x = singleParam("x", Nat());
     Expression expr = Apps(ProjExpression.make(Tuple(new SigmaExpression(Sort.SET0, param("_", Pi(Nat(), Nat()))), Lam(x, Ref(x))), 0, false), Zero());
-    assertEquals(Zero(), expr.normalize(NormalizationMode.NF));
+    assertEquals(Zero(), expr.accept(normalizer, NormalizationMode.NF));
   }
 
   @Test
@@ -388,7 +390,7 @@ public class NormalizationTest extends TypeCheckingTestCase {
       \\func f (n : Nat) (x : Fin n) => fsuc $ x
       """);
     FunctionDefinition f = (FunctionDefinition) getDefinition("f");
-    Expression term = ((Expression) Objects.requireNonNull(f.getBody())).normalize(NormalizationMode.NF);
+    Expression term = ((Expression) Objects.requireNonNull(f.getBody())).accept(normalizer, NormalizationMode.NF);
     ConCallExpression conCall = term.cast(ConCallExpression.class);
     assertEquals(getDefinition("fsuc"), conCall.getDefinition());
     assertEquals(1, conCall.getDefCallArguments().size());
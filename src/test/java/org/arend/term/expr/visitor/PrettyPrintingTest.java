@@ -13,6 +13,9 @@ import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.prettyprinting.PrettyPrinterConfig;
 import org.arend.ext.prettyprinting.PrettyPrinterConfigImpl;
 import org.arend.ext.prettyprinting.PrettyPrinterFlag;
+import org.arend.ext.prettyprinting.doc.Doc;
+import org.arend.ext.prettyprinting.doc.DocStringBuilder;
+import org.arend.ext.prettyprinting.doc.DocWriter;
 import org.arend.ext.reference.Precedence;
 import org.arend.naming.reference.ConcreteLocatedReferable;
 import org.arend.naming.reference.GlobalReferable;
@@ -34,6 +37,7 @@ import java.util.function.Function;
 
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
+import static org.arend.ext.prettyprinting.doc.DocFactory.*;
 import static org.arend.term.concrete.ConcreteExpressionFactory.*;
 import static org.junit.Assert.*;
 
@@ -368,4 +372,73 @@ public class PrettyPrintingTest extends TypeCheckingTestCase {
   public void lamPatternsTest4() {
     testLamPatterns("\\lam n m => n");
   }
+
+  private void testDocWriter(Doc doc) {
+    StringBuilder builder = new StringBuilder();
+    DocWriter.write(builder, doc);
+    assertEquals(DocStringBuilder.build(doc), builder.toString());
+  }
+
+  @Test
+  public void docWriterTest() {
+    testDocWriter(vList(
+      hang(text("abc"), vList(text("x"), text("y"))),
+      hang(text("abcdefgh"), vList(text("x"), hang(text("y"), text("z")))),
+      hang(vList(text("a"), text("b")), text("c")),
+      hang(nullDoc(), text("d")),
+      text("e")));
+  }
+
+  @Test
+  public void docWriterTermTest() {
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat \\elim n\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => f n\n" +
+      "\\func g => \\lam (x y : Nat) => f (f (f x)) Nat.+ \\case y \\with { | 0 => 1 | suc _ => 2 }");
+    FunctionDefinition g = (FunctionDefinition) getDefinition("g");
+    testDocWriter(vList(hang(text("Expression:"), termDoc((Expression) g.getBody(), PrettyPrinterConfig.DEFAULT)), termDoc(g.getResultType(), PrettyPrinterConfig.DEFAULT)));
+  }
+
+  @Test
+  public void docWriterMultilineTermTest() {
+    typeCheckModule(
+      "\\func f (n : Nat) : Nat => n\n" +
+      "\\func g (x : Nat) => \\case x \\with { | 0 => f (f (f (f (f (f (f (f x))))))) Nat.+ f (f (f (f (f (f (f (f x))))))) Nat.+ f (f (f (f (f (f (f (f x))))))) Nat.+ f (f (f (f x))) | suc y => y }");
+    FunctionDefinition g = (FunctionDefinition) getDefinition("g");
+    Doc body = termDoc((Expression) g.getBody(), PrettyPrinterConfig.DEFAULT);
+    testDocWriter(vList(hang(text("Expression:"), body), hang(text("In:"), hang(text("x"), body)), body));
+  }
+
+  private static final String LONG_DEFINITION =
+    """
+      \\func f (x : Nat) : Nat \\elim x
+        | 0 => 0
+        | suc x => f (f (f (f (f (f (f (f x))))))) Nat.+ f (f (f (f (f (f (f (f x))))))) Nat.+ f (f (f (f (f (f (f (f x)))))))
+      """;
+
+  private static String printDefinition(Concrete.Definition definition, int maxLength) {
+    StringBuilder output = new StringBuilder();
+    PrettyPrintVisitor visitor = new PrettyPrintVisitor(output, 0, maxLength);
+    definition.accept(visitor, null);
+    visitor.flush();
+    return output.toString();
+  }
+
+  @Test
+  public void streamingVisitorTest() {
+    Concrete.Definition def = (Concrete.Definition) ((ConcreteLocatedReferable) resolveNamesDef(LONG_DEFINITION)).getDefinition();
+    StringBuilder expected = new StringBuilder();
+    def.accept(new PrettyPrintVisitor(expected, 0), null);
+    assertEquals(expected.toString(), printDefinition(def, PrettyPrintVisitor.MAX_LEN));
+  }
+
+  @Test
+  public void pageWidthTest() {
+    Concrete.Definition def = (Concrete.Definition) ((ConcreteLocatedReferable) resolveNamesDef(LONG_DEFINITION)).getDefinition();
+    String wide = printDefinition(def, 1000);
+    String narrow = printDefinition(def, 40);
+    assertTrue(narrow.lines().count() > wide.lines().count());
+    assertEquals(wide.replaceAll("\\s+", " "), narrow.replaceAll("\\s+", " "));
+  }
 }
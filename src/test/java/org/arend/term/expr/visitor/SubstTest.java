@@ -1,16 +1,27 @@
 package org.arend.term.expr.visitor;
 
 import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.LevelVariable;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
-import org.arend.core.expr.Expression;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Level;
+import org.arend.core.subst.Levels;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +129,59 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  @Test
+  public void substSkipsClosedSubtrees() {
+    // A z (Nat -> Nat) [z := zero] = A zero (Nat -> Nat)
+    DependentLink z = param("z", Nat());
+    Binding A = new TypedBinding("A", Pi(Nat(), Pi(Universe(0), Universe(0))));
+    Expression closed = Pi(Nat(), Nat());
+    Expression result = Apps(Ref(A), Ref(z), closed).subst(z, Zero());
+    assertEquals(Apps(Ref(A), Zero(), closed), result);
+    assertSame(closed, ((AppExpression) result).getArgument());
+  }
+
+  @Test
+  public void substCopiesSubtreesWithLevels() {
+    // A z (Nat -> \Type \lp \lh) [z := zero]; the second argument may be changed in place by a level substitution, so it is not shared
+    DependentLink z = param("z", Nat());
+    Binding A = new TypedBinding("A", Pi(Nat(), Pi(Universe(0), Universe(0))));
+    Expression withLevels = Pi(Nat(), Universe(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR)));
+    Expression result = Apps(Ref(A), Ref(z), withLevels).subst(z, Zero());
+    assertEquals(Apps(Ref(A), Zero(), withLevels), result);
+    assertNotSame(withLevels, ((AppExpression) result).getArgument());
+  }
+
+  @Test
+  public void substSkipsUnrelatedSubtrees() {
+    // A (B x) z [z := zero] = A (B x) zero
+    DependentLink z = param("z", Nat());
+    Binding A = new TypedBinding("A", Pi(Nat(), Pi(Nat(), Nat())));
+    Binding B = new TypedBinding("B", Pi(Nat(), Nat()));
+    Binding x = new TypedBinding("x", Nat());
+    Expression unrelated = Apps(Ref(B), Ref(x));
+    Expression result = Apps(Ref(A), unrelated, Ref(z)).subst(z, Zero());
+    assertEquals(Apps(Ref(A), unrelated, Zero()), result);
+    if ((unrelated.getSummary() & ExpressionSummary.getBloomBit(z)) == 0) {
+      assertSame(unrelated, ((AppExpression) ((AppExpression) result).getFunction()).getArgument());
+    }
+  }
+
+  @Test
+  public void substUpdatedClassCall() {
+    // \Pi (R) -> Nat [z := zero], where R { | f => z } is implemented after the summary of the Pi was computed
+    typeCheckModule("\\record R (f g : Nat)");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("R");
+    ClassField field = classDef.getPersonalFields().get(0);
+    Map<ClassField, Expression> implementations = new LinkedHashMap<>();
+    ClassCallExpression classCall = new ClassCallExpression(classDef, Levels.EMPTY, implementations, classDef.getSort(), classDef.getUniverseKind());
+    PiExpression expr = Pi(classCall, Nat());
+    DependentLink z = param("z", Nat());
+    assertEquals(0, expr.getSummary() & ExpressionSummary.getBloomBit(z));
+
+    implementations.put(field, Ref(z));
+    assertNotEquals(0, expr.getSummary() & ExpressionSummary.getBloomBit(z));
+    Expression result = expr.subst(z, Zero());
+    assertEquals(Zero(), ((ClassCallExpression) ((PiExpression) result).getParameters().getTypeExpr()).getAbsImplementationHere(field));
+  }
 }
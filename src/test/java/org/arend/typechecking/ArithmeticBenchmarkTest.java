@@ -0,0 +1,93 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.BigIntegerExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.IntegerExpression;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the {@code long} fast path for Prelude arithmetic with the {@link BigInteger} path.
+ * Each workload is evaluated twice with the same operations: once starting from 1, so that every intermediate value fits in a {@code long},
+ * and once starting from 2^64, so that every intermediate value is a {@link BigIntegerExpression}.
+ */
+public class ArithmeticBenchmarkTest extends TypeCheckingTestCase {
+  private static final int ITERATIONS = 50;
+  private static final BigInteger BIG = BigInteger.ONE.shiftLeft(64);
+
+  @Before
+  public void initialize() {
+    typeCheckModule(
+      """
+      \\open Nat
+      \\func fac (a n : Nat) : Nat \\elim n
+        | 0 => a
+        | suc n => fac (suc n * a) n
+      \\func fib (a b n : Nat) : Nat \\elim n
+        | 0 => a
+        | suc n => fib b (a + b) n
+      \\func facLong => fac 1 20
+      \\func facBig => fac 18446744073709551616 20
+      \\func fibLong => fib 0 1 90
+      \\func fibBig => fib 0 18446744073709551616 90
+      """);
+  }
+
+  private Expression getBody(String name) {
+    return (Expression) ((FunctionDefinition) getDefinition(name)).getBody();
+  }
+
+  private static long measure(Expression expr) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = System.nanoTime();
+      expr.normalize(NormalizationMode.WHNF);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private void compare(String name, BigInteger expected) {
+    Expression longExpr = getBody(name + "Long");
+    Expression bigExpr = getBody(name + "Big");
+    Expression longResult = longExpr.normalize(NormalizationMode.WHNF);
+    Expression bigResult = bigExpr.normalize(NormalizationMode.WHNF);
+    assertTrue(longResult instanceof IntegerExpression);
+    assertTrue(bigResult instanceof IntegerExpression);
+    assertEquals(expected, ((IntegerExpression) longResult).getBigInteger());
+    assertEquals(expected.multiply(BIG), ((IntegerExpression) bigResult).getBigInteger());
+
+    long longTime = measure(longExpr);
+    long bigTime = measure(bigExpr);
+    System.out.println(name + ": long " + longTime / 1000 + " us, BigInteger " + bigTime / 1000 + " us");
+    assertTrue(name + ": the long path (" + longTime + " ns) is more than twice slower than the BigInteger path (" + bigTime + " ns)", longTime <= 2 * bigTime);
+  }
+
+  @Test
+  public void factorial() {
+    BigInteger expected = BigInteger.ONE;
+    for (int i = 2; i <= 20; i++) {
+      expected = expected.multiply(BigInteger.valueOf(i));
+    }
+    compare("fac", expected);
+  }
+
+  @Test
+  public void fibonacci() {
+    BigInteger a = BigInteger.ZERO;
+    BigInteger b = BigInteger.ONE;
+    for (int i = 0; i < 90; i++) {
+      BigInteger c = a.add(b);
+      a = b;
+      b = c;
+    }
+    compare("fib", a);
+  }
+}
@@ -0,0 +1,94 @@
+package org.arend.typechecking;
+
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.CachingScope;
+import org.arend.naming.scope.MergeScope;
+import org.arend.naming.scope.ScopeFactory;
+import org.arend.prelude.PreludeLibrary;
+import org.arend.typechecking.result.TypecheckingResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.junit.Assert.*;
+
+public class BatchTypecheckingTest extends TypeCheckingTestCase {
+  private List<BatchTypechecking.Result> typecheckBatch(int parallelism, String... texts) {
+    resolveNamesModule("\\func f (n : Nat) : Nat => suc n");
+    BatchTypechecking batch = new BatchTypechecking(typechecking, new MergeScope(lastGroup.getGroupScope(), PreludeLibrary.getPreludeScope()), null, null);
+    batch.setParallelism(parallelism);
+    List<BatchTypechecking.Result> results = batch.typecheck(Stream.of(texts).map(this::parseExpr), null);
+    assertNotNull(results);
+    assertEquals(texts.length, results.size());
+    assertNotNull(getDef(lastGroup.getGroupScope(), "f").getTypechecked());
+    return results;
+  }
+
+  private void checkResults(List<BatchTypechecking.Result> results) {
+    for (int i = 0; i < results.size(); i++) {
+      TypecheckingResult result = results.get(i).result();
+      if (i % 3 == 2) {
+        assertNull(result);
+        assertFalse(results.get(i).errors().isEmpty());
+      } else {
+        assertNotNull(result);
+        assertEquals(Nat(), result.type);
+        assertTrue(results.get(i).errors().isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void resultsInOrder() {
+    checkResults(typecheckBatch(4, "f 1", "suc (f 0)", "g 0", "f (f 2)", "f 0", "f f"));
+  }
+
+  @Test
+  public void resultsInOrderSequential() {
+    checkResults(typecheckBatch(1, "f 1", "suc (f 0)", "g 0", "f (f 2)", "f 0", "f f"));
+  }
+
+  @Test
+  public void classesAndInstancesConcurrently() {
+    resolveNamesModule(
+      "\\class C (X : \\Set0) | op : X -> X -> X\n" +
+      "\\record R (a b : Nat)\n" +
+      "\\instance NatC : C Nat | op => Nat.+\n" +
+      "\\func g {A : C} (x : A) : A => op x x\n" +
+      "\\func h (r : R) : Nat => suc r.a\n" +
+      "\\func context => 0");
+    typechecking.getInstanceProviderSet().collectInstances(lastGroup, CachingScope.make(ScopeFactory.parentScopeForGroup(lastGroup, moduleScopeProvider, true)), IdReferableConverter.INSTANCE);
+
+    String[] templates = { "op 1 2", "g 3", "h (\\new R 1 2)", "R.a (\\new R 1 2)", "\\new C Nat (\\lam x y => x)", "C Nat", "g (op 4 5)" };
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      texts.add(templates[i % templates.length]);
+    }
+
+    List<List<BatchTypechecking.Result>> allResults = new ArrayList<>();
+    for (int parallelism : new int[] { 8, 1 }) {
+      try (BatchTypechecking batch = new BatchTypechecking(typechecking, new MergeScope(lastGroup.getGroupScope(), PreludeLibrary.getPreludeScope()), getDef(lastGroup.getGroupScope(), "context"), null)) {
+        batch.setParallelism(parallelism);
+        List<BatchTypechecking.Result> results = batch.typecheck(texts.stream().map(this::parseExpr), null);
+        assertNotNull(results);
+        assertEquals(texts.size(), results.size());
+        allResults.add(results);
+      }
+    }
+
+    // Concurrent results must coincide with sequential ones
+    for (int i = 0; i < texts.size(); i++) {
+      BatchTypechecking.Result parallel = allResults.get(0).get(i);
+      BatchTypechecking.Result sequential = allResults.get(1).get(i);
+      assertTrue(parallel.errors().isEmpty());
+      assertTrue(sequential.errors().isEmpty());
+      assertNotNull(parallel.result());
+      assertNotNull(sequential.result());
+      assertEquals(sequential.result().expression.toString(), parallel.result().expression.toString());
+      assertEquals(sequential.result().type.toString(), parallel.result().type.toString());
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package org.arend.typechecking;
+
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.junit.Before;
+
+public class EnvironmentEvaluationTest extends EvaluationTest {
+  @Before
+  public void useEnvironmentNormalizer() {
+    normalizer = NormalizeVisitor.ENVIRONMENT_INSTANCE;
+  }
+}
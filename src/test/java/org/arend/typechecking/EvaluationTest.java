@@ -2,8 +2,11 @@ package org.arend.typechecking;
 
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.BigIntegerExpression;
+import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.TupleExpression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.junit.Test;
 
@@ -12,8 +15,11 @@ import java.math.BigInteger;
 import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class EvaluationTest extends TypeCheckingTestCase {
+  protected NormalizeVisitor normalizer = NormalizeVisitor.INSTANCE;
+
   @Test
   public void evalPlus() {
     typeCheckModule(
@@ -21,9 +27,9 @@ public class EvaluationTest extends TypeCheckingTestCase {
       "\\func f1 => 20 + 36\n" +
       "\\func f2 => 0 + 23\n" +
       "\\func f3 => 11 + 0");
-    assertEquals(new SmallIntegerExpression(56), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(23), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(11), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).normalize(NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(56), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(23), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(11), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).accept(normalizer, NormalizationMode.WHNF));
   }
 
   @Test
@@ -36,12 +42,12 @@ public class EvaluationTest extends TypeCheckingTestCase {
       "\\func f4 => 1 * 23\n" +
       "\\func f5 => 11 * 1\n" +
       "\\func f6 => 100000 * 100000");
-    assertEquals(new SmallIntegerExpression(720), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(0), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(0), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(23), ((Expression) ((FunctionDefinition) getDefinition("f4")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new SmallIntegerExpression(11), ((Expression) ((FunctionDefinition) getDefinition("f5")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(new BigIntegerExpression(BigInteger.valueOf(100000).multiply(BigInteger.valueOf(100000))), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).normalize(NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(720), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(0), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(0), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(23), ((Expression) ((FunctionDefinition) getDefinition("f4")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(11), ((Expression) ((FunctionDefinition) getDefinition("f5")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new BigIntegerExpression(BigInteger.valueOf(100000).multiply(BigInteger.valueOf(100000))), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).accept(normalizer, NormalizationMode.WHNF));
   }
 
   @Test
@@ -55,12 +61,72 @@ public class EvaluationTest extends TypeCheckingTestCase {
       "\\func f5 => 11 - 1\n" +
       "\\func f6 => 1 - 23\n" +
       "\\func f7 => 100000 - 100000");
-    assertEquals(Pos(new SmallIntegerExpression(16)), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Neg(new SmallIntegerExpression(16)), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Pos(new SmallIntegerExpression(11)), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Neg(new SmallIntegerExpression(23)), ((Expression) ((FunctionDefinition) getDefinition("f4")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Pos(new SmallIntegerExpression(10)), ((Expression) ((FunctionDefinition) getDefinition("f5")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Neg(new SmallIntegerExpression(22)), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).normalize(NormalizationMode.WHNF));
-    assertEquals(Pos(new SmallIntegerExpression(0)),  ((Expression) ((FunctionDefinition) getDefinition("f7")).getBody()).normalize(NormalizationMode.WHNF));
+    assertEquals(Pos(new SmallIntegerExpression(16)), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Neg(new SmallIntegerExpression(16)), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Pos(new SmallIntegerExpression(11)), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Neg(new SmallIntegerExpression(23)), ((Expression) ((FunctionDefinition) getDefinition("f4")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Pos(new SmallIntegerExpression(10)), ((Expression) ((FunctionDefinition) getDefinition("f5")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Neg(new SmallIntegerExpression(22)), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Pos(new SmallIntegerExpression(0)),  ((Expression) ((FunctionDefinition) getDefinition("f7")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+  }
+
+  @Test
+  public void evalNested() {
+    typeCheckModule(
+      "\\open Nat\n" +
+      "\\func f1 => (100000 * 100000 + 7) mod 1000\n" +
+      "\\func f2 => 12345678901 div 1000\n" +
+      "\\func f3 => Fin.fromNat {4} (suc (3 * 5) + 1)\n" +
+      "\\func f4 => 4294967296 * 4294967296 * 2\n" +
+      "\\func f5 => 100000 * 100000 - 100000 * 100001\n" +
+      "\\func f6 => (100000 * 100000 + 3) divMod 100000");
+    assertEquals(new SmallIntegerExpression(7), ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(12345678), ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(2), ((Expression) ((FunctionDefinition) getDefinition("f3")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new BigIntegerExpression(BigInteger.ONE.shiftLeft(65)), ((Expression) ((FunctionDefinition) getDefinition("f4")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(Neg(new SmallIntegerExpression(100000)), ((Expression) ((FunctionDefinition) getDefinition("f5")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    Expression divMod = ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).accept(normalizer, NormalizationMode.WHNF);
+    assertEquals(new SmallIntegerExpression(100000), ((TupleExpression) divMod).getFields().get(0));
+    assertEquals(new SmallIntegerExpression(3), ((TupleExpression) divMod).getFields().get(1));
+  }
+
+  @Test
+  public void evalNestedStuck() {
+    typeCheckModule(
+      "\\open Nat\n" +
+      "\\axiom a : Nat\n" +
+      "\\func g (n : Nat) : Nat | 0 => 0 | suc n => g n\n" +
+      "\\func f1 => 1 + ((g a + 2) + 1)\n" +
+      "\\func f2 => (2 * 3 + g a) mod (4 + 1)\n" +
+      "\\func e1 => suc (suc (suc (1 + g a)))\n" +
+      "\\func e2 => (6 + g a) mod 5");
+    Expression expected1 = ((Expression) ((FunctionDefinition) getDefinition("e1")).getBody()).accept(normalizer, NormalizationMode.NF);
+    Expression actual1 = ((Expression) ((FunctionDefinition) getDefinition("f1")).getBody()).accept(normalizer, NormalizationMode.NF);
+    assertEquals(expected1, actual1);
+    assertTrue(actual1 instanceof ConCallExpression);
+    Expression expected2 = ((Expression) ((FunctionDefinition) getDefinition("e2")).getBody()).accept(normalizer, NormalizationMode.NF);
+    assertEquals(expected2, ((Expression) ((FunctionDefinition) getDefinition("f2")).getBody()).accept(normalizer, NormalizationMode.NF));
+  }
+
+  @Test
+  public void evalManyConstructors() {
+    typeCheckModule(
+      "\\data D | c0 | c1 | c2 | c3 | c4 | c5\n" +
+      "\\func f (d : D) (n : Nat) : Nat\n" +
+      "  | c0, n => n\n" +
+      "  | c3, 0 => 7\n" +
+      "  | c3, suc n => f c3 n\n" +
+      "  | c5, suc (suc n) => n\n" +
+      "  | _, _ => 1\n" +
+      "\\func g1 => f c3 5\n" +
+      "\\func g2 => f c5 10\n" +
+      "\\func g3 => f c4 10\n" +
+      "\\func g4 => f c5 1\n" +
+      "\\func g5 => f c0 3");
+    assertEquals(new SmallIntegerExpression(7), ((Expression) ((FunctionDefinition) getDefinition("g1")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(8), ((Expression) ((FunctionDefinition) getDefinition("g2")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(1), ((Expression) ((FunctionDefinition) getDefinition("g3")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(1), ((Expression) ((FunctionDefinition) getDefinition("g4")).getBody()).accept(normalizer, NormalizationMode.WHNF));
+    assertEquals(new SmallIntegerExpression(3), ((Expression) ((FunctionDefinition) getDefinition("g5")).getBody()).accept(normalizer, NormalizationMode.WHNF));
   }
 }
@@ -0,0 +1,62 @@
+package org.arend.typechecking;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.expr.DataCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.TypeCache;
+import org.arend.core.sort.Level;
+import org.arend.core.subst.InPlaceLevelSubstVisitor;
+import org.arend.core.subst.LevelPair;
+import org.arend.core.subst.SimpleLevelSubstitution;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.*;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.*;
+
+public class TypeCacheTest extends TypeCheckingTestCase {
+  @Before
+  public void startTypeCache() {
+    TypeCache.setEnabled(true);
+    TypeCache.start();
+  }
+
+  @After
+  public void finishTypeCache() {
+    TypeCache.finish();
+    TypeCache.setEnabled(false);
+  }
+
+  @Test
+  public void cachedTest() {
+    Binding f = new TypedBinding("f", Pi(Nat(), Nat()));
+    Expression expr = Apps(Ref(f), Zero());
+    assertSame(expr.getType(), expr.getType());
+  }
+
+  @Test
+  public void finalizationTest() {
+    typeCheckModule("\\data D (n : Nat) | con");
+    DataDefinition dataDef = (DataDefinition) getDefinition("D");
+    SingleDependentLink x = singleParam("x", Nat());
+    Binding f = new TypedBinding("f", Pi(x, DataCall(dataDef, new LevelPair(new Level(LevelVariable.PVAR), new Level(LevelVariable.HVAR)), Ref(x))));
+    Expression expr = Apps(Ref(f), Zero());
+
+    Expression before = expr.getType();
+    assertEquals(LevelVariable.PVAR, ((DataCallExpression) before).getLevels().toLevelPair().get(LevelVariable.PVAR).getVar());
+
+    SimpleLevelSubstitution substitution = new SimpleLevelSubstitution();
+    substitution.add(LevelVariable.PVAR, new Level(0));
+    substitution.add(LevelVariable.HVAR, new Level(0));
+    f.getTypeExpr().accept(new InPlaceLevelSubstVisitor(substitution), null);
+
+    Expression after = expr.getType();
+    assertEquals(DataCall(dataDef, new LevelPair(new Level(0), new Level(0)), Zero()), after);
+  }
+}
@@ -0,0 +1,17 @@
+package org.arend.typechecking;
+
+import org.arend.core.expr.visitor.TypeCache;
+import org.junit.After;
+import org.junit.Before;
+
+public class TypeCacheTypeCheckingTest extends TypeCheckingTest {
+  @Before
+  public void enableTypeCache() {
+    TypeCache.setEnabled(true);
+  }
+
+  @After
+  public void disableTypeCache() {
+    TypeCache.setEnabled(false);
+  }
+}
@@ -0,0 +1,83 @@
+package org.arend.typechecking;
+
+import org.arend.ext.userData.Key;
+import org.arend.extImpl.userData.UserDataHolderImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserDataTrailTest {
+  private static final Key<Integer> NUMBER = new Key<>("number");
+  private static final Key<List<Integer>> LIST = new Key<>("list") {
+    @Override
+    public List<Integer> copy(List<Integer> value) {
+      return new ArrayList<>(value);
+    }
+  };
+
+  @Test
+  public void rollbackPut() {
+    UserDataHolderImpl holder = new UserDataHolderImpl();
+    holder.putUserData(NUMBER, 1);
+    int checkpoint = holder.checkpointUserData();
+    holder.putUserData(NUMBER, 2);
+    holder.putUserData(NUMBER, 3);
+    holder.putUserData(LIST, new ArrayList<>());
+    assertEquals(Integer.valueOf(3), holder.getUserData(NUMBER));
+    holder.rollbackUserData(checkpoint);
+    holder.releaseUserData();
+    assertEquals(Integer.valueOf(1), holder.getUserData(NUMBER));
+    assertNull(holder.getUserData(LIST));
+  }
+
+  @Test
+  public void rollbackInPlace() {
+    UserDataHolderImpl holder = new UserDataHolderImpl();
+    List<Integer> list = new ArrayList<>(Arrays.asList(1, 2));
+    holder.putUserData(LIST, list);
+    int checkpoint = holder.checkpointUserData();
+    assertSame(list, holder.getUserData(LIST));
+    list.add(3);
+    assertSame(list, holder.getUserData(LIST));
+    holder.rollbackUserData(checkpoint);
+    assertEquals(Arrays.asList(1, 2), holder.getUserData(LIST));
+
+    // The checkpoint is still active after a rollback
+    holder.getUserData(LIST).add(4);
+    holder.rollbackUserData(checkpoint);
+    holder.releaseUserData();
+    assertEquals(Arrays.asList(1, 2), holder.getUserData(LIST));
+  }
+
+  @Test
+  public void nestedCheckpoints() {
+    UserDataHolderImpl holder = new UserDataHolderImpl();
+    holder.putUserData(LIST, new ArrayList<>(List.of(0)));
+    int outer = holder.checkpointUserData();
+    holder.putUserData(NUMBER, 1);
+    holder.getUserData(LIST).add(1);
+
+    int inner = holder.checkpointUserData();
+    holder.putUserData(NUMBER, 2);
+    holder.getUserData(LIST).add(2);
+    holder.rollbackUserData(inner);
+    assertEquals(Integer.valueOf(1), holder.getUserData(NUMBER));
+    assertEquals(Arrays.asList(0, 1), holder.getUserData(LIST));
+
+    holder.putUserData(NUMBER, 3);
+    holder.getUserData(LIST).add(3);
+    holder.releaseUserData();
+    assertEquals(Integer.valueOf(3), holder.getUserData(NUMBER));
+    assertEquals(Arrays.asList(0, 1, 3), holder.getUserData(LIST));
+
+    // Changes of a released checkpoint are undone by the enclosing one
+    holder.rollbackUserData(outer);
+    holder.releaseUserData();
+    assertNull(holder.getUserData(NUMBER));
+    assertEquals(List.of(0), holder.getUserData(LIST));
+  }
+}
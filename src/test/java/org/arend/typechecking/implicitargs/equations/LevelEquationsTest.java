@@ -0,0 +1,86 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LevelEquationsTest {
+  private static LevelEquations<String> equations(String... vars) {
+    LevelEquations<String> equations = new LevelEquations<>();
+    for (String var : vars) {
+      equations.addVariable(var);
+    }
+    return equations;
+  }
+
+  @Test
+  public void solutionTest() {
+    LevelEquations<String> equations = equations("x", "y", "z");
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("y", "z", -2));
+    equations.addEquation(new LevelEquation<>("x", "z", -1));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Map.of("x", 0, "y", -1, "z", -3), solution);
+  }
+
+  @Test
+  public void infinityTest() {
+    LevelEquations<String> equations = equations("x", "y");
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("x"));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Map.of("x", LevelEquations.INFINITY, "y", LevelEquations.INFINITY), solution);
+  }
+
+  @Test
+  public void cycleTest() {
+    LevelEquation<String> e1 = new LevelEquation<>("x", "y", -1);
+    LevelEquation<String> e2 = new LevelEquation<>("y", "x", 0);
+    LevelEquations<String> equations = equations("x", "y");
+    equations.addEquation(e1);
+    equations.addEquation(e2);
+    assertEquals(Arrays.asList(e1, e2, e1, e2, e1), equations.solve(new HashMap<>()));
+  }
+
+  @Test
+  public void cycleReversedTest() {
+    LevelEquation<String> e1 = new LevelEquation<>("x", "y", -1);
+    LevelEquation<String> e2 = new LevelEquation<>("y", "x", 0);
+    LevelEquations<String> equations = equations("x", "y");
+    equations.addEquation(e2);
+    equations.addEquation(e1);
+    assertEquals(Arrays.asList(e1, e2, e1, e2), equations.solve(new HashMap<>()));
+  }
+
+  @Test
+  public void constantCycleTest() {
+    LevelEquation<String> e1 = new LevelEquation<>("y", "x", -1);
+    LevelEquation<String> e2 = new LevelEquation<>("x", null, 0);
+    LevelEquations<String> equations = equations("x", "y");
+    equations.addEquation(e2);
+    equations.addEquation(e1);
+    assertEquals(Arrays.asList(e1, e2), equations.solve(new HashMap<>()));
+  }
+
+  @Test
+  public void removeCycleTest() {
+    LevelEquation<String> e1 = new LevelEquation<>("x", "y", -1);
+    LevelEquation<String> e2 = new LevelEquation<>("y", "x", 0);
+    LevelEquations<String> equations = equations("x", "y");
+    equations.addEquation(e1);
+    equations.addEquation(e2);
+    equations.removeEquations(equation -> equation == e2);
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Map.of("x", 0, "y", -1), solution);
+    assertEquals(Collections.singletonList(e1), equations.getEquations());
+  }
+}
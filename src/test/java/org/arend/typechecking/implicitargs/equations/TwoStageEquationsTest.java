@@ -0,0 +1,96 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.expr.type.Type;
+import org.arend.core.subst.LevelSubstitution;
+import org.arend.ext.core.ops.CMP;
+import org.arend.ext.error.GeneralError;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.error.local.SolveEquationsError;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.junit.Test;
+
+import static org.arend.ExpressionFactory.Ref;
+import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TwoStageEquationsTest extends TypeCheckingTestCase {
+  private final CheckTypeVisitor myVisitor = new CheckTypeVisitor(localErrorReporter, null, null);
+  private final TwoStageEquations myEquations = (TwoStageEquations) myVisitor.getEquations();
+  private final Binding myBinding = new TypedBinding("n", Nat());
+
+  // Equations between Fin types are removed by solveEquations
+  private void addSolvableEquations(int number) {
+    for (int i = 0; i < number; i++) {
+      myEquations.addEquation(Fin(Ref(myBinding)), Fin(Ref(myBinding)), Type.OMEGA, CMP.EQ, null, null, null);
+    }
+  }
+
+  private void addStuckEquation() {
+    myEquations.addEquation(Ref(myBinding), Zero(), Nat(), CMP.EQ, null, null, null);
+  }
+
+  private void checkRemainingEquations(int expected) {
+    myEquations.finalizeEquations(LevelSubstitution.EMPTY, null);
+    assertEquals(1, errorList.size());
+    GeneralError error = errorList.get(0);
+    assertTrue(error instanceof SolveEquationsError);
+    assertEquals(expected, ((SolveEquationsError) error).equations.size());
+  }
+
+  @Test
+  public void solveInCheckpoint() {
+    myVisitor.withCurrentState(tc -> {
+      addSolvableEquations(20);
+      addStuckEquation();
+      myEquations.solveEquations();
+      // The list is compacted while the checkpoint is active
+      myEquations.solveEquations();
+      addSolvableEquations(3);
+      myEquations.solveEquations();
+      return null;
+    });
+    checkRemainingEquations(1);
+  }
+
+  @Test
+  public void rollbackAfterCompaction() {
+    myVisitor.withCurrentState(tc -> {
+      addSolvableEquations(20);
+      addStuckEquation();
+      tc.updateSavedState();
+      myEquations.solveEquations();
+      myEquations.solveEquations();
+      addSolvableEquations(3);
+      addStuckEquation();
+      tc.loadSavedState();
+      return null;
+    });
+    checkRemainingEquations(21);
+  }
+
+  @Test
+  public void nestedRollback() {
+    myVisitor.withCurrentState(tc -> {
+      addSolvableEquations(10);
+      addStuckEquation();
+      myEquations.solveEquations();
+      tc.updateSavedState();
+      myVisitor.withCurrentState(tc2 -> {
+        addSolvableEquations(30);
+        myEquations.solveEquations();
+        myEquations.solveEquations();
+        addStuckEquation();
+        tc2.loadSavedState();
+        return null;
+      });
+      addStuckEquation();
+      myEquations.solveEquations();
+      tc.loadSavedState();
+      return null;
+    });
+    checkRemainingEquations(1);
+  }
+}
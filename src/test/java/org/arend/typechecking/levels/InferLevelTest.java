@@ -475,4 +475,13 @@ public class InferLevelTest extends TypeCheckingTestCase {
       """, 1);
     assertThatErrorsAre(typeMismatchError());
   }
+
+  @Test
+  public void longChainTest() {
+    typeCheckModule("""
+      \\func id {A : \\Type} (a : A) => a
+      \\func test => id (id (id (id (id (id (id (id (id (id Nat)))))))))
+      \\func test2 : \\Set0 => test
+      """);
+  }
 }
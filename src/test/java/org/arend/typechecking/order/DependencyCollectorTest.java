@@ -0,0 +1,82 @@
+package org.arend.typechecking.order;
+
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DependencyCollectorTest extends TypeCheckingTestCase {
+  private final DependencyCollector collector = new DependencyCollector();
+
+  private void typecheckWithCollector(String text) {
+    resolveNamesModule(text);
+    assertTrue(new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, collector, PositionComparator.INSTANCE, ref -> null).typecheckModules(Collections.singletonList(lastGroup), null));
+    assertTrue(errorList.isEmpty());
+  }
+
+  @Test
+  public void batchUpdate() {
+    typecheckWithCollector("""
+      \\func f => 0
+      \\func g => 1
+      \\func h => f
+      \\func k => g
+      \\func l => h
+      \\func m => 2""");
+    Set<? extends TCReferable> updated = collector.update(Arrays.asList(get("f"), get("g")));
+    assertEquals(new HashSet<>(Arrays.asList(get("f"), get("g"), get("h"), get("k"), get("l"))), updated);
+    assertNull(getDef(lastGroup.getGroupScope(), "l").getTypechecked());
+    assertNotNull(getDef(lastGroup.getGroupScope(), "m").getTypechecked());
+    assertEquals(1, collector.getUpdateCount());
+    assertEquals(5, collector.getInvalidatedCount());
+  }
+
+  @Test
+  public void sharedDependentsAreCountedOnce() {
+    typecheckWithCollector("""
+      \\func f => 0
+      \\func g => 1
+      \\func h => (f, g)""");
+    Set<? extends TCReferable> updated = collector.update(Arrays.asList(get("f"), get("g")));
+    assertEquals(3, updated.size());
+    assertTrue(collector.update(get("h")).isEmpty());
+    assertEquals(3, collector.getInvalidatedCount());
+  }
+
+  @Test
+  public void concurrentDependencies() throws InterruptedException {
+    typecheckWithCollector("""
+      \\func f => 0
+      \\func g => 1
+      \\func h => 2""");
+    TCReferable f = get("f");
+    List<TCReferable> dependents = Arrays.asList(get("g"), get("h"));
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      TCReferable dependent = dependents.get(i % dependents.size());
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 1000; j++) {
+          collector.dependsOn(dependent, f);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(Collections.singleton(f), collector.getDependencies(get("g")));
+    assertEquals(new HashSet<>(Arrays.asList(f, get("g"), get("h"))), collector.update(f));
+  }
+}
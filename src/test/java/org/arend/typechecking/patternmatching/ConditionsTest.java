@@ -8,6 +8,7 @@ import org.arend.core.expr.*;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.core.subst.Levels;
 import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.error.local.ConditionsError;
 import org.arend.typechecking.error.local.HigherConstructorMatchingError;
 import org.arend.util.SingletonList;
 import org.junit.Test;
@@ -17,6 +18,7 @@ import java.util.Objects;
 
 import static org.arend.Matchers.*;
 import static org.arend.core.expr.ExpressionFactory.*;
+import static org.junit.Assert.assertEquals;
 
 public class ConditionsTest extends TypeCheckingTestCase {
   @Test
@@ -444,4 +446,43 @@ public class ConditionsTest extends TypeCheckingTestCase {
       "  | con _ => 0\n" +
       "  | pathCon _ _ _ => 0");
   }
+
+  @Test
+  public void errorsOrderTest() {
+    typeCheckModule(
+      "\\data D | a | b | c Nat { zero => a } | d Nat { zero => b }\n" +
+      "\\func f (x : D) : Nat\n" +
+      "  | a => 0\n" +
+      "  | b => 1\n" +
+      "  | c _ => 2\n" +
+      "  | d _ => 3", 2);
+    assertEquals("2", ((ConditionsError) errorList.get(0)).condition2.result.toString());
+    assertEquals("3", ((ConditionsError) errorList.get(1)).condition2.result.toString());
+  }
+
+  private String manyConditionsModule() {
+    StringBuilder builder = new StringBuilder("\\data D | a");
+    for (int i = 1; i <= ConditionsChecking.MIN_PARALLEL_CHECKS + 4; i++) {
+      builder.append(" | c").append(i).append(" Nat { zero => a }");
+    }
+    builder.append("\n\\func f (x : D) : Nat\n  | a => 0");
+    for (int i = 1; i <= ConditionsChecking.MIN_PARALLEL_CHECKS + 4; i++) {
+      builder.append("\n  | c").append(i).append(" _ => ").append(i % 2 == 0 ? 0 : i);
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void parallelErrorsOrderTest() {
+    int errors = (ConditionsChecking.MIN_PARALLEL_CHECKS + 4 + 1) / 2;
+    ConditionsChecking.setParallelism(4);
+    try {
+      typeCheckModule(manyConditionsModule(), errors);
+    } finally {
+      ConditionsChecking.setParallelism(1);
+    }
+    for (int i = 0; i < errors; i++) {
+      assertEquals(Integer.toString(2 * i + 1), ((ConditionsError) errorList.get(i)).condition2.result.toString());
+    }
+  }
 }